@@ -0,0 +1,70 @@
+package vec.engine.impl;
+
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClass;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.platform.engine.UniqueId;
+import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import vec.engine.annotations.Dockerized;
+import vec.engine.impl.descriptors.DockerEngineDescriptor;
+
+/** the walks of the discovered tree done by the engine descriptor before the tests are run */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DescriptorTreeBenchmark {
+  @Param({"10", "100"})
+  int classes;
+
+  @Param({"10", "100"})
+  int methodsPerClass;
+
+  @Param({"1", "64"})
+  int containers;
+
+  private DockerEngineDescriptor engineDescriptor;
+
+  @Setup(Level.Trial)
+  public void discoverTree() {
+    var syntheticTestClasses = SyntheticTestClasses.generate(classes, methodsPerClass, containers);
+    engineDescriptor =
+        (DockerEngineDescriptor)
+            new DockerEngine()
+                .discover(
+                    LauncherDiscoveryRequestBuilder.request()
+                        .selectors(
+                            syntheticTestClasses.getTestClasses().stream()
+                                .map(testClass -> selectClass(testClass))
+                                .collect(Collectors.toList()))
+                        .build(),
+                    UniqueId.forEngine("docker-engine"));
+  }
+
+  @Benchmark
+  public Map<String, Dockerized.ContainerInfo> getAllContainerInfo() {
+    return engineDescriptor.getAllContainerInfo();
+  }
+
+  @Benchmark
+  public Map<String, List<String>> getAllTestMethodsByContainerName() {
+    return engineDescriptor.getAllTestMethodsByContainerName();
+  }
+}
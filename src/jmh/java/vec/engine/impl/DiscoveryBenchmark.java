@@ -0,0 +1,89 @@
+package vec.engine.impl;
+
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClass;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClasspathRoots;
+
+import java.nio.file.Files;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.platform.engine.TestDescriptor;
+import org.junit.platform.engine.UniqueId;
+import org.junit.platform.launcher.LauncherDiscoveryRequest;
+import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link DockerEngine#discover} of synthetic classes selected one by one, and of the classpath root
+ * containing them, that is scanned by the {@link DockerizedClassIndex}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DiscoveryBenchmark {
+  @Param({"10", "100"})
+  int classes;
+
+  @Param({"10", "100"})
+  int methodsPerClass;
+
+  private final DockerEngine engine = new DockerEngine();
+  private final UniqueId engineId = UniqueId.forEngine("docker-engine");
+  private ClassLoader originalClassLoader;
+  private LauncherDiscoveryRequest classesRequest;
+  private LauncherDiscoveryRequest classpathRootRequest;
+
+  @Setup(Level.Trial)
+  public void generateClasses() throws Exception {
+    var syntheticTestClasses = SyntheticTestClasses.generate(classes, methodsPerClass, 8);
+    // the index reads the class files of the annotations with the default class loader
+    originalClassLoader = Thread.currentThread().getContextClassLoader();
+    Thread.currentThread().setContextClassLoader(syntheticTestClasses.getClassLoader());
+
+    var workDirectory = Files.createTempDirectory("docker-engine-benchmark").toString();
+    classesRequest =
+        LauncherDiscoveryRequestBuilder.request()
+            .selectors(
+                syntheticTestClasses.getTestClasses().stream()
+                    .map(testClass -> selectClass(testClass))
+                    .collect(Collectors.toList()))
+            .configurationParameter(DockerEngineConfiguration.WORK_DIR_PROPERTY_NAME, workDirectory)
+            .build();
+    classpathRootRequest =
+        LauncherDiscoveryRequestBuilder.request()
+            .selectors(selectClasspathRoots(Set.of(syntheticTestClasses.getClasspathRoot())))
+            .configurationParameter(DockerEngineConfiguration.WORK_DIR_PROPERTY_NAME, workDirectory)
+            .build();
+  }
+
+  @TearDown(Level.Trial)
+  public void restoreClassLoader() {
+    Thread.currentThread().setContextClassLoader(originalClassLoader);
+  }
+
+  @Benchmark
+  public TestDescriptor discoverClasses() {
+    return engine.discover(classesRequest, engineId);
+  }
+
+  /** the summaries of the class files are cached after the first invocation */
+  @Benchmark
+  public TestDescriptor discoverClasspathRoot() {
+    return engine.discover(classpathRootRequest, engineId);
+  }
+}
@@ -0,0 +1,93 @@
+package vec.engine.impl;
+
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClass;
+import static org.junit.platform.launcher.EngineFilter.includeEngines;
+
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.platform.launcher.Launcher;
+import org.junit.platform.launcher.LauncherDiscoveryRequest;
+import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
+import org.junit.platform.launcher.core.LauncherFactory;
+import org.junit.platform.launcher.listeners.SummaryGeneratingListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import vec.helpers.StubContainerRuntime;
+import vec.helpers.StubRuntimeProvider;
+
+/**
+ * a whole run of the engine through the launcher, from the discovery to the report of the results,
+ * with the {@link StubContainerRuntime} answering every run at once. The score is the time per
+ * test, so it is the overhead of the engine for every dockerized test.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DispatchBenchmark {
+  private static final int TESTS = 200;
+
+  @Param({"per_method", "launcher_agent", "batch"})
+  String executionMode;
+
+  @Param({"false", "true"})
+  boolean parallel;
+
+  private final Launcher launcher = LauncherFactory.create();
+  private LauncherDiscoveryRequest request;
+
+  @Setup(Level.Trial)
+  public void generateClasses() throws Exception {
+    var syntheticTestClasses = SyntheticTestClasses.generate(TESTS / 20, 20, 4);
+    request =
+        LauncherDiscoveryRequestBuilder.request()
+            .selectors(
+                syntheticTestClasses.getTestClasses().stream()
+                    .map(testClass -> selectClass(testClass))
+                    .collect(Collectors.toList()))
+            .filters(includeEngines("docker-engine"))
+            .configurationParameter(
+                DockerEngineConfiguration.RUNTIME_PROPERTY_NAME, StubRuntimeProvider.NAME)
+            .configurationParameter(
+                DockerEngineConfiguration.EXECUTION_MODE_PROPERTY_NAME, executionMode)
+            .configurationParameter(
+                DockerEngineConfiguration.PARALLEL_EXECUTION_ENABLED_PROPERTY_NAME,
+                Boolean.toString(parallel))
+            .configurationParameter(
+                DockerEngineConfiguration.DEFAULT_PARALLEL_EXECUTION_MODE_PROPERTY_NAME,
+                "concurrent")
+            .configurationParameter(
+                DockerEngineConfiguration.MAX_CONCURRENT_EXECS_PER_CONTAINER_PROPERTY_NAME, "4")
+            .configurationParameter(
+                DockerEngineConfiguration.WORK_DIR_PROPERTY_NAME,
+                Files.createTempDirectory("docker-engine-benchmark").toString())
+            .build();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(TESTS)
+  public long runTests() {
+    var summary = new SummaryGeneratingListener();
+    launcher.execute(request, summary);
+    if (summary.getSummary().getTestsSucceededCount() != TESTS)
+      throw new IllegalStateException(
+          String.format(
+              "%d tests of %d succeeded", summary.getSummary().getTestsSucceededCount(), TESTS));
+
+    return summary.getSummary().getTestsSucceededCount();
+  }
+}
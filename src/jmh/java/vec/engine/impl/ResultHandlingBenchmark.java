@@ -0,0 +1,97 @@
+package vec.engine.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.UniqueId;
+import org.junit.platform.engine.support.descriptor.AbstractTestDescriptor;
+import org.junit.platform.engine.support.descriptor.MethodSource;
+import org.junit.platform.launcher.TestIdentifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import vec.engine.launcher.ResultEvent;
+import vec.engine.launcher.ResultEventCodec;
+import vec.engine.launcher.ResultEventWriter;
+
+/**
+ * the result channel of a run, as received from the exec: the frames are decoded and handled by a
+ * {@link RemoteTestExecution}, that writes the output of the test to its log files. The channel is
+ * fed in chunks of the size read from the docker stream.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResultHandlingBenchmark {
+  private static final String METHOD = "vec.engine.synthetic.SyntheticTests0#test0()";
+  private static final int CHUNK_SIZE = 8192;
+  /** the output is sent in events of at most 8 KiB, like the {@link ResultEventWriter} does */
+  private static final int OUTPUT_EVENT_SIZE = 8192;
+
+  /** bytes printed by the test */
+  @Param({"0", "65536", "1048576"})
+  int outputSize;
+
+  private byte[] resultChannel;
+  private Path logDirectory;
+
+  @Setup(Level.Trial)
+  public void encodeResultChannel() throws IOException {
+    var methodDescriptor =
+        new AbstractTestDescriptor(
+            UniqueId.forEngine("junit-jupiter").append("method", METHOD),
+            "test0()",
+            MethodSource.from("vec.engine.synthetic.SyntheticTests0", "test0", "")) {
+          @Override
+          public Type getType() {
+            return Type.TEST;
+          }
+        };
+    var methodIdentifier = TestIdentifier.from(methodDescriptor);
+
+    var channel = new ByteArrayOutputStream();
+    channel.write(ResultEventCodec.encode(ResultEvent.planStarted()));
+    channel.write(ResultEventCodec.encode(ResultEvent.started(methodIdentifier)));
+    var output = new byte[OUTPUT_EVENT_SIZE];
+    Arrays.fill(output, (byte) 'x');
+    for (int written = 0; written < outputSize; written += OUTPUT_EVENT_SIZE)
+      channel.write(ResultEventCodec.encode(ResultEvent.output(output)));
+    channel.write(
+        ResultEventCodec.encode(
+            ResultEvent.finished(methodIdentifier, TestExecutionResult.successful())));
+    channel.write(ResultEventCodec.encode(ResultEvent.planFinished(null)));
+    resultChannel = channel.toByteArray();
+
+    logDirectory = Files.createTempDirectory("docker-engine-benchmark-logs");
+  }
+
+  @Benchmark
+  public RemoteTestNode handleResultChannel() {
+    var remoteTestExecution =
+        new RemoteTestExecution(new ContainerLogCapture(logDirectory, METHOD, 8192));
+    var decoder = new ResultEventCodec.Decoder(remoteTestExecution::onEvent);
+    for (int from = 0; from < resultChannel.length; from += CHUNK_SIZE)
+      decoder.feed(
+          Arrays.copyOfRange(
+              resultChannel, from, Math.min(resultChannel.length, from + CHUNK_SIZE)));
+    remoteTestExecution.onRunEnded(null);
+
+    return remoteTestExecution.awaitMethodNode(METHOD).orElseThrow();
+  }
+}
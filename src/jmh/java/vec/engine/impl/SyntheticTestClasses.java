@@ -0,0 +1,104 @@
+package vec.engine.impl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import javax.tools.ToolProvider;
+import vec.engine.annotations.Dockerized;
+
+/**
+ * dockerized test classes generated and compiled when a benchmark is set up, so that the size of
+ * the discovered tree is a parameter of the benchmark. Every method is annotated with its own
+ * {@link Dockerized}, and the methods are spread over a fixed number of containers.
+ */
+class SyntheticTestClasses {
+  static final String PACKAGE_NAME = "vec.engine.synthetic";
+  static final String IMAGE = "junit-console-launcher";
+
+  private final Path classpathRoot;
+  private final URLClassLoader classLoader;
+  private final List<Class<?>> testClasses = new ArrayList<>();
+
+  private SyntheticTestClasses(Path classpathRoot, List<String> classNames) {
+    this.classpathRoot = classpathRoot;
+    try {
+      this.classLoader =
+          new URLClassLoader(
+              new URL[] {classpathRoot.toUri().toURL()},
+              SyntheticTestClasses.class.getClassLoader());
+      for (var className : classNames) testClasses.add(classLoader.loadClass(className));
+    } catch (MalformedURLException | ClassNotFoundException exc) {
+      throw new IllegalStateException(exc);
+    }
+  }
+
+  /**
+   * compiles the classes SyntheticTests0..N-1 in a new directory, with the engine classpath
+   *
+   * @param containers number of distinct container names used by the methods
+   */
+  static SyntheticTestClasses generate(int classes, int methodsPerClass, int containers) {
+    try {
+      var sourceRoot = Files.createTempDirectory("docker-engine-synthetic-src");
+      var classpathRoot = Files.createTempDirectory("docker-engine-synthetic-classes");
+      List<String> classNames = new ArrayList<>();
+      List<String> sourceFiles = new ArrayList<>();
+      for (int i = 0; i < classes; i++) {
+        var simpleName = "SyntheticTests" + i;
+        var sourceFile = sourceRoot.resolve(simpleName + ".java");
+        Files.writeString(sourceFile, generateSource(simpleName, methodsPerClass, containers));
+        classNames.add(PACKAGE_NAME + "." + simpleName);
+        sourceFiles.add(sourceFile.toString());
+      }
+
+      List<String> arguments = new ArrayList<>();
+      arguments.add("-d");
+      arguments.add(classpathRoot.toString());
+      arguments.add("-cp");
+      arguments.add(System.getProperty("java.class.path"));
+      arguments.addAll(sourceFiles);
+      var compiler = ToolProvider.getSystemJavaCompiler();
+      if (compiler == null || compiler.run(null, null, null, arguments.toArray(String[]::new)) != 0)
+        throw new IllegalStateException("the synthetic test classes cannot be compiled");
+
+      return new SyntheticTestClasses(classpathRoot, classNames);
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
+    }
+  }
+
+  private static String generateSource(String simpleName, int methods, int containers) {
+    var source = new StringBuilder();
+    source.append("package ").append(PACKAGE_NAME).append(";\n\n");
+    source.append("public class ").append(simpleName).append(" {\n");
+    for (int i = 0; i < methods; i++) {
+      source.append(
+          String.format(
+              "  @%s(containerName = \"synthetic-%d\", image = \"%s\")%n",
+              Dockerized.class.getName(), i % containers, IMAGE));
+      source.append("  @org.junit.jupiter.api.Test\n");
+      source.append("  public void test").append(i).append("() {}\n\n");
+    }
+    source.append("}\n");
+
+    return source.toString();
+  }
+
+  Path getClasspathRoot() {
+    return classpathRoot;
+  }
+
+  ClassLoader getClassLoader() {
+    return classLoader;
+  }
+
+  List<Class<?>> getTestClasses() {
+    return testClasses;
+  }
+}
@@ -0,0 +1,174 @@
+package vec.helpers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.UniqueId;
+import org.junit.platform.engine.support.descriptor.AbstractTestDescriptor;
+import org.junit.platform.engine.support.descriptor.MethodSource;
+import org.junit.platform.launcher.TestIdentifier;
+import vec.engine.launcher.LauncherAgent;
+import vec.engine.launcher.ResultEvent;
+import vec.engine.launcher.ResultEventCodec;
+
+/**
+ * {@link ContainerRuntime} of the benchmarks: containers do nothing, and every run answers at once
+ * with the frames of the requested methods passing, so that only the overhead of the engine is
+ * measured. The frames are decoded like the ones of a real run.
+ */
+public class StubContainerRuntime implements ContainerRuntime {
+  /** the key is the method in canonical name form */
+  private final Map<String, byte[]> passedMethodFrames = new ConcurrentHashMap<>();
+
+  private final byte[] planStartedFrame = ResultEventCodec.encode(ResultEvent.planStarted());
+  private final byte[] planFinishedFrame = ResultEventCodec.encode(ResultEvent.planFinished(null));
+
+  @Override
+  public String createTestingContainer(
+      String image, String containerName, ResourceLimits resourceLimits) {
+    return containerName;
+  }
+
+  @Override
+  public String createReusableTestingContainer(
+      String image, String containerName, ResourceLimits resourceLimits, String reuseHash) {
+    return containerName;
+  }
+
+  @Override
+  public String computeReuseHash(
+      String image, ResourceLimits resourceLimits, String engineVersion) {
+    return image + ":" + engineVersion;
+  }
+
+  @Override
+  public Optional<String> findReusableContainer(String containerName, String reuseHash) {
+    return Optional.empty();
+  }
+
+  @Override
+  public Map<String, Long> listReusableContainers() {
+    return Map.of();
+  }
+
+  @Override
+  public void startContainer(String containerId) {}
+
+  @Override
+  public void stopTestingContainer(String containerId) {}
+
+  @Override
+  public void removeTestingContainer(String containerId) {}
+
+  @Override
+  public void copyArchiveToContainer(String containerId, Path tarArchive) {}
+
+  @Override
+  public void removeFilesFromContainer(String containerId, List<String> relativePaths) {}
+
+  @Override
+  public Closeable runTestsInsideContainer(
+      String containerId, List<String> methodFullyQualifiedNames, ResultEventHandler handler) {
+    var decoder = new ResultStreamDecoder(handler);
+    run(methodFullyQualifiedNames, decoder);
+    decoder.onComplete();
+
+    return () -> {};
+  }
+
+  /** the agent answers when it reads the end of the line with the methods to run */
+  @Override
+  public LauncherAgentSession startLauncherAgent(String containerId) {
+    var agentInput =
+        new OutputStream() {
+          private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+          private LauncherAgentSession session;
+
+          @Override
+          public void write(int b) {
+            if (b != '\n') {
+              line.write(b);
+              return;
+            }
+
+            var methods = line.toString(StandardCharsets.UTF_8).trim();
+            line.reset();
+            run(
+                List.of(methods.split(LauncherAgent.SELECTOR_SEPARATOR)),
+                session.getOutputDecoder());
+          }
+        };
+    var session = new LauncherAgentSession(containerId, agentInput);
+    agentInput.session = session;
+
+    return session;
+  }
+
+  /** runs answer at once, there is nothing to kill */
+  @Override
+  public void killProcess(String containerId, long processId) {}
+
+  private void run(List<String> methodFullyQualifiedNames, ResultStreamDecoder decoder) {
+    decoder.onStandardOutput(planStartedFrame);
+    for (var methodFullyQualifiedName : methodFullyQualifiedNames)
+      decoder.onStandardOutput(
+          passedMethodFrames.computeIfAbsent(
+              methodFullyQualifiedName, StubContainerRuntime::encodePassedMethod));
+    decoder.onStandardOutput(planFinishedFrame);
+  }
+
+  /** the STARTED and FINISHED frames of the method, package.class#methodName(parameters) */
+  private static byte[] encodePassedMethod(String methodFullyQualifiedName) {
+    var className = methodFullyQualifiedName.substring(0, methodFullyQualifiedName.indexOf('#'));
+    var methodName =
+        methodFullyQualifiedName.substring(
+            methodFullyQualifiedName.indexOf('#') + 1, methodFullyQualifiedName.indexOf('('));
+    var parameterTypes =
+        methodFullyQualifiedName.substring(
+            methodFullyQualifiedName.indexOf('(') + 1, methodFullyQualifiedName.length() - 1);
+    var methodIdentifier =
+        TestIdentifier.from(
+            new AbstractTestDescriptor(
+                UniqueId.forEngine("junit-jupiter").append("method", methodFullyQualifiedName),
+                methodName,
+                MethodSource.from(className, methodName, parameterTypes)) {
+              @Override
+              public Type getType() {
+                return Type.TEST;
+              }
+            });
+
+    var frames = new ByteArrayOutputStream();
+    frames.writeBytes(ResultEventCodec.encode(ResultEvent.started(methodIdentifier)));
+    frames.writeBytes(
+        ResultEventCodec.encode(
+            ResultEvent.finished(methodIdentifier, TestExecutionResult.successful())));
+
+    return frames.toByteArray();
+  }
+
+  @Override
+  public Optional<ContainerStats> getStats(String containerId) {
+    return Optional.empty();
+  }
+
+  @Override
+  public Optional<ImageDetails> inspectImage(String image) {
+    return Optional.of(new ImageDetails(image, ""));
+  }
+
+  @Override
+  public void pullImage(String image) {}
+
+  @Override
+  public String buildImage(Path buildContext, String tag) {
+    return tag;
+  }
+}
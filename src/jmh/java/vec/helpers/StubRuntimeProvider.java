@@ -0,0 +1,19 @@
+package vec.helpers;
+
+import java.nio.file.Path;
+
+/** provides the {@link StubContainerRuntime}, registered in the jmh resources */
+public class StubRuntimeProvider implements ContainerRuntimeProvider {
+  public static final String NAME = "benchmark-stub";
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public ContainerRuntime create(
+      boolean bindMountClasspath, Path projectDirectory, Path workDirectory) {
+    return new StubContainerRuntime();
+  }
+}
@@ -4,7 +4,14 @@ import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.platform.commons.util.Preconditions;
+import vec.helpers.Durations;
+import vec.helpers.ResourceLimits;
 
 @Target({ElementType.TYPE, ElementType.ANNOTATION_TYPE, ElementType.METHOD})
 @Retention(RetentionPolicy.RUNTIME)
@@ -14,13 +21,96 @@ public @interface Dockerized {
 
   String containerName();
 
+  /**
+   * number of identical containers started for containerName. Each test is run by the first replica
+   * that is free, default is 1
+   */
+  int replicas() default 1;
+
+  /** cores every replica can use, it can be fractional (1.5). Default is 0, no limit */
+  double cpus() default 0;
+
+  /** memory every replica can use, for example 512m or 2g. Default is empty, no limit */
+  String memory() default "";
+
+  /** maximum number of processes and threads in every replica. Default is 0, no limit */
+  long pidsLimit() default 0;
+
+  /**
+   * maximum duration of every test run in the container, for example 30s or 5m. When it expires the
+   * launcher process running the test is killed, while the container keeps running, and the test
+   * fails with a TimeoutException. Default is empty, docker.engine.execution.timeout.default
+   */
+  String timeout() default "";
+
   class ContainerInfo {
     public final String image;
     public final String containerName;
+    public final int replicas;
+    public final ResourceLimits resourceLimits;
+    /** 0 when the annotation has no timeout */
+    public final Duration timeout;
 
     public ContainerInfo(Dockerized dockerizedAnnotation) {
+      Preconditions.condition(
+          dockerizedAnnotation.replicas() > 0,
+          () ->
+              String.format(
+                  "Container %s must have at least 1 replica",
+                  dockerizedAnnotation.containerName()));
       this.image = dockerizedAnnotation.image();
       this.containerName = dockerizedAnnotation.containerName();
+      this.replicas = dockerizedAnnotation.replicas();
+      this.resourceLimits = parseResourceLimits(dockerizedAnnotation);
+      this.timeout = parseTimeout(dockerizedAnnotation);
+    }
+
+    private static Duration parseTimeout(Dockerized dockerizedAnnotation) {
+      if (dockerizedAnnotation.timeout().isBlank()) return Duration.ZERO;
+
+      Preconditions.condition(
+          Durations.DURATION_PATTERN.matcher(dockerizedAnnotation.timeout().trim()).matches(),
+          () ->
+              String.format(
+                  "Container %s has an invalid timeout: %s",
+                  dockerizedAnnotation.containerName(), dockerizedAnnotation.timeout()));
+
+      return Durations.parse(dockerizedAnnotation.timeout());
+    }
+
+    private static ResourceLimits parseResourceLimits(Dockerized dockerizedAnnotation) {
+      Preconditions.condition(
+          dockerizedAnnotation.cpus() >= 0 && dockerizedAnnotation.pidsLimit() >= 0,
+          () ->
+              String.format(
+                  "Container %s cannot have negative cpus or pidsLimit",
+                  dockerizedAnnotation.containerName()));
+      Preconditions.condition(
+          dockerizedAnnotation.memory().isBlank()
+              || ResourceLimits.MEMORY_SIZE_PATTERN
+                  .matcher(dockerizedAnnotation.memory().trim())
+                  .matches(),
+          () ->
+              String.format(
+                  "Container %s has an invalid memory size: %s",
+                  dockerizedAnnotation.containerName(), dockerizedAnnotation.memory()));
+
+      return new ResourceLimits(
+          dockerizedAnnotation.cpus(),
+          ResourceLimits.parseMemorySize(dockerizedAnnotation.memory()),
+          dockerizedAnnotation.pidsLimit());
+    }
+
+    /**
+     * @return the names of the actual containers: containerName itself when there is a single
+     *     replica, containerName-1, ..., containerName-N otherwise
+     */
+    public List<String> getReplicaContainerNames() {
+      if (replicas == 1) return List.of(containerName);
+
+      return IntStream.rangeClosed(1, replicas)
+          .mapToObj(replica -> containerName + "-" + replica)
+          .collect(Collectors.toUnmodifiableList());
     }
   }
 }
@@ -0,0 +1,203 @@
+package vec.engine.impl;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import vec.helpers.ContainerRuntime;
+import vec.helpers.ContainerStats;
+import vec.helpers.ResourceLimits;
+
+/**
+ * keeps the containers being started and the tests being run within a budget of host cores and
+ * memory. Every start and every run commits the demand of its container until it ends, and waits
+ * while the demand does not fit in what is left of the budget. A demand larger than the whole
+ * budget is admitted when nothing else is committed, so that it never waits forever.
+ *
+ * <p>The demand of a container is its {@link ResourceLimits}. Without a cpu limit it is 1 core, and
+ * without a memory limit it is 0. When the stats sampling is started, the peak usage measured for a
+ * container replaces the missing limits (at least 1 core), so that containers using more than
+ * expected lower the concurrency of the following starts and runs.
+ */
+class AdmissionController implements AutoCloseable {
+  /** 0 when the cores are not limited */
+  private final long cpuBudgetMillis;
+  /** 0 when the memory is not limited */
+  private final long memoryBudgetBytes;
+
+  private long committedCpuMillis = 0;
+  private long committedMemoryBytes = 0;
+  private int admitted = 0;
+
+  /** the key is the container name */
+  private final Map<String, ObservedUsage> observedUsages = new ConcurrentHashMap<>();
+
+  private volatile ScheduledExecutorService statsSampler = null;
+
+  /**
+   * @param cpuBudget cores, 0 if they are not limited
+   * @param memoryBudgetBytes 0 if the memory is not limited
+   */
+  AdmissionController(double cpuBudget, long memoryBudgetBytes) {
+    this.cpuBudgetMillis = Math.round(cpuBudget * 1000);
+    this.memoryBudgetBytes = memoryBudgetBytes;
+  }
+
+  /** the cores available to the engine JVM */
+  static double getHostCpus() {
+    return Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * @return the physical memory of the host running the engine, 0 if the JVM cannot read it
+   */
+  @SuppressWarnings("deprecation")
+  static long getHostMemoryBytes() {
+    var osBean = ManagementFactory.getOperatingSystemMXBean();
+    if (osBean instanceof com.sun.management.OperatingSystemMXBean)
+      return ((com.sun.management.OperatingSystemMXBean) osBean).getTotalPhysicalMemorySize();
+
+    return 0;
+  }
+
+  /**
+   * waits until the demand of the container fits in the budget and commits it
+   *
+   * @return to be released when the start or the run ends
+   */
+  Admission admit(String containerName, ResourceLimits resourceLimits) throws InterruptedException {
+    var observedUsage = observedUsages.getOrDefault(containerName, ObservedUsage.NONE);
+    long cpuMillis =
+        resourceLimits.cpus > 0
+            ? Math.round(resourceLimits.cpus * 1000)
+            : Math.max(1000, observedUsage.peakCpuMillis);
+    long memoryBytes =
+        resourceLimits.memoryBytes > 0 ? resourceLimits.memoryBytes : observedUsage.peakMemoryBytes;
+
+    synchronized (this) {
+      while (admitted > 0 && !fits(cpuMillis, memoryBytes)) wait();
+
+      committedCpuMillis += cpuMillis;
+      committedMemoryBytes += memoryBytes;
+      admitted++;
+    }
+
+    return new Admission(cpuMillis, memoryBytes);
+  }
+
+  private boolean fits(long cpuMillis, long memoryBytes) {
+    return (cpuBudgetMillis == 0 || committedCpuMillis + cpuMillis <= cpuBudgetMillis)
+        && (memoryBudgetBytes == 0 || committedMemoryBytes + memoryBytes <= memoryBudgetBytes);
+  }
+
+  private synchronized void release(Admission admission) {
+    committedCpuMillis -= admission.cpuMillis;
+    committedMemoryBytes -= admission.memoryBytes;
+    admitted--;
+    notifyAll();
+  }
+
+  /**
+   * updates the peak usage of the container with a new reading
+   *
+   * @param previousStats the reading before this one, null if it is the first
+   */
+  void recordStats(
+      String containerName, ContainerStats previousStats, ContainerStats stats, long elapsedNanos) {
+    long cpuMillis =
+        previousStats == null || elapsedNanos <= 0
+            ? 0
+            : (stats.cpuUsageNanos - previousStats.cpuUsageNanos) * 1000 / elapsedNanos;
+    observedUsages.merge(
+        containerName,
+        new ObservedUsage(cpuMillis, stats.memoryUsageBytes),
+        (usage, newUsage) ->
+            new ObservedUsage(
+                Math.max(usage.peakCpuMillis, newUsage.peakCpuMillis),
+                Math.max(usage.peakMemoryBytes, newUsage.peakMemoryBytes)));
+  }
+
+  /**
+   * reads the stats of every container at a fixed interval until close is called, containers whose
+   * runtime cannot measure them keep their limits as demand
+   *
+   * @param containerNameIdMap the map (containerName, containerId)
+   */
+  void startStatsSampling(
+      ContainerRuntime containerRuntime,
+      Map<String, String> containerNameIdMap,
+      Duration interval) {
+    Map<String, ContainerStats> previousStats = new ConcurrentHashMap<>();
+    Map<String, Long> previousSampleNanos = new ConcurrentHashMap<>();
+    statsSampler =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              var thread = new Thread(runnable, "docker-engine-stats-sampler");
+              thread.setDaemon(true);
+              return thread;
+            });
+    statsSampler.scheduleWithFixedDelay(
+        () -> {
+          for (var container : containerNameIdMap.entrySet()) {
+            try {
+              var stats = containerRuntime.getStats(container.getValue());
+              if (stats.isEmpty()) continue;
+
+              long sampleNanos = System.nanoTime();
+              var previousSampleStart = previousSampleNanos.put(container.getKey(), sampleNanos);
+              recordStats(
+                  container.getKey(),
+                  previousStats.put(container.getKey(), stats.get()),
+                  stats.get(),
+                  previousSampleStart == null ? 0 : sampleNanos - previousSampleStart);
+            } catch (RuntimeException exc) {
+              // the container may have been stopped, the last readings are kept
+            }
+          }
+        },
+        0,
+        interval.toMillis(),
+        TimeUnit.MILLISECONDS);
+  }
+
+  /** stops the stats sampling */
+  @Override
+  public void close() {
+    if (statsSampler != null) statsSampler.shutdownNow();
+  }
+
+  /** the resources committed by a start or a run, released once */
+  class Admission {
+    private final long cpuMillis;
+    private final long memoryBytes;
+    private boolean released = false;
+
+    private Admission(long cpuMillis, long memoryBytes) {
+      this.cpuMillis = cpuMillis;
+      this.memoryBytes = memoryBytes;
+    }
+
+    synchronized void release() {
+      if (released) return;
+
+      released = true;
+      AdmissionController.this.release(this);
+    }
+  }
+
+  /** the peak usage measured for a container, in thousandths of a core and bytes */
+  private static class ObservedUsage {
+    private static final ObservedUsage NONE = new ObservedUsage(0, 0);
+
+    private final long peakCpuMillis;
+    private final long peakMemoryBytes;
+
+    private ObservedUsage(long peakCpuMillis, long peakMemoryBytes) {
+      this.peakCpuMillis = peakCpuMillis;
+      this.peakMemoryBytes = peakMemoryBytes;
+    }
+  }
+}
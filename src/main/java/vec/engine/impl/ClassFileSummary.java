@@ -0,0 +1,291 @@
+package vec.engine.impl;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * what the discovery needs to know about a class, read from its class file without loading it: the
+ * access flags, the superclass and the runtime-visible annotations of the class and of its public,
+ * non-static void methods (the only ones that can be dockerized test methods).
+ */
+class ClassFileSummary {
+  private static final int CLASS_FILE_MAGIC = 0xCAFEBABE;
+  private static final int ACC_INTERFACE = 0x0200;
+  private static final int ACC_ANNOTATION = 0x2000;
+  private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+
+  final String className;
+  final int accessFlags;
+  /** empty for java.lang.Object and module-info */
+  final String superClassName;
+  /** binary names of the annotation types */
+  final Set<String> classAnnotations;
+
+  final Set<String> methodAnnotations;
+
+  ClassFileSummary(
+      String className,
+      int accessFlags,
+      String superClassName,
+      Set<String> classAnnotations,
+      Set<String> methodAnnotations) {
+    this.className = className;
+    this.accessFlags = accessFlags;
+    this.superClassName = superClassName;
+    this.classAnnotations = classAnnotations;
+    this.methodAnnotations = methodAnnotations;
+  }
+
+  boolean isPublicConcreteClass() {
+    return Modifier.isPublic(accessFlags)
+        && !Modifier.isAbstract(accessFlags)
+        && (accessFlags & ACC_INTERFACE) == 0;
+  }
+
+  boolean isAnnotationType() {
+    return (accessFlags & ACC_ANNOTATION) != 0;
+  }
+
+  /**
+   * the form used in the index cache:
+   * className;accessFlags;superClassName;classAnnotations;methodAnnotations
+   */
+  @Override
+  public String toString() {
+    return String.join(
+        ";",
+        className,
+        Integer.toString(accessFlags),
+        superClassName,
+        String.join(",", classAnnotations),
+        String.join(",", methodAnnotations));
+  }
+
+  static ClassFileSummary parse(String summary) {
+    var fields = summary.split(";", -1);
+
+    return new ClassFileSummary(
+        fields[0],
+        Integer.parseInt(fields[1]),
+        fields[2],
+        parseNames(fields[3]),
+        parseNames(fields[4]));
+  }
+
+  private static Set<String> parseNames(String names) {
+    return names.isEmpty() ? Set.of() : new TreeSet<>(Arrays.asList(names.split(",")));
+  }
+
+  /**
+   * parses the class file following the JVM specification (chapter 4), only the constant pool, the
+   * header, the methods and the attributes are read, the code is skipped
+   */
+  static ClassFileSummary read(InputStream classFile) throws IOException {
+    var input = new DataInputStream(classFile);
+    if (input.readInt() != CLASS_FILE_MAGIC) throw new IOException("not a class file");
+    input.readUnsignedShort(); // minor_version
+    input.readUnsignedShort(); // major_version
+
+    var constantPool = readConstantPool(input);
+    int accessFlags = input.readUnsignedShort();
+    var className = constantPool.getClassName(input.readUnsignedShort());
+    int superClassIndex = input.readUnsignedShort();
+    var superClassName = superClassIndex == 0 ? "" : constantPool.getClassName(superClassIndex);
+    input.skipBytes(2 * input.readUnsignedShort()); // interfaces
+
+    int fieldsCount = input.readUnsignedShort();
+    for (int i = 0; i < fieldsCount; i++) {
+      input.skipBytes(6); // access_flags, name_index, descriptor_index
+      skipAttributes(input);
+    }
+
+    Set<String> methodAnnotations = new TreeSet<>();
+    int methodsCount = input.readUnsignedShort();
+    for (int i = 0; i < methodsCount; i++) {
+      int methodAccessFlags = input.readUnsignedShort();
+      input.readUnsignedShort(); // name_index
+      var descriptor = constantPool.getUtf8(input.readUnsignedShort());
+      var annotations = readAnnotationAttributes(input, constantPool);
+      if (Modifier.isPublic(methodAccessFlags)
+          && !Modifier.isStatic(methodAccessFlags)
+          && descriptor.endsWith(")V")) methodAnnotations.addAll(annotations);
+    }
+
+    var classAnnotations = readAnnotationAttributes(input, constantPool);
+
+    return new ClassFileSummary(
+        className, accessFlags, superClassName, classAnnotations, methodAnnotations);
+  }
+
+  /**
+   * @return the binary names of the classes referenced by the constant pool of the class file
+   *     (superclass, interfaces, owners of the fields and methods used, nested classes), arrays are
+   *     replaced by their component type
+   */
+  static Set<String> readReferencedClassNames(InputStream classFile) throws IOException {
+    var input = new DataInputStream(classFile);
+    if (input.readInt() != CLASS_FILE_MAGIC) throw new IOException("not a class file");
+    input.readUnsignedShort(); // minor_version
+    input.readUnsignedShort(); // major_version
+
+    var constantPool = readConstantPool(input);
+    Set<String> classNames = new TreeSet<>();
+    for (int i = 1; i < constantPool.classNameIndexes.length; i++) {
+      if (constantPool.classNameIndexes[i] == 0) continue;
+
+      var className = constantPool.getClassName(i);
+      if (className.startsWith("[")) {
+        // [[Lpackage.Name; or [I
+        className = className.replaceFirst("^\\[+", "");
+        if (!className.startsWith("L")) continue;
+        className = className.substring(1, className.length() - 1);
+      }
+      classNames.add(className);
+    }
+
+    return classNames;
+  }
+
+  private static ConstantPool readConstantPool(DataInputStream input) throws IOException {
+    int count = input.readUnsignedShort();
+    var constantPool = new ConstantPool(count);
+    for (int i = 1; i < count; i++) {
+      int tag = input.readUnsignedByte();
+      switch (tag) {
+        case 1: // Utf8
+          constantPool.utf8Entries[i] = input.readUTF();
+          break;
+        case 7: // Class
+          constantPool.classNameIndexes[i] = input.readUnsignedShort();
+          break;
+        case 8: // String
+        case 16: // MethodType
+        case 19: // Module
+        case 20: // Package
+          input.skipBytes(2);
+          break;
+        case 15: // MethodHandle
+          input.skipBytes(3);
+          break;
+        case 3: // Integer
+        case 4: // Float
+        case 9: // Fieldref
+        case 10: // Methodref
+        case 11: // InterfaceMethodref
+        case 12: // NameAndType
+        case 17: // Dynamic
+        case 18: // InvokeDynamic
+          input.skipBytes(4);
+          break;
+        case 5: // Long
+        case 6: // Double
+          input.skipBytes(8);
+          i++; // 8-byte constants take two entries
+          break;
+        default:
+          throw new IOException(String.format("unknown constant pool tag %d", tag));
+      }
+    }
+
+    return constantPool;
+  }
+
+  private static void skipAttributes(DataInputStream input) throws IOException {
+    int attributesCount = input.readUnsignedShort();
+    for (int i = 0; i < attributesCount; i++) {
+      input.readUnsignedShort(); // attribute_name_index
+      skipFully(input, input.readInt());
+    }
+  }
+
+  private static void skipFully(DataInputStream input, int length) throws IOException {
+    if (length < 0 || input.skipBytes(length) != length)
+      throw new IOException("truncated class file");
+  }
+
+  /** the types of the runtime-visible annotations, the other attributes are skipped */
+  private static Set<String> readAnnotationAttributes(
+      DataInputStream input, ConstantPool constantPool) throws IOException {
+    Set<String> annotations = new TreeSet<>();
+    int attributesCount = input.readUnsignedShort();
+    for (int i = 0; i < attributesCount; i++) {
+      var attributeName = constantPool.getUtf8(input.readUnsignedShort());
+      int attributeLength = input.readInt();
+      if (!attributeName.equals(RUNTIME_VISIBLE_ANNOTATIONS)) {
+        skipFully(input, attributeLength);
+        continue;
+      }
+
+      int annotationsCount = input.readUnsignedShort();
+      for (int j = 0; j < annotationsCount; j++)
+        annotations.add(readAnnotation(input, constantPool));
+    }
+
+    return annotations;
+  }
+
+  /**
+   * @return the binary name of the annotation type, its elements are skipped
+   */
+  private static String readAnnotation(DataInputStream input, ConstantPool constantPool)
+      throws IOException {
+    var typeDescriptor = constantPool.getUtf8(input.readUnsignedShort());
+    int elementValuePairsCount = input.readUnsignedShort();
+    for (int i = 0; i < elementValuePairsCount; i++) {
+      input.readUnsignedShort(); // element_name_index
+      skipElementValue(input, constantPool);
+    }
+
+    // Lpackage/Name;
+    return typeDescriptor.substring(1, typeDescriptor.length() - 1).replace('/', '.');
+  }
+
+  private static void skipElementValue(DataInputStream input, ConstantPool constantPool)
+      throws IOException {
+    int tag = input.readUnsignedByte();
+    switch (tag) {
+      case 'e':
+        input.skipBytes(4);
+        break;
+      case '@':
+        readAnnotation(input, constantPool);
+        break;
+      case '[':
+        int valuesCount = input.readUnsignedShort();
+        for (int i = 0; i < valuesCount; i++) skipElementValue(input, constantPool);
+        break;
+      default: // constants and classes
+        input.skipBytes(2);
+    }
+  }
+
+  /** only the entries needed to read the names are kept */
+  private static class ConstantPool {
+    private final String[] utf8Entries;
+    private final int[] classNameIndexes;
+
+    private ConstantPool(int count) {
+      this.utf8Entries = new String[count];
+      this.classNameIndexes = new int[count];
+    }
+
+    private String getUtf8(int index) throws IOException {
+      if (index <= 0 || index >= utf8Entries.length || utf8Entries[index] == null)
+        throw new IOException(String.format("invalid constant pool index %d", index));
+
+      return utf8Entries[index];
+    }
+
+    private String getClassName(int index) throws IOException {
+      if (index <= 0 || index >= classNameIndexes.length)
+        throw new IOException(String.format("invalid constant pool index %d", index));
+
+      return getUtf8(classNameIndexes[index]).replace('/', '.');
+    }
+  }
+}
@@ -0,0 +1,288 @@
+package vec.engine.impl;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import vec.helpers.ContainerRuntime;
+
+/**
+ * copies the test classpath in the containers when it is not bind-mounted. The classpath is split
+ * in content-addressed layers (dependencies, main classes, test classes and resources): the hash of
+ * a layer is computed from the paths and the hashes of its files. A manifest with the hashes of the
+ * files copied in every container is kept in the work directory, so that a layer whose hash has not
+ * changed is skipped, and only the changed files of the other layers are sent. A reused container
+ * receives only the class files changed since the previous run.
+ */
+class ClasspathSynchronizer {
+  private static final String LAYER_KEY_PREFIX = "layer.";
+  private static final String FILE_KEY_PREFIX = "file.";
+
+  private final ContainerRuntime containerRuntime;
+  private final Set<Layer> layers;
+  private final Path projectDirectory;
+  private final Path manifestDirectory;
+
+  /**
+   * @param layers the layers copied, the dependencies are not copied when they are baked in the
+   *     image
+   * @param projectDirectory directory containing the build folder
+   * @param manifestDirectory directory where the manifests of the containers are saved
+   */
+  ClasspathSynchronizer(
+      ContainerRuntime containerRuntime,
+      Set<Layer> layers,
+      Path projectDirectory,
+      Path manifestDirectory) {
+    this.containerRuntime = containerRuntime;
+    this.layers = layers;
+    this.projectDirectory = projectDirectory;
+    this.manifestDirectory = manifestDirectory;
+  }
+
+  /**
+   * sends to the container the files of the classpath changed since the last synchronization of the
+   * same container, and removes the files deleted on the host. Files whose size and modification
+   * time have not changed are not hashed again.
+   */
+  SyncResult synchronize(String containerId) {
+    var manifestFile = getManifestFile(containerId);
+    var previousManifest = loadManifest(manifestFile);
+    var manifest = new Properties();
+    List<Path> changedFiles = new ArrayList<>();
+    List<String> removedFiles = new ArrayList<>();
+    int changedLayers = 0;
+
+    for (var layer : layers) {
+      var layerDigest = newSha256Digest();
+      List<Path> layerChangedFiles = new ArrayList<>();
+      for (var file : listFiles(projectDirectory.resolve(layer.directory))) {
+        var fileKey = FILE_KEY_PREFIX + toRelativePath(file);
+        var previousFileEntry =
+            Optional.ofNullable(previousManifest.getProperty(fileKey)).map(FileEntry::parse);
+        var fileEntry = FileEntry.of(file, previousFileEntry);
+        manifest.setProperty(fileKey, fileEntry.toString());
+        layerDigest.update(
+            (fileKey + '\n' + fileEntry.hash + '\n').getBytes(StandardCharsets.UTF_8));
+
+        if (previousFileEntry.isEmpty() || !previousFileEntry.get().hash.equals(fileEntry.hash))
+          layerChangedFiles.add(file);
+      }
+
+      var layerKey = LAYER_KEY_PREFIX + layer.name();
+      manifest.setProperty(layerKey, toHex(layerDigest.digest()));
+      if (manifest.getProperty(layerKey).equals(previousManifest.getProperty(layerKey))) continue;
+
+      changedLayers++;
+      changedFiles.addAll(layerChangedFiles);
+      for (var previousKey : previousManifest.stringPropertyNames()) {
+        if (previousKey.startsWith(FILE_KEY_PREFIX + layer.directory + "/")
+            && !manifest.containsKey(previousKey))
+          removedFiles.add(previousKey.substring(FILE_KEY_PREFIX.length()));
+      }
+    }
+
+    if (!removedFiles.isEmpty())
+      containerRuntime.removeFilesFromContainer(containerId, removedFiles);
+    long sentBytes = changedFiles.isEmpty() ? 0 : copyFiles(containerId, changedFiles);
+    saveManifest(manifestFile, manifest);
+
+    return new SyncResult(changedLayers, changedFiles.size(), sentBytes, removedFiles.size());
+  }
+
+  /** deletes the manifest of a container that has been removed */
+  void forget(String containerId) {
+    try {
+      Files.deleteIfExists(getManifestFile(containerId));
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
+    }
+  }
+
+  /**
+   * the files are packed in a temporary tar archive, with paths relative to the project directory
+   *
+   * @return the size of the archive
+   */
+  private long copyFiles(String containerId, List<Path> files) {
+    try {
+      Files.createDirectories(manifestDirectory);
+      var tarArchive = Files.createTempFile(manifestDirectory, containerId, ".tar");
+      try {
+        try (var tarOutputStream = new TarArchiveOutputStream(Files.newOutputStream(tarArchive))) {
+          tarOutputStream.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+          tarOutputStream.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+          for (var file : files) {
+            tarOutputStream.putArchiveEntry(
+                new TarArchiveEntry(file.toFile(), toRelativePath(file)));
+            Files.copy(file, tarOutputStream);
+            tarOutputStream.closeArchiveEntry();
+          }
+        }
+        containerRuntime.copyArchiveToContainer(containerId, tarArchive);
+
+        return Files.size(tarArchive);
+      } finally {
+        Files.deleteIfExists(tarArchive);
+      }
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
+    }
+  }
+
+  private Path getManifestFile(String containerId) {
+    return manifestDirectory.resolve(containerId + ".properties");
+  }
+
+  private static Properties loadManifest(Path manifestFile) {
+    var manifest = new Properties();
+    if (Files.exists(manifestFile)) {
+      try (Reader reader = Files.newBufferedReader(manifestFile)) {
+        manifest.load(reader);
+      } catch (IOException exc) {
+        throw new UncheckedIOException(exc);
+      }
+    }
+
+    return manifest;
+  }
+
+  private void saveManifest(Path manifestFile, Properties manifest) {
+    try {
+      Files.createDirectories(manifestDirectory);
+      var tempFile = Files.createTempFile(manifestDirectory, "manifest", ".tmp");
+      try (Writer writer = Files.newBufferedWriter(tempFile)) {
+        manifest.store(writer, "classpath files copied in the container (size:mtime:sha-256)");
+      }
+      Files.move(tempFile, manifestFile, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
+    }
+  }
+
+  /** regular files of the directory, sorted so that the layer hash does not depend on the order */
+  private static List<Path> listFiles(Path directory) {
+    if (!Files.isDirectory(directory)) return List.of();
+
+    try (Stream<Path> files = Files.walk(directory)) {
+      return files.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
+    }
+  }
+
+  /** the same path is used in the container, relative to its project directory */
+  private String toRelativePath(Path file) {
+    return projectDirectory.relativize(file).toString().replace('\\', '/');
+  }
+
+  private static MessageDigest newSha256Digest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException exc) {
+      throw new IllegalStateException(exc);
+    }
+  }
+
+  private static String toHex(byte[] digest) {
+    return String.format("%064x", new BigInteger(1, digest));
+  }
+
+  /** the directories are relative to the project directory */
+  enum Layer {
+    DEPENDENCIES("build/libs"),
+    MAIN_CLASSES("build/classes/java/main"),
+    TEST_CLASSES("build/classes/java/test"),
+    RESOURCES("build/resources");
+
+    private final String directory;
+
+    Layer(String directory) {
+      this.directory = directory;
+    }
+  }
+
+  /** manifest entry of a file, in the form size:mtime:sha-256 */
+  private static class FileEntry {
+    private final long size;
+    private final long lastModified;
+    private final String hash;
+
+    private FileEntry(long size, long lastModified, String hash) {
+      this.size = size;
+      this.lastModified = lastModified;
+      this.hash = hash;
+    }
+
+    /** the hash of the previous entry is reused if the size and the modification time match */
+    private static FileEntry of(Path file, Optional<FileEntry> previousFileEntry) {
+      try {
+        long size = Files.size(file);
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        if (previousFileEntry.isPresent()
+            && previousFileEntry.get().size == size
+            && previousFileEntry.get().lastModified == lastModified) return previousFileEntry.get();
+
+        var digest = newSha256Digest();
+        try (var inputStream = Files.newInputStream(file)) {
+          var buffer = new byte[8192];
+          int read;
+          while ((read = inputStream.read(buffer)) >= 0) digest.update(buffer, 0, read);
+        }
+
+        return new FileEntry(size, lastModified, toHex(digest.digest()));
+      } catch (IOException exc) {
+        throw new UncheckedIOException(exc);
+      }
+    }
+
+    private static FileEntry parse(String entry) {
+      var fields = entry.split(":", 3);
+
+      return new FileEntry(Long.parseLong(fields[0]), Long.parseLong(fields[1]), fields[2]);
+    }
+
+    @Override
+    public String toString() {
+      return size + ":" + lastModified + ":" + hash;
+    }
+  }
+
+  /** what has been sent to the container by a synchronization */
+  static class SyncResult {
+    final int changedLayers;
+    final int copiedFiles;
+    final long copiedBytes;
+    final int removedFiles;
+
+    SyncResult(int changedLayers, int copiedFiles, long copiedBytes, int removedFiles) {
+      this.changedLayers = changedLayers;
+      this.copiedFiles = copiedFiles;
+      this.copiedBytes = copiedBytes;
+      this.removedFiles = removedFiles;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "%d changed layers, %d files copied (%d KB), %d files removed",
+          changedLayers, copiedFiles, copiedBytes / 1024, removedFiles);
+    }
+  }
+}
@@ -0,0 +1,300 @@
+package vec.engine.impl;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.junit.platform.engine.reporting.ReportEntry;
+import vec.helpers.ContainerRuntime;
+import vec.helpers.ResourceLimits;
+
+/**
+ * creates, starts and stops the testing containers concurrently, with at most parallelism docker
+ * commands in flight. The latency of every lifecycle command is reported with a {@link ReportEntry}
+ * for each container. When a {@link ReusableContainerRegistry} is given, containers left running by
+ * a previous run are reused and containers are not stopped at the end. When a {@link
+ * ClasspathSynchronizer} is given, the classpath is copied in every container once it is running.
+ * The latencies are also recorded in the {@link PhaseTimings} of the run. When an {@link
+ * AdmissionController} is given, every container waits to be admitted before it is started, and
+ * keeps its demand committed until its classpath is synchronized.
+ */
+class ContainerLifecycleManager {
+  private final ContainerRuntime containerRuntime;
+  private final int parallelism;
+  private final ReusableContainerRegistry reusableContainerRegistry;
+  private final ClasspathSynchronizer classpathSynchronizer;
+  private final PhaseTimings phaseTimings;
+  private final AdmissionController admissionController;
+
+  ContainerLifecycleManager(ContainerRuntime containerRuntime, int parallelism) {
+    this(containerRuntime, parallelism, null, null, new PhaseTimings(), null);
+  }
+
+  /**
+   * @param reusableContainerRegistry null if containers must not be reused
+   * @param classpathSynchronizer null if the classpath is bind-mounted
+   * @param admissionController null if containers are started without a budget
+   */
+  ContainerLifecycleManager(
+      ContainerRuntime containerRuntime,
+      int parallelism,
+      ReusableContainerRegistry reusableContainerRegistry,
+      ClasspathSynchronizer classpathSynchronizer,
+      PhaseTimings phaseTimings,
+      AdmissionController admissionController) {
+    this.containerRuntime = containerRuntime;
+    this.parallelism = parallelism;
+    this.reusableContainerRegistry = reusableContainerRegistry;
+    this.classpathSynchronizer = classpathSynchronizer;
+    this.phaseTimings = phaseTimings;
+    this.admissionController = admissionController;
+  }
+
+  /**
+   * start containers starting from a map (containerName, image). If a container cannot be started,
+   * all the other containers are stopped before throwing.
+   *
+   * @return the map (containerName, containerId)
+   */
+  Map<String, String> startContainers(
+      Map<String, String> containerInfoMap, Consumer<ReportEntry> reporter) {
+    return startContainers(containerInfoMap, Map.of(), reporter);
+  }
+
+  /**
+   * like startContainers, every container is created with its resource limits
+   *
+   * @param resourceLimits the key is the container name, containers missing have no limits
+   */
+  Map<String, String> startContainers(
+      Map<String, String> containerInfoMap,
+      Map<String, ResourceLimits> resourceLimits,
+      Consumer<ReportEntry> reporter) {
+    var executor = newLifecycleExecutor(containerInfoMap.size());
+    try {
+      Map<String, Future<String>> startingContainers = new LinkedHashMap<>();
+      for (var containerInfo : containerInfoMap.entrySet()) {
+        startingContainers.put(
+            containerInfo.getKey(),
+            executor.submit(
+                () ->
+                    startContainer(
+                        containerInfo.getValue(),
+                        containerInfo.getKey(),
+                        resourceLimits.getOrDefault(containerInfo.getKey(), ResourceLimits.NONE),
+                        reporter)));
+      }
+
+      Map<String, String> startedContainers = new HashMap<>();
+      RuntimeException failure = null;
+      for (var startingContainer : startingContainers.entrySet()) {
+        try {
+          startedContainers.put(startingContainer.getKey(), startingContainer.getValue().get());
+        } catch (ExecutionException exc) {
+          failure = addFailure(failure, exc.getCause());
+        } catch (InterruptedException exc) {
+          Thread.currentThread().interrupt();
+          failure = addFailure(failure, exc);
+        }
+      }
+
+      if (failure != null) {
+        try {
+          stopContainers(startedContainers, entry -> {});
+        } catch (RuntimeException stopFailure) {
+          failure.addSuppressed(stopFailure);
+        }
+        throw failure;
+      }
+
+      return startedContainers;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * stop containers starting from a map (containerName, containerId). All the containers are
+   * stopped even if some of them fail. Reusable containers are left running instead.
+   */
+  void stopContainers(Map<String, String> containerNameIdMap, Consumer<ReportEntry> reporter) {
+    if (reusableContainerRegistry != null) {
+      reusableContainerRegistry.releaseContainers(containerNameIdMap.values());
+      return;
+    }
+
+    var executor = newLifecycleExecutor(containerNameIdMap.size());
+    try {
+      var stoppingContainers =
+          containerNameIdMap.entrySet().stream()
+              .map(
+                  container ->
+                      executor.submit(
+                          () -> stopContainer(container.getValue(), container.getKey(), reporter)))
+              .toArray(Future<?>[]::new);
+
+      RuntimeException failure = null;
+      for (var stoppingContainer : stoppingContainers) {
+        try {
+          stoppingContainer.get();
+        } catch (ExecutionException exc) {
+          failure = addFailure(failure, exc.getCause());
+        } catch (InterruptedException exc) {
+          Thread.currentThread().interrupt();
+          failure = addFailure(failure, exc);
+        }
+      }
+
+      if (failure != null) throw failure;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private String startContainer(
+      String image,
+      String containerName,
+      ResourceLimits resourceLimits,
+      Consumer<ReportEntry> reporter)
+      throws InterruptedException {
+    if (admissionController == null)
+      return startAdmittedContainer(image, containerName, resourceLimits, reporter);
+
+    long admissionStart = System.nanoTime();
+    var admission = admissionController.admit(containerName, resourceLimits);
+    phaseTimings.record(
+        containerName, PhaseTimings.Phase.ADMISSION, "", System.nanoTime() - admissionStart);
+    try {
+      return startAdmittedContainer(image, containerName, resourceLimits, reporter);
+    } finally {
+      admission.release();
+    }
+  }
+
+  private String startAdmittedContainer(
+      String image,
+      String containerName,
+      ResourceLimits resourceLimits,
+      Consumer<ReportEntry> reporter) {
+    var containerId = createAndStartContainer(image, containerName, resourceLimits, reporter);
+    if (classpathSynchronizer == null) return containerId;
+
+    try {
+      long syncStart = System.nanoTime();
+      var syncResult = classpathSynchronizer.synchronize(containerId);
+      long syncNanos = System.nanoTime() - syncStart;
+      phaseTimings.record(containerName, PhaseTimings.Phase.CLASSPATH_SYNC, "", syncNanos);
+      reporter.accept(
+          ReportEntry.from(
+              Map.of(
+                  "container", containerName,
+                  "classpath-sync", formatLatency(syncNanos),
+                  "classpath-changes", syncResult.toString())));
+    } catch (RuntimeException exc) {
+      try {
+        stopContainer(containerId, containerName, entry -> {});
+      } catch (RuntimeException stopFailure) {
+        exc.addSuppressed(stopFailure);
+      }
+      throw exc;
+    }
+
+    return containerId;
+  }
+
+  private String createAndStartContainer(
+      String image,
+      String containerName,
+      ResourceLimits resourceLimits,
+      Consumer<ReportEntry> reporter) {
+    long createStart = System.nanoTime();
+    if (reusableContainerRegistry != null) {
+      var reusableContainerId =
+          reusableContainerRegistry.findContainer(image, containerName, resourceLimits);
+      if (reusableContainerId.isPresent()) {
+        reporter.accept(
+            ReportEntry.from(
+                Map.of(
+                    "container",
+                    containerName,
+                    "reused",
+                    formatLatency(System.nanoTime() - createStart))));
+        return reusableContainerId.get();
+      }
+    }
+
+    var containerId =
+        reusableContainerRegistry != null
+            ? reusableContainerRegistry.createContainer(image, containerName, resourceLimits)
+            : containerRuntime.createTestingContainer(image, containerName, resourceLimits);
+    long startStart = System.nanoTime();
+    try {
+      containerRuntime.startContainer(containerId);
+    } catch (RuntimeException exc) {
+      try {
+        containerRuntime.removeTestingContainer(containerId);
+      } catch (RuntimeException removeFailure) {
+        exc.addSuppressed(removeFailure);
+      }
+      throw exc;
+    }
+    long startEnd = System.nanoTime();
+    phaseTimings.record(containerName, PhaseTimings.Phase.CREATE, "", startStart - createStart);
+    phaseTimings.record(containerName, PhaseTimings.Phase.START, "", startEnd - startStart);
+
+    reporter.accept(
+        ReportEntry.from(
+            Map.of(
+                "container", containerName,
+                "create", formatLatency(startStart - createStart),
+                "start", formatLatency(startEnd - startStart))));
+
+    return containerId;
+  }
+
+  private Void stopContainer(
+      String containerId, String containerName, Consumer<ReportEntry> reporter) {
+    long stopStart = System.nanoTime();
+    containerRuntime.stopTestingContainer(containerId);
+    // the container is removed when stopped
+    if (classpathSynchronizer != null) classpathSynchronizer.forget(containerId);
+    long stopNanos = System.nanoTime() - stopStart;
+    phaseTimings.record(containerName, PhaseTimings.Phase.STOP, "", stopNanos);
+
+    reporter.accept(
+        ReportEntry.from(Map.of("container", containerName, "stop", formatLatency(stopNanos))));
+
+    return null;
+  }
+
+  private ExecutorService newLifecycleExecutor(int containers) {
+    var threadCounter = new AtomicInteger();
+    return Executors.newFixedThreadPool(
+        Math.max(1, Math.min(parallelism, containers)),
+        runnable -> {
+          var thread =
+              new Thread(runnable, "docker-engine-lifecycle-" + threadCounter.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  private static RuntimeException addFailure(RuntimeException failure, Throwable newFailure) {
+    if (failure == null)
+      return newFailure instanceof RuntimeException
+          ? (RuntimeException) newFailure
+          : new RuntimeException(newFailure);
+
+    failure.addSuppressed(newFailure);
+    return failure;
+  }
+
+  private static String formatLatency(long nanos) {
+    return PhaseTimings.formatLatency(nanos);
+  }
+}
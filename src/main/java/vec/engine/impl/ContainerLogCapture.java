@@ -0,0 +1,154 @@
+package vec.engine.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * writes the output of a test run inside a container to two log files, one for the standard output
+ * and one for the standard error, through file channels. Only the tail of each stream is kept in
+ * memory (to be shown in the failure messages), so the memory used does not depend on the size of
+ * the output.
+ */
+class ContainerLogCapture implements Closeable {
+  private static final String STANDARD_OUTPUT_EXTENSION = ".stdout";
+  private static final String STANDARD_ERROR_EXTENSION = ".stderr";
+
+  private final Path standardOutputLog;
+  private final Path standardErrorLog;
+  private final FileChannel standardOutputChannel;
+  private final FileChannel standardErrorChannel;
+  private final TailBuffer standardOutputTail;
+  private final TailBuffer standardErrorTail;
+  private boolean closed = false;
+
+  /**
+   * the log files are logDirectory/logName.stdout and logDirectory/logName.stderr, they are
+   * overwritten if they already exist
+   *
+   * @param tailSize bytes of each stream kept in memory
+   */
+  ContainerLogCapture(Path logDirectory, String logName, int tailSize) {
+    var fileName = toFileName(logName);
+    this.standardOutputLog = logDirectory.resolve(fileName + STANDARD_OUTPUT_EXTENSION);
+    this.standardErrorLog = logDirectory.resolve(fileName + STANDARD_ERROR_EXTENSION);
+    this.standardOutputTail = new TailBuffer(tailSize);
+    this.standardErrorTail = new TailBuffer(tailSize);
+    try {
+      Files.createDirectories(logDirectory);
+      this.standardOutputChannel = openLog(standardOutputLog);
+      this.standardErrorChannel = openLog(standardErrorLog);
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
+    }
+  }
+
+  private static FileChannel openLog(Path log) throws IOException {
+    return FileChannel.open(
+        log,
+        StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.WRITE);
+  }
+
+  /** methods in canonical name form contain characters that are not allowed in file names */
+  private static String toFileName(String logName) {
+    return logName.replaceAll("[^A-Za-z0-9._#-]", "_");
+  }
+
+  Path getStandardOutputLog() {
+    return standardOutputLog;
+  }
+
+  Path getStandardErrorLog() {
+    return standardErrorLog;
+  }
+
+  /** output received after the capture has been closed is discarded */
+  synchronized void writeStandardOutput(byte[] chunk) {
+    if (closed) return;
+
+    write(standardOutputChannel, chunk);
+    standardOutputTail.append(chunk);
+  }
+
+  /** output received after the capture has been closed is discarded */
+  synchronized void writeStandardError(byte[] chunk) {
+    if (closed) return;
+
+    write(standardErrorChannel, chunk);
+    standardErrorTail.append(chunk);
+  }
+
+  synchronized String getStandardOutputTail() {
+    return standardOutputTail.toString();
+  }
+
+  synchronized String getStandardErrorTail() {
+    return standardErrorTail.toString();
+  }
+
+  private static void write(FileChannel channel, byte[] chunk) {
+    var buffer = ByteBuffer.wrap(chunk);
+    try {
+      while (buffer.hasRemaining()) channel.write(buffer);
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (closed) return;
+
+    closed = true;
+    try {
+      standardOutputChannel.close();
+    } finally {
+      standardErrorChannel.close();
+    }
+  }
+
+  /** ring buffer with the last bytes appended */
+  static class TailBuffer {
+    private final byte[] buffer;
+    /** index where the next byte is written */
+    private int end = 0;
+
+    private int size = 0;
+
+    TailBuffer(int capacity) {
+      this.buffer = new byte[capacity];
+    }
+
+    void append(byte[] bytes) {
+      int offset = Math.max(0, bytes.length - buffer.length);
+      int length = bytes.length - offset;
+
+      int firstPartLength = Math.min(length, buffer.length - end);
+      System.arraycopy(bytes, offset, buffer, end, firstPartLength);
+      System.arraycopy(bytes, offset + firstPartLength, buffer, 0, length - firstPartLength);
+
+      end = (end + length) % buffer.length;
+      size = Math.min(buffer.length, size + length);
+    }
+
+    /** a multi-byte character cut at the beginning of the tail is replaced */
+    @Override
+    public String toString() {
+      var tail = new byte[size];
+      int start = (end - size + buffer.length) % buffer.length;
+      int firstPartLength = Math.min(size, buffer.length - start);
+      System.arraycopy(buffer, start, tail, 0, firstPartLength);
+      System.arraycopy(buffer, 0, tail, firstPartLength, size - firstPartLength);
+
+      return new String(tail, StandardCharsets.UTF_8);
+    }
+  }
+}
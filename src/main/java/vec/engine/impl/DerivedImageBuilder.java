@@ -0,0 +1,252 @@
+package vec.engine.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.junit.platform.engine.reporting.ReportEntry;
+import vec.helpers.ContainerRuntime;
+import vec.helpers.DockerHelper;
+
+/**
+ * builds the images derived from the images of the {@link vec.engine.annotations.Dockerized}
+ * annotations. A derived image contains the dependency jars of the tests and a dynamic class data
+ * sharing archive of the launcher and its dependencies, so that containers do not load the fat jar
+ * and their JVMs start faster. It is tagged with a hash of the base image, the engine version and
+ * the dependency jars, and it is built only when no image with the same tag exists.
+ */
+class DerivedImageBuilder {
+  static final String DERIVED_IMAGE_REPOSITORY = "docker-engine-derived";
+  private static final String CONTEXT_DIR = "docker-engine";
+  private static final String DEPENDENCIES_DIR = "deps";
+  private static final String CDS_ARCHIVE = "/docker-engine/app.jsa";
+
+  private final ContainerRuntime containerRuntime;
+  private final String engineVersion;
+  private final List<Path> dependencyJars;
+  private final Path buildDirectory;
+
+  /**
+   * @param dependencyJars jars baked in the derived images, in classpath order
+   * @param buildDirectory directory where the build contexts are written
+   */
+  DerivedImageBuilder(
+      ContainerRuntime containerRuntime,
+      String engineVersion,
+      List<Path> dependencyJars,
+      Path buildDirectory) {
+    this.containerRuntime = containerRuntime;
+    this.engineVersion = engineVersion;
+    this.dependencyJars = dependencyJars;
+    this.buildDirectory = buildDirectory;
+  }
+
+  /**
+   * the dependencies are the jars of the classpath of the engine that are not built by the project,
+   * the project classes and the fat jar are still bind-mounted or copied in the containers
+   *
+   * @param classpath entries separated by the path separator, like java.class.path
+   */
+  static List<Path> findDependencyJars(String classpath, Path projectDirectory) {
+    var projectBuildDirectory = projectDirectory.resolve("build").toAbsolutePath().normalize();
+
+    return Stream.of(classpath.split(File.pathSeparator))
+        .filter(entry -> !entry.isBlank())
+        .map(entry -> Path.of(entry).toAbsolutePath().normalize())
+        .filter(entry -> entry.getFileName().toString().endsWith(".jar"))
+        .filter(Files::isRegularFile)
+        .filter(entry -> !entry.startsWith(projectBuildDirectory))
+        .distinct()
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * @return the tag of the image derived from baseImage, that is built if it does not exist yet
+   */
+  String getDerivedImage(String baseImage, Consumer<ReportEntry> reporter) {
+    long start = System.nanoTime();
+    var baseImageDetails =
+        containerRuntime
+            .inspectImage(baseImage)
+            .orElseThrow(
+                () -> new IllegalStateException(String.format("image %s not found", baseImage)));
+    var derivedImage =
+        DERIVED_IMAGE_REPOSITORY + ":" + computeDerivedImageHash(baseImage, baseImageDetails.id);
+
+    var built = false;
+    if (containerRuntime.inspectImage(derivedImage).isEmpty()) {
+      buildDerivedImage(baseImage, baseImageDetails.user, derivedImage);
+      built = true;
+    }
+
+    reporter.accept(
+        ReportEntry.from(
+            Map.of(
+                "image",
+                baseImage,
+                "derived-image",
+                derivedImage,
+                built ? "build" : "cached",
+                ((System.nanoTime() - start) / 1_000_000) + " ms")));
+
+    return derivedImage;
+  }
+
+  /**
+   * the jars are identified by path, size and modification time: jars in the Gradle cache never
+   * change, and the others are rewritten when they change
+   */
+  String computeDerivedImageHash(String baseImage, String baseImageId) {
+    var configuration =
+        new StringBuilder(baseImage)
+            .append('\n')
+            .append(baseImageId)
+            .append('\n')
+            .append(engineVersion);
+    try {
+      for (var dependencyJar : dependencyJars) {
+        configuration
+            .append('\n')
+            .append(dependencyJar)
+            .append(':')
+            .append(Files.size(dependencyJar))
+            .append(':')
+            .append(Files.getLastModifiedTime(dependencyJar).toMillis());
+      }
+
+      var digest =
+          MessageDigest.getInstance("SHA-256")
+              .digest(configuration.toString().getBytes(StandardCharsets.UTF_8));
+      return String.format("%064x", new BigInteger(1, digest)).substring(0, 32);
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
+    } catch (NoSuchAlgorithmException exc) {
+      throw new IllegalStateException(exc);
+    }
+  }
+
+  private void buildDerivedImage(String baseImage, String baseImageUser, String derivedImage) {
+    try {
+      Files.createDirectories(buildDirectory);
+      var buildContext = Files.createTempFile(buildDirectory, "derived-image", ".tar");
+      try {
+        writeBuildContext(buildContext, baseImage, baseImageUser);
+        containerRuntime.buildImage(buildContext, derivedImage);
+      } finally {
+        Files.deleteIfExists(buildContext);
+      }
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
+    }
+  }
+
+  /**
+   * the build context contains the Dockerfile, the dependency jars (numbered, so that jars with the
+   * same name do not clash) and the jar whose manifest refers to them
+   */
+  void writeBuildContext(Path buildContext, String baseImage, String baseImageUser)
+      throws IOException {
+    try (var tarOutputStream = new TarArchiveOutputStream(Files.newOutputStream(buildContext))) {
+      tarOutputStream.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+      tarOutputStream.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+
+      putEntry(
+          tarOutputStream,
+          "Dockerfile",
+          createDockerfile(baseImage, baseImageUser).getBytes(StandardCharsets.UTF_8));
+
+      List<String> bakedJarNames = new ArrayList<>();
+      for (int i = 0; i < dependencyJars.size(); i++) {
+        var bakedJarName =
+            String.format(
+                "%s/%03d-%s",
+                DEPENDENCIES_DIR,
+                i,
+                // the entries of the Class-Path are separated by spaces
+                dependencyJars.get(i).getFileName().toString().replaceAll("[^A-Za-z0-9._-]", "_"));
+        bakedJarNames.add(bakedJarName);
+
+        var dependencyJar = dependencyJars.get(i).toFile();
+        tarOutputStream.putArchiveEntry(
+            new TarArchiveEntry(dependencyJar, CONTEXT_DIR + "/" + bakedJarName));
+        Files.copy(dependencyJars.get(i), tarOutputStream);
+        tarOutputStream.closeArchiveEntry();
+      }
+
+      putEntry(
+          tarOutputStream,
+          CONTEXT_DIR + "/" + Path.of(DockerHelper.BAKED_DEPENDENCIES_JAR).getFileName(),
+          createClassPathJar(bakedJarNames));
+    }
+  }
+
+  private static void putEntry(TarArchiveOutputStream tarOutputStream, String name, byte[] content)
+      throws IOException {
+    var entry = new TarArchiveEntry(name);
+    entry.setSize(content.length);
+    tarOutputStream.putArchiveEntry(entry);
+    tarOutputStream.write(content);
+    tarOutputStream.closeArchiveEntry();
+  }
+
+  /** a jar with no classes, the Class-Path of its manifest lists the baked jars */
+  private static byte[] createClassPathJar(List<String> bakedJarNames) throws IOException {
+    var manifest = new Manifest();
+    manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+    manifest.getMainAttributes().put(Attributes.Name.CLASS_PATH, String.join(" ", bakedJarNames));
+
+    var classPathJar = new ByteArrayOutputStream();
+    new JarOutputStream(classPathJar, manifest).close();
+
+    return classPathJar.toByteArray();
+  }
+
+  /**
+   * the class data sharing archive is dumped by a discovery of the console launcher, with the same
+   * classpath prefix used by the launchers of the engine. The archive is optional: if the JVM of
+   * the base image cannot dump it, the build goes on and the JVMs log a warning on the standard
+   * error, that is kept apart from the results of the tests.
+   */
+  static String createDockerfile(String baseImage, String baseImageUser) {
+    var dockerfile =
+        new StringBuilder()
+            .append("FROM ")
+            .append(baseImage)
+            .append("\nUSER root")
+            .append("\nCOPY ")
+            .append(CONTEXT_DIR)
+            .append(" /docker-engine")
+            .append("\nRUN java -XX:ArchiveClassesAtExit=")
+            .append(CDS_ARCHIVE)
+            .append(" -cp ")
+            .append(DockerHelper.CONSOLE_LAUNCHER_JAR)
+            .append(':')
+            .append(DockerHelper.BAKED_DEPENDENCIES_JAR)
+            .append(" org.junit.platform.console.ConsoleLauncher")
+            .append(" --disable-banner --details=none --exclude-engine=docker-engine")
+            .append(" --select-class=java.lang.Object > /dev/null 2>&1 || true")
+            .append("\nENV JDK_JAVA_OPTIONS=\"-XX:SharedArchiveFile=")
+            .append(CDS_ARCHIVE)
+            .append(" -Xlog:disable -Xlog:all=warning:stderr\"");
+    if (!baseImageUser.isEmpty()) dockerfile.append("\nUSER ").append(baseImageUser);
+
+    return dockerfile.append('\n').toString();
+  }
+}
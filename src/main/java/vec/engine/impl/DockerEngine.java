@@ -1,18 +1,34 @@
 package vec.engine.impl;
 
-import org.junit.platform.commons.util.ReflectionUtils;
+import org.junit.platform.commons.util.ClassLoaderUtils;
 import org.junit.platform.engine.EngineDiscoveryRequest;
 import org.junit.platform.engine.ExecutionRequest;
 import org.junit.platform.engine.TestDescriptor;
 import org.junit.platform.engine.UniqueId;
-import org.junit.platform.engine.discovery.ClassSelector;
+import org.junit.platform.engine.support.discovery.EngineDiscoveryRequestResolver;
+import org.junit.platform.engine.support.hierarchical.ForkJoinPoolHierarchicalTestExecutorService;
 import org.junit.platform.engine.support.hierarchical.HierarchicalTestEngine;
+import org.junit.platform.engine.support.hierarchical.HierarchicalTestExecutorService;
 import vec.engine.impl.descriptors.DockerEngineDescriptor;
-import vec.engine.impl.descriptors.DockerizedTestClassDescriptor;
-import vec.engine.impl.descriptors.DockerizedTestMethodDescriptor;
 
 public class DockerEngine extends HierarchicalTestEngine<DockerEngineExecutionContext> {
   private static final String ENGINE_ID = "docker-engine";
+  private static final EngineDiscoveryRequestResolver<DockerEngineDescriptor>
+      DISCOVERY_REQUEST_RESOLVER =
+          EngineDiscoveryRequestResolver.<DockerEngineDescriptor>builder()
+              .addSelectorResolver(
+                  context ->
+                      new DockerizedSelectorResolver(
+                          context.getEngineDescriptor(),
+                          context.getClassNameFilter(),
+                          new DockerizedClassIndex(
+                              context
+                                  .getEngineDescriptor()
+                                  .getConfiguration()
+                                  .getWorkDirectory()
+                                  .resolve("discovery"),
+                              ClassLoaderUtils.getDefaultClassLoader())))
+              .build();
 
   @Override
   public String getId() {
@@ -21,25 +37,51 @@ public class DockerEngine extends HierarchicalTestEngine<DockerEngineExecutionCo
 
   @Override
   protected DockerEngineExecutionContext createExecutionContext(ExecutionRequest request) {
-    return new DockerEngineExecutionContext();
+    return new DockerEngineExecutionContext(
+        new DockerEngineConfiguration(request.getConfigurationParameters()),
+        request.getEngineExecutionListener(),
+        request.getRootTestDescriptor(),
+        getVersion().orElse("DEVELOPMENT"));
   }
 
+  /**
+   * tests are run in a fork-join pool when docker.engine.execution.parallel.enabled is true,
+   * otherwise they are run one at a time in the same thread
+   */
+  @Override
+  protected HierarchicalTestExecutorService createExecutorService(ExecutionRequest request) {
+    var configuration = new DockerEngineConfiguration(request.getConfigurationParameters());
+    if (configuration.isParallelExecutionEnabled())
+      return new ForkJoinPoolHierarchicalTestExecutorService(
+          configuration.getParallelExecutionConfigurationParameters());
+
+    return super.createExecutorService(request);
+  }
+
+  /**
+   * class, method, unique id, package, classpath root and module selectors are supported. The
+   * classes of packages and classpath roots are found reading their class files, and the
+   * annotations of every loaded class are read once in its {@link
+   * vec.engine.impl.descriptors.DockerizedClassMetadata}. With the longest first scheduling, the
+   * discovered tree is ordered by the durations of the previous runs.
+   */
   @Override
   public TestDescriptor discover(EngineDiscoveryRequest discoveryRequest, UniqueId uniqueId) {
-    DockerEngineDescriptor engineDescriptor = new DockerEngineDescriptor(uniqueId);
+    DockerEngineDescriptor engineDescriptor =
+        new DockerEngineDescriptor(
+            uniqueId, new DockerEngineConfiguration(discoveryRequest.getConfigurationParameters()));
 
-    discoveryRequest
-        .getSelectorsByType(ClassSelector.class)
-        .forEach(selector -> appendTestsInClass(selector.getJavaClass(), engineDescriptor));
+    DISCOVERY_REQUEST_RESOLVER.resolve(discoveryRequest, engineDescriptor);
+    var configuration = engineDescriptor.getConfiguration();
+    if (configuration.isLongestFirstSchedulingEnabled())
+      new LongestFirstOrderer(
+              new TestDurationHistory(
+                  configuration
+                      .getWorkDirectory()
+                      .resolve(DockerEngineExecutionContext.DURATION_HISTORY_FILE)),
+              configuration)
+          .order(engineDescriptor);
 
     return engineDescriptor;
   }
-
-  private void appendTestsInClass(Class<?> javaClass, TestDescriptor engineDescriptor) {
-    if (ReflectionUtils.findMethods(
-                javaClass, DockerizedTestMethodDescriptor::isDockerizedTestMethod)
-            .size()
-        > 0)
-      engineDescriptor.addChild(new DockerizedTestClassDescriptor(javaClass, engineDescriptor));
-  }
 }
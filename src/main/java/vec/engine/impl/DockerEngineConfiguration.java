@@ -0,0 +1,496 @@
+package vec.engine.impl;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import org.junit.platform.commons.PreconditionViolationException;
+import org.junit.platform.commons.util.Preconditions;
+import org.junit.platform.engine.ConfigurationParameters;
+import org.junit.platform.engine.support.config.PrefixedConfigurationParameters;
+import org.junit.platform.engine.support.hierarchical.Node;
+import vec.helpers.DockerEndpoint;
+import vec.helpers.DockerRuntimeProvider;
+import vec.helpers.DockerTransportOptions;
+import vec.helpers.Durations;
+import vec.helpers.ResourceLimits;
+
+/**
+ * typed view over the configuration parameters given to the docker-engine. Every parameter is
+ * optional and falls back to the behaviour the engine had before the parameter was introduced.
+ */
+public class DockerEngineConfiguration {
+  /**
+   * how test methods are run inside the containers. Accepted values are the names of {@link
+   * ContainerExecutionMode} (case insensitive), default is per_method
+   */
+  public static final String EXECUTION_MODE_PROPERTY_NAME = "docker.engine.execution.mode";
+
+  /**
+   * when true, the invocations of a test template (like a parameterized test) are split in a shard
+   * for every replica and concurrent exec of its container, and the shards run at the same time.
+   * Test factories and the batch mode are not sharded. Default is false
+   */
+  public static final String INVOCATION_SHARDING_ENABLED_PROPERTY_NAME =
+      "docker.engine.execution.invocation-sharding.enabled";
+
+  /**
+   * when true, the duration of every dockerized test is kept in a history under the work directory,
+   * and the tests expected to take longer are started first, in each container and across
+   * containers. The predicted and the actual makespan of the tests are reported at the end of the
+   * run. Default is false
+   */
+  public static final String LONGEST_FIRST_SCHEDULING_ENABLED_PROPERTY_NAME =
+      "docker.engine.execution.scheduling.longest-first.enabled";
+
+  /**
+   * number of failed tests after which the run stops: the tests running in the containers are
+   * cancelled and reported as aborted, the tests not started yet are skipped and the containers are
+   * stopped right away. Default is 0 (the run never stops early)
+   */
+  public static final String FAIL_FAST_THRESHOLD_PROPERTY_NAME =
+      "docker.engine.execution.fail-fast.threshold";
+
+  /**
+   * maximum duration of every test run in a container, used by the tests whose {@link
+   * vec.engine.annotations.Dockerized} has no timeout. The format is the one of
+   * docker.engine.container.reuse.idle-timeout, default is 0 (no timeout)
+   */
+  public static final String DEFAULT_TIMEOUT_PROPERTY_NAME =
+      "docker.engine.execution.timeout.default";
+
+  /** enables the parallel execution of the dockerized tests, default is false */
+  public static final String PARALLEL_EXECUTION_ENABLED_PROPERTY_NAME =
+      "docker.engine.execution.parallel.enabled";
+
+  /**
+   * default execution mode of the descriptors when the parallel execution is enabled: same_thread
+   * or concurrent (case insensitive), default is same_thread
+   */
+  public static final String DEFAULT_PARALLEL_EXECUTION_MODE_PROPERTY_NAME =
+      "docker.engine.execution.parallel.mode.default";
+
+  /**
+   * prefix of the parameters configuring the fork-join pool of the parallel execution, they are the
+   * same supported by Jupiter under junit.jupiter.execution.parallel.config. (strategy,
+   * dynamic.factor, fixed.parallelism, custom.class)
+   */
+  public static final String PARALLEL_CONFIG_PREFIX = "docker.engine.execution.parallel.config.";
+
+  /**
+   * maximum number of tests that run at the same time in the same container when the parallel
+   * execution is enabled, default is 1
+   */
+  public static final String MAX_CONCURRENT_EXECS_PER_CONTAINER_PROPERTY_NAME =
+      "docker.engine.execution.parallel.container.max-concurrent-execs";
+
+  /**
+   * maximum number of containers created, started or stopped at the same time when the engine
+   * starts and when it finishes, default is 4
+   */
+  public static final String CONTAINER_LIFECYCLE_PARALLELISM_PROPERTY_NAME =
+      "docker.engine.container.lifecycle.parallelism";
+
+  /**
+   * when true, every container is started by the first of its tests and stopped as soon as the last
+   * of its tests has finished, instead of starting all the containers before the tests and stopping
+   * them at the end. Default is false
+   */
+  public static final String CONTAINER_LIFECYCLE_LAZY_PROPERTY_NAME =
+      "docker.engine.container.lifecycle.lazy";
+
+  /**
+   * with the lazy lifecycle, number of containers following the one of the running test (in the
+   * order of the descriptor tree) that are started in the background, 0 to start them only when
+   * their first test runs. Default is 1
+   */
+  public static final String CONTAINER_LIFECYCLE_LOOKAHEAD_PROPERTY_NAME =
+      "docker.engine.container.lifecycle.lookahead";
+
+  /**
+   * directory where the engine keeps its state between runs (relative to the project directory),
+   * default is build/docker-engine
+   */
+  public static final String WORK_DIR_PROPERTY_NAME = "docker.engine.work-dir";
+
+  /**
+   * when true, containers are left running at the end of the run and reused by the following runs
+   * with the same image, bind mounts and engine version. Default is false
+   */
+  public static final String CONTAINER_REUSE_ENABLED_PROPERTY_NAME =
+      "docker.engine.container.reuse.enabled";
+
+  /**
+   * reusable containers not used for longer than this duration are removed when the engine starts.
+   * The format is a number followed by an optional unit (ms, s, m, h, d), seconds if missing.
+   * Default is 1 h
+   */
+  public static final String CONTAINER_REUSE_IDLE_TIMEOUT_PROPERTY_NAME =
+      "docker.engine.container.reuse.idle-timeout";
+
+  /**
+   * bytes of the standard output and of the standard error of every test run kept in memory, the
+   * whole output is in the log files under the work directory. Default is 8192
+   */
+  public static final String LOG_TAIL_SIZE_PROPERTY_NAME = "docker.engine.log.tail-size";
+
+  /**
+   * how the test classpath reaches the containers. Accepted values are the names of {@link
+   * ClasspathTransferMode} (case insensitive), default is bind
+   */
+  public static final String CLASSPATH_TRANSFER_MODE_PROPERTY_NAME =
+      "docker.engine.classpath.transfer";
+
+  /**
+   * when true, the containers are started from images derived from the ones of the annotations,
+   * with the dependencies of the tests and a class data sharing archive baked in. Derived images
+   * are tagged with the hash of the dependencies and built again only when they change. Default is
+   * false
+   */
+  public static final String DERIVED_IMAGE_ENABLED_PROPERTY_NAME =
+      "docker.engine.image.derived.enabled";
+
+  /**
+   * when true, the images of the discovered tests are checked in the background as soon as the
+   * execution starts, and the missing ones are pulled from their registries, at most
+   * docker.engine.container.lifecycle.parallelism at the same time. Default is false
+   */
+  public static final String IMAGE_PRE_PULL_ENABLED_PROPERTY_NAME =
+      "docker.engine.image.pre-pull.enabled";
+
+  /**
+   * name of the {@link vec.helpers.ContainerRuntimeProvider} creating the runtime of the testing
+   * containers: docker, local-process or the name of a provider registered by the project. Default
+   * is docker
+   */
+  public static final String RUNTIME_PROPERTY_NAME = "docker.engine.runtime";
+
+  /**
+   * when true, the tests that passed are not run again until their classes, the dependencies or the
+   * image of their container change, they are reported as successful with a report entry. Default
+   * is false
+   */
+  public static final String RESULT_CACHE_ENABLED_PROPERTY_NAME =
+      "docker.engine.result-cache.enabled";
+
+  /** maximum size in bytes of the result cache file, default is 1048576 */
+  public static final String RESULT_CACHE_MAX_SIZE_PROPERTY_NAME =
+      "docker.engine.result-cache.max-size";
+
+  /**
+   * cores that the containers being started and the tests being run can commit at the same time,
+   * see {@link AdmissionController}. It is a number of cores (it can be fractional) or auto for the
+   * cores of the host running the engine. Default is no budget
+   */
+  public static final String ADMISSION_CPUS_PROPERTY_NAME = "docker.engine.admission.cpus";
+
+  /**
+   * memory that the containers being started and the tests being run can commit at the same time,
+   * for example 8g, or auto for the physical memory of the host running the engine. Default is no
+   * budget
+   */
+  public static final String ADMISSION_MEMORY_PROPERTY_NAME = "docker.engine.admission.memory";
+
+  /**
+   * interval between two readings of the resource usage of the containers, used by the admission
+   * control as demand of the containers without limits. The format is the one of
+   * docker.engine.container.reuse.idle-timeout, default is 0 (no readings)
+   */
+  public static final String ADMISSION_STATS_INTERVAL_PROPERTY_NAME =
+      "docker.engine.admission.stats-interval";
+
+  /**
+   * comma separated docker hosts the containers are spread over, each one optionally followed by
+   * =weight, for example unix:///run/user/1000/docker.sock=2,unix:///run/user/1001/docker.sock.
+   * Many endpoints need docker.engine.classpath.transfer=copy. Default is the daemon of the
+   * environment
+   */
+  public static final String DOCKER_ENDPOINTS_PROPERTY_NAME = "docker.engine.docker.endpoints";
+
+  /**
+   * size of the pool of connections to the docker daemon, every test run holds one of them while it
+   * is running. Default is 5
+   */
+  public static final String DOCKER_MAX_CONNECTIONS_PROPERTY_NAME =
+      "docker.engine.docker.max-connections";
+
+  /**
+   * when true, the output of the docker execs is read by virtual threads if the JVM supports them,
+   * default is false
+   */
+  public static final String DOCKER_VIRTUAL_THREADS_PROPERTY_NAME =
+      "docker.engine.docker.virtual-threads";
+
+  private static final String AUTO_VALUE = "auto";
+
+  private final ConfigurationParameters configurationParameters;
+
+  public DockerEngineConfiguration(ConfigurationParameters configurationParameters) {
+    this.configurationParameters = configurationParameters;
+  }
+
+  public ContainerExecutionMode getExecutionMode() {
+    return configurationParameters
+        .get(
+            EXECUTION_MODE_PROPERTY_NAME,
+            value -> parseEnum(ContainerExecutionMode.class, EXECUTION_MODE_PROPERTY_NAME, value))
+        .orElse(ContainerExecutionMode.PER_METHOD);
+  }
+
+  public boolean isParallelExecutionEnabled() {
+    return configurationParameters
+        .getBoolean(PARALLEL_EXECUTION_ENABLED_PROPERTY_NAME)
+        .orElse(false);
+  }
+
+  public Node.ExecutionMode getDefaultParallelExecutionMode() {
+    return configurationParameters
+        .get(
+            DEFAULT_PARALLEL_EXECUTION_MODE_PROPERTY_NAME,
+            value ->
+                parseEnum(
+                    Node.ExecutionMode.class, DEFAULT_PARALLEL_EXECUTION_MODE_PROPERTY_NAME, value))
+        .orElse(Node.ExecutionMode.SAME_THREAD);
+  }
+
+  public ConfigurationParameters getParallelExecutionConfigurationParameters() {
+    return new PrefixedConfigurationParameters(configurationParameters, PARALLEL_CONFIG_PREFIX);
+  }
+
+  public boolean isInvocationShardingEnabled() {
+    return configurationParameters
+        .getBoolean(INVOCATION_SHARDING_ENABLED_PROPERTY_NAME)
+        .orElse(false);
+  }
+
+  public boolean isLongestFirstSchedulingEnabled() {
+    return configurationParameters
+        .getBoolean(LONGEST_FIRST_SCHEDULING_ENABLED_PROPERTY_NAME)
+        .orElse(false);
+  }
+
+  /** 0 when the run never stops early */
+  public int getFailFastThreshold() {
+    int value =
+        configurationParameters.get(FAIL_FAST_THRESHOLD_PROPERTY_NAME, Integer::parseInt).orElse(0);
+    Preconditions.condition(
+        value >= 0, String.format("%s cannot be negative", FAIL_FAST_THRESHOLD_PROPERTY_NAME));
+
+    return value;
+  }
+
+  public Duration getDefaultTimeout() {
+    return getDuration(DEFAULT_TIMEOUT_PROPERTY_NAME, Duration.ZERO);
+  }
+
+  /** it is always 1 when the parallel execution is disabled, because tests are run one at a time */
+  public int getMaxConcurrentExecsPerContainer() {
+    if (!isParallelExecutionEnabled()) return 1;
+
+    return getPositiveInt(MAX_CONCURRENT_EXECS_PER_CONTAINER_PROPERTY_NAME, 1);
+  }
+
+  public int getContainerLifecycleParallelism() {
+    return getPositiveInt(CONTAINER_LIFECYCLE_PARALLELISM_PROPERTY_NAME, 4);
+  }
+
+  public boolean isLazyContainerLifecycleEnabled() {
+    return configurationParameters.getBoolean(CONTAINER_LIFECYCLE_LAZY_PROPERTY_NAME).orElse(false);
+  }
+
+  public int getContainerLifecycleLookahead() {
+    int value =
+        configurationParameters
+            .get(CONTAINER_LIFECYCLE_LOOKAHEAD_PROPERTY_NAME, Integer::parseInt)
+            .orElse(1);
+    Preconditions.condition(
+        value >= 0,
+        String.format("%s cannot be negative", CONTAINER_LIFECYCLE_LOOKAHEAD_PROPERTY_NAME));
+
+    return value;
+  }
+
+  public Path getWorkDirectory() {
+    return Path.of(System.getProperty("user.dir"))
+        .resolve(configurationParameters.get(WORK_DIR_PROPERTY_NAME).orElse("build/docker-engine"));
+  }
+
+  public boolean isContainerReuseEnabled() {
+    return configurationParameters.getBoolean(CONTAINER_REUSE_ENABLED_PROPERTY_NAME).orElse(false);
+  }
+
+  public Duration getContainerReuseIdleTimeout() {
+    return getDuration(CONTAINER_REUSE_IDLE_TIMEOUT_PROPERTY_NAME, Duration.ofHours(1));
+  }
+
+  public int getLogTailSize() {
+    return getPositiveInt(LOG_TAIL_SIZE_PROPERTY_NAME, 8192);
+  }
+
+  public ClasspathTransferMode getClasspathTransferMode() {
+    return configurationParameters
+        .get(
+            CLASSPATH_TRANSFER_MODE_PROPERTY_NAME,
+            value ->
+                parseEnum(
+                    ClasspathTransferMode.class, CLASSPATH_TRANSFER_MODE_PROPERTY_NAME, value))
+        .orElse(ClasspathTransferMode.BIND);
+  }
+
+  public boolean isDerivedImageEnabled() {
+    return configurationParameters.getBoolean(DERIVED_IMAGE_ENABLED_PROPERTY_NAME).orElse(false);
+  }
+
+  public boolean isImagePrePullEnabled() {
+    return configurationParameters.getBoolean(IMAGE_PRE_PULL_ENABLED_PROPERTY_NAME).orElse(false);
+  }
+
+  public boolean isResultCacheEnabled() {
+    return configurationParameters.getBoolean(RESULT_CACHE_ENABLED_PROPERTY_NAME).orElse(false);
+  }
+
+  public int getResultCacheMaxSize() {
+    return getPositiveInt(RESULT_CACHE_MAX_SIZE_PROPERTY_NAME, 1024 * 1024);
+  }
+
+  /** 0 when there is no budget of cores */
+  public double getAdmissionCpus() {
+    return configurationParameters
+        .get(
+            ADMISSION_CPUS_PROPERTY_NAME,
+            value -> {
+              if (value.trim().equalsIgnoreCase(AUTO_VALUE))
+                return AdmissionController.getHostCpus();
+
+              try {
+                var cpus = Double.parseDouble(value.trim());
+                Preconditions.condition(
+                    cpus > 0,
+                    String.format("%s must be greater than 0", ADMISSION_CPUS_PROPERTY_NAME));
+                return cpus;
+              } catch (NumberFormatException exc) {
+                throw new PreconditionViolationException(
+                    String.format("Invalid value for %s: %s", ADMISSION_CPUS_PROPERTY_NAME, value));
+              }
+            })
+        .orElse(0.0);
+  }
+
+  /** 0 when there is no budget of memory */
+  public long getAdmissionMemoryBytes() {
+    return configurationParameters
+        .get(
+            ADMISSION_MEMORY_PROPERTY_NAME,
+            value -> {
+              if (value.trim().equalsIgnoreCase(AUTO_VALUE))
+                return AdmissionController.getHostMemoryBytes();
+
+              try {
+                return ResourceLimits.parseMemorySize(value);
+              } catch (IllegalArgumentException exc) {
+                throw new PreconditionViolationException(
+                    String.format(
+                        "Invalid value for %s: %s", ADMISSION_MEMORY_PROPERTY_NAME, value));
+              }
+            })
+        .orElse(0L);
+  }
+
+  public Duration getAdmissionStatsInterval() {
+    return getDuration(ADMISSION_STATS_INTERVAL_PROPERTY_NAME, Duration.ZERO);
+  }
+
+  public DockerTransportOptions getDockerTransportOptions() {
+    return new DockerTransportOptions(
+        getPositiveInt(DOCKER_MAX_CONNECTIONS_PROPERTY_NAME, 5),
+        configurationParameters.getBoolean(DOCKER_VIRTUAL_THREADS_PROPERTY_NAME).orElse(false),
+        getDockerEndpoints());
+  }
+
+  private List<DockerEndpoint> getDockerEndpoints() {
+    return configurationParameters
+        .get(
+            DOCKER_ENDPOINTS_PROPERTY_NAME,
+            value -> {
+              try {
+                return DockerEndpoint.parseList(value);
+              } catch (IllegalArgumentException exc) {
+                throw new PreconditionViolationException(
+                    String.format(
+                        "Invalid value for %s: %s", DOCKER_ENDPOINTS_PROPERTY_NAME, value),
+                    exc);
+              }
+            })
+        .orElse(List.of());
+  }
+
+  public String getRuntimeName() {
+    return configurationParameters
+        .get(RUNTIME_PROPERTY_NAME)
+        .map(String::trim)
+        .orElse(DockerRuntimeProvider.NAME);
+  }
+
+  private Duration getDuration(String propertyName, Duration defaultValue) {
+    return configurationParameters
+        .get(propertyName, value -> parseDuration(propertyName, value))
+        .orElse(defaultValue);
+  }
+
+  private static Duration parseDuration(String propertyName, String value) {
+    try {
+      return Durations.parse(value);
+    } catch (IllegalArgumentException exc) {
+      throw new PreconditionViolationException(
+          String.format("Invalid duration for %s: %s", propertyName, value));
+    }
+  }
+
+  private int getPositiveInt(String propertyName, int defaultValue) {
+    int value = configurationParameters.get(propertyName, Integer::parseInt).orElse(defaultValue);
+    Preconditions.condition(value > 0, String.format("%s must be greater than 0", propertyName));
+
+    return value;
+  }
+
+  private static <E extends Enum<E>> E parseEnum(
+      Class<E> enumClass, String propertyName, String value) {
+    var constantName = value.trim().toUpperCase(Locale.ROOT);
+    for (var constant : enumClass.getEnumConstants()) {
+      if (constant.name().equals(constantName)) return constant;
+    }
+
+    throw new PreconditionViolationException(
+        String.format("Invalid value for %s: %s", propertyName, value));
+  }
+
+  public enum ContainerExecutionMode {
+    /**
+     * every test method is run by a new launcher process (docker exec). It is the slowest mode, but
+     * tests cannot affect each other
+     */
+    PER_METHOD,
+    /**
+     * a long-lived launcher agent is started in every container when the engine is prepared, and
+     * test methods are sent to it one by one. The JVM startup and the Launcher initialization are
+     * paid once per container
+     */
+    LAUNCHER_AGENT,
+    /**
+     * all the test methods of a container are run by a single launcher process, with a method
+     * selector for each of them. Every method reads its result from the events of the same run
+     */
+    BATCH
+  }
+
+  public enum ClasspathTransferMode {
+    /** build/classes/java, build/resources and build/libs are bind-mounted from the host */
+    BIND,
+    /**
+     * the classpath is copied in the containers when they are started, so that it works with remote
+     * and rootless daemons too. Only the files changed since the last copy in the same container
+     * are sent, see {@link ClasspathSynchronizer}
+     */
+    COPY
+  }
+}
@@ -1,100 +1,1134 @@
 package vec.engine.impl;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import org.junit.platform.commons.PreconditionViolationException;
 import org.junit.platform.commons.util.Preconditions;
+import org.junit.platform.engine.EngineExecutionListener;
+import org.junit.platform.engine.TestDescriptor;
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.reporting.ReportEntry;
 import org.junit.platform.engine.support.hierarchical.EngineExecutionContext;
 import org.opentest4j.TestAbortedException;
-import vec.helpers.DockerHelper;
+import vec.engine.annotations.Dockerized;
+import vec.engine.interfaces.DockerizableDescriptor;
+import vec.helpers.ContainerRuntime;
+import vec.helpers.ContainerRuntimeProvider;
+import vec.helpers.LauncherAgentSession;
+import vec.helpers.ResourceLimits;
 
+/**
+ * the same context is shared by all the descriptors, and when the parallel execution is enabled it
+ * is used by many threads at the same time. Containers (and launcher agents) are started by the
+ * engine descriptor before any test is run, unless the lifecycle is lazy: then every container is
+ * started by its first test and stopped once its last test is released, so the maps of the running
+ * containers change while tests are executed. A container name can be backed by many replicas: each
+ * replica offers a slot for every test it can run at the same time, and a test takes the first free
+ * slot among all the replicas, so that idle replicas pull the next test. When an admission budget
+ * is configured, a test that got its slot also waits for the {@link AdmissionController} before it
+ * is run. Once the fail fast threshold is reached, the runs in progress are cancelled and the
+ * containers are stopped while the remaining descriptors are skipped.
+ */
 public class DockerEngineExecutionContext implements EngineExecutionContext {
-  private final DockerHelper dockerHelper = new DockerHelper();
-  private Map<String, String> containerNameIdMap = null;
+  private final ContainerRuntime containerRuntime;
+  private final DockerEngineConfiguration configuration;
+  private final EngineExecutionListener executionListener;
+  private final TestDescriptor engineDescriptor;
+  private final ContainerLifecycleManager containerLifecycleManager;
+  /** null when containers are not reused */
+  private final ReusableContainerRegistry reusableContainerRegistry;
+  /** null when containers are started from the images of the annotations */
+  private final DerivedImageBuilder derivedImageBuilder;
+  /** null when the images are not pre-pulled */
+  private final ImagePrePuller imagePrePuller;
+  /** null when the result cache is disabled */
+  private final TestResultCache testResultCache;
+  /** null when there is no admission budget */
+  private final AdmissionController admissionController;
+  /** null when the longest first scheduling is disabled */
+  private final TestDurationHistory testDurationHistory;
+  /**
+   * the key is the method in canonical name form, the value its estimated duration in nanoseconds
+   */
+  private final Map<String, Long> estimatedTestNanos = new ConcurrentHashMap<>();
+  /** the key is the container name, the value the predicted duration of its tests in nanoseconds */
+  private final Map<String, Long> predictedContainerMakespans = new ConcurrentHashMap<>();
+
+  private volatile long predictedMakespanNanos = 0;
+  private volatile long engineExecutionStartedNanos = 0;
+  /** the key is the method in canonical name form, the value the time of its cached run */
+  private final Map<String, Instant> cachedTests = new ConcurrentHashMap<>();
+
+  private final PhaseTimings phaseTimings = new PhaseTimings();
+  /** report entries of the engine descriptor published before the engine execution has started */
+  private final Queue<ReportEntry> pendingEngineReportEntries = new ConcurrentLinkedQueue<>();
+
+  private volatile boolean engineExecutionStarted = false;
+  private volatile boolean containersPrepared = false;
+  /** the key is the container name */
+  private final Map<String, Dockerized.ContainerInfo> containerInfos = new ConcurrentHashMap<>();
+  /** the key is the container name, the methods are in the order of the descriptor tree */
+  private final Map<String, List<String>> containerTestMethods = new ConcurrentHashMap<>();
+  /** the key is the base image */
+  private final Map<String, String> derivedImages = new ConcurrentHashMap<>();
+  /** the key is the name of the replica, the value is the id of the running container */
+  private final Map<String, String> runningContainers = new ConcurrentHashMap<>();
+  /** the key is the container name, the value contains the ids of its replicas */
+  private final Map<String, List<String>> containerReplicaIds = new ConcurrentHashMap<>();
+  /** the key is the name of the replica */
+  private final Map<String, ResourceLimits> replicaResourceLimits = new ConcurrentHashMap<>();
+  /** the key is the container name, the value contains the slots not running any test */
+  private final Map<String, BlockingQueue<ExecSlot>> freeExecSlots = new ConcurrentHashMap<>();
+  /** the key is the container id */
+  private final Map<String, List<String>> batchedMethods = new ConcurrentHashMap<>();
+  /** the key is the method in canonical name form, the value is the id of its batch container */
+  private final Map<String, String> batchedMethodContainerIds = new ConcurrentHashMap<>();
+  /** the key is the container id */
+  private final Map<String, CompletableFuture<RemoteTestExecution>> batchExecutions =
+      new ConcurrentHashMap<>();
+
+  /** null when the container lifecycle is eager */
+  private final ExecutorService lazyLifecycleExecutor;
+  /** the container names, in the order their first test is executed */
+  private final List<String> containerExecutionOrder = new ArrayList<>();
+  /** the key is the container name, completed when all its replicas are running */
+  private final Map<String, CompletableFuture<Void>> containerStarts = new ConcurrentHashMap<>();
+  /** the key is the container name, the value contains the methods not released yet */
+  private final Map<String, Set<String>> containerReferences = new ConcurrentHashMap<>();
+
+  private final Queue<CompletableFuture<Void>> containerStops = new ConcurrentLinkedQueue<>();
+  /**
+   * the runs started and not ended yet, cancelled when the run stops early. The value is the id of
+   * the container running them
+   */
+  private final Map<RemoteTestExecution, String> runningExecutions = new ConcurrentHashMap<>();
+
+  private final AtomicInteger failedTests = new AtomicInteger();
+  /** null until the fail fast threshold is reached */
+  private volatile String failFastReason = null;
+  /** stops the containers once the fail fast threshold is reached, null until then */
+  private volatile CompletableFuture<Void> failFastStop = null;
+  /** kills the runs of the tests that time out, null until the first timeout is scheduled */
+  private ScheduledExecutorService timeoutScheduler = null;
+  /** report entries of the lazy lifecycle, published by the threads executing the tests */
+  private final Queue<ReportEntry> lifecycleReportEntries = new ConcurrentLinkedQueue<>();
+
+  private static final String REUSABLE_CONTAINERS_STATE_FILE = "reusable-containers.properties";
+  private static final String LOGS_DIR = "logs";
+  private static final String BATCH_LOG_NAME = "batch";
+  private static final String CLASSPATH_MANIFESTS_DIR = "classpath";
+  private static final String DERIVED_IMAGES_DIR = "images";
+  private static final String RESULT_CACHE_FILE = "result-cache.properties";
+  static final String DURATION_HISTORY_FILE = "duration-history.properties";
+
+  public DockerEngineExecutionContext(
+      DockerEngineConfiguration configuration,
+      EngineExecutionListener executionListener,
+      TestDescriptor engineDescriptor,
+      String engineVersion) {
+    this.configuration = configuration;
+    this.executionListener = executionListener;
+    this.engineDescriptor = engineDescriptor;
+    var copyClasspath =
+        configuration.getClasspathTransferMode()
+            == DockerEngineConfiguration.ClasspathTransferMode.COPY;
+    var projectDirectory = Path.of(System.getProperty("user.dir"));
+    var classpath = System.getProperty("java.class.path");
+    this.containerRuntime =
+        ContainerRuntimeProvider.find(configuration.getRuntimeName())
+            .create(
+                !copyClasspath,
+                projectDirectory,
+                configuration.getWorkDirectory(),
+                configuration.getDockerTransportOptions());
+    if (configuration.isDerivedImageEnabled() && !containerRuntime.canBuildImages()) {
+      containerRuntime.close();
+      throw new PreconditionViolationException(
+          String.format(
+              "The %s runtime cannot build images, %s must be false",
+              configuration.getRuntimeName(),
+              DockerEngineConfiguration.DERIVED_IMAGE_ENABLED_PROPERTY_NAME));
+    }
+    this.derivedImageBuilder =
+        configuration.isDerivedImageEnabled()
+            ? new DerivedImageBuilder(
+                containerRuntime,
+                engineVersion,
+                DerivedImageBuilder.findDependencyJars(classpath, projectDirectory),
+                configuration.getWorkDirectory().resolve(DERIVED_IMAGES_DIR))
+            : null;
+    this.testResultCache =
+        configuration.isResultCacheEnabled()
+            ? new TestResultCache(
+                containerRuntime,
+                engineVersion,
+                TestResultCache.findProjectDirectories(classpath, projectDirectory),
+                DerivedImageBuilder.findDependencyJars(classpath, projectDirectory),
+                configuration.getWorkDirectory().resolve(RESULT_CACHE_FILE),
+                configuration.getResultCacheMaxSize())
+            : null;
+    this.testDurationHistory =
+        configuration.isLongestFirstSchedulingEnabled()
+            ? new TestDurationHistory(
+                configuration.getWorkDirectory().resolve(DURATION_HISTORY_FILE))
+            : null;
+    this.lazyLifecycleExecutor =
+        configuration.isLazyContainerLifecycleEnabled() ? newLazyLifecycleExecutor() : null;
+    this.admissionController =
+        configuration.getAdmissionCpus() > 0 || configuration.getAdmissionMemoryBytes() > 0
+            ? new AdmissionController(
+                configuration.getAdmissionCpus(), configuration.getAdmissionMemoryBytes())
+            : null;
+    // the dependencies are not copied when they are baked in the images
+    var copiedLayers = EnumSet.allOf(ClasspathSynchronizer.Layer.class);
+    if (derivedImageBuilder != null) copiedLayers.remove(ClasspathSynchronizer.Layer.DEPENDENCIES);
+    this.reusableContainerRegistry =
+        configuration.isContainerReuseEnabled()
+            ? new ReusableContainerRegistry(
+                containerRuntime,
+                engineVersion,
+                configuration.getContainerReuseIdleTimeout(),
+                configuration.getWorkDirectory().resolve(REUSABLE_CONTAINERS_STATE_FILE))
+            : null;
+    this.containerLifecycleManager =
+        new ContainerLifecycleManager(
+            containerRuntime,
+            configuration.getContainerLifecycleParallelism(),
+            reusableContainerRegistry,
+            copyClasspath
+                ? new ClasspathSynchronizer(
+                    containerRuntime,
+                    copiedLayers,
+                    projectDirectory,
+                    configuration.getWorkDirectory().resolve(CLASSPATH_MANIFESTS_DIR))
+                : null,
+            phaseTimings,
+            admissionController);
+    this.imagePrePuller =
+        configuration.isImagePrePullEnabled()
+            ? new ImagePrePuller(containerRuntime, configuration.getContainerLifecycleParallelism())
+            : null;
+    if (imagePrePuller != null)
+      imagePrePuller.prePull(findDiscoveredImages(engineDescriptor), lifecycleReportEntries::add);
+  }
+
+  /**
+   * the images of the dockerized descriptors, read without the checks of the container info, that
+   * are made when the engine descriptor is prepared
+   */
+  private static Set<String> findDiscoveredImages(TestDescriptor engineDescriptor) {
+    return engineDescriptor.getDescendants().stream()
+        .filter(descendant -> descendant instanceof DockerizableDescriptor)
+        .flatMap(descendant -> ((DockerizableDescriptor) descendant).getContainerInfo().stream())
+        .map(containerInfo -> containerInfo.image)
+        .collect(Collectors.toCollection(LinkedHashSet::new));
+  }
+
+  /**
+   * to be called by the engine descriptor once its execution has started. The report entries of the
+   * engine that have been published before are sent to the listener now.
+   */
+  public void engineExecutionStarted() {
+    engineExecutionStartedNanos = System.nanoTime();
+    engineExecutionStarted = true;
+    ReportEntry reportEntry;
+    while ((reportEntry = pendingEngineReportEntries.poll()) != null)
+      executionListener.reportingEntryPublished(engineDescriptor, reportEntry);
+  }
+
+  /**
+   * the report entry is published right away unless the engine execution has not started yet, in
+   * that case it is delayed until engineExecutionStarted is called
+   */
+  public void publishEngineReportEntry(ReportEntry reportEntry) {
+    if (engineExecutionStarted)
+      executionListener.reportingEntryPublished(engineDescriptor, reportEntry);
+    else pendingEngineReportEntries.add(reportEntry);
+  }
+
+  public void publishReportEntry(TestDescriptor testDescriptor, ReportEntry reportEntry) {
+    executionListener.reportingEntryPublished(testDescriptor, reportEntry);
+  }
 
+  public DockerEngineConfiguration getConfiguration() {
+    return configuration;
+  }
+
+  /**
+   * @return an unmodifiable view of the map (containerName, containerId) of the running containers,
+   *     with the name of every replica
+   */
   public Map<String, String> getContainerNameIdMap() {
-    Preconditions.notNull(containerNameIdMap, "call startDockerContainers before getting the map");
+    return Collections.unmodifiableMap(runningContainers);
+  }
+
+  /**
+   * looks the test up in the result cache before the containers are started, the tests found are
+   * not run and their containers are not needed
+   *
+   * @return true if the test has passed in a previous run with the same classes, dependencies and
+   *     image
+   */
+  public boolean lookUpCachedTest(String className, String methodFullyQualifiedName, String image) {
+    if (testResultCache == null) return false;
+
+    var passedRun = testResultCache.findPassedRun(className, methodFullyQualifiedName, image);
+    passedRun.ifPresent(run -> cachedTests.put(methodFullyQualifiedName, run));
+
+    return passedRun.isPresent();
+  }
+
+  /**
+   * @return the time of the cached run of the test, if it has been found by lookUpCachedTest
+   */
+  public Optional<Instant> getCachedTestRun(String methodFullyQualifiedName) {
+    return Optional.ofNullable(cachedTests.get(methodFullyQualifiedName));
+  }
+
+  public void recordPassedTest(String className, String methodFullyQualifiedName, String image) {
+    if (testResultCache != null)
+      testResultCache.recordPassedRun(className, methodFullyQualifiedName, image);
+  }
+
+  /** writes the result cache, if it is enabled */
+  public void saveTestResultCache() {
+    if (testResultCache != null) testResultCache.save();
+  }
+
+  /**
+   * to be called before the containers are prepared, the estimates of the methods drive the order
+   * of the tests in every container and of the containers
+   *
+   * @return the duration of the test estimated from its previous runs, empty when the longest first
+   *     scheduling is disabled
+   */
+  public Optional<Duration> estimateTestDuration(String uniqueId, String methodFullyQualifiedName) {
+    if (testDurationHistory == null) return Optional.empty();
+
+    var estimate = testDurationHistory.estimate(uniqueId);
+    estimatedTestNanos.put(methodFullyQualifiedName, estimate.toNanos());
+
+    return Optional.of(estimate);
+  }
 
-    return new HashMap<>(containerNameIdMap);
+  /**
+   * records the duration of a test in the history, if the longest first scheduling is enabled. The
+   * duration includes the exec and the boot of the JVM of the run, unless the test is part of a
+   * batch, because they are what the test keeps its slot busy for.
+   */
+  public void recordTestDuration(
+      String uniqueId,
+      String methodFullyQualifiedName,
+      RemoteTestExecution remoteTestExecution,
+      RemoteTestNode methodNode) {
+    if (testDurationHistory == null || !methodNode.isFinished()) return;
+
+    long nanos = methodNode.getDurationNanos();
+    if (!batchedMethodContainerIds.containsKey(methodFullyQualifiedName)) {
+      var runPhaseNanos = remoteTestExecution.getRunPhaseNanos();
+      nanos += runPhaseNanos.getOrDefault(PhaseTimings.Phase.EXEC, 0L);
+      nanos += runPhaseNanos.getOrDefault(PhaseTimings.Phase.JVM_BOOT, 0L);
+    }
+    testDurationHistory.record(uniqueId, Duration.ofNanos(nanos));
+  }
+
+  /** writes the duration history, if the longest first scheduling is enabled */
+  public void saveTestDurationHistory() {
+    if (testDurationHistory != null) testDurationHistory.save();
+  }
+
+  /**
+   * to be called when all the tests have finished: publishes on the engine descriptor the makespan
+   * predicted by the longest first scheduling and the actual one, from the start of the engine
+   * execution
+   */
+  public void publishMakespan() {
+    if (testDurationHistory == null) return;
+
+    Map<String, String> makespan = new LinkedHashMap<>();
+    makespan.put("scheduling", "longest-first");
+    makespan.put("predicted-makespan", PhaseTimings.formatLatency(predictedMakespanNanos));
+    makespan.put(
+        "actual-makespan",
+        PhaseTimings.formatLatency(System.nanoTime() - engineExecutionStartedNanos));
+    publishEngineReportEntry(ReportEntry.from(makespan));
+  }
+
+  /**
+   * counts the failed tests: when the fail fast threshold is reached, the runs in progress are
+   * cancelled, their processes are killed, and all the containers are stopped in the background,
+   * without waiting for the end of the engine execution. The tests not started yet are skipped.
+   */
+  public void recordTestResult(TestExecutionResult testExecutionResult) {
+    var failFastThreshold = configuration.getFailFastThreshold();
+    if (failFastThreshold == 0
+        || testExecutionResult.getStatus() != TestExecutionResult.Status.FAILED
+        || failedTests.incrementAndGet() != failFastThreshold) return;
+
+    failFastReason =
+        String.format(
+            "Fail fast: %d tests have failed (%s)",
+            failFastThreshold, DockerEngineConfiguration.FAIL_FAST_THRESHOLD_PROPERTY_NAME);
+    runningExecutions.forEach(
+        (runningExecution, containerId) -> cancelRun(containerId, runningExecution));
+    failFastStop =
+        CompletableFuture.runAsync(
+            this::stopContainersEarly,
+            runnable -> {
+              var thread = new Thread(runnable, "docker-engine-fail-fast");
+              thread.setDaemon(true);
+              thread.start();
+            });
+  }
+
+  /**
+   * @return why the tests not started yet are skipped, empty unless the fail fast threshold has
+   *     been reached
+   */
+  public Optional<String> getFailFastReason() {
+    return Optional.ofNullable(failFastReason);
+  }
+
+  /** the tests that ask for a run once the fail fast threshold has been reached are aborted */
+  private void checkNotStoppedEarly() {
+    var reason = failFastReason;
+    if (reason != null) throw new TestAbortedException(reason);
+  }
+
+  private void trackRunningExecution(String containerId, RemoteTestExecution remoteTestExecution) {
+    runningExecutions.put(remoteTestExecution, containerId);
+    remoteTestExecution
+        .getRunCompletion()
+        .thenRun(() -> runningExecutions.remove(remoteTestExecution));
+    // the run has started while the threshold was being reached
+    if (failFastReason != null) cancelRun(containerId, remoteTestExecution);
   }
 
-  /** start containers starting from a map (containerName, image) */
-  public void startDockerContainers(Map<String, String> containerInfoMap) {
-    containerNameIdMap = new HashMap<>();
-    for (var containerInfo : containerInfoMap.entrySet()) {
-      var containerId =
-          dockerHelper.startTestingContainer(containerInfo.getValue(), containerInfo.getKey());
-      containerNameIdMap.put(containerInfo.getKey(), containerId);
+  /**
+   * ends the run with the fail fast reason, then kills its process like a timeout does: closing the
+   * exec would leave the launcher running in the container, and in a launcher agent it is a no-op
+   */
+  private void cancelRun(String containerId, RemoteTestExecution remoteTestExecution) {
+    var cancellation = new TestAbortedException(failFastReason);
+    var processId = remoteTestExecution.getProcessId();
+    if (!remoteTestExecution.onCancelled(cancellation)) return;
+
+    try {
+      if (processId > 0) containerRuntime.killProcess(containerId, processId);
+    } catch (RuntimeException exc) {
+      cancellation.addSuppressed(exc);
     }
   }
 
-  /** stop all registered testing containers */
+  /**
+   * stops the containers running when the fail fast threshold is reached. The reusable containers
+   * are left running, like at the end of the engine execution.
+   */
+  private void stopContainersEarly() {
+    // a container stopped by the lazy lifecycle in the meantime is not stopped twice
+    Map<String, String> stoppedContainers = new HashMap<>();
+    for (var container : Map.copyOf(runningContainers).entrySet()) {
+      if (runningContainers.remove(container.getKey(), container.getValue()))
+        stoppedContainers.put(container.getKey(), container.getValue());
+    }
+    containerLifecycleManager.stopContainers(stoppedContainers, lifecycleReportEntries::add);
+  }
+
+  /**
+   * publishes the timings of a test run inside a container: the exec and the boot of the JVM of its
+   * run (shared by the tests of a batch) and the test itself
+   */
+  public void publishTestPhases(
+      TestDescriptor testDescriptor,
+      RemoteTestExecution remoteTestExecution,
+      RemoteTestNode methodNode) {
+    Map<String, String> timings = new LinkedHashMap<>();
+    remoteTestExecution
+        .getRunPhaseNanos()
+        .forEach(
+            (phase, nanos) -> {
+              if (phase != PhaseTimings.Phase.RESULT_HANDLING)
+                timings.put(phase.label, PhaseTimings.formatLatency(nanos));
+            });
+    if (methodNode.isFinished())
+      timings.put(
+          PhaseTimings.Phase.TEST.label, PhaseTimings.formatLatency(methodNode.getDurationNanos()));
+
+    publishReportEntry(testDescriptor, ReportEntry.from(timings));
+  }
+
+  /** publishes the percentiles of every phase, for every container, on the engine descriptor */
+  public void publishPhaseSummary() {
+    phaseTimings.summarize().forEach(this::publishEngineReportEntry);
+  }
+
+  /**
+   * registers the containers of the run, starting from a map (containerName, containerInfo), with
+   * the methods to run in each of them (in canonical name form, in the order of the descriptor
+   * tree). When containers are reused, the idle ones are removed first. With the eager lifecycle,
+   * all the containers are started now, concurrently, and if any of them fails the others are
+   * stopped. With the lazy lifecycle, a container is started by its first test, and the containers
+   * following it in the order of the tree are pre-started in the background. With the longest first
+   * scheduling, the methods and the containers are ordered by their estimated durations instead.
+   */
+  public void prepareContainers(
+      Map<String, Dockerized.ContainerInfo> containerInfoMap,
+      Map<String, List<String>> testMethodsByContainerName) {
+    if (reusableContainerRegistry != null) reusableContainerRegistry.reapIdleContainers();
+
+    var scheduledMethods =
+        testDurationHistory == null
+            ? testMethodsByContainerName
+            : scheduleLongestFirst(containerInfoMap, testMethodsByContainerName);
+    containerInfos.putAll(containerInfoMap);
+    containerTestMethods.putAll(scheduledMethods);
+    if (lazyLifecycleExecutor == null) {
+      startContainerGroup(containerInfoMap.values(), this::publishEngineReportEntry);
+      publishLifecycleReportEntries();
+    } else {
+      for (var containerMethods : scheduledMethods.entrySet()) {
+        if (!containerInfoMap.containsKey(containerMethods.getKey())) continue;
+
+        containerExecutionOrder.add(containerMethods.getKey());
+        Set<String> references = ConcurrentHashMap.newKeySet();
+        references.addAll(containerMethods.getValue());
+        containerReferences.put(containerMethods.getKey(), references);
+      }
+    }
+    containersPrepared = true;
+
+    if (admissionController != null && !configuration.getAdmissionStatsInterval().isZero())
+      admissionController.startStatsSampling(
+          containerRuntime, runningContainers, configuration.getAdmissionStatsInterval());
+  }
+
+  /**
+   * sorts the methods of every container from the longest, and the containers from the one whose
+   * tests are predicted to take longer, then predicts the makespan of the run: the sum of all the
+   * tests when they are run one at a time, otherwise the makespan of the slowest container, as if
+   * all the containers were run at the same time
+   *
+   * @return the containers with their methods, in the order they should be started
+   */
+  private Map<String, List<String>> scheduleLongestFirst(
+      Map<String, Dockerized.ContainerInfo> containerInfoMap,
+      Map<String, List<String>> testMethodsByContainerName) {
+    ToLongFunction<String> estimate =
+        method ->
+            estimatedTestNanos.getOrDefault(method, TestDurationHistory.DEFAULT_ESTIMATE.toNanos());
+    long totalNanos = 0;
+    for (var containerMethods : testMethodsByContainerName.entrySet()) {
+      var containerInfo = containerInfoMap.get(containerMethods.getKey());
+      if (containerInfo == null) continue;
+
+      var slots = LongestFirstOrderer.countSlots(configuration, containerInfo);
+      var methodNanos =
+          containerMethods.getValue().stream()
+              .map(estimate::applyAsLong)
+              .collect(Collectors.toList());
+      predictedContainerMakespans.put(
+          containerMethods.getKey(), TestDurationHistory.predictMakespan(methodNanos, slots));
+      totalNanos += methodNanos.stream().mapToLong(Long::longValue).sum();
+    }
+    predictedMakespanNanos =
+        configuration.isParallelExecutionEnabled()
+            ? predictedContainerMakespans.values().stream()
+                .mapToLong(Long::longValue)
+                .max()
+                .orElse(0)
+            : totalNanos;
+
+    Map<String, List<String>> scheduledMethods = new LinkedHashMap<>();
+    testMethodsByContainerName.entrySet().stream()
+        .sorted(
+            Comparator.comparingLong(
+                    (Map.Entry<String, List<String>> containerMethods) ->
+                        predictedContainerMakespans.getOrDefault(containerMethods.getKey(), 0L))
+                .reversed())
+        .forEach(
+            containerMethods -> {
+              var methods = new ArrayList<>(containerMethods.getValue());
+              methods.sort(Comparator.comparingLong(estimate).reversed());
+              scheduledMethods.put(containerMethods.getKey(), methods);
+            });
+
+    return scheduledMethods;
+  }
+
+  /**
+   * starts all the replicas of the containers, with their launcher agents or their batches
+   * depending on the execution mode. When derived images are enabled, the derived image of every
+   * image is built first, if it does not exist yet.
+   */
+  private void startContainerGroup(
+      Collection<Dockerized.ContainerInfo> groupContainerInfos, Consumer<ReportEntry> reporter) {
+    Map<String, String> replicaImages = new LinkedHashMap<>();
+    for (var containerInfo : groupContainerInfos) {
+      if (imagePrePuller != null) imagePrePuller.awaitImage(containerInfo.image);
+      var image =
+          derivedImageBuilder == null
+              ? containerInfo.image
+              : derivedImages.computeIfAbsent(
+                  containerInfo.image,
+                  baseImage -> derivedImageBuilder.getDerivedImage(baseImage, reporter));
+      for (var replicaName : containerInfo.getReplicaContainerNames()) {
+        replicaImages.put(replicaName, image);
+        replicaResourceLimits.put(replicaName, containerInfo.resourceLimits);
+      }
+    }
+
+    var startedContainers =
+        containerLifecycleManager.startContainers(replicaImages, replicaResourceLimits, reporter);
+    runningContainers.putAll(startedContainers);
+
+    var executionMode = configuration.getExecutionMode();
+    for (var containerInfo : groupContainerInfos) {
+      var replicaIds =
+          containerInfo.getReplicaContainerNames().stream()
+              .map(startedContainers::get)
+              .collect(Collectors.toUnmodifiableList());
+      containerReplicaIds.put(containerInfo.containerName, replicaIds);
+      freeExecSlots.put(
+          containerInfo.containerName,
+          newExecSlots(
+              replicaIds,
+              executionMode == DockerEngineConfiguration.ContainerExecutionMode.LAUNCHER_AGENT
+                  ? containerRuntime::startLauncherAgent
+                  : containerId -> null));
+      if (executionMode == DockerEngineConfiguration.ContainerExecutionMode.BATCH)
+        registerTestBatches(containerInfo.containerName, replicaIds);
+    }
+  }
+
+  private BlockingQueue<ExecSlot> newExecSlots(
+      List<String> replicaIds, Function<String, LauncherAgentSession> agentStarter) {
+    var execSlots = new LinkedBlockingQueue<ExecSlot>();
+    // slots alternate between the replicas, so that tests are spread over all of them
+    for (int i = 0; i < configuration.getMaxConcurrentExecsPerContainer(); i++) {
+      for (var replicaId : replicaIds)
+        execSlots.add(new ExecSlot(replicaId, agentStarter.apply(replicaId)));
+    }
+
+    return execSlots;
+  }
+
+  /**
+   * the methods of the container are run together by a single launcher in each replica, they are
+   * split in a batch for each replica. The batch of a replica is run when the first of its tests is
+   * executed. With the longest first scheduling, every method goes to the replica with the least
+   * estimated work, otherwise the methods alternate between the replicas.
+   */
+  private void registerTestBatches(String containerName, List<String> replicaIds) {
+    var methods = containerTestMethods.getOrDefault(containerName, List.of());
+    if (testDurationHistory != null) {
+      var replicaMethods =
+          TestDurationHistory.assignLongestFirst(
+              methods,
+              method ->
+                  estimatedTestNanos.getOrDefault(
+                      method, TestDurationHistory.DEFAULT_ESTIMATE.toNanos()),
+              replicaIds.size());
+      for (int i = 0; i < replicaIds.size(); i++) {
+        for (var method : replicaMethods.get(i)) registerBatchedMethod(replicaIds.get(i), method);
+      }
+      return;
+    }
+
+    for (int i = 0; i < methods.size(); i++)
+      registerBatchedMethod(replicaIds.get(i % replicaIds.size()), methods.get(i));
+  }
+
+  private void registerBatchedMethod(String replicaId, String methodFullyQualifiedName) {
+    batchedMethods
+        .computeIfAbsent(replicaId, id -> new ArrayList<>())
+        .add(methodFullyQualifiedName);
+    batchedMethodContainerIds.put(methodFullyQualifiedName, replicaId);
+  }
+
+  /**
+   * with the lazy lifecycle, starts the container if it is not started yet and pre-starts the
+   * containers following it in the execution order, then waits until the container is running
+   */
+  private void awaitContainer(String containerName) {
+    if (lazyLifecycleExecutor == null) return;
+
+    var containerStart = containerStarts.computeIfAbsent(containerName, this::startLazily);
+    var position = containerExecutionOrder.indexOf(containerName);
+    var lookahead = configuration.getContainerLifecycleLookahead();
+    for (int next = position + 1;
+        position >= 0 && next <= position + lookahead && next < containerExecutionOrder.size();
+        next++) {
+      var nextContainerName = containerExecutionOrder.get(next);
+      if (containerReferences.containsKey(nextContainerName))
+        containerStarts.computeIfAbsent(nextContainerName, this::startLazily);
+    }
+
+    try {
+      containerStart.join();
+    } catch (CompletionException exc) {
+      // every test of the container reports the original exception
+      if (exc.getCause() instanceof RuntimeException) throw (RuntimeException) exc.getCause();
+      throw exc;
+    } finally {
+      publishLifecycleReportEntries();
+    }
+  }
+
+  private CompletableFuture<Void> startLazily(String containerName) {
+    var containerInfo =
+        Preconditions.notNull(
+            containerInfos.get(containerName),
+            () -> String.format("container %s has not been prepared", containerName));
+
+    return CompletableFuture.runAsync(
+        () -> startContainerGroup(List.of(containerInfo), lifecycleReportEntries::add),
+        lazyLifecycleExecutor);
+  }
+
+  /**
+   * to be called when the test method has finished, even if it has not been run. With the lazy
+   * lifecycle, the container is stopped in the background once all its methods have been released,
+   * and a container released before being started is never started.
+   */
+  public void releaseContainer(String containerName, String methodFullyQualifiedName) {
+    if (lazyLifecycleExecutor == null) return;
+
+    var lastReference = new AtomicBoolean(false);
+    containerReferences.computeIfPresent(
+        containerName,
+        (name, references) -> {
+          references.remove(methodFullyQualifiedName);
+          if (!references.isEmpty()) return references;
+
+          lastReference.set(true);
+          return null;
+        });
+
+    if (lastReference.get()) {
+      var containerStart =
+          containerStarts.computeIfAbsent(
+              containerName,
+              name ->
+                  CompletableFuture.failedFuture(
+                      new IllegalStateException(
+                          String.format("container %s has been released", name))));
+      containerStops.add(
+          containerStart
+              .handle((started, startFailure) -> startFailure == null)
+              .thenAcceptAsync(
+                  started -> {
+                    if (started) stopContainerGroup(containerName, lifecycleReportEntries::add);
+                  },
+                  lazyLifecycleExecutor));
+    }
+    publishLifecycleReportEntries();
+  }
+
+  private void stopContainerGroup(String containerName, Consumer<ReportEntry> reporter) {
+    closeLauncherAgents(freeExecSlots.remove(containerName));
+    containerReplicaIds.remove(containerName);
+
+    Map<String, String> replicaIds = new LinkedHashMap<>();
+    for (var replicaName : containerInfos.get(containerName).getReplicaContainerNames()) {
+      var replicaId = runningContainers.remove(replicaName);
+      if (replicaId != null) replicaIds.put(replicaName, replicaId);
+    }
+    containerLifecycleManager.stopContainers(replicaIds, reporter);
+  }
+
+  /**
+   * stop all the testing containers still running, concurrently, once the stops of the lazy
+   * lifecycle and of the fail fast have completed. Reusable containers are left running. The
+   * container runtime is closed at the end, even if the containers cannot be stopped
+   */
   public void cleanUpDockerContainer() {
-    Preconditions.notNull(containerNameIdMap, "call startDockerContainers before getting the map");
+    if (imagePrePuller != null) imagePrePuller.shutdown();
+    try {
+      stopDockerContainers();
+    } finally {
+      containerRuntime.close();
+    }
+  }
+
+  private void stopDockerContainers() {
+    Preconditions.condition(containersPrepared, "call prepareContainers before the clean up");
 
-    for (var containerId : containerNameIdMap.values()) {
-      dockerHelper.stopTestingContainer(containerId);
+    if (admissionController != null) admissionController.close();
+    synchronized (this) {
+      if (timeoutScheduler != null) timeoutScheduler.shutdownNow();
     }
+    RuntimeException earlyStopFailure = null;
+    if (failFastStop != null) {
+      try {
+        failFastStop.join();
+      } catch (CompletionException exc) {
+        // the containers still running are stopped below
+        earlyStopFailure =
+            exc.getCause() instanceof RuntimeException ? (RuntimeException) exc.getCause() : exc;
+      }
+    }
+    if (lazyLifecycleExecutor != null) {
+      // containers pre-started but never released are stopped with the others
+      for (var containerStart : containerStarts.values())
+        containerStart.handle((started, startFailure) -> null).join();
+      for (var containerStop : containerStops) {
+        try {
+          containerStop.join();
+        } catch (CompletionException exc) {
+          var stopFailure =
+              exc.getCause() instanceof RuntimeException ? (RuntimeException) exc.getCause() : exc;
+          if (earlyStopFailure == null) earlyStopFailure = stopFailure;
+          else earlyStopFailure.addSuppressed(stopFailure);
+        }
+      }
+      lazyLifecycleExecutor.shutdownNow();
+    }
+
+    for (var execSlots : freeExecSlots.values()) closeLauncherAgents(execSlots);
+    freeExecSlots.clear();
+
+    // entries are collected by the lifecycle threads and published by the engine thread
+    var stopReportEntries = new ConcurrentLinkedQueue<ReportEntry>();
+    try {
+      containerLifecycleManager.stopContainers(
+          Map.copyOf(runningContainers), stopReportEntries::add);
+      runningContainers.clear();
+    } finally {
+      publishLifecycleReportEntries();
+      stopReportEntries.forEach(this::publishEngineReportEntry);
+    }
+
+    if (earlyStopFailure != null) throw earlyStopFailure;
+  }
+
+  private static void closeLauncherAgents(Collection<ExecSlot> execSlots) {
+    if (execSlots == null) return;
+
+    for (var execSlot : execSlots) {
+      if (execSlot.agentSession == null) continue;
+
+      try {
+        execSlot.agentSession.close();
+      } catch (IOException exc) {
+        // the container is going to be stopped anyway
+      }
+    }
+  }
+
+  private void publishLifecycleReportEntries() {
+    ReportEntry reportEntry;
+    while ((reportEntry = lifecycleReportEntries.poll()) != null)
+      publishEngineReportEntry(reportEntry);
+  }
+
+  private static ExecutorService newLazyLifecycleExecutor() {
+    var threadCounter = new AtomicInteger();
+    return Executors.newCachedThreadPool(
+        runnable -> {
+          var thread =
+              new Thread(
+                  runnable, "docker-engine-lazy-lifecycle-" + threadCounter.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
   }
 
   /**
-   * run the test method (in canonical name form) inside the container with containerId. Test
-   * execution throws only when there is at least a test failed or aborted. in case of skip or
-   * successful it returns successfully. In order to detect a skipped test you need to override the
-   * shouldBeSkipped method, but I cannot know if it is skipped unless I run it first inside the
-   * Console Launcher. This is why skipped tests are basically ignored
+   * run the test method (in canonical name form) inside the first free replica of the container. It
+   * returns as soon as the run is started, the results are read from the returned execution while
+   * the test is running. If launcher agents have been started, the test is sent to the agent of the
+   * slot instead of a new launcher. If the method belongs to a batch, the batch execution is
+   * returned. The call blocks while all the replicas are already running the maximum number of
+   * concurrent tests, or while the test is not admitted in the admission budget. With the lazy
+   * lifecycle, it also blocks until the container is started.
    *
-   * @param containerId
+   * <p>When the test has not finished within the timeout, its launcher process is killed and the
+   * run is ended with a TimeoutException, the container keeps running. The timeout counts from the
+   * start of the run, or from the start of the method when it is part of a batch.
+   *
+   * @param containerName
    * @param methodFullyQualifiedName method canonical name (package.class#methodName(parameters)
+   * @param timeout 0 for no timeout
+   */
+  public RemoteTestExecution runTest(
+      String containerName, String methodFullyQualifiedName, Duration timeout) {
+    checkNotStoppedEarly();
+    awaitContainer(containerName);
+    var batchContainerId = batchedMethodContainerIds.get(methodFullyQualifiedName);
+    if (batchContainerId != null) {
+      var batchExecution = getBatchExecution(batchContainerId);
+      if (!timeout.isZero())
+        batchExecution
+            .getMethodNode(methodFullyQualifiedName)
+            .thenAccept(
+                methodNode ->
+                    methodNode.ifPresent(
+                        node ->
+                            scheduleTimeout(
+                                batchContainerId,
+                                methodFullyQualifiedName,
+                                batchExecution,
+                                timeout,
+                                node::isFinished)));
+
+      return batchExecution;
+    }
+
+    var execSlots =
+        Preconditions.notNull(
+            freeExecSlots.get(containerName),
+            () -> String.format("container %s has not been started", containerName));
+    try {
+      var execSlot = execSlots.take();
+      AdmissionController.Admission admission = null;
+      try {
+        // the slot has been freed by a run cancelled by the fail fast
+        checkNotStoppedEarly();
+        var replicaName = getContainerName(execSlot.containerId);
+        admission = admit(replicaName, methodFullyQualifiedName);
+        var remoteTestExecution =
+            new RemoteTestExecution(newLogCapture(replicaName, methodFullyQualifiedName));
+        try {
+          remoteTestExecution.onExecStarted(
+              startTestInContainer(execSlot, methodFullyQualifiedName, remoteTestExecution));
+        } catch (RuntimeException exc) {
+          // closes the logs
+          remoteTestExecution.onRunEnded(exc);
+          checkNotStoppedEarly();
+          throw exc;
+        }
+        trackRunningExecution(execSlot.containerId, remoteTestExecution);
+        if (!timeout.isZero())
+          scheduleTimeout(
+              execSlot.containerId,
+              methodFullyQualifiedName,
+              remoteTestExecution,
+              timeout,
+              () -> false);
+        var runAdmission = admission;
+        remoteTestExecution
+            .getRunCompletion()
+            .thenRun(
+                () -> {
+                  if (runAdmission != null) runAdmission.release();
+                  // the agent of the slot has been killed by the timeout or the fail fast
+                  execSlots.add(
+                      (remoteTestExecution.isTimedOut() || remoteTestExecution.isCancelled())
+                              && execSlot.agentSession != null
+                          ? restartLauncherAgent(execSlot)
+                          : execSlot);
+                  phaseTimings.recordRun(
+                      replicaName, methodFullyQualifiedName, remoteTestExecution);
+                });
+
+        return remoteTestExecution;
+      } catch (RuntimeException | InterruptedException exc) {
+        if (admission != null) admission.release();
+        execSlots.add(execSlot);
+        throw exc;
+      }
+    } catch (InterruptedException exc) {
+      throw new RuntimeException(exc);
+    }
+  }
+
+  /**
+   * @return closing it stops the reading of the results of the run
+   */
+  private Closeable startTestInContainer(
+      ExecSlot execSlot, String methodFullyQualifiedName, RemoteTestExecution remoteTestExecution) {
+    if (execSlot.agentSession == null)
+      return containerRuntime.runTestsInsideContainer(
+          execSlot.containerId, List.of(methodFullyQualifiedName), remoteTestExecution);
+
+    execSlot.agentSession.runTests(List.of(methodFullyQualifiedName), remoteTestExecution);
+    // the output of the agent is read until the session is closed
+    return () -> {};
+  }
+
+  /** a new agent takes the place of the one killed by a timeout or by the fail fast */
+  private ExecSlot restartLauncherAgent(ExecSlot execSlot) {
+    closeLauncherAgents(List.of(execSlot));
+    try {
+      return new ExecSlot(
+          execSlot.containerId, containerRuntime.startLauncherAgent(execSlot.containerId));
+    } catch (RuntimeException exc) {
+      // the following tests of the slot fail because its agent has terminated
+      return execSlot;
+    }
+  }
+
+  /**
+   * when the test has not finished within the timeout, the process of the run is killed and the run
+   * is ended with a TimeoutException. The run is ended even if the process cannot be killed, or if
+   * its pid is not known yet.
+   *
+   * @param testFinished true if the test has finished before the end of its run
+   */
+  private void scheduleTimeout(
+      String containerId,
+      String methodFullyQualifiedName,
+      RemoteTestExecution remoteTestExecution,
+      Duration timeout,
+      BooleanSupplier testFinished) {
+    var timeoutTask =
+        getTimeoutScheduler()
+            .schedule(
+                () -> {
+                  if (testFinished.getAsBoolean()) return;
+
+                  var timeoutException =
+                      new TimeoutException(
+                          String.format(
+                              "%s did not finish within %d ms",
+                              methodFullyQualifiedName, timeout.toMillis()));
+                  var processId = remoteTestExecution.getProcessId();
+                  // ended before the kill, so that the results caused by the kill are discarded
+                  if (!remoteTestExecution.onTimeout(timeoutException)) return;
+                  try {
+                    if (processId > 0) containerRuntime.killProcess(containerId, processId);
+                  } catch (RuntimeException exc) {
+                    timeoutException.addSuppressed(exc);
+                  }
+                },
+                timeout.toMillis(),
+                TimeUnit.MILLISECONDS);
+    remoteTestExecution.getRunCompletion().thenRun(() -> timeoutTask.cancel(false));
+  }
+
+  private synchronized ScheduledExecutorService getTimeoutScheduler() {
+    if (timeoutScheduler == null) {
+      var scheduler =
+          new ScheduledThreadPoolExecutor(
+              1,
+              runnable -> {
+                var thread = new Thread(runnable, "docker-engine-timeouts");
+                thread.setDaemon(true);
+                return thread;
+              });
+      scheduler.setRemoveOnCancelPolicy(true);
+      timeoutScheduler = scheduler;
+    }
+
+    return timeoutScheduler;
+  }
+
+  /**
+   * the first test run in a container starts the whole batch registered for it, the following tests
+   * read their result from the same execution
    */
-  public void runTest(String containerId, String methodFullyQualifiedName) {
-    var execResult =
-        dockerHelper.runTestInsideDockerContainer(containerId, methodFullyQualifiedName);
-
-    var parser = new ConsoleLauncherResultParser(execResult);
-
-    if (parser.abortedTests > 0)
-      throw new TestAbortedException("Some tests aborted. Check container logs");
-    else if (parser.failedTests > 0)
-      throw new RuntimeException("Some tests failed. Check container logs");
-    else if (parser.skippedTests > 0)
-      throw new RuntimeException("Some tests have been skipped. Check container logs");
-    else if (parser.successfulTests == 0)
-      throw new RuntimeException(
-          "No test has been run, a test container probably failed. Check container logs");
-  }
-
-  private static class ConsoleLauncherResultParser {
-    public final int successfulTests;
-    public final int failedTests;
-    public final int abortedTests;
-    public final int skippedTests;
-
-    public ConsoleLauncherResultParser(String testSummary) {
-      var summaryResultLines = getLastLines(testSummary, 13);
-
-      final int LINE_OF_SUCCESSFUL_TESTS = 11;
-      this.successfulTests =
-          getTestNumberFromConsoleSummaryLine(summaryResultLines[LINE_OF_SUCCESSFUL_TESTS]);
-      final int LINE_OF_FAILED_TESTS = 12;
-      this.failedTests =
-          getTestNumberFromConsoleSummaryLine(summaryResultLines[LINE_OF_FAILED_TESTS]);
-      final int LINE_OF_ABORTED_TESTS = 10;
-      this.abortedTests =
-          getTestNumberFromConsoleSummaryLine(summaryResultLines[LINE_OF_ABORTED_TESTS]);
-      final int LINE_OF_SKIPPED_TESTS = 8;
-      this.skippedTests =
-          getTestNumberFromConsoleSummaryLine(summaryResultLines[LINE_OF_SKIPPED_TESTS]);
-    }
-
-    private static int getTestNumberFromConsoleSummaryLine(String testSummaryLine) {
-      return Integer.parseInt(testSummaryLine.replaceAll("[^0-9]", ""));
-    }
-
-    // https://stackoverflow.com/questions/43133957/how-to-get-the-last-x-lines-of-a-string-in-java
-    private static String[] getLastLines(String string, int numLines) {
-      List<String> lines = Arrays.asList(string.split("\n"));
-      return lines
-          .subList(Math.max(0, lines.size() - numLines), lines.size())
-          .toArray(String[]::new);
+  private RemoteTestExecution getBatchExecution(String containerId) {
+    var batchExecution = new CompletableFuture<RemoteTestExecution>();
+    var runningBatchExecution = batchExecutions.putIfAbsent(containerId, batchExecution);
+    if (runningBatchExecution == null) {
+      try {
+        var replicaName = getContainerName(containerId);
+        var admission = admit(replicaName, BATCH_LOG_NAME);
+        var remoteTestExecution =
+            new RemoteTestExecution(newLogCapture(replicaName, BATCH_LOG_NAME));
+        try {
+          checkNotStoppedEarly();
+          remoteTestExecution.onExecStarted(
+              containerRuntime.runTestsInsideContainer(
+                  containerId, batchedMethods.get(containerId), remoteTestExecution));
+        } catch (RuntimeException exc) {
+          if (admission != null) admission.release();
+          remoteTestExecution.onRunEnded(exc);
+          throw exc;
+        }
+        trackRunningExecution(containerId, remoteTestExecution);
+        remoteTestExecution
+            .getRunCompletion()
+            .thenRun(
+                () -> {
+                  if (admission != null) admission.release();
+                  phaseTimings.recordRun(replicaName, BATCH_LOG_NAME, remoteTestExecution);
+                });
+        batchExecution.complete(remoteTestExecution);
+      } catch (Throwable t) {
+        if (t instanceof InterruptedException) Thread.currentThread().interrupt();
+        batchExecution.completeExceptionally(t);
+      }
+      runningBatchExecution = batchExecution;
+    }
+
+    try {
+      return runningBatchExecution.join();
+    } catch (CompletionException exc) {
+      // the batch has not been started, each of its tests reports the original exception
+      if (exc.getCause() instanceof RuntimeException) throw (RuntimeException) exc.getCause();
+      throw exc;
+    }
+  }
+
+  /**
+   * waits until the run fits in the admission budget
+   *
+   * @return null when there is no admission budget
+   */
+  private AdmissionController.Admission admit(String replicaName, String subject)
+      throws InterruptedException {
+    if (admissionController == null) return null;
+
+    long admissionStart = System.nanoTime();
+    var admission =
+        admissionController.admit(
+            replicaName, replicaResourceLimits.getOrDefault(replicaName, ResourceLimits.NONE));
+    phaseTimings.record(
+        replicaName, PhaseTimings.Phase.ADMISSION, subject, System.nanoTime() - admissionStart);
+
+    return admission;
+  }
+
+  /** the name of the replica with the container id */
+  private String getContainerName(String containerId) {
+    return getContainerNameIdMap().entrySet().stream()
+        .filter(container -> container.getValue().equals(containerId))
+        .map(Map.Entry::getKey)
+        .findFirst()
+        .orElse(containerId);
+  }
+
+  /** the logs of a run are in workDir/logs/containerName */
+  private ContainerLogCapture newLogCapture(String containerName, String logName) {
+    return new ContainerLogCapture(
+        configuration.getWorkDirectory().resolve(LOGS_DIR).resolve(containerName),
+        logName,
+        configuration.getLogTailSize());
+  }
+
+  /** the right to run a test in a replica, with the agent of the slot in launcher agent mode */
+  private static class ExecSlot {
+    private final String containerId;
+    /** null when launcher agents are not started */
+    private final LauncherAgentSession agentSession;
+
+    private ExecSlot(String containerId, LauncherAgentSession agentSession) {
+      this.containerId = containerId;
+      this.agentSession = agentSession;
     }
   }
 }
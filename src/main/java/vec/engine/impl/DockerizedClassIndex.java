@@ -0,0 +1,335 @@
+package vec.engine.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipFile;
+import vec.engine.annotations.Dockerized;
+
+/**
+ * finds the dockerized test classes of classpath roots (directories or jars) reading their class
+ * files, so that the discovery loads only the classes that match instead of every class of the
+ * roots. A class matches when it, one of its public void methods or one of its superclasses is
+ * annotated with {@link Dockerized}, directly or through meta-annotations. The roots are scanned in
+ * parallel, and the summaries of their class files are cached in the cache directory (one file per
+ * root): a class file is parsed again only when its hash changes.
+ */
+class DockerizedClassIndex {
+  private static final String DOCKERIZED_ANNOTATION = Dockerized.class.getName();
+  private static final String CLASS_FILE_EXTENSION = ".class";
+
+  private final Path cacheDirectory;
+  private final ClassLoader classLoader;
+  /** summaries of the classes outside the scanned roots, like superclasses and annotation types */
+  private final Map<String, Optional<ClassFileSummary>> classLoaderSummaries =
+      new ConcurrentHashMap<>();
+
+  private final Map<String, Boolean> dockerizingAnnotations = new ConcurrentHashMap<>();
+
+  /**
+   * @param classLoader used to read the class files of the superclasses and of the annotations that
+   *     are not in the scanned roots
+   */
+  DockerizedClassIndex(Path cacheDirectory, ClassLoader classLoader) {
+    this.cacheDirectory = cacheDirectory;
+    this.classLoader = classLoader;
+  }
+
+  /**
+   * @return the binary names of the public, concrete classes that may contain dockerized test
+   *     methods, sorted. They are candidates: the methods are checked when the class is loaded.
+   */
+  List<String> findTestClassNames(List<Path> classpathRoots, Predicate<String> classNameFilter) {
+    Map<String, ClassFileSummary> summaries =
+        classpathRoots.parallelStream()
+            .distinct()
+            .flatMap(classpathRoot -> scanClasspathRoot(classpathRoot).stream())
+            .collect(
+                Collectors.toMap(
+                    summary -> summary.className,
+                    summary -> summary,
+                    // the first root of the classpath wins, like in the class loader
+                    (first, second) -> first));
+
+    return summaries.values().stream()
+        .filter(ClassFileSummary::isPublicConcreteClass)
+        .filter(summary -> classNameFilter.test(summary.className))
+        .filter(summary -> hasDockerizedMembers(summary, summaries))
+        .map(summary -> summary.className)
+        .sorted()
+        .collect(Collectors.toList());
+  }
+
+  /** the class or one of its superclasses has dockerized methods or is dockerized */
+  private boolean hasDockerizedMembers(
+      ClassFileSummary summary, Map<String, ClassFileSummary> summaries) {
+    Set<String> visitedClasses = new HashSet<>();
+    for (var current = Optional.of(summary);
+        current.isPresent() && visitedClasses.add(current.get().className);
+        current = findSummary(current.get().superClassName, summaries)) {
+      if (Stream.concat(
+              current.get().classAnnotations.stream(), current.get().methodAnnotations.stream())
+          .anyMatch(this::isDockerizingAnnotation)) return true;
+    }
+
+    return false;
+  }
+
+  /** the annotation is @Dockerized or is meta-annotated with it, at any depth */
+  private boolean isDockerizingAnnotation(String annotationName) {
+    var dockerizing = dockerizingAnnotations.get(annotationName);
+    if (dockerizing == null) {
+      // the results of the nested annotations are not cached, they could be cut by a cycle
+      dockerizing = isDockerizingAnnotation(annotationName, new HashSet<>());
+      dockerizingAnnotations.put(annotationName, dockerizing);
+    }
+
+    return dockerizing;
+  }
+
+  private boolean isDockerizingAnnotation(String annotationName, Set<String> visitedAnnotations) {
+    if (annotationName.equals(DOCKERIZED_ANNOTATION)) return true;
+    if (annotationName.startsWith("java.") || !visitedAnnotations.add(annotationName)) return false;
+
+    return findSummary(annotationName, Map.of())
+        .filter(ClassFileSummary::isAnnotationType)
+        .map(
+            summary ->
+                summary.classAnnotations.stream()
+                    .anyMatch(
+                        metaAnnotation ->
+                            isDockerizingAnnotation(metaAnnotation, visitedAnnotations)))
+        .orElse(false);
+  }
+
+  private Optional<ClassFileSummary> findSummary(
+      String className, Map<String, ClassFileSummary> summaries) {
+    if (className.isEmpty() || className.startsWith("java.")) return Optional.empty();
+    if (summaries.containsKey(className)) return Optional.of(summaries.get(className));
+
+    return classLoaderSummaries.computeIfAbsent(
+        className,
+        name -> {
+          try (var classFile =
+              classLoader.getResourceAsStream(name.replace('.', '/') + CLASS_FILE_EXTENSION)) {
+            return classFile == null
+                ? Optional.empty()
+                : Optional.of(ClassFileSummary.read(classFile));
+          } catch (IOException exc) {
+            return Optional.empty();
+          }
+        });
+  }
+
+  /**
+   * the summaries of the class files of a directory or a jar, files that cannot be parsed skipped
+   */
+  List<ClassFileSummary> scanClasspathRoot(Path classpathRoot) {
+    var cacheFile = getCacheFile(classpathRoot);
+    var previousIndex = loadIndex(cacheFile);
+    var index = new Properties();
+
+    try {
+      if (Files.isDirectory(classpathRoot)) scanDirectory(classpathRoot, previousIndex, index);
+      else if (Files.isRegularFile(classpathRoot)) scanJar(classpathRoot, previousIndex, index);
+      else return List.of();
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
+    }
+    saveIndex(cacheFile, index, classpathRoot);
+
+    return index.stringPropertyNames().stream()
+        .map(key -> IndexEntry.parse(index.getProperty(key)).summary)
+        .collect(Collectors.toList());
+  }
+
+  /** named after the hash of the absolute path of the root */
+  private Path getCacheFile(Path classpathRoot) {
+    var pathHash =
+        toHex(sha256(classpathRoot.toAbsolutePath().toString().getBytes(StandardCharsets.UTF_8)));
+
+    return cacheDirectory.resolve(pathHash.substring(0, 32) + ".properties");
+  }
+
+  private void scanDirectory(Path directory, Properties previousIndex, Properties index)
+      throws IOException {
+    List<Path> classFiles;
+    try (Stream<Path> files = Files.walk(directory)) {
+      classFiles = files.filter(DockerizedClassIndex::isClassFile).collect(Collectors.toList());
+    }
+
+    for (var classFile : classFiles) {
+      var key = directory.relativize(classFile).toString().replace('\\', '/');
+      long size = Files.size(classFile);
+      long lastModified = Files.getLastModifiedTime(classFile).toMillis();
+      var previousEntry = getEntry(previousIndex, key);
+      if (previousEntry.isPresent()
+          && previousEntry.get().size == size
+          && previousEntry.get().lastModified == lastModified) {
+        index.setProperty(key, previousEntry.get().toString());
+        continue;
+      }
+
+      var content = Files.readAllBytes(classFile);
+      indexClassFile(
+          index, key, size, lastModified, toHex(sha256(content)), content, previousEntry);
+    }
+  }
+
+  /** the CRC-32 of the entries, in the central directory of the jar, is used as their hash */
+  private void scanJar(Path jar, Properties previousIndex, Properties index) throws IOException {
+    try (var zipFile = new ZipFile(jar.toFile())) {
+      var entries = zipFile.entries();
+      while (entries.hasMoreElements()) {
+        var entry = entries.nextElement();
+        if (entry.isDirectory()
+            || entry.getName().startsWith("META-INF/")
+            || !isClassFile(Path.of(entry.getName()))) continue;
+
+        var key = entry.getName();
+        var hash = Long.toHexString(entry.getCrc());
+        var previousEntry = getEntry(previousIndex, key);
+        if (previousEntry.isPresent() && previousEntry.get().hash.equals(hash)) {
+          index.setProperty(key, previousEntry.get().toString());
+          continue;
+        }
+
+        byte[] content;
+        try (InputStream entryInputStream = zipFile.getInputStream(entry)) {
+          content = entryInputStream.readAllBytes();
+        }
+        indexClassFile(
+            index, key, entry.getSize(), entry.getTime(), hash, content, Optional.empty());
+      }
+    }
+  }
+
+  /** the class file is parsed only if its hash is different from the one of the previous entry */
+  private static void indexClassFile(
+      Properties index,
+      String key,
+      long size,
+      long lastModified,
+      String hash,
+      byte[] content,
+      Optional<IndexEntry> previousEntry) {
+    ClassFileSummary summary;
+    if (previousEntry.isPresent() && previousEntry.get().hash.equals(hash))
+      summary = previousEntry.get().summary;
+    else {
+      try {
+        summary = ClassFileSummary.read(new ByteArrayInputStream(content));
+      } catch (IOException exc) {
+        return;
+      }
+    }
+
+    index.setProperty(key, new IndexEntry(size, lastModified, hash, summary).toString());
+  }
+
+  private static boolean isClassFile(Path file) {
+    var fileName = file.getFileName().toString();
+
+    return fileName.endsWith(CLASS_FILE_EXTENSION)
+        && !fileName.equals("module-info.class")
+        && !fileName.equals("package-info.class");
+  }
+
+  /** an entry that cannot be parsed is ignored, and its class file parsed again */
+  private static Optional<IndexEntry> getEntry(Properties index, String key) {
+    try {
+      return Optional.ofNullable(index.getProperty(key)).map(IndexEntry::parse);
+    } catch (RuntimeException exc) {
+      return Optional.empty();
+    }
+  }
+
+  private static Properties loadIndex(Path cacheFile) {
+    var index = new Properties();
+    if (Files.exists(cacheFile)) {
+      try (Reader reader = Files.newBufferedReader(cacheFile)) {
+        index.load(reader);
+      } catch (IOException | IllegalArgumentException exc) {
+        // a corrupted cache is rebuilt
+        index.clear();
+      }
+    }
+
+    return index;
+  }
+
+  private void saveIndex(Path cacheFile, Properties index, Path classpathRoot) {
+    try {
+      Files.createDirectories(cacheDirectory);
+      var tempFile = Files.createTempFile(cacheDirectory, "index", ".tmp");
+      try (Writer writer = Files.newBufferedWriter(tempFile)) {
+        index.store(writer, "class files of " + classpathRoot + " (size:mtime:hash:summary)");
+      }
+      Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
+    }
+  }
+
+  private static byte[] sha256(byte[] content) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(content);
+    } catch (NoSuchAlgorithmException exc) {
+      throw new IllegalStateException(exc);
+    }
+  }
+
+  private static String toHex(byte[] digest) {
+    return String.format("%064x", new BigInteger(1, digest));
+  }
+
+  /** cache entry of a class file, in the form size:mtime:hash:summary */
+  private static class IndexEntry {
+    private final long size;
+    private final long lastModified;
+    private final String hash;
+    private final ClassFileSummary summary;
+
+    private IndexEntry(long size, long lastModified, String hash, ClassFileSummary summary) {
+      this.size = size;
+      this.lastModified = lastModified;
+      this.hash = hash;
+      this.summary = summary;
+    }
+
+    private static IndexEntry parse(String entry) {
+      var fields = entry.split(":", 4);
+
+      return new IndexEntry(
+          Long.parseLong(fields[0]),
+          Long.parseLong(fields[1]),
+          fields[2],
+          ClassFileSummary.parse(fields[3]));
+    }
+
+    @Override
+    public String toString() {
+      return size + ":" + lastModified + ":" + hash + ":" + summary;
+    }
+  }
+}
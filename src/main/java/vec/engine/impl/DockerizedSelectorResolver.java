@@ -0,0 +1,217 @@
+package vec.engine.impl;
+
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClass;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectMethod;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import org.junit.platform.commons.JUnitException;
+import org.junit.platform.commons.util.ClassLoaderUtils;
+import org.junit.platform.commons.util.ReflectionUtils;
+import org.junit.platform.engine.DiscoverySelector;
+import org.junit.platform.engine.TestDescriptor;
+import org.junit.platform.engine.discovery.ClassSelector;
+import org.junit.platform.engine.discovery.ClasspathRootSelector;
+import org.junit.platform.engine.discovery.MethodSelector;
+import org.junit.platform.engine.discovery.ModuleSelector;
+import org.junit.platform.engine.discovery.PackageSelector;
+import org.junit.platform.engine.discovery.UniqueIdSelector;
+import org.junit.platform.engine.support.discovery.SelectorResolver;
+import vec.engine.impl.descriptors.DockerEngineDescriptor;
+import vec.engine.impl.descriptors.DockerizedClassMetadata;
+import vec.engine.impl.descriptors.DockerizedTestClassDescriptor;
+
+/**
+ * resolves class, method and unique id selectors to descriptors. Classpath root and package
+ * selectors are turned into class selectors by the {@link DockerizedClassIndex}, that reads the
+ * class files so that only the dockerized classes are loaded, module selectors by reflection. A
+ * class is selected with all its dockerized test methods, a method only with its class.
+ */
+class DockerizedSelectorResolver implements SelectorResolver {
+  private static final String CLASS_SEGMENT_TYPE = "class";
+  private static final String METHOD_SEGMENT_TYPE = "method";
+
+  private final DockerEngineDescriptor engineDescriptor;
+  private final Predicate<String> classNameFilter;
+  private final DockerizedClassIndex classIndex;
+
+  /**
+   * @param classNameFilter the class name and package name filters of the discovery request
+   */
+  DockerizedSelectorResolver(
+      DockerEngineDescriptor engineDescriptor,
+      Predicate<String> classNameFilter,
+      DockerizedClassIndex classIndex) {
+    this.engineDescriptor = engineDescriptor;
+    this.classNameFilter = classNameFilter;
+    this.classIndex = classIndex;
+  }
+
+  private static boolean isTestClassCandidate(Class<?> candidate) {
+    return ReflectionUtils.isPublic(candidate)
+        && !ReflectionUtils.isAbstract(candidate)
+        && DockerizedClassMetadata.of(candidate).hasTestMethods();
+  }
+
+  @Override
+  public Resolution resolve(ClasspathRootSelector selector, Context context) {
+    return selectClasses(
+        classIndex.findTestClassNames(
+            List.of(Path.of(selector.getClasspathRoot())), classNameFilter));
+  }
+
+  /** the package is searched in every classpath root that contains it, with its subpackages */
+  @Override
+  public Resolution resolve(PackageSelector selector, Context context) {
+    var packageName = selector.getPackageName();
+    var classNamePrefix = packageName.isEmpty() ? "" : packageName + ".";
+
+    return selectClasses(
+        classIndex.findTestClassNames(
+            findClasspathRoots(packageName),
+            className -> className.startsWith(classNamePrefix) && classNameFilter.test(className)));
+  }
+
+  @Override
+  public Resolution resolve(ModuleSelector selector, Context context) {
+    return selectClasses(
+        ReflectionUtils.findAllClassesInModule(
+                selector.getModuleName(),
+                DockerizedSelectorResolver::isTestClassCandidate,
+                classNameFilter)
+            .stream()
+            .map(Class::getName)
+            .collect(Collectors.toList()));
+  }
+
+  /** the classes are loaded without being initialized, the ones that cannot be loaded skipped */
+  private static Resolution selectClasses(List<String> classNames) {
+    Set<DiscoverySelector> classSelectors = new LinkedHashSet<>();
+    for (var className : classNames)
+      ReflectionUtils.tryToLoadClass(className)
+          .toOptional()
+          .ifPresent(testClass -> classSelectors.add(selectClass(testClass)));
+
+    return classSelectors.isEmpty()
+        ? Resolution.unresolved()
+        : Resolution.selectors(classSelectors);
+  }
+
+  private static List<Path> findClasspathRoots(String packageName) {
+    var packagePath = packageName.replace('.', '/');
+    List<Path> classpathRoots = new ArrayList<>();
+    try {
+      var packageUrls = ClassLoaderUtils.getDefaultClassLoader().getResources(packagePath);
+      while (packageUrls.hasMoreElements()) {
+        var packageUri = packageUrls.nextElement().toURI();
+        if (packageUri.getScheme().equals("file")) {
+          var classpathRoot = Path.of(packageUri);
+          for (int i = packageName.isEmpty() ? 0 : packageName.split("\\.").length; i > 0; i--)
+            classpathRoot = classpathRoot.getParent();
+          classpathRoots.add(classpathRoot);
+        } else if (packageUri.getScheme().equals("jar")) {
+          // jar:file:/path/to/the.jar!/package/path
+          var jarUri = packageUri.getSchemeSpecificPart();
+          classpathRoots.add(Path.of(URI.create(jarUri.substring(0, jarUri.indexOf("!/")))));
+        }
+      }
+    } catch (IOException | URISyntaxException exc) {
+      throw new JUnitException(String.format("cannot find the package %s", packageName), exc);
+    }
+
+    return classpathRoots;
+  }
+
+  @Override
+  public Resolution resolve(ClassSelector selector, Context context) {
+    var testClass = selector.getJavaClass();
+    var metadata = DockerizedClassMetadata.of(testClass);
+    if (!metadata.hasTestMethods()) return Resolution.unresolved();
+
+    return context
+        .addToParent(parent -> Optional.of(createClassDescriptor(testClass, parent)))
+        .map(
+            classDescriptor ->
+                Resolution.match(
+                    Match.exact(classDescriptor, () -> selectTestMethods(testClass, metadata))))
+        .orElse(Resolution.unresolved());
+  }
+
+  @Override
+  public Resolution resolve(MethodSelector selector, Context context) {
+    var testClass = selector.getJavaClass();
+    var testMethod = selector.getJavaMethod();
+    if (DockerizedClassMetadata.of(testClass).getContainerInfo(testMethod).isEmpty())
+      return Resolution.unresolved();
+
+    return context
+        .addToParent(
+            () -> selectClass(testClass),
+            parent ->
+                Optional.of(
+                    ((DockerizedTestClassDescriptor) parent).createMethodDescriptor(testMethod)))
+        .map(methodDescriptor -> Resolution.match(Match.exact(methodDescriptor)))
+        .orElse(Resolution.unresolved());
+  }
+
+  /**
+   * a unique id ending with the class segment selects the class, one with a method segment selects
+   * the method, also when it is the id of one of its invocations
+   */
+  @Override
+  public Resolution resolve(UniqueIdSelector selector, Context context) {
+    var segments = selector.getUniqueId().getSegments();
+    if (segments.size() < 2 || !segments.get(1).getType().equals(CLASS_SEGMENT_TYPE))
+      return Resolution.unresolved();
+
+    var testClass = loadClass(segments.get(1).getValue());
+    if (testClass.isEmpty()) return Resolution.unresolved();
+    if (segments.size() == 2) return Resolution.selectors(Set.of(selectClass(testClass.get())));
+
+    if (!segments.get(2).getType().equals(METHOD_SEGMENT_TYPE)) return Resolution.unresolved();
+    return DockerizedClassMetadata.of(testClass.get())
+        .findTestMethod(segments.get(2).getValue())
+        .map(testMethod -> Resolution.selectors(Set.of(selectMethod(testClass.get(), testMethod))))
+        .orElse(Resolution.unresolved());
+  }
+
+  /** in the order of the metadata, that is the order of the children of the class */
+  private static Set<DiscoverySelector> selectTestMethods(
+      Class<?> testClass, DockerizedClassMetadata metadata) {
+    Set<DiscoverySelector> methodSelectors = new LinkedHashSet<>();
+    for (var testMethod : metadata.getTestMethods())
+      methodSelectors.add(selectMethod(testClass, testMethod));
+
+    return methodSelectors;
+  }
+
+  private DockerizedTestClassDescriptor createClassDescriptor(
+      Class<?> testClass, TestDescriptor parent) {
+    return new DockerizedTestClassDescriptor(
+        testClass, parent, engineDescriptor.getConfiguration());
+  }
+
+  /**
+   * the class segment holds the canonical name, where nested classes are separated by a dot, so the
+   * dots are replaced with $ from the end until a class is found
+   */
+  private static Optional<Class<?>> loadClass(String canonicalName) {
+    var className = canonicalName;
+    while (true) {
+      var testClass = ReflectionUtils.tryToLoadClass(className).toOptional();
+      var lastDot = className.lastIndexOf('.');
+      if (testClass.isPresent() || lastDot < 0) return testClass;
+
+      className = className.substring(0, lastDot) + '$' + className.substring(lastDot + 1);
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package vec.engine.impl;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.junit.platform.engine.reporting.ReportEntry;
+import vec.helpers.ContainerRuntime;
+
+/**
+ * makes the images of the testing containers available in the background while the engine is
+ * initialized, so that the containers are not created while their images are being pulled. Every
+ * image is inspected first, and only the missing ones are pulled from their registry, with at most
+ * parallelism pulls at the same time. The outcome of every image is reported with a {@link
+ * ReportEntry}.
+ */
+class ImagePrePuller {
+  private final ContainerRuntime containerRuntime;
+  private final ExecutorService pullExecutor;
+  /** the key is the image, completed when the image is available */
+  private final Map<String, CompletableFuture<Void>> imagePulls = new ConcurrentHashMap<>();
+
+  ImagePrePuller(ContainerRuntime containerRuntime, int parallelism) {
+    this.containerRuntime = containerRuntime;
+    var threadCounter = new AtomicInteger();
+    this.pullExecutor =
+        Executors.newFixedThreadPool(
+            parallelism,
+            runnable -> {
+              var thread =
+                  new Thread(
+                      runnable, "docker-engine-image-pull-" + threadCounter.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /** starts checking the images, it returns without waiting for them */
+  void prePull(Collection<String> images, Consumer<ReportEntry> reporter) {
+    for (var image : images)
+      imagePulls.computeIfAbsent(
+          image,
+          missingImage ->
+              CompletableFuture.runAsync(
+                  () -> makeAvailable(missingImage, reporter), pullExecutor));
+  }
+
+  /**
+   * waits until the image is available, it returns immediately for the images that have not been
+   * pre-pulled
+   *
+   * @throws RuntimeException the failure of the pull
+   */
+  void awaitImage(String image) {
+    var imagePull = imagePulls.get(image);
+    if (imagePull == null) return;
+
+    try {
+      imagePull.join();
+    } catch (CompletionException exc) {
+      throw exc.getCause() instanceof RuntimeException ? (RuntimeException) exc.getCause() : exc;
+    }
+  }
+
+  /** the pulls in progress are interrupted */
+  void shutdown() {
+    pullExecutor.shutdownNow();
+  }
+
+  private void makeAvailable(String image, Consumer<ReportEntry> reporter) {
+    long start = System.nanoTime();
+    var pulled = false;
+    if (containerRuntime.inspectImage(image).isEmpty()) {
+      containerRuntime.pullImage(image);
+      if (containerRuntime.inspectImage(image).isEmpty())
+        throw new IllegalStateException(String.format("image %s could not be pulled", image));
+      pulled = true;
+    }
+
+    reporter.accept(
+        ReportEntry.from(
+            Map.of(
+                "image",
+                image,
+                pulled ? "pull" : "present",
+                ((System.nanoTime() - start) / 1_000_000) + " ms")));
+  }
+}
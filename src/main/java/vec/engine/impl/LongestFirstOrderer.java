@@ -0,0 +1,109 @@
+package vec.engine.impl;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.platform.engine.TestDescriptor;
+import vec.engine.annotations.Dockerized;
+import vec.engine.impl.descriptors.DockerEngineDescriptor;
+import vec.engine.interfaces.DockerizableDescriptor;
+
+/**
+ * orders the discovered tree by the durations estimated from the {@link TestDurationHistory}, like
+ * Jupiter does with the method orderers at the end of the discovery. The methods of every class are
+ * sorted from the longest, and the classes from the one with the container whose tests are
+ * predicted to take longer (the critical path of the run), then from the one with the longest
+ * tests.
+ */
+class LongestFirstOrderer {
+  private final TestDurationHistory testDurationHistory;
+  private final DockerEngineConfiguration configuration;
+
+  LongestFirstOrderer(
+      TestDurationHistory testDurationHistory, DockerEngineConfiguration configuration) {
+    this.testDurationHistory = testDurationHistory;
+    this.configuration = configuration;
+  }
+
+  void order(DockerEngineDescriptor engineDescriptor) {
+    Map<TestDescriptor, Long> estimatedNanos = new HashMap<>();
+    Map<String, Dockerized.ContainerInfo> containerInfos = new HashMap<>();
+    Map<String, List<Long>> containerMethodNanos = new HashMap<>();
+    for (var classDescriptor : engineDescriptor.getChildren()) {
+      for (var methodDescriptor : classDescriptor.getChildren()) {
+        var nanos =
+            testDurationHistory.estimate(methodDescriptor.getUniqueId().toString()).toNanos();
+        estimatedNanos.put(methodDescriptor, nanos);
+        getContainerInfo(methodDescriptor)
+            .ifPresent(
+                containerInfo -> {
+                  containerInfos.putIfAbsent(containerInfo.containerName, containerInfo);
+                  containerMethodNanos
+                      .computeIfAbsent(containerInfo.containerName, name -> new ArrayList<>())
+                      .add(nanos);
+                });
+      }
+    }
+    Map<String, Long> containerMakespans = new HashMap<>();
+    containerMethodNanos.forEach(
+        (containerName, methodNanos) ->
+            containerMakespans.put(
+                containerName,
+                TestDurationHistory.predictMakespan(
+                    methodNanos, countSlots(configuration, containerInfos.get(containerName)))));
+
+    Map<TestDescriptor, Long> criticalPathNanos = new HashMap<>();
+    Map<TestDescriptor, Long> classNanos = new HashMap<>();
+    for (var classDescriptor : engineDescriptor.getChildren()) {
+      for (var methodDescriptor : classDescriptor.getChildren()) {
+        var containerMakespan =
+            getContainerInfo(methodDescriptor)
+                .map(containerInfo -> containerMakespans.get(containerInfo.containerName))
+                .orElse(0L);
+        criticalPathNanos.merge(classDescriptor, containerMakespan, Math::max);
+        classNanos.merge(classDescriptor, estimatedNanos.get(methodDescriptor), Long::sum);
+      }
+      sortChildren(
+          classDescriptor,
+          Comparator.comparingLong(
+                  (TestDescriptor methodDescriptor) -> estimatedNanos.get(methodDescriptor))
+              .reversed());
+    }
+
+    sortChildren(
+        engineDescriptor,
+        Comparator.comparingLong(
+                (TestDescriptor classDescriptor) ->
+                    criticalPathNanos.getOrDefault(classDescriptor, 0L))
+            .thenComparingLong(classDescriptor -> classNanos.getOrDefault(classDescriptor, 0L))
+            .reversed());
+  }
+
+  /**
+   * @return the number of tests of the container that can run at the same time
+   */
+  static int countSlots(
+      DockerEngineConfiguration configuration, Dockerized.ContainerInfo containerInfo) {
+    return configuration.getExecutionMode()
+            == DockerEngineConfiguration.ContainerExecutionMode.BATCH
+        ? containerInfo.replicas
+        : containerInfo.replicas * configuration.getMaxConcurrentExecsPerContainer();
+  }
+
+  private static Optional<Dockerized.ContainerInfo> getContainerInfo(
+      TestDescriptor methodDescriptor) {
+    return ((DockerizableDescriptor) methodDescriptor).getContainerInfo();
+  }
+
+  /** like Jupiter, the children are removed and added back in the new order */
+  private static void sortChildren(
+      TestDescriptor parentDescriptor, Comparator<TestDescriptor> comparator) {
+    List<TestDescriptor> sortedChildren = new ArrayList<>(parentDescriptor.getChildren());
+    sortedChildren.sort(comparator);
+    sortedChildren.forEach(parentDescriptor::removeChild);
+    sortedChildren.forEach(parentDescriptor::addChild);
+  }
+}
@@ -0,0 +1,34 @@
+package vec.engine.impl;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event committed for every phase timed by {@link PhaseTimings}. The phase is measured before
+ * the event is created, so its duration is a field and not the duration of the event.
+ */
+@Name("vec.engine.DockerizedTestPhase")
+@Label("Dockerized Test Phase")
+@Category({"JUnit", "Docker Engine"})
+@Description("A phase of the lifecycle of a testing container or of a test run inside it")
+@StackTrace(false)
+class PhaseEvent extends Event {
+  @Label("Container")
+  String container;
+
+  @Label("Phase")
+  String phase;
+
+  @Label("Subject")
+  @Description("The method or the batch run, empty for the lifecycle of the container")
+  String subject;
+
+  @Label("Phase Duration")
+  @Timespan(Timespan.NANOSECONDS)
+  long phaseDuration;
+}
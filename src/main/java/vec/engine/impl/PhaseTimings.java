@@ -0,0 +1,116 @@
+package vec.engine.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.platform.engine.reporting.ReportEntry;
+
+/**
+ * collects the durations of the phases of the dockerized tests, for every container: its lifecycle
+ * and, for every test run, the exec, the boot of the JVM, the tests and the handling of the results
+ * in the engine. Every duration is also committed as a {@link PhaseEvent}, so that it can be
+ * recorded with JFR, and the percentiles of every phase are summarized at the end of the run.
+ */
+class PhaseTimings {
+  enum Phase {
+    /** the wait for the {@link AdmissionController}, before a start or a run */
+    ADMISSION("admission"),
+    CREATE("create"),
+    START("start"),
+    CLASSPATH_SYNC("classpath-sync"),
+    STOP("stop"),
+    /** from the request of the run to the runtime to the start of the process in the container */
+    EXEC("exec"),
+    /**
+     * from the start of the process to the start of the test plan. With launcher agents the JVM is
+     * already running, so it is the time the agent takes to discover the tests
+     */
+    JVM_BOOT("jvm-boot"),
+    TEST("test"),
+    /** the time spent by the engine handling the events and the output of the run */
+    RESULT_HANDLING("result-handling");
+
+    final String label;
+
+    Phase(String label) {
+      this.label = label;
+    }
+  }
+
+  /** the key is the container name, the value contains the durations in nanoseconds by phase */
+  private final Map<String, Map<Phase, List<Long>>> durations = new ConcurrentHashMap<>();
+
+  /**
+   * @param subject the method or the batch of the run, empty for the lifecycle phases
+   */
+  void record(String containerName, Phase phase, String subject, long nanos) {
+    durations
+        .computeIfAbsent(containerName, name -> new ConcurrentHashMap<>())
+        .computeIfAbsent(phase, key -> Collections.synchronizedList(new ArrayList<>()))
+        .add(nanos);
+
+    var event = new PhaseEvent();
+    if (event.shouldCommit()) {
+      event.container = containerName;
+      event.phase = phase.label;
+      event.subject = subject;
+      event.phaseDuration = nanos;
+      event.commit();
+    }
+  }
+
+  /** records the phases of a run once it has completed, the tests included */
+  void recordRun(String containerName, String runName, RemoteTestExecution remoteTestExecution) {
+    remoteTestExecution
+        .getRunPhaseNanos()
+        .forEach((phase, nanos) -> record(containerName, phase, runName, nanos));
+    remoteTestExecution
+        .getMethodNanos()
+        .forEach((method, nanos) -> record(containerName, Phase.TEST, method, nanos));
+  }
+
+  /**
+   * @return an entry for every container and phase, with the number of durations, their median,
+   *     95th percentile and maximum
+   */
+  List<ReportEntry> summarize() {
+    List<ReportEntry> summary = new ArrayList<>();
+    for (var containerDurations : new TreeMap<>(durations).entrySet()) {
+      for (var phaseDurations : new EnumMap<>(containerDurations.getValue()).entrySet()) {
+        List<Long> sortedDurations;
+        synchronized (phaseDurations.getValue()) {
+          sortedDurations = new ArrayList<>(phaseDurations.getValue());
+        }
+        Collections.sort(sortedDurations);
+
+        Map<String, String> entry = new LinkedHashMap<>();
+        entry.put("container", containerDurations.getKey());
+        entry.put("phase", phaseDurations.getKey().label);
+        entry.put("count", Integer.toString(sortedDurations.size()));
+        entry.put("p50", formatLatency(percentile(sortedDurations, 50)));
+        entry.put("p95", formatLatency(percentile(sortedDurations, 95)));
+        entry.put("max", formatLatency(sortedDurations.get(sortedDurations.size() - 1)));
+        summary.add(ReportEntry.from(entry));
+      }
+    }
+
+    return summary;
+  }
+
+  /** nearest-rank percentile of durations sorted in ascending order */
+  static long percentile(List<Long> sortedDurations, int percentile) {
+    int rank = (int) Math.ceil(percentile / 100.0 * sortedDurations.size());
+
+    return sortedDurations.get(Math.max(0, rank - 1));
+  }
+
+  static String formatLatency(long nanos) {
+    return String.format(Locale.ROOT, "%.3f ms", nanos / 1_000_000.0);
+  }
+}
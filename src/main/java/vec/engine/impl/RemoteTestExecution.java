@@ -0,0 +1,369 @@
+package vec.engine.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.platform.engine.TestExecutionResult;
+import org.opentest4j.TestAbortedException;
+import vec.engine.launcher.InvocationShardCondition;
+import vec.engine.launcher.ResultEvent;
+import vec.helpers.ResultEventHandler;
+
+/**
+ * a test run inside a container, built incrementally from its {@link ResultEvent}s. The same run
+ * can execute many methods (batch mode), each descriptor waits for the node of its own method. The
+ * output of the run is written to the log files of the {@link ContainerLogCapture}. The phases of
+ * the run are timed from the creation of the execution, when the run is requested.
+ */
+public class RemoteTestExecution implements ResultEventHandler {
+  private static final String NO_TEST_RUN_MESSAGE =
+      "No test has been run, a test container probably failed. Check container logs";
+
+  /** the key is the unique id inside the container */
+  private final Map<String, RemoteTestNode> nodes = new ConcurrentHashMap<>();
+  /** the key is the method in canonical name form */
+  private final Map<String, CompletableFuture<Optional<RemoteTestNode>>> methodNodes =
+      new ConcurrentHashMap<>();
+  /** the key is the class name, the value is the failure of its container */
+  private final Map<String, Throwable> classFailures = new ConcurrentHashMap<>();
+
+  private final ContainerLogCapture logCapture;
+  private final CompletableFuture<Void> runCompletion = new CompletableFuture<>();
+  private final AtomicBoolean ended = new AtomicBoolean(false);
+  private volatile Throwable runFailure = null;
+  /** not null when the run has been ended by the timeout of a test */
+  private volatile TimeoutException timeout = null;
+  /** not null when the run has been cancelled before its tests finished */
+  private volatile TestAbortedException cancellation = null;
+
+  /** closing it stops the reading of the results */
+  private volatile Closeable exec = () -> {};
+  /** the pid of the JVM running the tests, 0 until the PLAN_STARTED event has been received */
+  private volatile long processId = 0;
+
+  private final long requestedNanos = System.nanoTime();
+  /** null until the runtime has started the run */
+  private volatile Long execStartedNanos = null;
+  /** null until the PLAN_STARTED event has been received */
+  private volatile Long planStartedNanos = null;
+
+  private final AtomicLong resultHandlingNanos = new AtomicLong();
+
+  RemoteTestExecution(ContainerLogCapture logCapture) {
+    this.logCapture = logCapture;
+  }
+
+  public Path getStandardOutputLog() {
+    return logCapture.getStandardOutputLog();
+  }
+
+  public Path getStandardErrorLog() {
+    return logCapture.getStandardErrorLog();
+  }
+
+  /** to be called once the runtime has started the run in the container */
+  void onExecStarted() {
+    execStartedNanos = System.nanoTime();
+  }
+
+  /**
+   * @param exec returned by the runtime when the run has been started, closed if the run times out
+   */
+  void onExecStarted(Closeable exec) {
+    this.exec = exec;
+    onExecStarted();
+  }
+
+  /** events received after the end of the run, for example once it has timed out, are discarded */
+  @Override
+  public void onEvent(ResultEvent event) {
+    if (ended.get()) return;
+
+    long handlingStart = System.nanoTime();
+    try {
+      handleEvent(event);
+    } finally {
+      resultHandlingNanos.addAndGet(System.nanoTime() - handlingStart);
+    }
+  }
+
+  private void handleEvent(ResultEvent event) {
+    switch (event.getType()) {
+      case PLAN_STARTED:
+        if (planStartedNanos == null) planStartedNanos = System.nanoTime();
+        processId = event.getProcessId();
+        break;
+      case STARTED:
+        registerNode(event);
+        break;
+      case SKIPPED:
+        // the invocation is reported by the run of its own shard
+        if (!InvocationShardCondition.isSkippedByShard(event.getReason())) registerNode(event);
+        break;
+      case FINISHED:
+        finishNode(event);
+        break;
+      case OUTPUT:
+        logCapture.writeStandardOutput(event.getOutput());
+        break;
+      case PLAN_FINISHED:
+        event.getThrowable().ifPresent(throwable -> runFailure = throwable);
+        break;
+      default:
+        break;
+    }
+  }
+
+  @Override
+  public void onStandardError(byte[] chunk) {
+    if (ended.get()) return;
+
+    long handlingStart = System.nanoTime();
+    logCapture.writeStandardError(chunk);
+    resultHandlingNanos.addAndGet(System.nanoTime() - handlingStart);
+  }
+
+  @Override
+  public void onRunEnded(Throwable failure) {
+    endRun(failure);
+  }
+
+  /**
+   * @return false if the run had already ended
+   */
+  private boolean endRun(Throwable failure) {
+    if (!ended.compareAndSet(false, true)) return false;
+
+    if (failure != null && runFailure == null) runFailure = failure;
+    try {
+      logCapture.close();
+    } catch (IOException exc) {
+      if (runFailure == null) runFailure = new UncheckedIOException(exc);
+    }
+
+    for (var node : nodes.values()) {
+      if (node.isFinished()) continue;
+
+      if (cancellation != null) node.finish(TestExecutionResult.aborted(cancellation));
+      else
+        node.finish(
+            TestExecutionResult.failed(
+                timeout != null
+                    ? timeout
+                    : new IllegalStateException(
+                        withStandardErrorTail(
+                            "The test run in the container ended before the test finished"),
+                        runFailure)));
+    }
+
+    runCompletion.complete(null);
+    for (var methodNode : methodNodes.values()) methodNode.complete(Optional.empty());
+
+    return true;
+  }
+
+  /**
+   * ends the run because a test has not finished in time, before its process is killed. The tests
+   * not finished yet fail with the timeout, and the exec is closed so that the output of the
+   * process, and the failures caused by the kill, are not read anymore.
+   *
+   * @return false if the run had already ended, so its process must not be killed
+   */
+  boolean onTimeout(TimeoutException timeout) {
+    if (ended.get()) return false;
+
+    this.timeout = timeout;
+    runFailure = timeout;
+    closeExec(timeout);
+    return endRun(timeout);
+  }
+
+  /**
+   * ends the run before its tests have finished, for example when the run stops early because too
+   * many tests have failed. The tests not finished yet, and the methods not started, are aborted
+   * with the cancellation. Like for a timeout, the process of the run is killed afterwards.
+   *
+   * @return false if the run had already ended, so its process must not be killed
+   */
+  boolean onCancelled(TestAbortedException cancellation) {
+    if (ended.get()) return false;
+
+    this.cancellation = cancellation;
+    runFailure = cancellation;
+    closeExec(cancellation);
+    return endRun(cancellation);
+  }
+
+  private void closeExec(Throwable endCause) {
+    try {
+      exec.close();
+    } catch (IOException | RuntimeException exc) {
+      endCause.addSuppressed(exc);
+    }
+  }
+
+  boolean isTimedOut() {
+    return timeout != null;
+  }
+
+  boolean isCancelled() {
+    return cancellation != null;
+  }
+
+  /**
+   * @return 0 if the JVM running the tests has not sent its pid yet
+   */
+  long getProcessId() {
+    return processId;
+  }
+
+  /**
+   * @param methodFullyQualifiedName method canonical name (package.class#methodName(parameters))
+   * @return completed when the method is started or skipped, or with an empty Optional when the run
+   *     ends without executing it
+   */
+  CompletionStage<Optional<RemoteTestNode>> getMethodNode(String methodFullyQualifiedName) {
+    var methodNode = getMethodNodeFuture(methodFullyQualifiedName);
+    if (runCompletion.isDone()) methodNode.complete(Optional.empty());
+
+    return methodNode;
+  }
+
+  public CompletionStage<Void> getRunCompletion() {
+    return runCompletion;
+  }
+
+  /**
+   * @return the durations in nanoseconds of the phases of the run reached so far: exec, jvm-boot
+   *     and result-handling
+   */
+  Map<PhaseTimings.Phase, Long> getRunPhaseNanos() {
+    Map<PhaseTimings.Phase, Long> phaseNanos = new EnumMap<>(PhaseTimings.Phase.class);
+    var execStarted = execStartedNanos;
+    var planStarted = planStartedNanos;
+    if (execStarted != null) phaseNanos.put(PhaseTimings.Phase.EXEC, execStarted - requestedNanos);
+    // the plan can start before the runtime returns, when the run is in the same JVM
+    if (execStarted != null && planStarted != null)
+      phaseNanos.put(PhaseTimings.Phase.JVM_BOOT, Math.max(0, planStarted - execStarted));
+    phaseNanos.put(PhaseTimings.Phase.RESULT_HANDLING, resultHandlingNanos.get());
+
+    return phaseNanos;
+  }
+
+  /**
+   * @return the durations in nanoseconds of the methods that have finished, by method in canonical
+   *     name form. Skipped methods are left out.
+   */
+  Map<String, Long> getMethodNanos() {
+    Map<String, Long> methodNanos = new HashMap<>();
+    for (var methodNode : methodNodes.entrySet()) {
+      methodNode
+          .getValue()
+          .getNow(Optional.empty())
+          .filter(node -> node.isFinished() && !node.isSkipped())
+          .ifPresent(node -> methodNanos.put(methodNode.getKey(), node.getDurationNanos()));
+    }
+
+    return methodNanos;
+  }
+
+  /**
+   * @param methodFullyQualifiedName method canonical name (package.class#methodName(parameters))
+   * @return the node of the method once it has been started or skipped, or an empty Optional if the
+   *     run ended without executing the method
+   */
+  public Optional<RemoteTestNode> awaitMethodNode(String methodFullyQualifiedName) {
+    var methodNode = getMethodNodeFuture(methodFullyQualifiedName);
+    if (runCompletion.isDone()) methodNode.complete(Optional.empty());
+
+    return methodNode.join();
+  }
+
+  /**
+   * @return why the methods of the class have not been run: the failure of the class container, the
+   *     failure of the run or a generic exception when no reason is known
+   */
+  public Throwable getNotRunCause(String className) {
+    var classFailure = classFailures.get(className);
+    if (classFailure != null) return classFailure;
+    if (runFailure != null) return runFailure;
+
+    return new RuntimeException(withStandardErrorTail(NO_TEST_RUN_MESSAGE));
+  }
+
+  private String withStandardErrorTail(String message) {
+    var standardErrorTail = logCapture.getStandardErrorTail();
+    if (standardErrorTail.isBlank()) return message;
+
+    return String.format(
+        "%s (%s). Last lines of the standard error:%n%s",
+        message, getStandardErrorLog(), standardErrorTail);
+  }
+
+  private void registerNode(ResultEvent event) {
+    var node = new RemoteTestNode(event);
+    nodes.put(event.getUniqueId(), node);
+
+    var parent = event.getParentUniqueId().map(nodes::get);
+    parent.ifPresent(parentNode -> parentNode.addStartedChild(node));
+
+    // the method node is the first one with the method source, its descendants (like the
+    // invocations of a test template) have the same source
+    var isMethodNode =
+        parent.map(parentNode -> parentNode.getMethodSource().isEmpty()).orElse(true);
+    if (isMethodNode) {
+      event
+          .getSourceMethodFullyQualifiedName()
+          .ifPresent(
+              methodFullyQualifiedName ->
+                  getMethodNodeFuture(methodFullyQualifiedName).complete(Optional.of(node)));
+    }
+
+    if (node.isSkipped()) node.finish(TestExecutionResult.aborted(null));
+  }
+
+  private void finishNode(ResultEvent event) {
+    var node = nodes.get(event.getUniqueId());
+    if (node == null) return;
+
+    var throwable = event.getThrowable().orElse(null);
+    switch (event.getStatus()) {
+      case SUCCESSFUL:
+        node.finish(TestExecutionResult.successful());
+        break;
+      case ABORTED:
+        node.finish(TestExecutionResult.aborted(throwable));
+        break;
+      default:
+        node.finish(TestExecutionResult.failed(throwable));
+        break;
+    }
+
+    var startEvent = node.getStartEvent();
+    if (throwable != null
+        && event.getStatus() == TestExecutionResult.Status.FAILED
+        && startEvent.getSourceMethodFullyQualifiedName().isEmpty()) {
+      startEvent
+          .getSourceClassName()
+          .ifPresentOrElse(
+              className -> classFailures.put(className, throwable), () -> runFailure = throwable);
+    }
+  }
+
+  private CompletableFuture<Optional<RemoteTestNode>> getMethodNodeFuture(
+      String methodFullyQualifiedName) {
+    return methodNodes.computeIfAbsent(
+        methodFullyQualifiedName, methodName -> new CompletableFuture<>());
+  }
+}
@@ -0,0 +1,98 @@
+package vec.engine.impl;
+
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.UniqueId;
+import org.junit.platform.engine.support.descriptor.MethodSource;
+import vec.engine.launcher.ResultEvent;
+
+/**
+ * a test or container run inside a container, as known from the events received so far. It is
+ * updated by the thread reading the result channel and read by the descriptor reporting it.
+ */
+public class RemoteTestNode {
+  /** STARTED or SKIPPED */
+  private final ResultEvent startEvent;
+  /** an empty child means that the node has finished, so no other child can be started */
+  private final BlockingQueue<Optional<RemoteTestNode>> startedChildren =
+      new LinkedBlockingQueue<>();
+
+  private final CompletableFuture<TestExecutionResult> result = new CompletableFuture<>();
+  private final long startedNanos = System.nanoTime();
+  private volatile long durationNanos = 0;
+
+  RemoteTestNode(ResultEvent startEvent) {
+    this.startEvent = startEvent;
+  }
+
+  public UniqueId getUniqueId() {
+    return UniqueId.parse(startEvent.getUniqueId());
+  }
+
+  public String getDisplayName() {
+    return startEvent.getDisplayName();
+  }
+
+  public boolean isTest() {
+    return startEvent.isTest();
+  }
+
+  public boolean isContainer() {
+    return startEvent.isContainer();
+  }
+
+  public Optional<MethodSource> getMethodSource() {
+    return startEvent.getMethodSource();
+  }
+
+  public boolean isSkipped() {
+    return startEvent.getType() == ResultEvent.Type.SKIPPED;
+  }
+
+  public String getSkipReason() {
+    return startEvent.getReason();
+  }
+
+  ResultEvent getStartEvent() {
+    return startEvent;
+  }
+
+  void addStartedChild(RemoteTestNode child) {
+    startedChildren.add(Optional.of(child));
+  }
+
+  /** only the first result is kept */
+  void finish(TestExecutionResult testExecutionResult) {
+    if (result.isDone()) return;
+
+    durationNanos = System.nanoTime() - startedNanos;
+    if (result.complete(testExecutionResult)) startedChildren.add(Optional.empty());
+  }
+
+  boolean isFinished() {
+    return result.isDone();
+  }
+
+  /** from the start event to the finish event, as received by the engine */
+  long getDurationNanos() {
+    return durationNanos;
+  }
+
+  /**
+   * @return the next child in the order they have been started, or an empty Optional if the node
+   *     has finished and all its children have been returned
+   */
+  public Optional<RemoteTestNode> awaitNextStartedChild() throws InterruptedException {
+    var child = startedChildren.take();
+    if (child.isEmpty()) startedChildren.add(child);
+
+    return child;
+  }
+
+  public TestExecutionResult awaitResult() {
+    return result.join();
+  }
+}
@@ -0,0 +1,121 @@
+package vec.engine.impl;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Properties;
+import vec.helpers.ContainerRuntime;
+import vec.helpers.ResourceLimits;
+
+/**
+ * keeps track of the containers left running by previous runs so that they can be reused. A
+ * container is reused only if it has been created for the same image, resource limits, bind mounts
+ * and engine version. The time of the last run using each container is saved in a local state file,
+ * and containers not used for longer than the idle timeout are removed by reapIdleContainers.
+ */
+class ReusableContainerRegistry {
+  private final ContainerRuntime containerRuntime;
+  private final String engineVersion;
+  private final Duration idleTimeout;
+  private final Path stateFile;
+
+  ReusableContainerRegistry(
+      ContainerRuntime containerRuntime,
+      String engineVersion,
+      Duration idleTimeout,
+      Path stateFile) {
+    this.containerRuntime = containerRuntime;
+    this.engineVersion = engineVersion;
+    this.idleTimeout = idleTimeout;
+    this.stateFile = stateFile;
+  }
+
+  /**
+   * @return the id of a running container that can be reused, if any
+   */
+  Optional<String> findContainer(
+      String image, String containerName, ResourceLimits resourceLimits) {
+    return containerRuntime.findReusableContainer(
+        containerName, containerRuntime.computeReuseHash(image, resourceLimits, engineVersion));
+  }
+
+  /**
+   * @return the id of the created container, not started yet
+   */
+  String createContainer(String image, String containerName, ResourceLimits resourceLimits) {
+    return containerRuntime.createReusableTestingContainer(
+        image,
+        containerName,
+        resourceLimits,
+        containerRuntime.computeReuseHash(image, resourceLimits, engineVersion));
+  }
+
+  /** records that the containers have been used now, they are left running */
+  synchronized void releaseContainers(Collection<String> containerIds) {
+    var lastUses = loadLastUses();
+    var now = String.valueOf(Instant.now().toEpochMilli());
+    for (var containerId : containerIds) lastUses.setProperty(containerId, now);
+
+    saveLastUses(lastUses);
+  }
+
+  /**
+   * removes the reusable containers whose last use is older than the idle timeout. The creation
+   * time is used for containers never released by a run (for example when the run crashed)
+   */
+  synchronized void reapIdleContainers() {
+    var lastUses = loadLastUses();
+    var idleThreshold = Instant.now().minus(idleTimeout);
+    var reusableContainers = containerRuntime.listReusableContainers();
+
+    for (var container : reusableContainers.entrySet()) {
+      var lastUse =
+          Optional.ofNullable(lastUses.getProperty(container.getKey()))
+              .map(lastUseMillis -> Instant.ofEpochMilli(Long.parseLong(lastUseMillis)))
+              .orElse(Instant.ofEpochSecond(container.getValue()));
+
+      if (lastUse.isBefore(idleThreshold)) {
+        containerRuntime.removeTestingContainer(container.getKey());
+        lastUses.remove(container.getKey());
+      }
+    }
+    // containers removed by someone else
+    lastUses.keySet().retainAll(reusableContainers.keySet());
+
+    saveLastUses(lastUses);
+  }
+
+  private Properties loadLastUses() {
+    var lastUses = new Properties();
+    if (Files.exists(stateFile)) {
+      try (Reader reader = Files.newBufferedReader(stateFile)) {
+        lastUses.load(reader);
+      } catch (IOException exc) {
+        throw new UncheckedIOException(exc);
+      }
+    }
+
+    return lastUses;
+  }
+
+  private void saveLastUses(Properties lastUses) {
+    try {
+      Files.createDirectories(stateFile.getParent());
+      var tempFile = Files.createTempFile(stateFile.getParent(), "reusable-containers", ".tmp");
+      try (Writer writer = Files.newBufferedWriter(tempFile)) {
+        lastUses.store(writer, "last use (epoch millis) of the reusable containers");
+      }
+      Files.move(tempFile, stateFile, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
+    }
+  }
+}
@@ -0,0 +1,149 @@
+package vec.engine.impl;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * remembers how long the dockerized test methods took in the previous runs, keyed by their unique
+ * id, so that the longest ones can be started first. The estimate of a method is the average of its
+ * last durations, weighted towards the most recent one. A method that has never run is estimated
+ * with the median of the methods in the history, or {@link #DEFAULT_ESTIMATE} when the history is
+ * empty.
+ */
+class TestDurationHistory {
+  static final Duration DEFAULT_ESTIMATE = Duration.ofSeconds(1);
+
+  /** weight of the duration of the last run in the estimate */
+  private static final double LAST_RUN_WEIGHT = 0.5;
+
+  private final Path historyFile;
+  /** the key is the unique id, the value the estimate in nanoseconds */
+  private final Map<String, Long> estimates = new ConcurrentHashMap<>();
+  /** the key is the unique id, the value the duration in nanoseconds in this run */
+  private final Map<String, Long> runDurations = new ConcurrentHashMap<>();
+
+  private final long defaultEstimateNanos;
+
+  TestDurationHistory(Path historyFile) {
+    this.historyFile = historyFile;
+    loadEstimates();
+    this.defaultEstimateNanos = computeDefaultEstimate();
+  }
+
+  Duration estimate(String uniqueId) {
+    return Duration.ofNanos(estimates.getOrDefault(uniqueId, defaultEstimateNanos));
+  }
+
+  /**
+   * a method recorded more than once in the same run (like the shards of a template) keeps the
+   * longest
+   */
+  void record(String uniqueId, Duration duration) {
+    runDurations.merge(uniqueId, duration.toNanos(), Math::max);
+  }
+
+  /** writes the history file, with the durations of this run merged in the estimates */
+  void save() {
+    var history = new Properties();
+    estimates.forEach((uniqueId, nanos) -> history.setProperty(uniqueId, Long.toString(nanos)));
+    runDurations.forEach(
+        (uniqueId, nanos) -> {
+          var previousEstimate = estimates.get(uniqueId);
+          var estimate =
+              previousEstimate == null
+                  ? nanos
+                  : Math.round(LAST_RUN_WEIGHT * nanos + (1 - LAST_RUN_WEIGHT) * previousEstimate);
+          history.setProperty(uniqueId, Long.toString(estimate));
+        });
+
+    try {
+      Files.createDirectories(historyFile.getParent());
+      var tempFile = Files.createTempFile(historyFile.getParent(), "duration-history", ".tmp");
+      try (Writer writer = Files.newBufferedWriter(tempFile)) {
+        history.store(writer, "estimated durations of the dockerized tests (nanoseconds)");
+      }
+      Files.move(tempFile, historyFile, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
+    }
+  }
+
+  /**
+   * the longest processing time first schedule: every item, from the longest, goes to the bin with
+   * the least work assigned so far
+   *
+   * @return the items of every bin, in the order they are assigned
+   */
+  static <T> List<List<T>> assignLongestFirst(List<T> items, ToLongFunction<T> estimate, int bins) {
+    List<List<T>> assignments = new ArrayList<>();
+    for (int i = 0; i < bins; i++) assignments.add(new ArrayList<>());
+
+    // the bins are ordered by their work, then by their index
+    var binLoads =
+        new PriorityQueue<long[]>(
+            Comparator.<long[]>comparingLong(binLoad -> binLoad[0])
+                .thenComparingLong(binLoad -> binLoad[1]));
+    for (int i = 0; i < bins; i++) binLoads.add(new long[] {0, i});
+
+    var sortedItems = new ArrayList<>(items);
+    sortedItems.sort(Comparator.comparingLong(estimate).reversed());
+    for (var item : sortedItems) {
+      var binLoad = binLoads.poll();
+      assignments.get((int) binLoad[1]).add(item);
+      binLoad[0] += estimate.applyAsLong(item);
+      binLoads.add(binLoad);
+    }
+
+    return assignments;
+  }
+
+  /**
+   * @return the time the longest processing time first schedule of the durations takes on the given
+   *     number of slots
+   */
+  static long predictMakespan(List<Long> durations, int slots) {
+    return assignLongestFirst(durations, Long::longValue, slots).stream()
+        .mapToLong(bin -> bin.stream().mapToLong(Long::longValue).sum())
+        .max()
+        .orElse(0);
+  }
+
+  private long computeDefaultEstimate() {
+    if (estimates.isEmpty()) return DEFAULT_ESTIMATE.toNanos();
+
+    var sortedEstimates = new ArrayList<>(estimates.values());
+    Collections.sort(sortedEstimates);
+    return PhaseTimings.percentile(sortedEstimates, 50);
+  }
+
+  private void loadEstimates() {
+    if (!Files.exists(historyFile)) return;
+
+    var history = new Properties();
+    try (Reader reader = Files.newBufferedReader(historyFile)) {
+      history.load(reader);
+    } catch (IOException | IllegalArgumentException exc) {
+      // a corrupted history is discarded, every test gets the default estimate
+      return;
+    }
+    for (var uniqueId : history.stringPropertyNames()) {
+      var estimate = history.getProperty(uniqueId);
+      if (estimate.matches("\\d+")) estimates.put(uniqueId, Long.parseLong(estimate));
+    }
+  }
+}
@@ -0,0 +1,323 @@
+package vec.engine.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import vec.helpers.ContainerRuntime;
+
+/**
+ * remembers the dockerized test methods that passed, so that they are not run again while nothing
+ * they depend on changes. The key of a passed test is a hash of:
+ *
+ * <ul>
+ *   <li>the method and the engine version
+ *   <li>the class files of its class and of the project classes it references, transitively, and
+ *       the resources of the project
+ *   <li>the dependency jars (path, size and modification time)
+ *   <li>the id of the image of its container, that changes with the content of the image
+ * </ul>
+ *
+ * The keys are kept in a file with the time of their last use: when the file grows over the maximum
+ * size the least recently used keys are evicted.
+ */
+class TestResultCache {
+  private static final String CLASS_FILE_EXTENSION = ".class";
+
+  private final ContainerRuntime containerRuntime;
+  private final String engineVersion;
+  /** directories of the classpath built by the project, with classes and resources */
+  private final List<Path> projectDirectories;
+
+  private final List<Path> dependencyJars;
+  private final Path cacheFile;
+  private final long maxSize;
+
+  /** the key is the hash of a passed test, the value is lastUsedMillis:method */
+  private final Map<String, String> passedTests = new ConcurrentHashMap<>();
+
+  private final Map<String, String> classClosureHashes = new ConcurrentHashMap<>();
+  private final Map<String, Optional<ProjectClass>> projectClasses = new ConcurrentHashMap<>();
+  private final Map<String, Optional<String>> imageIds = new ConcurrentHashMap<>();
+  private volatile String dependenciesHash = null;
+  private volatile String resourcesHash = null;
+
+  /**
+   * @param maxSize maximum size of the cache file in bytes
+   */
+  TestResultCache(
+      ContainerRuntime containerRuntime,
+      String engineVersion,
+      List<Path> projectDirectories,
+      List<Path> dependencyJars,
+      Path cacheFile,
+      long maxSize) {
+    this.containerRuntime = containerRuntime;
+    this.engineVersion = engineVersion;
+    this.projectDirectories = projectDirectories;
+    this.dependencyJars = dependencyJars;
+    this.cacheFile = cacheFile;
+    this.maxSize = maxSize;
+    loadPassedTests();
+  }
+
+  /**
+   * the project directories are the directories of the classpath of the engine that are inside the
+   * project directory
+   *
+   * @param classpath entries separated by the path separator, like java.class.path
+   */
+  static List<Path> findProjectDirectories(String classpath, Path projectDirectory) {
+    var absoluteProjectDirectory = projectDirectory.toAbsolutePath().normalize();
+
+    return Stream.of(classpath.split(File.pathSeparator))
+        .filter(entry -> !entry.isBlank())
+        .map(entry -> Path.of(entry).toAbsolutePath().normalize())
+        .filter(Files::isDirectory)
+        .filter(entry -> entry.startsWith(absoluteProjectDirectory))
+        .distinct()
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * @return the time of the previous run where the test passed, empty if it has not passed with the
+   *     same classes, dependencies and image
+   */
+  Optional<Instant> findPassedRun(String className, String methodFullyQualifiedName, String image) {
+    var key = computeKey(className, methodFullyQualifiedName, image);
+    if (key.isEmpty()) return Optional.empty();
+
+    var entry = passedTests.get(key.get());
+    if (entry == null) return Optional.empty();
+
+    passedTests.put(key.get(), System.currentTimeMillis() + ":" + methodFullyQualifiedName);
+    return Optional.of(Instant.ofEpochMilli(Long.parseLong(entry.split(":", 2)[0])));
+  }
+
+  void recordPassedRun(String className, String methodFullyQualifiedName, String image) {
+    computeKey(className, methodFullyQualifiedName, image)
+        .ifPresent(
+            key ->
+                passedTests.put(key, System.currentTimeMillis() + ":" + methodFullyQualifiedName));
+  }
+
+  /** writes the cache file, evicting the least recently used tests over the maximum size */
+  void save() {
+    var entries = new ArrayList<>(passedTests.entrySet());
+    entries.sort(
+        Comparator.comparingLong(
+                (Map.Entry<String, String> entry) ->
+                    Long.parseLong(entry.getValue().split(":", 2)[0]))
+            .reversed());
+
+    var cache = new Properties();
+    long size = 0;
+    for (var entry : entries) {
+      size += entry.getKey().length() + entry.getValue().length() + 2;
+      if (size > maxSize) break;
+      cache.setProperty(entry.getKey(), entry.getValue());
+    }
+
+    try {
+      Files.createDirectories(cacheFile.getParent());
+      var tempFile = Files.createTempFile(cacheFile.getParent(), "result-cache", ".tmp");
+      try (Writer writer = Files.newBufferedWriter(tempFile)) {
+        cache.store(writer, "dockerized tests that passed (lastUsedMillis:method)");
+      }
+      Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
+    }
+  }
+
+  private void loadPassedTests() {
+    if (!Files.exists(cacheFile)) return;
+
+    var cache = new Properties();
+    try (Reader reader = Files.newBufferedReader(cacheFile)) {
+      cache.load(reader);
+    } catch (IOException | IllegalArgumentException exc) {
+      // a corrupted cache is discarded, the tests are run again
+      return;
+    }
+    for (var key : cache.stringPropertyNames()) {
+      var entry = cache.getProperty(key);
+      if (entry.matches("\\d+:.*")) passedTests.put(key, entry);
+    }
+  }
+
+  /** empty when the class file or the image cannot be found, in that case nothing is cached */
+  Optional<String> computeKey(String className, String methodFullyQualifiedName, String image) {
+    var classClosureHash = getClassClosureHash(className);
+    var imageId = getImageId(image);
+    if (classClosureHash.isEmpty() || imageId.isEmpty()) return Optional.empty();
+
+    return Optional.of(
+        sha256(
+            String.join(
+                "\n",
+                methodFullyQualifiedName,
+                engineVersion,
+                classClosureHash.get(),
+                getResourcesHash(),
+                getDependenciesHash(),
+                imageId.get())));
+  }
+
+  /**
+   * the hash of the class files of the class and of the project classes it references,
+   * transitively. The classes outside the project directories are covered by the dependency hash.
+   */
+  private Optional<String> getClassClosureHash(String className) {
+    if (getProjectClass(className).isEmpty()) return Optional.empty();
+
+    return Optional.of(
+        classClosureHashes.computeIfAbsent(
+            className,
+            name -> {
+              // sorted by name, so that the hash does not depend on the visit order
+              Map<String, String> closure = new TreeMap<>();
+              Set<String> visitedClasses = new HashSet<>();
+              var pendingClasses = new ArrayDeque<>(List.of(name));
+              while (!pendingClasses.isEmpty()) {
+                var pendingClass = pendingClasses.poll();
+                if (!visitedClasses.add(pendingClass)) continue;
+
+                getProjectClass(pendingClass)
+                    .ifPresent(
+                        projectClass -> {
+                          closure.put(pendingClass, projectClass.hash);
+                          pendingClasses.addAll(projectClass.referencedClassNames);
+                        });
+              }
+
+              return sha256(closure.toString());
+            }));
+  }
+
+  /** read from the first project directory that contains its class file */
+  private Optional<ProjectClass> getProjectClass(String className) {
+    return projectClasses.computeIfAbsent(
+        className,
+        name -> {
+          for (var projectDirectory : projectDirectories) {
+            var classFile = projectDirectory.resolve(name.replace('.', '/') + CLASS_FILE_EXTENSION);
+            if (!Files.isRegularFile(classFile)) continue;
+
+            try {
+              var content = Files.readAllBytes(classFile);
+              return Optional.of(
+                  new ProjectClass(
+                      sha256(content),
+                      ClassFileSummary.readReferencedClassNames(
+                          new ByteArrayInputStream(content))));
+            } catch (IOException exc) {
+              throw new UncheckedIOException(exc);
+            }
+          }
+
+          return Optional.empty();
+        });
+  }
+
+  private Optional<String> getImageId(String image) {
+    return imageIds.computeIfAbsent(
+        image, name -> containerRuntime.inspectImage(name).map(imageDetails -> imageDetails.id));
+  }
+
+  /** the files of the project directories that are not class files, with their content */
+  private String getResourcesHash() {
+    if (resourcesHash == null) {
+      var resources = new StringBuilder();
+      for (var projectDirectory : projectDirectories) {
+        try (Stream<Path> files = Files.walk(projectDirectory)) {
+          for (var file :
+              files
+                  .filter(Files::isRegularFile)
+                  .filter(path -> !path.toString().endsWith(CLASS_FILE_EXTENSION))
+                  .sorted()
+                  .collect(Collectors.toList()))
+            resources
+                .append(file)
+                .append(':')
+                .append(sha256(Files.readAllBytes(file)))
+                .append('\n');
+        } catch (IOException exc) {
+          throw new UncheckedIOException(exc);
+        }
+      }
+      resourcesHash = sha256(resources.toString());
+    }
+
+    return resourcesHash;
+  }
+
+  /** the jars are identified by path, size and modification time, like the derived images do */
+  private String getDependenciesHash() {
+    if (dependenciesHash == null) {
+      var dependencies = new StringBuilder();
+      try {
+        for (var dependencyJar : dependencyJars) {
+          dependencies
+              .append(dependencyJar)
+              .append(':')
+              .append(Files.size(dependencyJar))
+              .append(':')
+              .append(Files.getLastModifiedTime(dependencyJar).toMillis())
+              .append('\n');
+        }
+      } catch (IOException exc) {
+        throw new UncheckedIOException(exc);
+      }
+      dependenciesHash = sha256(dependencies.toString());
+    }
+
+    return dependenciesHash;
+  }
+
+  private static String sha256(String content) {
+    return sha256(content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String sha256(byte[] content) {
+    try {
+      var digest = MessageDigest.getInstance("SHA-256").digest(content);
+      return String.format("%064x", new BigInteger(1, digest));
+    } catch (NoSuchAlgorithmException exc) {
+      throw new IllegalStateException(exc);
+    }
+  }
+
+  private static class ProjectClass {
+    private final String hash;
+    private final Set<String> referencedClassNames;
+
+    private ProjectClass(String hash, Set<String> referencedClassNames) {
+      this.hash = hash;
+      this.referencedClassNames = referencedClassNames;
+    }
+  }
+}
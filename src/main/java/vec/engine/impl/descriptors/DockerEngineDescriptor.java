@@ -1,26 +1,38 @@
 package vec.engine.impl.descriptors;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 import org.junit.platform.engine.UniqueId;
 import org.junit.platform.engine.support.descriptor.EngineDescriptor;
 import org.junit.platform.engine.support.hierarchical.Node;
 import vec.engine.annotations.Dockerized;
+import vec.engine.impl.DockerEngineConfiguration;
 import vec.engine.impl.DockerEngineExecutionContext;
 import vec.engine.interfaces.DockerizableDescriptor;
 
 public class DockerEngineDescriptor extends EngineDescriptor
     implements Node<DockerEngineExecutionContext> {
-  public DockerEngineDescriptor(UniqueId uniqueId) {
+  private final DockerEngineConfiguration configuration;
+
+  public DockerEngineDescriptor(UniqueId uniqueId, DockerEngineConfiguration configuration) {
     super(uniqueId, "Docker Engine");
+    this.configuration = configuration;
+  }
+
+  public DockerEngineConfiguration getConfiguration() {
+    return configuration;
   }
 
   /**
-   * the key is the container name, the value is the container image. it visits all the children
-   * retrieving the ContainerInfo if present.
+   * the key is the container name, the value is the container info (image, replicas and limits). it
+   * visits all the children retrieving the ContainerInfo if present.
    */
-  public Map<String, String> getAllContainerInfo() {
-    Map<String, String> containerInfoMap = new HashMap<>();
+  public Map<String, Dockerized.ContainerInfo> getAllContainerInfo() {
+    Map<String, Dockerized.ContainerInfo> containerInfoMap = new HashMap<>();
     for (var descendant : this.getDescendants()) {
       org.junit.platform.commons.util.Preconditions.condition(
           descendant instanceof DockerizableDescriptor,
@@ -33,35 +45,147 @@ public class DockerEngineDescriptor extends EngineDescriptor
 
       var containerInfo = optionalContInfo.get();
       checkContainerNameHasUniqueImage(containerInfoMap, containerInfo);
+      checkContainerNameHasUniqueReplicas(containerInfoMap, containerInfo);
+      checkContainerNameHasUniqueResourceLimits(containerInfoMap, containerInfo);
 
-      containerInfoMap.putIfAbsent(containerInfo.containerName, containerInfo.image);
+      containerInfoMap.putIfAbsent(containerInfo.containerName, containerInfo);
     }
 
     return containerInfoMap;
   }
 
+  /**
+   * the key is the container name, the value is the list of test methods (in canonical name form)
+   * to run in that container, in the order of the descriptor tree.
+   */
+  public Map<String, List<String>> getAllTestMethodsByContainerName() {
+    Map<String, List<String>> testMethodsMap = new LinkedHashMap<>();
+    for (var methodDescriptor : getTestMethodDescriptors()) {
+      testMethodsMap
+          .computeIfAbsent(
+              methodDescriptor.getContainerInfo().orElseThrow().containerName,
+              containerName -> new ArrayList<>())
+          .add(methodDescriptor.getMethodFullyQualifiedName());
+    }
+
+    return testMethodsMap;
+  }
+
+  /** the dynamic children of test templates cannot be replayed, so they are never cached */
+  private void lookUpCachedTests(DockerEngineExecutionContext context) {
+    for (var methodDescriptor : getTestMethodDescriptors()) {
+      if (methodDescriptor.getType() == Type.TEST)
+        context.lookUpCachedTest(
+            methodDescriptor.getTestClass().getName(),
+            methodDescriptor.getMethodFullyQualifiedName(),
+            methodDescriptor.getContainerInfo().orElseThrow().image);
+    }
+  }
+
+  /** in the order of the descriptor tree */
+  private List<DockerizedTestMethodDescriptor> getTestMethodDescriptors() {
+    return getDescendants().stream()
+        .filter(descendant -> descendant instanceof DockerizedTestMethodDescriptor)
+        .map(descendant -> (DockerizedTestMethodDescriptor) descendant)
+        .collect(Collectors.toList());
+  }
+
   private void checkContainerNameHasUniqueImage(
-      Map<String, String> containerInfoMap, Dockerized.ContainerInfo containerInfo) {
+      Map<String, Dockerized.ContainerInfo> containerInfoMap,
+      Dockerized.ContainerInfo containerInfo) {
+    var registeredContainerInfo = containerInfoMap.get(containerInfo.containerName);
+    org.junit.platform.commons.util.Preconditions.condition(
+        registeredContainerInfo == null
+            || registeredContainerInfo.image.equals(containerInfo.image),
+        () ->
+            String.format(
+                "Container %s references 2 different images: %s, %s",
+                containerInfo.containerName, containerInfo.image, registeredContainerInfo.image));
+  }
+
+  private void checkContainerNameHasUniqueReplicas(
+      Map<String, Dockerized.ContainerInfo> containerInfoMap,
+      Dockerized.ContainerInfo containerInfo) {
+    var registeredContainerInfo = containerInfoMap.get(containerInfo.containerName);
+    org.junit.platform.commons.util.Preconditions.condition(
+        registeredContainerInfo == null
+            || registeredContainerInfo.replicas == containerInfo.replicas,
+        () ->
+            String.format(
+                "Container %s has 2 different numbers of replicas: %d, %d",
+                containerInfo.containerName,
+                containerInfo.replicas,
+                registeredContainerInfo.replicas));
+  }
+
+  private void checkContainerNameHasUniqueResourceLimits(
+      Map<String, Dockerized.ContainerInfo> containerInfoMap,
+      Dockerized.ContainerInfo containerInfo) {
+    var registeredContainerInfo = containerInfoMap.get(containerInfo.containerName);
     org.junit.platform.commons.util.Preconditions.condition(
-        !containerInfoMap.containsKey(containerInfo.containerName)
-            || containerInfoMap.get(containerInfo.containerName).equals(containerInfo.image),
-        String.format(
-            "Container %s references 2 different images: %s, %s",
-            containerInfo.containerName,
-            containerInfo.image,
-            containerInfoMap.get(containerInfo.containerName)));
+        registeredContainerInfo == null
+            || registeredContainerInfo.resourceLimits.equals(containerInfo.resourceLimits),
+        () ->
+            String.format(
+                "Container %s has 2 different resource limits: %s, %s",
+                containerInfo.containerName,
+                containerInfo.resourceLimits,
+                registeredContainerInfo.resourceLimits));
   }
 
+  @Override
+  public ExecutionMode getExecutionMode() {
+    return configuration.getDefaultParallelExecutionMode();
+  }
+
+  /**
+   * the tests found in the result cache and the disabled ones are not run, and the containers with
+   * no other test are not started. With the longest first scheduling, the estimated durations of
+   * the tests order the work of the containers, while the descriptor tree has already been ordered
+   * at discovery.
+   */
   @Override
   public DockerEngineExecutionContext prepare(DockerEngineExecutionContext context) {
     var containerInfoMap = getAllContainerInfo();
-    context.startDockerContainers(containerInfoMap);
+    lookUpCachedTests(context);
+    for (var methodDescriptor : getTestMethodDescriptors())
+      context.estimateTestDuration(
+          methodDescriptor.getUniqueId().toString(),
+          methodDescriptor.getMethodFullyQualifiedName());
+    var disabledMethods =
+        getTestMethodDescriptors().stream()
+            .filter(DockerizedTestMethodDescriptor::isDisabled)
+            .map(DockerizedTestMethodDescriptor::getMethodFullyQualifiedName)
+            .collect(Collectors.toSet());
+    var testMethodsMap = getAllTestMethodsByContainerName();
+    for (var testMethods : testMethodsMap.values())
+      testMethods.removeIf(
+          method ->
+              disabledMethods.contains(method) || context.getCachedTestRun(method).isPresent());
+    testMethodsMap.values().removeIf(List::isEmpty);
+    containerInfoMap.keySet().retainAll(testMethodsMap.keySet());
+
+    context.prepareContainers(containerInfoMap, testMethodsMap);
+
+    return context;
+  }
+
+  @Override
+  public DockerEngineExecutionContext before(DockerEngineExecutionContext context) {
+    context.engineExecutionStarted();
 
     return context;
   }
 
   @Override
   public void cleanUp(DockerEngineExecutionContext context) {
-    context.cleanUpDockerContainer();
+    context.publishMakespan();
+    try {
+      context.cleanUpDockerContainer();
+    } finally {
+      context.publishPhaseSummary();
+      context.saveTestResultCache();
+      context.saveTestDurationHistory();
+    }
   }
 }
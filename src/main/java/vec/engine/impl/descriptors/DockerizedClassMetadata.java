@@ -0,0 +1,88 @@
+package vec.engine.impl.descriptors;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.platform.commons.support.AnnotationSupport;
+import org.junit.platform.commons.util.Preconditions;
+import org.junit.platform.commons.util.ReflectionUtils;
+import vec.engine.annotations.Dockerized;
+
+/**
+ * the dockerized test methods of a class and their container info, computed once per class. The
+ * cache is a {@link ClassValue}, so it does not keep the test classes from being unloaded.
+ */
+public class DockerizedClassMetadata {
+  private static final ClassValue<DockerizedClassMetadata> METADATA_CACHE =
+      new ClassValue<>() {
+        @Override
+        protected DockerizedClassMetadata computeValue(Class<?> testClass) {
+          return new DockerizedClassMetadata(testClass);
+        }
+      };
+
+  private final Optional<Dockerized.ContainerInfo> classContainerInfo;
+  /** the test methods in the order of {@link ReflectionUtils#findMethods} */
+  private final Map<Method, Dockerized.ContainerInfo> testMethods;
+
+  private DockerizedClassMetadata(Class<?> testClass) {
+    this.classContainerInfo =
+        DockerizedTestClassDescriptor.isDockerizedTestClass(testClass)
+            ? AnnotationSupport.findAnnotation(testClass, Dockerized.class)
+                .map(Dockerized.ContainerInfo::new)
+            : Optional.empty();
+
+    Map<Method, Dockerized.ContainerInfo> testMethods = new LinkedHashMap<>();
+    for (var testMethod :
+        ReflectionUtils.findMethods(
+            testClass, DockerizedTestMethodDescriptor::isDockerizedTestMethod)) {
+      var containerInfo =
+          classContainerInfo.or(
+              () ->
+                  AnnotationSupport.findAnnotation(testMethod, Dockerized.class)
+                      .map(Dockerized.ContainerInfo::new));
+      Preconditions.condition(
+          containerInfo.isPresent(),
+          String.format("method %s is a non-Dockerized test method", testMethod.getName()));
+      testMethods.put(testMethod, containerInfo.get());
+    }
+    this.testMethods = Collections.unmodifiableMap(testMethods);
+  }
+
+  public static DockerizedClassMetadata of(Class<?> testClass) {
+    return METADATA_CACHE.get(testClass);
+  }
+
+  /** the container info of the class, empty when only some of its methods are @Dockerized */
+  public Optional<Dockerized.ContainerInfo> getClassContainerInfo() {
+    return classContainerInfo;
+  }
+
+  public List<Method> getTestMethods() {
+    return List.copyOf(testMethods.keySet());
+  }
+
+  public boolean hasTestMethods() {
+    return !testMethods.isEmpty();
+  }
+
+  /**
+   * @return the container info of the method, empty if it is not a dockerized test method of the
+   *     class
+   */
+  public Optional<Dockerized.ContainerInfo> getContainerInfo(Method testMethod) {
+    return Optional.ofNullable(testMethods.get(testMethod));
+  }
+
+  /**
+   * @return the dockerized test method with that name, the first one if it is overloaded
+   */
+  public Optional<Method> findTestMethod(String methodName) {
+    return testMethods.keySet().stream()
+        .filter(testMethod -> testMethod.getName().equals(methodName))
+        .findFirst();
+  }
+}
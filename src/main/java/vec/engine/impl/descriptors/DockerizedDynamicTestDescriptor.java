@@ -0,0 +1,117 @@
+package vec.engine.impl.descriptors;
+
+import org.junit.platform.engine.TestDescriptor;
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.UniqueId;
+import org.junit.platform.engine.support.descriptor.AbstractTestDescriptor;
+import org.junit.platform.engine.support.hierarchical.Node;
+import org.opentest4j.TestAbortedException;
+import vec.engine.impl.DockerEngineExecutionContext;
+import vec.engine.impl.RemoteTestNode;
+
+/**
+ * a test or container discovered while running a method inside the container, like the invocations
+ * of a parameterized test or the tests returned by a test factory. It is registered as a dynamic
+ * child of the descriptor of its parent node.
+ */
+public class DockerizedDynamicTestDescriptor extends AbstractTestDescriptor
+    implements Node<DockerEngineExecutionContext> {
+  private final RemoteTestNode remoteTestNode;
+
+  DockerizedDynamicTestDescriptor(TestDescriptor parent, RemoteTestNode remoteTestNode) {
+    super(
+        getDynamicTestDescriptorUniqueId(parent, remoteTestNode),
+        remoteTestNode.getDisplayName(),
+        remoteTestNode.getMethodSource().orElse(null));
+    this.remoteTestNode = remoteTestNode;
+    setParent(parent);
+  }
+
+  /** the last segment of the unique id inside the container is appended to the parent one */
+  private static UniqueId getDynamicTestDescriptorUniqueId(
+      TestDescriptor parent, RemoteTestNode remoteTestNode) {
+    var remoteSegment = remoteTestNode.getUniqueId().getLastSegment();
+
+    return parent.getUniqueId().append(remoteSegment.getType(), remoteSegment.getValue());
+  }
+
+  @Override
+  public Type getType() {
+    if (remoteTestNode.isTest() && remoteTestNode.isContainer()) return Type.CONTAINER_AND_TEST;
+
+    return remoteTestNode.isTest() ? Type.TEST : Type.CONTAINER;
+  }
+
+  /** the node is reported while the remote one is running, so it must not be forked */
+  @Override
+  public ExecutionMode getExecutionMode() {
+    return ExecutionMode.SAME_THREAD;
+  }
+
+  @Override
+  public SkipResult shouldBeSkipped(DockerEngineExecutionContext context) {
+    return remoteTestNode.isSkipped()
+        ? SkipResult.skip(remoteTestNode.getSkipReason())
+        : SkipResult.doNotSkip();
+  }
+
+  @Override
+  public void nodeFinished(
+      DockerEngineExecutionContext context,
+      TestDescriptor testDescriptor,
+      TestExecutionResult result) {
+    if (getType().isTest()) context.recordTestResult(result);
+  }
+
+  @Override
+  public DockerEngineExecutionContext execute(
+      DockerEngineExecutionContext context, DynamicTestExecutor dynamicTestExecutor)
+      throws Exception {
+    reportRemoteExecution(this, remoteTestNode, dynamicTestExecutor);
+
+    return context;
+  }
+
+  /**
+   * reports the children of the remote node as dynamic children of the descriptor as soon as they
+   * are started, then waits for the remote node to finish and throws its exception, if any.
+   */
+  static void reportRemoteExecution(
+      TestDescriptor descriptor,
+      RemoteTestNode remoteTestNode,
+      DynamicTestExecutor dynamicTestExecutor)
+      throws Exception {
+    var remoteChild = remoteTestNode.awaitNextStartedChild();
+    while (remoteChild.isPresent()) {
+      dynamicTestExecutor.execute(
+          new DockerizedDynamicTestDescriptor(descriptor, remoteChild.get()));
+      remoteChild = remoteTestNode.awaitNextStartedChild();
+    }
+    dynamicTestExecutor.awaitFinished();
+
+    rethrow(remoteTestNode.awaitResult());
+  }
+
+  private static void rethrow(TestExecutionResult testExecutionResult) throws Exception {
+    var throwable = testExecutionResult.getThrowable();
+    switch (testExecutionResult.getStatus()) {
+      case SUCCESSFUL:
+        return;
+      case ABORTED:
+        if (throwable.isEmpty()) throw new TestAbortedException();
+        break;
+      default:
+        if (throwable.isEmpty()) throw new RuntimeException("The test failed in the container");
+        break;
+    }
+
+    rethrow(throwable.get());
+  }
+
+  static void rethrow(Throwable throwable) throws Exception {
+    if (throwable instanceof Exception) throw (Exception) throwable;
+    if (throwable instanceof Error) throw (Error) throwable;
+
+    throw new RuntimeException(throwable);
+  }
+}
@@ -1,5 +1,6 @@
 package vec.engine.impl.descriptors;
 
+import java.lang.reflect.Method;
 import java.util.Optional;
 import org.junit.platform.commons.support.AnnotationSupport;
 import org.junit.platform.commons.util.ReflectionUtils;
@@ -9,21 +10,26 @@ import org.junit.platform.engine.support.descriptor.AbstractTestDescriptor;
 import org.junit.platform.engine.support.descriptor.ClassSource;
 import org.junit.platform.engine.support.hierarchical.Node;
 import vec.engine.annotations.Dockerized;
+import vec.engine.impl.DockerEngineConfiguration;
 import vec.engine.impl.DockerEngineExecutionContext;
 import vec.engine.interfaces.DockerizableDescriptor;
 
 public class DockerizedTestClassDescriptor extends AbstractTestDescriptor
     implements Node<DockerEngineExecutionContext>, DockerizableDescriptor {
   private final Class<?> testClass;
+  private final Optional<Dockerized.ContainerInfo> containerInfo;
+  private final DockerEngineConfiguration configuration;
 
-  public DockerizedTestClassDescriptor(Class<?> testClass, TestDescriptor parent) {
+  public DockerizedTestClassDescriptor(
+      Class<?> testClass, TestDescriptor parent, DockerEngineConfiguration configuration) {
     super(
         getTestClassDescriptorUniqueId(parent, testClass),
         testClass.getSimpleName() + " Dockerized",
         ClassSource.from(testClass));
     this.testClass = testClass;
+    this.containerInfo = DockerizedClassMetadata.of(testClass).getClassContainerInfo();
+    this.configuration = configuration;
     super.setParent(parent);
-    addAllChildren();
   }
 
   public static UniqueId getTestClassDescriptorUniqueId(
@@ -45,11 +51,18 @@ public class DockerizedTestClassDescriptor extends AbstractTestDescriptor
         && AnnotationSupport.isAnnotated(classCandidate, Dockerized.class);
   }
 
-  private void addAllChildren() {
-    ReflectionUtils.findMethods(testClass, DockerizedTestMethodDescriptor::isDockerizedTestMethod)
-        .stream()
-        .map(method -> new DockerizedTestMethodDescriptor(method, testClass, this))
-        .forEach(this::addChild);
+  public Class<?> getTestClass() {
+    return testClass;
+  }
+
+  /** the children are added by the discovery, only for the selected methods */
+  public DockerizedTestMethodDescriptor createMethodDescriptor(Method testMethod) {
+    return new DockerizedTestMethodDescriptor(
+        testMethod,
+        testClass,
+        DockerizedClassMetadata.of(testClass).getContainerInfo(testMethod).orElseThrow(),
+        this,
+        configuration);
   }
 
   @Override
@@ -58,12 +71,12 @@ public class DockerizedTestClassDescriptor extends AbstractTestDescriptor
   }
 
   @Override
-  public Optional<Dockerized.ContainerInfo> getContainerInfo() {
-    if (!isDockerizedTestClass(this.testClass)) return Optional.empty();
-
-    var dockerizedAnnotation =
-        AnnotationSupport.findAnnotation(this.testClass, Dockerized.class).orElseThrow();
+  public ExecutionMode getExecutionMode() {
+    return configuration.getDefaultParallelExecutionMode();
+  }
 
-    return Optional.of(new Dockerized.ContainerInfo(dockerizedAnnotation));
+  @Override
+  public Optional<Dockerized.ContainerInfo> getContainerInfo() {
+    return containerInfo;
   }
 }
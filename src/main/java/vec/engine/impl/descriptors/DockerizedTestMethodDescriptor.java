@@ -1,35 +1,84 @@
 package vec.engine.impl.descriptors;
 
 import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.TestTemplate;
 import org.junit.platform.commons.support.AnnotationSupport;
-import org.junit.platform.commons.util.Preconditions;
 import org.junit.platform.commons.util.ReflectionUtils;
 import org.junit.platform.engine.TestDescriptor;
+import org.junit.platform.engine.TestExecutionResult;
 import org.junit.platform.engine.UniqueId;
+import org.junit.platform.engine.reporting.ReportEntry;
 import org.junit.platform.engine.support.descriptor.AbstractTestDescriptor;
 import org.junit.platform.engine.support.descriptor.MethodSource;
+import org.junit.platform.engine.support.hierarchical.ExclusiveResource;
 import org.junit.platform.engine.support.hierarchical.Node;
+import org.opentest4j.TestAbortedException;
 import vec.engine.annotations.Dockerized;
+import vec.engine.impl.DockerEngineConfiguration;
 import vec.engine.impl.DockerEngineExecutionContext;
+import vec.engine.impl.RemoteTestExecution;
 import vec.engine.interfaces.DockerizableDescriptor;
+import vec.engine.launcher.ContainerLauncher;
 
 public class DockerizedTestMethodDescriptor extends AbstractTestDescriptor
     implements Node<DockerEngineExecutionContext>, DockerizableDescriptor {
+  private static final String CONTAINER_RESOURCE_KEY_PREFIX = "docker.engine.container.";
+
   private final Method testMethod;
   private final Class<?> testClass;
+  private final Dockerized.ContainerInfo containerInfo;
+  private final DockerEngineConfiguration configuration;
+  private final boolean testTemplate;
+  private final Type type;
+  /** empty unless the method or its class is annotated with @Disabled */
+  private final Optional<String> disabledReason;
 
   public DockerizedTestMethodDescriptor(
-      Method testMethod, Class<?> testClass, DockerizedTestClassDescriptor parent) {
+      Method testMethod,
+      Class<?> testClass,
+      Dockerized.ContainerInfo containerInfo,
+      DockerizedTestClassDescriptor parent,
+      DockerEngineConfiguration configuration) {
     super(
         getTestMethodDescriptorUniqueId(parent, testMethod),
         testMethod.getName(),
         MethodSource.from(testMethod));
     this.testMethod = testMethod;
     this.testClass = testClass;
+    this.containerInfo = containerInfo;
+    this.configuration = configuration;
+    this.testTemplate = AnnotationSupport.isAnnotated(testMethod, TestTemplate.class);
+    this.type =
+        testTemplate || AnnotationSupport.isAnnotated(testMethod, TestFactory.class)
+            ? Type.CONTAINER
+            : Type.TEST;
+    this.disabledReason = findDisabledReason(testMethod, testClass);
     setParent(parent);
   }
 
+  /** the reason is the one of Jupiter, so that a test is skipped the same way on the host */
+  private static Optional<String> findDisabledReason(Method testMethod, Class<?> testClass) {
+    return AnnotationSupport.findAnnotation(testClass, Disabled.class)
+        .map(
+            disabled -> disabled.value().isBlank() ? testClass + " is @Disabled" : disabled.value())
+        .or(
+            () ->
+                AnnotationSupport.findAnnotation(testMethod, Disabled.class)
+                    .map(
+                        disabled ->
+                            disabled.value().isBlank()
+                                ? testMethod + " is @Disabled"
+                                : disabled.value()));
+  }
+
   private static UniqueId getTestMethodDescriptorUniqueId(
       TestDescriptor parentDescriptor, Method testMethod) {
     return parentDescriptor.getUniqueId().append("method", testMethod.getName());
@@ -64,42 +113,220 @@ public class DockerizedTestMethodDescriptor extends AbstractTestDescriptor
     return testClass;
   }
 
+  /**
+   * @return package.class#methodName(parameters)
+   */
+  public String getMethodFullyQualifiedName() {
+    return ReflectionUtils.getFullyQualifiedMethodName(getTestClass(), getTestMethod());
+  }
+
+  /** a disabled method is skipped on the host, it is never run in its container */
+  public boolean isDisabled() {
+    return disabledReason.isPresent();
+  }
+
+  /**
+   * test templates (like parameterized tests) and test factories are containers, their invocations
+   * are registered as dynamic children while they run inside the container
+   */
   @Override
   public Type getType() {
-    return Type.TEST;
+    return type;
   }
 
+  /** otherwise the launcher prunes the test templates, that have no children when discovered */
   @Override
-  public DockerEngineExecutionContext execute(
-      DockerEngineExecutionContext context, DynamicTestExecutor dynamicTestExecutor) {
-    String methodFullyQualifiedName =
-        ReflectionUtils.getFullyQualifiedMethodName(getTestClass(), getTestMethod());
-    var containerId =
-        context.getContainerNameIdMap().get(this.getContainerInfo().orElseThrow().containerName);
+  public boolean mayRegisterTests() {
+    return getType() == Type.CONTAINER;
+  }
+
+  @Override
+  public ExecutionMode getExecutionMode() {
+    return configuration.getDefaultParallelExecutionMode();
+  }
 
-    context.runTest(containerId, methodFullyQualifiedName);
+  /**
+   * the container is the resource shared by tests. When a single test at a time can run in a
+   * container without replicas, its lock is exclusive, otherwise the number of concurrent tests is
+   * limited by the execution context
+   */
+  @Override
+  public Set<ExclusiveResource> getExclusiveResources() {
+    var lockMode =
+        configuration.getMaxConcurrentExecsPerContainer() == 1 && containerInfo.replicas == 1
+            ? ExclusiveResource.LockMode.READ_WRITE
+            : ExclusiveResource.LockMode.READ;
 
-    return context;
+    return Set.of(
+        new ExclusiveResource(
+            CONTAINER_RESOURCE_KEY_PREFIX + containerInfo.containerName, lockMode));
   }
 
+  /**
+   * the result is the one of the method run inside the container, with the same exception. If the
+   * method has been skipped in the container by a condition other than @Disabled, it is reported as
+   * aborted because the skip is known only after the execution has started. A test found in the
+   * result cache is not run, it is successful with a report entry of the run where it passed.
+   */
   @Override
-  public Optional<Dockerized.ContainerInfo> getContainerInfo() {
-    Preconditions.condition(
-        DockerizedTestClassDescriptor.isDockerizedTestClass(this.testClass)
-            || isDockerizedTestMethod(this.testMethod),
-        String.format(
-            "method descriptor %s is a non-Dockerized descriptor", this.getDisplayName()));
-
-    if (DockerizedTestClassDescriptor.isDockerizedTestClass(this.testClass)) {
-      var dockerizedAnnotation =
-          AnnotationSupport.findAnnotation(this.testClass, Dockerized.class).orElseThrow();
-      return Optional.of(new Dockerized.ContainerInfo(dockerizedAnnotation));
+  public DockerEngineExecutionContext execute(
+      DockerEngineExecutionContext context, DynamicTestExecutor dynamicTestExecutor)
+      throws Exception {
+    String methodFullyQualifiedName = getMethodFullyQualifiedName();
+    var containerName = containerInfo.containerName;
+    var cachedTestRun = context.getCachedTestRun(methodFullyQualifiedName);
+    if (cachedTestRun.isPresent()) {
+      context.publishReportEntry(
+          this,
+          ReportEntry.from(
+              Map.of("result", "cached", "passed-at", cachedTestRun.get().toString())));
+      return context;
+    }
+
+    var timeout =
+        containerInfo.timeout.isZero() ? configuration.getDefaultTimeout() : containerInfo.timeout;
+    var invocationShards = getInvocationShards();
+    if (invocationShards > 1) {
+      executeShards(context, dynamicTestExecutor, invocationShards, timeout);
+      return context;
     }
-    // the method must be @Dockerized because of precondition
+
+    var remoteTestExecution = context.runTest(containerName, methodFullyQualifiedName, timeout);
+    context.publishReportEntry(
+        this,
+        ReportEntry.from(
+            Map.of(
+                "stdout", remoteTestExecution.getStandardOutputLog().toString(),
+                "stderr", remoteTestExecution.getStandardErrorLog().toString())));
+    var remoteMethodNode = remoteTestExecution.awaitMethodNode(methodFullyQualifiedName);
+    if (remoteMethodNode.isEmpty())
+      DockerizedDynamicTestDescriptor.rethrow(
+          remoteTestExecution.getNotRunCause(testClass.getName()));
+    else if (remoteMethodNode.get().isSkipped())
+      throw new TestAbortedException(remoteMethodNode.get().getSkipReason());
     else {
-      var dockerizedAnnotation =
-          AnnotationSupport.findAnnotation(this.testMethod, Dockerized.class).orElseThrow();
-      return Optional.of(new Dockerized.ContainerInfo(dockerizedAnnotation));
+      try {
+        DockerizedDynamicTestDescriptor.reportRemoteExecution(
+            this, remoteMethodNode.get(), dynamicTestExecutor);
+      } finally {
+        context.publishTestPhases(this, remoteTestExecution, remoteMethodNode.get());
+        context.recordTestDuration(
+            getUniqueId().toString(),
+            methodFullyQualifiedName,
+            remoteTestExecution,
+            remoteMethodNode.get());
+      }
     }
+
+    // a failure of the test has been thrown by reportRemoteExecution
+    if (remoteMethodNode.isPresent() && getType() == Type.TEST)
+      context.recordPassedTest(testClass.getName(), methodFullyQualifiedName, containerInfo.image);
+
+    return context;
+  }
+
+  /**
+   * the invocations of a test template are split in a shard for every replica and concurrent exec
+   * of the container, when the sharding is enabled and the tests are not run in batches
+   *
+   * @return 1 when the method is not sharded
+   */
+  private int getInvocationShards() {
+    if (!configuration.isInvocationShardingEnabled()
+        || configuration.getExecutionMode()
+            == DockerEngineConfiguration.ContainerExecutionMode.BATCH
+        || !testTemplate) return 1;
+
+    return containerInfo.replicas * configuration.getMaxConcurrentExecsPerContainer();
+  }
+
+  /**
+   * starts all the shards of the test template, then reports the invocations of every shard as
+   * dynamic children, in the order of the shards. The method fails with the failure of the first
+   * shard that fails, the failures of the following shards are suppressed.
+   */
+  private void executeShards(
+      DockerEngineExecutionContext context,
+      DynamicTestExecutor dynamicTestExecutor,
+      int invocationShards,
+      Duration timeout)
+      throws Exception {
+    String methodFullyQualifiedName = getMethodFullyQualifiedName();
+    List<RemoteTestExecution> shardExecutions = new ArrayList<>();
+    for (int shard = 0; shard < invocationShards; shard++)
+      shardExecutions.add(
+          context.runTest(
+              containerInfo.containerName,
+              ContainerLauncher.shardSelector(methodFullyQualifiedName, shard, invocationShards),
+              timeout));
+
+    Exception failure = null;
+    for (var shardExecution : shardExecutions) {
+      context.publishReportEntry(
+          this,
+          ReportEntry.from(
+              Map.of(
+                  "stdout", shardExecution.getStandardOutputLog().toString(),
+                  "stderr", shardExecution.getStandardErrorLog().toString())));
+      try {
+        var remoteMethodNode = shardExecution.awaitMethodNode(methodFullyQualifiedName);
+        if (remoteMethodNode.isEmpty())
+          DockerizedDynamicTestDescriptor.rethrow(
+              shardExecution.getNotRunCause(testClass.getName()));
+        else if (remoteMethodNode.get().isSkipped())
+          throw new TestAbortedException(remoteMethodNode.get().getSkipReason());
+
+        try {
+          DockerizedDynamicTestDescriptor.reportRemoteExecution(
+              this, remoteMethodNode.get(), dynamicTestExecutor);
+        } finally {
+          context.publishTestPhases(this, shardExecution, remoteMethodNode.get());
+          context.recordTestDuration(
+              getUniqueId().toString(),
+              methodFullyQualifiedName,
+              shardExecution,
+              remoteMethodNode.get());
+        }
+      } catch (Exception exc) {
+        if (failure == null) failure = exc;
+        else failure.addSuppressed(exc);
+      }
+    }
+
+    if (failure != null) throw failure;
+  }
+
+  /**
+   * the methods disabled with @Disabled are skipped without running them in the container, and once
+   * the fail fast threshold has been reached, the tests not started yet are skipped too. The other
+   * conditions depend on the environment of the container, so they are evaluated there.
+   */
+  @Override
+  public SkipResult shouldBeSkipped(DockerEngineExecutionContext context) {
+    return disabledReason
+        .or(context::getFailFastReason)
+        .map(SkipResult::skip)
+        .orElse(SkipResult.doNotSkip());
+  }
+
+  /** test templates and factories are not counted, their dynamic children are */
+  @Override
+  public void nodeFinished(
+      DockerEngineExecutionContext context,
+      TestDescriptor testDescriptor,
+      TestExecutionResult result) {
+    if (getType() == Type.TEST) context.recordTestResult(result);
+  }
+
+  /** with the lazy lifecycle, the container is stopped once all its methods are released */
+  @Override
+  public void cleanUp(DockerEngineExecutionContext context) {
+    context.releaseContainer(containerInfo.containerName, getMethodFullyQualifiedName());
+  }
+
+  /** resolved once by the discovery, from the annotation of the class or of the method */
+  @Override
+  public Optional<Dockerized.ContainerInfo> getContainerInfo() {
+    return Optional.of(containerInfo);
   }
 }
@@ -0,0 +1,98 @@
+package vec.engine.launcher;
+
+import static org.junit.platform.launcher.EngineFilter.excludeEngines;
+import static org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder.request;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.platform.engine.discovery.DiscoverySelectors;
+import org.junit.platform.launcher.Launcher;
+import org.junit.platform.launcher.core.LauncherFactory;
+
+/**
+ * runs the methods passed as arguments (package.class#methodName(parameters)) inside the testing
+ * container, a method can be followed by its shard (see {@link #shardSelector}). The results are
+ * sent to the engine as {@link ResultEvent}s on the standard output, see {@link
+ * ResultEventWriter#onStandardOutput()}. Every run ends with a PLAN_FINISHED event, even when the
+ * launcher fails before executing the test plan.
+ */
+// docker exec junit-cl java -DtestingEnvironment=docker \
+//    -cp /junit-console-launcher.jar:build/classes/java/test:build/classes/java/main:... \
+//    vec.engine.launcher.ContainerLauncher "package.classname#method1" "package.classname#method2"
+public class ContainerLauncher {
+  static final String DOCKER_ENGINE_ID = "docker-engine";
+  /** registers the {@link InvocationShardCondition} in the sharded runs */
+  private static final String EXTENSIONS_AUTODETECTION_PROPERTY_NAME =
+      "junit.jupiter.extensions.autodetection.enabled";
+  /** separates a method selector from its shard, see {@link #shardSelector} */
+  static final String SHARD_SEPARATOR = "@";
+
+  private final Launcher launcher = LauncherFactory.create();
+  private final ResultEventWriter eventWriter;
+
+  ContainerLauncher(ResultEventWriter eventWriter) {
+    this.eventWriter = eventWriter;
+  }
+
+  public static void main(String[] args) {
+    new ContainerLauncher(ResultEventWriter.onStandardOutput()).run(List.of(args));
+    // threads left running by the tests must not keep the exec alive
+    System.exit(0);
+  }
+
+  /**
+   * runs the methods in the current JVM instead of a container process, the events are written on
+   * the result channel. It is used by the runtimes without containers.
+   */
+  public static void run(List<String> methodFullyQualifiedNames, OutputStream resultChannel) {
+    new ContainerLauncher(new ResultEventWriter(resultChannel)).run(methodFullyQualifiedNames);
+  }
+
+  /**
+   * a selector of the method that runs only the invocations of the shard, see {@link
+   * InvocationShardCondition}. A run with a sharded selector has the shard of its last one.
+   *
+   * @param methodFullyQualifiedName package.class#methodName(parameters)
+   * @param shard from 0 to shards - 1
+   */
+  public static String shardSelector(String methodFullyQualifiedName, int shard, int shards) {
+    return String.format("%s%s%d/%d", methodFullyQualifiedName, SHARD_SEPARATOR, shard, shards);
+  }
+
+  void run(List<String> methodSelectors) {
+    Throwable launcherFailure = null;
+    try {
+      var request = request().filters(excludeEngines(DOCKER_ENGINE_ID));
+      List<String> methodFullyQualifiedNames = new ArrayList<>();
+      for (var methodSelector : methodSelectors) {
+        var shardStart = methodSelector.indexOf(SHARD_SEPARATOR);
+        if (shardStart < 0) {
+          methodFullyQualifiedNames.add(methodSelector);
+          continue;
+        }
+
+        methodFullyQualifiedNames.add(methodSelector.substring(0, shardStart));
+        request
+            .configurationParameter(
+                InvocationShardCondition.SHARD_PROPERTY_NAME,
+                methodSelector.substring(shardStart + SHARD_SEPARATOR.length()))
+            .configurationParameter(EXTENSIONS_AUTODETECTION_PROPERTY_NAME, "true");
+      }
+
+      launcher.execute(
+          request
+              .selectors(
+                  methodFullyQualifiedNames.stream()
+                      .map(DiscoverySelectors::selectMethod)
+                      .collect(Collectors.toList()))
+              .build(),
+          new ResultStreamingListener(eventWriter));
+    } catch (Throwable t) {
+      launcherFailure = t;
+    }
+
+    eventWriter.write(ResultEvent.planFinished(launcherFailure));
+  }
+}
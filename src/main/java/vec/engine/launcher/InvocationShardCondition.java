@@ -0,0 +1,72 @@
+package vec.engine.launcher;
+
+import java.util.Optional;
+import org.junit.jupiter.api.extension.ConditionEvaluationResult;
+import org.junit.jupiter.api.extension.ExecutionCondition;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.engine.UniqueId;
+
+/**
+ * runs only the invocations of a test template (like a parameterized test) that belong to the shard
+ * of the run, when the {@link ContainerLauncher} is given a shard. The invocation #N belongs to the
+ * shard (N - 1) % shards. It is registered through the autodetection of the Jupiter extensions,
+ * which the launcher enables for the sharded runs only.
+ *
+ * <p>The invocations of the other shards are skipped with a reason starting with {@link
+ * #SKIP_REASON_PREFIX}, the engine does not report them because they are run by another shard.
+ * Dynamic tests are not evaluated by execution conditions, so test factories cannot be sharded.
+ */
+public class InvocationShardCondition implements ExecutionCondition {
+  /** shard/shards, for example 0/4, the first shard is 0 */
+  public static final String SHARD_PROPERTY_NAME = "docker.engine.invocation.shard";
+
+  public static final String SKIP_REASON_PREFIX = "docker.engine.invocation.shard: ";
+
+  private static final String TEST_TEMPLATE_SEGMENT_TYPE = "test-template";
+  private static final String INVOCATION_SEGMENT_TYPE = "test-template-invocation";
+
+  @Override
+  public ConditionEvaluationResult evaluateExecutionCondition(ExtensionContext context) {
+    var shard = context.getConfigurationParameter(SHARD_PROPERTY_NAME);
+    var invocationIndex = getInvocationIndex(context.getUniqueId());
+    if (shard.isEmpty() || invocationIndex.isEmpty())
+      return ConditionEvaluationResult.enabled("not a sharded invocation");
+
+    var shardParts = shard.get().split("/");
+    int shardIndex = Integer.parseInt(shardParts[0].trim());
+    int shards = Integer.parseInt(shardParts[1].trim());
+    int invocationShard = (invocationIndex.get() - 1) % shards;
+    if (invocationShard == shardIndex)
+      return ConditionEvaluationResult.enabled(String.format("run by shard %s", shard.get()));
+
+    return ConditionEvaluationResult.disabled(
+        String.format(
+            "%sinvocation #%d is run by shard %d/%d",
+            SKIP_REASON_PREFIX, invocationIndex.get(), invocationShard, shards));
+  }
+
+  /**
+   * @return the index of the invocation (starting from 1) when the unique id is an invocation of a
+   *     test template method, not of a nested template
+   */
+  static Optional<Integer> getInvocationIndex(String uniqueId) {
+    var segments = UniqueId.parse(uniqueId).getSegments();
+    if (segments.size() < 2) return Optional.empty();
+
+    var lastSegment = segments.get(segments.size() - 1);
+    var parentSegment = segments.get(segments.size() - 2);
+    if (!lastSegment.getType().equals(INVOCATION_SEGMENT_TYPE)
+        || !parentSegment.getType().equals(TEST_TEMPLATE_SEGMENT_TYPE)
+        || !lastSegment.getValue().startsWith("#")) return Optional.empty();
+
+    return Optional.of(Integer.parseInt(lastSegment.getValue().substring(1)));
+  }
+
+  /**
+   * @return true if the reason is the one of an invocation skipped because it is run by another
+   *     shard
+   */
+  public static boolean isSkippedByShard(String reason) {
+    return reason != null && reason.startsWith(SKIP_REASON_PREFIX);
+  }
+}
@@ -0,0 +1,42 @@
+package vec.engine.launcher;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.platform.launcher.Launcher;
+
+/**
+ * long-lived runner started inside the testing container. It keeps a warm {@link Launcher} and
+ * reads from stdin one run per line, made of method selectors
+ * (package.class#methodName(parameters)) separated by {@link #SELECTOR_SEPARATOR}. The results of
+ * every run are sent as {@link ResultEvent}s, the PLAN_FINISHED event tells the engine that the run
+ * is complete. The agent exits when stdin is closed or an empty line is received.
+ */
+// docker exec -i junit-cl java -DtestingEnvironment=docker \
+//    -cp /junit-console-launcher.jar:build/classes/java/test:build/classes/java/main:... \
+//    vec.engine.launcher.LauncherAgent
+public class LauncherAgent {
+  public static final String SELECTOR_SEPARATOR = "\t";
+
+  private final ContainerLauncher containerLauncher;
+
+  LauncherAgent(ContainerLauncher containerLauncher) {
+    this.containerLauncher = containerLauncher;
+  }
+
+  public static void main(String[] args) throws IOException {
+    new LauncherAgent(new ContainerLauncher(ResultEventWriter.onStandardOutput()))
+        .serve(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+  }
+
+  void serve(InputStreamReader input) throws IOException {
+    var reader = new BufferedReader(input);
+    String methodFullyQualifiedNames;
+    while ((methodFullyQualifiedNames = reader.readLine()) != null
+        && !methodFullyQualifiedNames.isBlank()) {
+      containerLauncher.run(List.of(methodFullyQualifiedNames.trim().split(SELECTOR_SEPARATOR)));
+    }
+  }
+}
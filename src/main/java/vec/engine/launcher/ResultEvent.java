@@ -0,0 +1,281 @@
+package vec.engine.launcher;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Optional;
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.support.descriptor.ClassSource;
+import org.junit.platform.engine.support.descriptor.MethodSource;
+import org.junit.platform.launcher.TestIdentifier;
+
+/**
+ * event sent by the tests run inside a container to the engine. The events of a run are, in order:
+ * PLAN_STARTED, STARTED/SKIPPED and FINISHED for every test and container of the test plan (dynamic
+ * ones included), PLAN_FINISHED. OUTPUT events carry what the tests print on the standard output
+ * and can be anywhere in the stream.
+ */
+public class ResultEvent {
+  public enum Type {
+    PLAN_STARTED,
+    STARTED,
+    SKIPPED,
+    FINISHED,
+    OUTPUT,
+    PLAN_FINISHED
+  }
+
+  final Type type;
+  final String uniqueId;
+  final String parentUniqueId;
+  final String displayName;
+  final boolean test;
+  final boolean container;
+  final String sourceClassName;
+  final String sourceMethodName;
+  final String sourceMethodParameterTypes;
+  final String reason;
+  final TestExecutionResult.Status status;
+  final byte[] throwable;
+  final byte[] output;
+  /** the pid of the JVM running the tests, sent with PLAN_STARTED. It is 0 in the other events */
+  final long processId;
+
+  ResultEvent(
+      Type type,
+      String uniqueId,
+      String parentUniqueId,
+      String displayName,
+      boolean test,
+      boolean container,
+      String sourceClassName,
+      String sourceMethodName,
+      String sourceMethodParameterTypes,
+      String reason,
+      TestExecutionResult.Status status,
+      byte[] throwable,
+      byte[] output,
+      long processId) {
+    this.type = type;
+    this.uniqueId = uniqueId;
+    this.parentUniqueId = parentUniqueId;
+    this.displayName = displayName;
+    this.test = test;
+    this.container = container;
+    this.sourceClassName = sourceClassName;
+    this.sourceMethodName = sourceMethodName;
+    this.sourceMethodParameterTypes = sourceMethodParameterTypes;
+    this.reason = reason;
+    this.status = status;
+    this.throwable = throwable;
+    this.output = output;
+    this.processId = processId;
+  }
+
+  /** the event carries the pid of the current JVM, so that the engine can kill it */
+  public static ResultEvent planStarted() {
+    return new ResultEvent(
+        Type.PLAN_STARTED,
+        null,
+        null,
+        null,
+        false,
+        false,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        null,
+        ProcessHandle.current().pid());
+  }
+
+  /**
+   * @param throwable the exception thrown by the launcher, if any
+   */
+  public static ResultEvent planFinished(Throwable throwable) {
+    return new ResultEvent(
+        Type.PLAN_FINISHED,
+        null,
+        null,
+        null,
+        false,
+        false,
+        null,
+        null,
+        null,
+        null,
+        null,
+        throwable == null ? null : serialize(throwable),
+        null,
+        0);
+  }
+
+  public static ResultEvent started(TestIdentifier testIdentifier) {
+    return fromTestIdentifier(Type.STARTED, testIdentifier, null);
+  }
+
+  public static ResultEvent skipped(TestIdentifier testIdentifier, String reason) {
+    return fromTestIdentifier(Type.SKIPPED, testIdentifier, reason);
+  }
+
+  public static ResultEvent finished(
+      TestIdentifier testIdentifier, TestExecutionResult testExecutionResult) {
+    return new ResultEvent(
+        Type.FINISHED,
+        testIdentifier.getUniqueId(),
+        null,
+        null,
+        testIdentifier.isTest(),
+        testIdentifier.isContainer(),
+        null,
+        null,
+        null,
+        null,
+        testExecutionResult.getStatus(),
+        testExecutionResult.getThrowable().map(ResultEvent::serialize).orElse(null),
+        null,
+        0);
+  }
+
+  public static ResultEvent output(byte[] output) {
+    return new ResultEvent(
+        Type.OUTPUT, null, null, null, false, false, null, null, null, null, null, null, output, 0);
+  }
+
+  private static ResultEvent fromTestIdentifier(
+      Type type, TestIdentifier testIdentifier, String reason) {
+    String sourceClassName = null;
+    String sourceMethodName = null;
+    String sourceMethodParameterTypes = null;
+    var source = testIdentifier.getSource().orElse(null);
+    if (source instanceof MethodSource) {
+      var methodSource = (MethodSource) source;
+      sourceClassName = methodSource.getClassName();
+      sourceMethodName = methodSource.getMethodName();
+      sourceMethodParameterTypes = methodSource.getMethodParameterTypes();
+    } else if (source instanceof ClassSource) {
+      sourceClassName = ((ClassSource) source).getClassName();
+    }
+
+    return new ResultEvent(
+        type,
+        testIdentifier.getUniqueId(),
+        testIdentifier.getParentId().orElse(null),
+        testIdentifier.getDisplayName(),
+        testIdentifier.isTest(),
+        testIdentifier.isContainer(),
+        sourceClassName,
+        sourceMethodName,
+        sourceMethodParameterTypes,
+        reason,
+        null,
+        null,
+        null,
+        0);
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public String getUniqueId() {
+    return uniqueId;
+  }
+
+  public Optional<String> getParentUniqueId() {
+    return Optional.ofNullable(parentUniqueId);
+  }
+
+  public String getDisplayName() {
+    return displayName;
+  }
+
+  public boolean isTest() {
+    return test;
+  }
+
+  public boolean isContainer() {
+    return container;
+  }
+
+  public Optional<String> getSourceClassName() {
+    return Optional.ofNullable(sourceClassName);
+  }
+
+  /**
+   * @return package.class#methodName(parameters) of the method source, the same format of {@link
+   *     org.junit.platform.commons.util.ReflectionUtils#getFullyQualifiedMethodName}
+   */
+  public Optional<String> getSourceMethodFullyQualifiedName() {
+    if (sourceMethodName == null) return Optional.empty();
+
+    return Optional.of(
+        String.format("%s#%s(%s)", sourceClassName, sourceMethodName, sourceMethodParameterTypes));
+  }
+
+  public Optional<MethodSource> getMethodSource() {
+    if (sourceMethodName == null) return Optional.empty();
+
+    return Optional.of(
+        MethodSource.from(sourceClassName, sourceMethodName, sourceMethodParameterTypes));
+  }
+
+  public String getReason() {
+    return reason;
+  }
+
+  public TestExecutionResult.Status getStatus() {
+    return status;
+  }
+
+  /**
+   * the throwable thrown inside the container. If it cannot be deserialized (for example because
+   * its class is not available in the engine), a RuntimeException with the same message is returned
+   */
+  public Optional<Throwable> getThrowable() {
+    if (throwable == null) return Optional.empty();
+
+    try (var objectInput = new ObjectInputStream(new ByteArrayInputStream(throwable))) {
+      return Optional.of((Throwable) objectInput.readObject());
+    } catch (IOException | ClassNotFoundException exc) {
+      return Optional.of(
+          new RuntimeException("The exception thrown in the container cannot be read", exc));
+    }
+  }
+
+  public byte[] getOutput() {
+    return output;
+  }
+
+  public long getProcessId() {
+    return processId;
+  }
+
+  private static byte[] serialize(Throwable throwable) {
+    var serializedThrowable = new ByteArrayOutputStream();
+    try (var objectOutput = new ObjectOutputStream(serializedThrowable)) {
+      objectOutput.writeObject(throwable);
+    } catch (NotSerializableException exc) {
+      return serialize(new ContainerException(throwable));
+    } catch (IOException exc) {
+      throw new IllegalStateException(exc);
+    }
+
+    return serializedThrowable.toByteArray();
+  }
+
+  /** replaces a throwable that cannot be serialized, it keeps its message and stack trace */
+  static class ContainerException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    ContainerException(Throwable throwable) {
+      super(throwable.getClass().getName() + ": " + throwable.getMessage());
+      setStackTrace(throwable.getStackTrace());
+    }
+  }
+}
@@ -0,0 +1,162 @@
+package vec.engine.launcher;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import org.junit.platform.engine.TestExecutionResult;
+
+/**
+ * binary encoding of the {@link ResultEvent}s. Every event is a frame made of a 4 bytes big-endian
+ * length followed by the payload: the event type, the strings (length-prefixed UTF-8, -1 for null),
+ * the flags, the status, the byte arrays (length-prefixed, -1 for null) and the process id.
+ */
+public class ResultEventCodec {
+  private static final int FRAME_HEADER_SIZE = Integer.BYTES;
+
+  private ResultEventCodec() {}
+
+  public static byte[] encode(ResultEvent event) {
+    var payload = new ByteArrayOutputStream();
+    try (var output = new DataOutputStream(payload)) {
+      output.writeByte(event.type.ordinal());
+      writeString(output, event.uniqueId);
+      writeString(output, event.parentUniqueId);
+      writeString(output, event.displayName);
+      output.writeBoolean(event.test);
+      output.writeBoolean(event.container);
+      writeString(output, event.sourceClassName);
+      writeString(output, event.sourceMethodName);
+      writeString(output, event.sourceMethodParameterTypes);
+      writeString(output, event.reason);
+      output.writeByte(event.status == null ? -1 : event.status.ordinal());
+      writeBytes(output, event.throwable);
+      writeBytes(output, event.output);
+      output.writeLong(event.processId);
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
+    }
+
+    return ByteBuffer.allocate(FRAME_HEADER_SIZE + payload.size())
+        .putInt(payload.size())
+        .put(payload.toByteArray())
+        .array();
+  }
+
+  static ResultEvent decodePayload(byte[] payload) {
+    try (var input = new DataInputStream(new ByteArrayInputStream(payload))) {
+      var type = ResultEvent.Type.values()[input.readByte()];
+      var uniqueId = readString(input);
+      var parentUniqueId = readString(input);
+      var displayName = readString(input);
+      var test = input.readBoolean();
+      var container = input.readBoolean();
+      var sourceClassName = readString(input);
+      var sourceMethodName = readString(input);
+      var sourceMethodParameterTypes = readString(input);
+      var reason = readString(input);
+      var statusOrdinal = input.readByte();
+      var status = statusOrdinal < 0 ? null : TestExecutionResult.Status.values()[statusOrdinal];
+      var throwable = readBytes(input);
+      var output = readBytes(input);
+      var processId = input.readLong();
+
+      return new ResultEvent(
+          type,
+          uniqueId,
+          parentUniqueId,
+          displayName,
+          test,
+          container,
+          sourceClassName,
+          sourceMethodName,
+          sourceMethodParameterTypes,
+          reason,
+          status,
+          throwable,
+          output,
+          processId);
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
+    }
+  }
+
+  private static void writeString(DataOutputStream output, String value) throws IOException {
+    writeBytes(output, value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static void writeBytes(DataOutputStream output, byte[] value) throws IOException {
+    if (value == null) {
+      output.writeInt(-1);
+      return;
+    }
+
+    output.writeInt(value.length);
+    output.write(value);
+  }
+
+  private static String readString(DataInputStream input) throws IOException {
+    var value = readBytes(input);
+    return value == null ? null : new String(value, StandardCharsets.UTF_8);
+  }
+
+  private static byte[] readBytes(DataInputStream input) throws IOException {
+    var length = input.readInt();
+    if (length < 0) return null;
+
+    return input.readNBytes(length);
+  }
+
+  /**
+   * decodes the events as soon as their frames are complete. The stream can be split in chunks of
+   * any size, a frame spanning several chunks is decoded when its last chunk is fed. Not
+   * thread-safe, chunks must be fed in order.
+   */
+  public static class Decoder {
+    private final Consumer<ResultEvent> eventConsumer;
+    private final ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_SIZE);
+    private ByteBuffer payload = null;
+
+    public Decoder(Consumer<ResultEvent> eventConsumer) {
+      this.eventConsumer = eventConsumer;
+    }
+
+    public void feed(byte[] chunk) {
+      var input = ByteBuffer.wrap(chunk);
+      while (input.hasRemaining()) {
+        if (payload == null) {
+          transfer(input, header);
+          if (header.hasRemaining()) return;
+
+          payload = ByteBuffer.allocate(header.flip().getInt());
+          header.clear();
+        }
+
+        transfer(input, payload);
+        if (payload.hasRemaining()) return;
+
+        var event = decodePayload(payload.array());
+        payload = null;
+        eventConsumer.accept(event);
+      }
+    }
+
+    /**
+     * @return true if the bytes fed so far end in the middle of a frame
+     */
+    public boolean hasPartialFrame() {
+      return payload != null || header.position() > 0;
+    }
+
+    private static void transfer(ByteBuffer source, ByteBuffer destination) {
+      int length = Math.min(source.remaining(), destination.remaining());
+      destination.put(source.array(), source.position(), length);
+      source.position(source.position() + length);
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package vec.engine.launcher;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * writes the frames of the {@link ResultEvent}s on the result channel. Events are flushed as soon
+ * as they are written, so that the engine can report them while the tests are still running. It is
+ * thread-safe, tests run concurrently inside the container can write at the same time.
+ */
+public class ResultEventWriter {
+  private static final int MAX_PENDING_OUTPUT_SIZE = 8192;
+
+  private final OutputStream channel;
+  private final ByteArrayOutputStream pendingOutput = new ByteArrayOutputStream();
+
+  ResultEventWriter(OutputStream channel) {
+    this.channel = channel;
+  }
+
+  /**
+   * the standard output of the process becomes the result channel, and System.out is replaced so
+   * that what the tests print is sent as OUTPUT events. The standard error is left untouched.
+   */
+  static ResultEventWriter onStandardOutput() {
+    var eventWriter =
+        new ResultEventWriter(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+    System.setOut(
+        new PrintStream(eventWriter.new OutputEventStream(), true, StandardCharsets.UTF_8));
+
+    return eventWriter;
+  }
+
+  /** the output printed before the event is written first, so that their order is kept */
+  synchronized void write(ResultEvent event) {
+    try {
+      writePendingOutput();
+      channel.write(ResultEventCodec.encode(event));
+      channel.flush();
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
+    }
+  }
+
+  private void writePendingOutput() throws IOException {
+    if (pendingOutput.size() == 0) return;
+
+    channel.write(ResultEventCodec.encode(ResultEvent.output(pendingOutput.toByteArray())));
+    pendingOutput.reset();
+  }
+
+  /** collects the output of the tests, it is sent when flushed or when it grows too much */
+  private class OutputEventStream extends OutputStream {
+    @Override
+    public void write(int b) throws IOException {
+      synchronized (ResultEventWriter.this) {
+        pendingOutput.write(b);
+        if (pendingOutput.size() >= MAX_PENDING_OUTPUT_SIZE) flush();
+      }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      synchronized (ResultEventWriter.this) {
+        pendingOutput.write(b, off, len);
+        if (pendingOutput.size() >= MAX_PENDING_OUTPUT_SIZE) flush();
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      synchronized (ResultEventWriter.this) {
+        writePendingOutput();
+        channel.flush();
+      }
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package vec.engine.launcher;
+
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.TestPlan;
+
+/**
+ * registered in the launcher run inside the container, it sends a {@link ResultEvent} for every
+ * test and container of the test plan as soon as it is started, skipped or finished
+ */
+public class ResultStreamingListener implements TestExecutionListener {
+  private final ResultEventWriter eventWriter;
+
+  ResultStreamingListener(ResultEventWriter eventWriter) {
+    this.eventWriter = eventWriter;
+  }
+
+  @Override
+  public void testPlanExecutionStarted(TestPlan testPlan) {
+    eventWriter.write(ResultEvent.planStarted());
+  }
+
+  @Override
+  public void executionStarted(TestIdentifier testIdentifier) {
+    eventWriter.write(ResultEvent.started(testIdentifier));
+  }
+
+  @Override
+  public void executionSkipped(TestIdentifier testIdentifier, String reason) {
+    eventWriter.write(ResultEvent.skipped(testIdentifier, reason));
+  }
+
+  @Override
+  public void executionFinished(
+      TestIdentifier testIdentifier, TestExecutionResult testExecutionResult) {
+    eventWriter.write(ResultEvent.finished(testIdentifier, testExecutionResult));
+  }
+}
@@ -0,0 +1,144 @@
+package vec.helpers;
+
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import vec.engine.launcher.ContainerLauncher;
+import vec.engine.launcher.LauncherAgent;
+
+/**
+ * what the engine needs from the runtime of the testing containers: their lifecycle, the copy of
+ * the classpath, the execution of the tests and the images. Runtimes are created by a {@link
+ * ContainerRuntimeProvider} chosen with the docker.engine.runtime configuration parameter. The
+ * methods can be called by many threads at the same time. The runtime is closed by the engine once
+ * its containers have been stopped.
+ */
+public interface ContainerRuntime extends AutoCloseable {
+  /**
+   * creates the testing container, without starting it. The container is removed when stopped
+   *
+   * @param resourceLimits applied to the container, if the runtime can enforce them
+   * @return the id of the created container
+   */
+  String createTestingContainer(String image, String containerName, ResourceLimits resourceLimits);
+
+  /**
+   * creates the testing container like createTestingContainer, but the container is not removed
+   * when stopped, and it is labeled with the reuseHash so that a later run can find it with
+   * findReusableContainer.
+   *
+   * @return the id of the created container
+   */
+  String createReusableTestingContainer(
+      String image, String containerName, ResourceLimits resourceLimits, String reuseHash);
+
+  /**
+   * the hash identifies the configuration of a testing container. A container can be reused only by
+   * runs computing the same hash.
+   */
+  String computeReuseHash(String image, ResourceLimits resourceLimits, String engineVersion);
+
+  /**
+   * looks for a container created with createReusableTestingContainer with the same name and hash,
+   * and starts it if it is stopped. A container with the same name but a different hash is removed,
+   * so that a new one can be created.
+   *
+   * @return the id of the running container, if any
+   */
+  Optional<String> findReusableContainer(String containerName, String reuseHash);
+
+  /**
+   * @return the map (containerId, creation time in epoch seconds) of all the containers created
+   *     with createReusableTestingContainer, running or not
+   */
+  Map<String, Long> listReusableContainers();
+
+  void startContainer(String containerId);
+
+  void stopTestingContainer(String containerId);
+
+  /** removes the container even if it is running */
+  void removeTestingContainer(String containerId);
+
+  /**
+   * extracts the tar archive in the project directory of the container, the entries are relative to
+   * it. Missing parent directories are created.
+   */
+  void copyArchiveToContainer(String containerId, Path tarArchive);
+
+  /**
+   * removes the files from the project directory of the container, waiting for the removal to
+   * complete.
+   *
+   * @param relativePaths paths relative to the project directory
+   */
+  void removeFilesFromContainer(String containerId, List<String> relativePaths);
+
+  /**
+   * runs the methods inside the container with a {@link ContainerLauncher}, one method selector for
+   * each of them. It returns as soon as the run is started: the results are passed to the handler
+   * while the tests are running, and handler.onRunEnded is called when the run terminates.
+   *
+   * @param methodFullyQualifiedNames methods in canonical name form
+   * @return closing it stops the reading of the results
+   */
+  Closeable runTestsInsideContainer(
+      String containerId, List<String> methodFullyQualifiedNames, ResultEventHandler handler);
+
+  /**
+   * starts a {@link LauncherAgent} inside the container. The agent keeps running until the returned
+   * session is closed, and every test sent to it is run by the same JVM
+   */
+  LauncherAgentSession startLauncherAgent(String containerId);
+
+  /**
+   * kills a process started in the container by a test run, the pid is the one sent by the run with
+   * its PLAN_STARTED event. The container and its other processes keep running.
+   */
+  void killProcess(String containerId, long processId);
+
+  /**
+   * @return the resource usage of the container, empty if the runtime cannot measure it
+   */
+  Optional<ContainerStats> getStats(String containerId);
+
+  /**
+   * @return false if the runtime cannot take new containers, for example because its daemon does
+   *     not answer
+   */
+  default boolean isReachable() {
+    return true;
+  }
+
+  /**
+   * @return the details of the image, if it is present
+   */
+  Optional<ImageDetails> inspectImage(String image);
+
+  /**
+   * pulls the image from its registry, waiting for the pull to complete. An image reference with no
+   * tag is pulled with the latest tag
+   */
+  void pullImage(String image);
+
+  /**
+   * @return false if the runtime cannot build images, so the derived images cannot be used with it
+   */
+  default boolean canBuildImages() {
+    return true;
+  }
+
+  /**
+   * builds an image from a tar archive containing the Dockerfile and the files it copies, waiting
+   * for the build to complete
+   *
+   * @return the id of the built image
+   */
+  String buildImage(Path buildContext, String tag);
+
+  /** releases the connections and the threads of the runtime, it cannot be used anymore */
+  @Override
+  default void close() {}
+}
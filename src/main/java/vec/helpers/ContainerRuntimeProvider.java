@@ -0,0 +1,54 @@
+package vec.helpers;
+
+import java.nio.file.Path;
+import java.util.ServiceLoader;
+import java.util.stream.Collectors;
+import org.junit.platform.commons.PreconditionViolationException;
+
+/**
+ * service provider of a {@link ContainerRuntime}, registered in
+ * META-INF/services/vec.helpers.ContainerRuntimeProvider. The engine creates the runtime whose name
+ * is the value of docker.engine.runtime.
+ */
+public interface ContainerRuntimeProvider {
+  /** the value of docker.engine.runtime selecting this runtime */
+  String getName();
+
+  /**
+   * @param bindMountClasspath false if the classpath is copied in the containers with
+   *     copyArchiveToContainer
+   * @param projectDirectory directory containing the build folder
+   * @param workDirectory directory where the engine keeps its state between runs
+   */
+  ContainerRuntime create(boolean bindMountClasspath, Path projectDirectory, Path workDirectory);
+
+  /**
+   * like {@link #create(boolean, Path, Path)}, runtimes talking to a docker daemon also use the
+   * transport options. The others ignore them.
+   */
+  default ContainerRuntime create(
+      boolean bindMountClasspath,
+      Path projectDirectory,
+      Path workDirectory,
+      DockerTransportOptions transportOptions) {
+    return create(bindMountClasspath, projectDirectory, workDirectory);
+  }
+
+  /**
+   * @return the provider with the name among the ones registered in the classpath
+   */
+  static ContainerRuntimeProvider find(String name) {
+    var providers = ServiceLoader.load(ContainerRuntimeProvider.class);
+    for (var provider : providers) {
+      if (provider.getName().equals(name)) return provider;
+    }
+
+    throw new PreconditionViolationException(
+        String.format(
+            "No container runtime named %s, available runtimes are: %s",
+            name,
+            providers.stream()
+                .map(provider -> provider.get().getName())
+                .collect(Collectors.joining(", "))));
+  }
+}
@@ -0,0 +1,21 @@
+package vec.helpers;
+
+/** resource usage of a container when it is measured */
+public class ContainerStats {
+  /** total cpu time used by the processes of the container */
+  public final long cpuUsageNanos;
+
+  public final long memoryUsageBytes;
+  /** 0 if the container has no memory limit */
+  public final long memoryLimitBytes;
+
+  public final long processes;
+
+  public ContainerStats(
+      long cpuUsageNanos, long memoryUsageBytes, long memoryLimitBytes, long processes) {
+    this.cpuUsageNanos = cpuUsageNanos;
+    this.memoryUsageBytes = memoryUsageBytes;
+    this.memoryLimitBytes = memoryLimitBytes;
+    this.processes = processes;
+  }
+}
@@ -0,0 +1,59 @@
+package vec.helpers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * a docker daemon the testing containers can be placed on, with its capacity weight: an endpoint
+ * with weight 2 receives twice the containers of an endpoint with weight 1
+ */
+public class DockerEndpoint {
+  /** the docker host, like unix:///var/run/docker.sock or tcp://10.0.0.2:2375 */
+  public final String host;
+
+  public final int weight;
+
+  public DockerEndpoint(String host, int weight) {
+    if (host.isBlank()) throw new IllegalArgumentException("the docker host cannot be empty");
+    if (weight <= 0)
+      throw new IllegalArgumentException(
+          String.format("the weight of the docker endpoint %s must be at least 1", host));
+
+    this.host = host;
+    this.weight = weight;
+  }
+
+  /**
+   * @param endpoints comma separated docker hosts, each one optionally followed by =weight (1 if
+   *     missing), for example unix:///run/user/1000/docker.sock=2,tcp://10.0.0.2:2375
+   */
+  public static List<DockerEndpoint> parseList(String endpoints) {
+    List<DockerEndpoint> parsedEndpoints = new ArrayList<>();
+    for (var endpoint : endpoints.split(",")) {
+      if (endpoint.isBlank()) continue;
+
+      var weightStart = endpoint.lastIndexOf('=');
+      if (weightStart < 0) {
+        parsedEndpoints.add(new DockerEndpoint(endpoint.trim(), 1));
+        continue;
+      }
+
+      try {
+        parsedEndpoints.add(
+            new DockerEndpoint(
+                endpoint.substring(0, weightStart).trim(),
+                Integer.parseInt(endpoint.substring(weightStart + 1).trim())));
+      } catch (NumberFormatException exc) {
+        throw new IllegalArgumentException(
+            String.format("Invalid weight of the docker endpoint: %s", endpoint), exc);
+      }
+    }
+
+    return parsedEndpoints;
+  }
+
+  @Override
+  public String toString() {
+    return host + "=" + weight;
+  }
+}
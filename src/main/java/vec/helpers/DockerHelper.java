@@ -2,27 +2,150 @@ package vec.helpers;
 
 import com.github.dockerjava.api.DockerClient;
 import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.exception.NotFoundException;
 import com.github.dockerjava.api.model.Bind;
-import com.github.dockerjava.api.model.Frame;
+import com.github.dockerjava.api.model.Container;
 import com.github.dockerjava.api.model.HostConfig;
+import com.github.dockerjava.api.model.Statistics;
 import com.github.dockerjava.api.model.Volume;
 import com.github.dockerjava.core.DefaultDockerClientConfig;
 import com.github.dockerjava.core.DockerClientImpl;
+import com.github.dockerjava.core.NameParser;
+import com.github.dockerjava.core.RemoteApiVersion;
 import com.github.dockerjava.httpclient5.ApacheDockerHttpClient;
+import com.github.dockerjava.transport.DockerHttpClient;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import vec.engine.launcher.ContainerLauncher;
+import vec.engine.launcher.LauncherAgent;
+
+/** the {@link ContainerRuntime} backed by a docker daemon, through docker-java */
+public class DockerHelper implements ContainerRuntime {
+  private static final String CONTAINER_CLASSPATH =
+      "build/classes/java/test:build/classes/java/main:build/resources/main:build/libs/junit-custom-engine-1.0-SNAPSHOT-tests.jar";
+  public static final String CONSOLE_LAUNCHER_JAR = "/junit-console-launcher.jar";
+  /**
+   * jar baked in the derived images, its manifest refers to the dependencies of the tests. It is
+   * put in the classpath before the project classes, and the JVM ignores it when it does not exist
+   */
+  public static final String BAKED_DEPENDENCIES_JAR = "/docker-engine/dependencies.jar";
+
+  private static final String REUSABLE_LABEL = "vec.docker-engine.reusable";
+  private static final String REUSE_HASH_LABEL = "vec.docker-engine.reuse-hash";
+  private static final String CONTAINER_PROJECT_DIR = "/prj";
+  private static final int MAX_REMOVED_FILES_PER_EXEC = 500;
+  /** the kills are run by the thread of the timeouts, a stuck kill must not delay the others */
+  private static final Duration KILL_TIMEOUT = Duration.ofSeconds(10);
+
+  private static final byte[] EXEC_START_BODY =
+      "{\"Detach\":false,\"Tty\":false}".getBytes(StandardCharsets.UTF_8);
 
-public class DockerHelper {
   private final DockerClient client;
+  private final DockerHttpClient dockerHttpClient;
+  /** prefix of the api paths, like /v1.41, empty if the version is negotiated by the daemon */
+  private final String apiPathPrefix;
+
+  private final boolean bindMountClasspath;
+  /** runs the requests of the execs and reads their output */
+  private final ExecutorService execExecutor;
 
   public DockerHelper() {
-    var config = DefaultDockerClientConfig.createDefaultConfigBuilder().build();
-    var dockerHttpClient =
+    this(true);
+  }
+
+  /**
+   * @param bindMountClasspath false if the classpath is copied in the containers with
+   *     copyArchiveToContainer instead of being bind-mounted from the host
+   */
+  public DockerHelper(boolean bindMountClasspath) {
+    this(bindMountClasspath, DockerTransportOptions.DEFAULT);
+  }
+
+  /**
+   * @param bindMountClasspath false if the classpath is copied in the containers with
+   *     copyArchiveToContainer instead of being bind-mounted from the host
+   */
+  public DockerHelper(boolean bindMountClasspath, DockerTransportOptions transportOptions) {
+    this(bindMountClasspath, transportOptions, null);
+  }
+
+  /**
+   * @param bindMountClasspath false if the classpath is copied in the containers with
+   *     copyArchiveToContainer instead of being bind-mounted from the host
+   * @param dockerHost the daemon to talk to, null for the one of the environment
+   */
+  public DockerHelper(
+      boolean bindMountClasspath, DockerTransportOptions transportOptions, String dockerHost) {
+    this.bindMountClasspath = bindMountClasspath;
+    var configBuilder = DefaultDockerClientConfig.createDefaultConfigBuilder();
+    if (dockerHost != null) configBuilder.withDockerHost(dockerHost);
+    var config = configBuilder.build();
+    this.dockerHttpClient =
         new ApacheDockerHttpClient.Builder()
             .dockerHost(config.getDockerHost())
             .sslConfig(config.getSSLConfig())
-            .maxConnections(5)
+            .maxConnections(transportOptions.maxConnections)
             .build();
+    this.apiPathPrefix =
+        RemoteApiVersion.unknown().equals(config.getApiVersion())
+            ? ""
+            : "/" + config.getApiVersion().asWebPathPart();
 
     this.client = DockerClientImpl.getInstance(config, dockerHttpClient);
+    this.execExecutor = newExecExecutor(transportOptions.virtualThreads);
+  }
+
+  /**
+   * a virtual thread for every task when they are requested and the JVM supports them, otherwise a
+   * pool of daemon threads
+   */
+  static ExecutorService newExecExecutor(boolean virtualThreads) {
+    if (virtualThreads) {
+      try {
+        return (ExecutorService)
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+      } catch (ReflectiveOperationException exc) {
+        // the JVM has no virtual threads, or they are a preview feature that is not enabled
+      }
+    }
+
+    var threadNumber = new AtomicInteger();
+    return Executors.newCachedThreadPool(
+        runnable -> {
+          var thread = new Thread(runnable, "docker-engine-exec-" + threadNumber.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
   }
 
   /**
@@ -37,27 +160,263 @@ public class DockerHelper {
   //          -v "$(pwd)/build/resources:/prj/build/resources" \
   //          --name {containerName} {image}
   public String startTestingContainer(String image, String containerName) {
+    var containerId = createTestingContainer(image, containerName, ResourceLimits.NONE);
+    startContainer(containerId);
+
+    return containerId;
+  }
+
+  /**
+   * creates the testing container as described in startTestingContainer, without starting it
+   *
+   * @return the id of the created container
+   */
+  @Override
+  public String createTestingContainer(
+      String image, String containerName, ResourceLimits resourceLimits) {
+    return createTestingContainer(image, containerName, resourceLimits, true, Map.of());
+  }
+
+  /**
+   * creates the testing container as described in startTestingContainer, but the container is not
+   * removed when stopped, and it is labeled with the reuseHash so that a later run can find it with
+   * findReusableContainer.
+   *
+   * @return the id of the created container
+   */
+  @Override
+  public String createReusableTestingContainer(
+      String image, String containerName, ResourceLimits resourceLimits, String reuseHash) {
+    return createTestingContainer(
+        image,
+        containerName,
+        resourceLimits,
+        false,
+        Map.of(REUSABLE_LABEL, "true", REUSE_HASH_LABEL, reuseHash));
+  }
+
+  // docker create --cpus {cpus} --memory {memory} --pids-limit {pidsLimit} ...
+  private String createTestingContainer(
+      String image,
+      String containerName,
+      ResourceLimits resourceLimits,
+      boolean autoRemove,
+      Map<String, String> labels) {
+    var hostConfig =
+        new HostConfig().withAutoRemove(autoRemove).withBinds(getTestingContainerBinds());
+    if (resourceLimits.cpus > 0) hostConfig.withNanoCPUs(resourceLimits.getNanoCpus());
+    if (resourceLimits.memoryBytes > 0) hostConfig.withMemory(resourceLimits.memoryBytes);
+    if (resourceLimits.pidsLimit > 0) hostConfig.withPidsLimit(resourceLimits.pidsLimit);
+
+    return client
+        .createContainerCmd(image)
+        .withTty(true)
+        .withLabels(labels)
+        .withHostConfig(hostConfig)
+        .withName(containerName)
+        .exec()
+        .getId();
+  }
+
+  /** no bind is created when the classpath is copied in the container */
+  private Bind[] getTestingContainerBinds() {
+    if (!bindMountClasspath) return new Bind[0];
+
     final String projectDir = System.getProperty("user.dir");
     final String buildDir = projectDir + "/build";
 
-    var containerId =
+    return new Bind[] {
+      new Bind(
+          buildDir + "/classes/java", new Volume(CONTAINER_PROJECT_DIR + "/build/classes/java")),
+      new Bind(buildDir + "/resources", new Volume(CONTAINER_PROJECT_DIR + "/build/resources")),
+      new Bind(buildDir + "/libs", new Volume(CONTAINER_PROJECT_DIR + "/build/libs"))
+    };
+  }
+
+  /**
+   * the hash identifies the configuration of a testing container: the image, the resource limits,
+   * the bind mounts (or the copied classpath) and the version of the engine creating it. A
+   * container can be reused only by runs computing the same hash.
+   */
+  @Override
+  public String computeReuseHash(
+      String image, ResourceLimits resourceLimits, String engineVersion) {
+    var configuration = new StringBuilder(image).append('\n').append(engineVersion);
+    if (!resourceLimits.isUnlimited()) configuration.append('\n').append(resourceLimits);
+    if (!bindMountClasspath) configuration.append("\ncopied classpath");
+    for (var bind : getTestingContainerBinds()) configuration.append('\n').append(bind);
+
+    try {
+      var digest =
+          MessageDigest.getInstance("SHA-256")
+              .digest(configuration.toString().getBytes(StandardCharsets.UTF_8));
+      return String.format("%064x", new BigInteger(1, digest));
+    } catch (NoSuchAlgorithmException exc) {
+      throw new IllegalStateException(exc);
+    }
+  }
+
+  /**
+   * looks for a container created with createReusableTestingContainer with the same name and hash,
+   * and starts it if it is stopped. A container with the same name but a different hash is removed,
+   * so that a new one can be created.
+   *
+   * @return the id of the running container, if any
+   */
+  // docker ps -a --filter label=vec.docker-engine.reuse-hash={reuseHash} --filter name={name}
+  @Override
+  public Optional<String> findReusableContainer(String containerName, String reuseHash) {
+    var sameNameContainers =
         client
-            .createContainerCmd(image)
-            .withTty(true)
-            .withHostConfig(
-                new HostConfig()
-                    .withAutoRemove(true)
-                    .withBinds(
-                        new Bind(buildDir + "/classes/java", new Volume("/prj/build/classes/java")),
-                        new Bind(buildDir + "/resources", new Volume("/prj/build/resources")),
-                        new Bind(buildDir + "/libs", new Volume("/prj/build/libs"))))
-            .withName(containerName)
+            .listContainersCmd()
+            .withShowAll(true)
+            .withNameFilter(List.of(containerName))
             .exec()
-            .getId();
+            .stream()
+            // the name filter matches substrings too
+            .filter(container -> Arrays.asList(container.getNames()).contains("/" + containerName))
+            .collect(Collectors.toList());
+
+    for (var container : sameNameContainers) {
+      if (!reuseHash.equals(container.getLabels().get(REUSE_HASH_LABEL))) {
+        removeTestingContainer(container.getId());
+        continue;
+      }
+
+      if (!"running".equals(container.getState())) startContainer(container.getId());
+      return Optional.of(container.getId());
+    }
+
+    return Optional.empty();
+  }
+
+  /**
+   * @return the map (containerId, creation time in epoch seconds) of all the containers created
+   *     with createReusableTestingContainer, running or not
+   */
+  // docker ps -a --filter label=vec.docker-engine.reusable=true
+  @Override
+  public Map<String, Long> listReusableContainers() {
+    return client
+        .listContainersCmd()
+        .withShowAll(true)
+        .withLabelFilter(Map.of(REUSABLE_LABEL, "true"))
+        .exec()
+        .stream()
+        .collect(Collectors.toMap(Container::getId, Container::getCreated));
+  }
 
+  // GET /_ping
+  @Override
+  public boolean isReachable() {
+    try {
+      client.pingCmd().exec();
+      return true;
+    } catch (RuntimeException exc) {
+      return false;
+    }
+  }
+
+  // docker image inspect {image}
+  @Override
+  public Optional<ImageDetails> inspectImage(String image) {
+    try {
+      var imageDetails = client.inspectImageCmd(image).exec();
+      var user =
+          imageDetails.getConfig() == null || imageDetails.getConfig().getUser() == null
+              ? ""
+              : imageDetails.getConfig().getUser();
+
+      return Optional.of(new ImageDetails(imageDetails.getId(), user));
+    } catch (NotFoundException exc) {
+      return Optional.empty();
+    }
+  }
+
+  // docker pull {image}
+  @Override
+  public void pullImage(String image) {
+    var pullImageCmd = client.pullImageCmd(image);
+    // without a tag, the daemon would pull all the tags of the repository
+    if (!image.contains("@")) {
+      var repositoryTag = NameParser.parseRepositoryTag(image);
+      pullImageCmd =
+          client
+              .pullImageCmd(repositoryTag.repos)
+              .withTag(repositoryTag.tag.isEmpty() ? "latest" : repositoryTag.tag);
+    }
+
+    try {
+      pullImageCmd.start().awaitCompletion();
+    } catch (InterruptedException exc) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(exc);
+    }
+  }
+
+  /**
+   * builds an image from a tar archive containing the Dockerfile and the files it copies, waiting
+   * for the build to complete. The base image is not pulled
+   *
+   * @return the id of the built image
+   */
+  // docker build -t {tag} - < {buildContext}
+  @Override
+  public String buildImage(Path buildContext, String tag) {
+    try (var tarInputStream = Files.newInputStream(buildContext)) {
+      return client
+          .buildImageCmd()
+          .withTarInputStream(tarInputStream)
+          .withTags(Set.of(tag))
+          .withPull(false)
+          .start()
+          .awaitImageId();
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
+    }
+  }
+
+  /** the usage is read from a single sample, the cpu usage is the total since the start */
+  // docker stats --no-stream {containerId}
+  @Override
+  public Optional<ContainerStats> getStats(String containerId) {
+    try (var statsCallback =
+        client.statsCmd(containerId).withNoStream(true).exec(new StatisticsCallback())) {
+      var statistics = statsCallback.awaitStatistics();
+      if (statistics == null || statistics.getCpuStats() == null) return Optional.empty();
+
+      var cpuUsage = statistics.getCpuStats().getCpuUsage();
+      var memoryStats = statistics.getMemoryStats();
+      var pidsStats = statistics.getPidsStats();
+      return Optional.of(
+          new ContainerStats(
+              cpuUsage == null || cpuUsage.getTotalUsage() == null ? 0 : cpuUsage.getTotalUsage(),
+              memoryStats == null || memoryStats.getUsage() == null ? 0 : memoryStats.getUsage(),
+              memoryStats == null || memoryStats.getLimit() == null ? 0 : memoryStats.getLimit(),
+              pidsStats == null || pidsStats.getCurrent() == null ? 0 : pidsStats.getCurrent()));
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
+    } catch (InterruptedException exc) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(exc);
+    }
+  }
+
+  // docker start {containerId}
+  @Override
+  public void startContainer(String containerId) {
     client.startContainerCmd(containerId).exec();
+  }
 
-    return containerId;
+  /**
+   * removes the container even if it is running
+   *
+   * @param containerId
+   */
+  // docker rm -f {containerId}
+  @Override
+  public void removeTestingContainer(String containerId) {
+    client.removeContainerCmd(containerId).withForce(true).exec();
   }
 
   /**
@@ -66,69 +425,334 @@ public class DockerHelper {
    * @param containerId
    */
   // docker stop junit-cl
+  @Override
   public void stopTestingContainer(String containerId) {
     client.stopContainerCmd(containerId).exec();
   }
 
   /**
-   * calls the junit console launcher inside the container and returns the summary of the execution.
-   * the only selector given is the methodFullyQualifiedName passed in input. The classpath includes
-   * the classes, resources and the fat jar created with the shadow plugin
+   * extracts the tar archive in the project directory of the container (/prj), the entries are
+   * relative to it. Missing parent directories are created by the daemon.
+   *
+   * @param containerId
+   * @param tarArchive
+   */
+  // docker cp - {containerId}:/prj < {tarArchive}
+  @Override
+  public void copyArchiveToContainer(String containerId, Path tarArchive) {
+    try (var tarInputStream = Files.newInputStream(tarArchive)) {
+      client
+          .copyArchiveToContainerCmd(containerId)
+          .withRemotePath(CONTAINER_PROJECT_DIR)
+          .withTarInputStream(tarInputStream)
+          .exec();
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
+    }
+  }
+
+  /**
+   * removes the files from the project directory of the container, waiting for the removal to
+   * complete. The files are removed by root, because copied files are owned by root, and the
+   * batches of files are removed by concurrent execs.
+   *
+   * @param containerId
+   * @param relativePaths paths relative to the project directory (/prj)
+   */
+  // docker exec -u root {containerId} rm -f -- /prj/{relativePath}...
+  @Override
+  public void removeFilesFromContainer(String containerId, List<String> relativePaths) {
+    var removals = new ArrayList<CompletableFuture<ExecResult>>();
+    for (int from = 0; from < relativePaths.size(); from += MAX_REMOVED_FILES_PER_EXEC) {
+      var command = new ArrayList<String>(List.of("rm", "-f", "--"));
+      relativePaths
+          .subList(from, Math.min(relativePaths.size(), from + MAX_REMOVED_FILES_PER_EXEC))
+          .forEach(relativePath -> command.add(CONTAINER_PROJECT_DIR + "/" + relativePath));
+      removals.add(execAsync(containerId, "root", command));
+    }
+
+    try {
+      CompletableFuture.allOf(removals.toArray(CompletableFuture[]::new)).get();
+    } catch (InterruptedException exc) {
+      removals.forEach(removal -> removal.cancel(true));
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(exc);
+    } catch (ExecutionException exc) {
+      throw new RuntimeException(exc.getCause());
+    }
+
+    for (var removal : removals) {
+      var removalResult = removal.join();
+      if (removalResult.exitCode != 0)
+        throw new IllegalStateException(
+            String.format(
+                "Files cannot be removed from container %s, exit code %d: %s",
+                containerId, removalResult.exitCode, removalResult.standardError.strip()));
+    }
+  }
+
+  /**
+   * executes the command in the container without blocking the caller. No thread waits for the
+   * daemon until the exec is started, and the output is read by a virtual thread when they are
+   * enabled. Cancelling the future closes the connection of the exec: the command may keep running
+   * in the container.
+   *
+   * @param containerId
+   * @param user the user running the command, null for the one of the image
+   * @param command
+   * @return completed when the command has terminated
+   */
+  // docker exec -u {user} {containerId} {command}
+  public CompletableFuture<ExecResult> execAsync(
+      String containerId, String user, List<String> command) {
+    var standardOutput = new ByteArrayOutputStream();
+    var standardError = new ByteArrayOutputStream();
+
+    return startExec(
+        () ->
+            client
+                .execCreateCmd(containerId)
+                .withUser(user)
+                .withAttachStdout(true)
+                .withAttachStderr(true)
+                .withCmd(command.toArray(String[]::new))
+                .exec()
+                .getId(),
+        standardOutput::writeBytes,
+        standardError::writeBytes,
+        execId ->
+            new ExecResult(
+                client.inspectExecCmd(execId).exec().getExitCodeLong(),
+                standardOutput.toString(StandardCharsets.UTF_8),
+                standardError.toString(StandardCharsets.UTF_8)));
+  }
+
+  /**
+   * creates and starts the exec on the exec executor, its output is demultiplexed with an {@link
+   * ExecFrameReader}. The output of the exec is read through the pooled connection of the request,
+   * so the docker-java streaming callbacks, and their thread for every exec, are not used.
+   *
+   * @param createExec returns the id of the created exec
+   * @param onEnd called with the id of the exec once its output has been read
+   */
+  // POST /exec/{execId}/start {"Detach":false,"Tty":false}
+  private <T> CompletableFuture<T> startExec(
+      Supplier<String> createExec,
+      Consumer<byte[]> standardOutput,
+      Consumer<byte[]> standardError,
+      Function<String, T> onEnd) {
+    var exec = new CompletableFuture<T>();
+    var execResponse = new AtomicReference<DockerHttpClient.Response>();
+    exec.whenComplete(
+        (result, exc) -> {
+          var response = execResponse.get();
+          if (exc != null && response != null) response.close();
+        });
+
+    execExecutor.execute(
+        () -> {
+          try {
+            var execId = createExec.get();
+            var request =
+                DockerHttpClient.Request.builder()
+                    .method(DockerHttpClient.Request.Method.POST)
+                    .path(apiPathPrefix + "/exec/" + execId + "/start")
+                    .putHeader("Content-Type", "application/json")
+                    .bodyBytes(EXEC_START_BODY)
+                    .build();
+            try (var response = dockerHttpClient.execute(request)) {
+              execResponse.set(response);
+              // cancelled before the response was set, it is closed here
+              if (exec.isDone()) return;
+              if (response.getStatusCode() != 200)
+                throw new IllegalStateException(
+                    String.format(
+                        "Exec %s cannot be started, status %d: %s",
+                        execId,
+                        response.getStatusCode(),
+                        new String(response.getBody().readAllBytes(), StandardCharsets.UTF_8)));
+
+              new ExecFrameReader(response.getBody()).readAll(standardOutput, standardError);
+            }
+            exec.complete(onEnd.apply(execId));
+          } catch (Throwable t) {
+            exec.completeExceptionally(t);
+          }
+        });
+
+    return exec;
+  }
+
+  /**
+   * runs the methods inside the container with a {@link ContainerLauncher}, one method selector for
+   * each of them. The classpath includes the classes, resources and the fat jar created with the
+   * shadow plugin. It returns as soon as the exec is submitted: the results are passed to the
+   * handler while the tests are running, and handler.onRunEnded is called when the exec terminates
+   * or the returned closeable is closed.
+   *
+   * @param containerId
+   * @param methodFullyQualifiedNames methods in canonical name form
+   * @param handler
+   * @return closing it stops the reading of the results
+   */
+  // docker exec junit-cl java -DtestingEnvironment=docker \
+  //    -cp /junit-console-launcher.jar:/docker-engine/dependencies.jar:build/classes/java/test:...
+  // \
+  //    vec.engine.launcher.ContainerLauncher \
+  //    "vec.myproject.EmployeeOnDockerTest#computeSalary_workedForNHours_salaryIsNTimes10"
+  @Override
+  public Closeable runTestsInsideContainer(
+      String containerId, List<String> methodFullyQualifiedNames, ResultEventHandler handler) {
+    var decoder = new ResultStreamDecoder(handler);
+    var exec =
+        startExec(
+            () ->
+                client
+                    .execCreateCmd(containerId)
+                    .withAttachStdout(true)
+                    .withAttachStderr(true)
+                    .withCmd(launcherCommand(ContainerLauncher.class, methodFullyQualifiedNames))
+                    .exec()
+                    .getId(),
+            decoder::onStandardOutput,
+            decoder::onStandardError,
+            execId -> null);
+    exec.whenComplete(
+        (result, exc) -> {
+          if (exc == null) decoder.onComplete();
+          else decoder.onError(exc);
+        });
+
+    return () -> exec.cancel(true);
+  }
+
+  private static String[] launcherCommand(Class<?> mainClass, List<String> arguments) {
+    var command = new ArrayList<String>();
+    Collections.addAll(
+        command,
+        "java",
+        "-DtestingEnvironment=docker",
+        "-cp",
+        CONSOLE_LAUNCHER_JAR + ":" + BAKED_DEPENDENCIES_JAR + ":" + CONTAINER_CLASSPATH,
+        mainClass.getName());
+    command.addAll(arguments);
+
+    return command.toArray(String[]::new);
+  }
+
+  /**
+   * starts a {@link LauncherAgent} inside the container. The agent keeps running until the returned
+   * session is closed, and every test sent to it is run by the same JVM
    *
    * @param containerId
-   * @param methodFullyQualifiedName
-   * @return the output of the executed command
-   */
-  // docker exec junit-cl docker exec junit-cl java -DtestingEnvironment=docker -jar \
-  // /junit-console-launcher.jar -cp \
-  // build/classes/java/test:build/classes/java/main:build/resources/main:build/libs/junit-custom-engine-1.0-SNAPSHOT-tests.jar \
-  //    -E="docker-engine" --details=summary --disable-banner \
-  //    -m "vec.myproject.EmployeeOnDockerTest#computeSalary_workedForNHours_salaryIsNTimes10"
-  public String runTestInsideDockerContainer(String containerId, String methodFullyQualifiedName) {
+   * @return the session used to send tests to the agent
+   */
+  // docker exec -i junit-cl java -DtestingEnvironment=docker \
+  //    -cp /junit-console-launcher.jar:/docker-engine/dependencies.jar:build/classes/java/test:...
+  // \
+  //    vec.engine.launcher.LauncherAgent
+  @Override
+  public LauncherAgentSession startLauncherAgent(String containerId) {
     try {
+      var agentInput = Pipe.open();
       var execId =
           client
               .execCreateCmd(containerId)
+              .withAttachStdin(true)
               .withAttachStdout(true)
               .withAttachStderr(true)
-              .withCmd(
-                  "java",
-                  "-DtestingEnvironment=docker",
-                  "-jar",
-                  "/junit-console-launcher.jar",
-                  "-cp",
-                  "build/classes/java/test:build/classes/java/main:build/resources/main:build/libs/junit-custom-engine-1.0-SNAPSHOT-tests.jar",
-                  "-E=\"docker-engine\"",
-                  "--details=summary",
-                  "--disable-banner",
-                  "-m",
-                  methodFullyQualifiedName)
+              .withCmd(launcherCommand(LauncherAgent.class, List.of()))
               .exec()
               .getId();
 
-      var execStartCallback = new ExecStartResultCallback();
-      client.execStartCmd(execId).exec(execStartCallback).awaitCompletion();
+      var session =
+          new LauncherAgentSession(containerId, Channels.newOutputStream(agentInput.sink()));
+      session.setOutputReader(
+          client
+              .execStartCmd(execId)
+              .withStdIn(Channels.newInputStream(agentInput.source()))
+              .exec(new ResultStreamCallback(session.getOutputDecoder())));
 
-      var execOutput = execStartCallback.getExecOutput();
-      System.out.println(execOutput);
+      return session;
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
+    }
+  }
 
-      return execOutput;
+  /**
+   * kills the process as root with SIGKILL, waiting at most {@link #KILL_TIMEOUT} for the kill to
+   * complete. A process that has already terminated is ignored.
+   *
+   * @param containerId
+   * @param processId pid inside the container
+   */
+  // docker exec -u root {containerId} kill -9 {processId}
+  @Override
+  public void killProcess(String containerId, long processId) {
+    var kill = execAsync(containerId, "root", List.of("kill", "-9", Long.toString(processId)));
+    ExecResult killResult;
+    try {
+      killResult = kill.get(KILL_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
     } catch (InterruptedException exc) {
+      kill.cancel(true);
+      Thread.currentThread().interrupt();
       throw new RuntimeException(exc);
+    } catch (ExecutionException exc) {
+      throw new RuntimeException(exc.getCause());
+    } catch (TimeoutException exc) {
+      kill.cancel(true);
+      throw new IllegalStateException(
+          String.format(
+              "Process %d of container %s has not been killed within %d ms",
+              processId, containerId, KILL_TIMEOUT.toMillis()),
+          exc);
+    }
+
+    if (killResult.exitCode != 0 && !killResult.standardError.contains("No such process"))
+      throw new IllegalStateException(
+          String.format(
+              "Process %d of container %s cannot be killed, exit code %d: %s",
+              processId, containerId, killResult.exitCode, killResult.standardError.strip()));
+  }
+
+  /** the execs in progress are interrupted and the connections to the daemon are closed */
+  @Override
+  public void close() {
+    execExecutor.shutdownNow();
+    try {
+      dockerHttpClient.close();
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
     }
   }
 
-  private static class ExecStartResultCallback extends ResultCallback.Adapter<Frame> {
-    private String execOutput = "";
+  /** keeps the first sample of docker stats */
+  private static class StatisticsCallback extends ResultCallback.Adapter<Statistics> {
+    private final CompletableFuture<Statistics> statistics = new CompletableFuture<>();
+
+    @Override
+    public void onNext(Statistics statistics) {
+      this.statistics.complete(statistics);
+    }
+
+    @Override
+    public void onComplete() {
+      statistics.complete(null);
+      super.onComplete();
+    }
 
     @Override
-    public void onNext(Frame frame) {
-      var payload = new String(frame.getPayload());
-      execOutput += payload;
+    public void onError(Throwable throwable) {
+      statistics.completeExceptionally(throwable);
+      super.onError(throwable);
     }
 
-    public String getExecOutput() {
-      return execOutput;
+    private Statistics awaitStatistics() throws InterruptedException {
+      try {
+        return statistics.get();
+      } catch (ExecutionException exc) {
+        throw new RuntimeException(exc.getCause());
+      }
     }
   }
 }
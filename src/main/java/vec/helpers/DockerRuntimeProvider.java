@@ -0,0 +1,52 @@
+package vec.helpers;
+
+import java.nio.file.Path;
+import java.util.stream.Collectors;
+import org.junit.platform.commons.PreconditionViolationException;
+
+/**
+ * provides the {@link DockerHelper} runtime, it is the default one. When many docker endpoints are
+ * configured, the containers are spread over them by a {@link MultiEndpointRuntime}
+ */
+public class DockerRuntimeProvider implements ContainerRuntimeProvider {
+  public static final String NAME = "docker";
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public ContainerRuntime create(
+      boolean bindMountClasspath, Path projectDirectory, Path workDirectory) {
+    return new DockerHelper(bindMountClasspath);
+  }
+
+  @Override
+  public ContainerRuntime create(
+      boolean bindMountClasspath,
+      Path projectDirectory,
+      Path workDirectory,
+      DockerTransportOptions transportOptions) {
+    var endpoints = transportOptions.endpoints;
+    if (endpoints.isEmpty()) return new DockerHelper(bindMountClasspath, transportOptions);
+    if (endpoints.size() == 1)
+      return new DockerHelper(bindMountClasspath, transportOptions, endpoints.get(0).host);
+
+    // the other daemons cannot bind-mount the build folders of this host
+    if (bindMountClasspath)
+      throw new PreconditionViolationException(
+          "Many docker endpoints need the classpath to be copied in the containers, set"
+              + " docker.engine.classpath.transfer to copy");
+
+    return new MultiEndpointRuntime(
+        endpoints.stream()
+            .map(
+                endpoint ->
+                    new MultiEndpointRuntime.Endpoint(
+                        endpoint.host,
+                        new DockerHelper(false, transportOptions, endpoint.host),
+                        endpoint.weight))
+            .collect(Collectors.toList()));
+  }
+}
@@ -0,0 +1,41 @@
+package vec.helpers;
+
+import java.util.List;
+
+/** how the {@link DockerHelper} talks to the docker daemon */
+public class DockerTransportOptions {
+  public static final DockerTransportOptions DEFAULT =
+      new DockerTransportOptions(5, false, List.of());
+
+  /**
+   * size of the pool of connections to the daemon, every exec streaming its output holds one of
+   * them until it terminates
+   */
+  public final int maxConnections;
+
+  /**
+   * true if the output of the execs is read by virtual threads, when the JVM supports them.
+   * Otherwise every exec is read by a platform thread
+   */
+  public final boolean virtualThreads;
+
+  /**
+   * the daemons the containers are placed on, empty for the one of the environment (DOCKER_HOST or
+   * the default socket)
+   */
+  public final List<DockerEndpoint> endpoints;
+
+  public DockerTransportOptions(int maxConnections, boolean virtualThreads) {
+    this(maxConnections, virtualThreads, List.of());
+  }
+
+  public DockerTransportOptions(
+      int maxConnections, boolean virtualThreads, List<DockerEndpoint> endpoints) {
+    if (maxConnections <= 0)
+      throw new IllegalArgumentException("the connections to the daemon must be at least 1");
+
+    this.maxConnections = maxConnections;
+    this.virtualThreads = virtualThreads;
+    this.endpoints = List.copyOf(endpoints);
+  }
+}
@@ -0,0 +1,38 @@
+package vec.helpers;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/** durations written by the users of the engine, in annotations and configuration parameters */
+public class Durations {
+  /** a number followed by an optional unit: ms, s, m, h, d (case insensitive), default is s */
+  public static final Pattern DURATION_PATTERN =
+      Pattern.compile("(\\d+)\\s*(ms|s|m|h|d)?", Pattern.CASE_INSENSITIVE);
+
+  private Durations() {}
+
+  /**
+   * @param duration for example 30s, 500ms or 2h
+   */
+  public static Duration parse(String duration) {
+    var matcher = DURATION_PATTERN.matcher(duration.trim());
+    if (!matcher.matches())
+      throw new IllegalArgumentException(String.format("Invalid duration: %s", duration));
+
+    long amount = Long.parseLong(matcher.group(1));
+    var unit = matcher.group(2) == null ? "s" : matcher.group(2).toLowerCase(Locale.ROOT);
+    switch (unit) {
+      case "ms":
+        return Duration.ofMillis(amount);
+      case "m":
+        return Duration.ofMinutes(amount);
+      case "h":
+        return Duration.ofHours(amount);
+      case "d":
+        return Duration.ofDays(amount);
+      default:
+        return Duration.ofSeconds(amount);
+    }
+  }
+}
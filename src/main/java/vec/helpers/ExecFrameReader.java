@@ -0,0 +1,66 @@
+package vec.helpers;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * reads the output of a docker exec started without tty, where stdout and stderr are multiplexed in
+ * frames. The header of a frame is 8 bytes: the stream type (1 for stdout, 2 for stderr), 3 zeros
+ * and the size of the payload as a big endian int.
+ */
+class ExecFrameReader {
+  private static final int STDOUT = 1;
+  private static final int STDERR = 2;
+
+  private final DataInputStream input;
+
+  ExecFrameReader(InputStream input) {
+    this.input = new DataInputStream(input);
+  }
+
+  /** passes the payload of every frame to its consumer until the end of the stream */
+  void readAll(Consumer<byte[]> standardOutput, Consumer<byte[]> standardError) throws IOException {
+    var header = new byte[8];
+    while (readHeader(header)) {
+      int size =
+          ((header[4] & 0xff) << 24)
+              | ((header[5] & 0xff) << 16)
+              | ((header[6] & 0xff) << 8)
+              | (header[7] & 0xff);
+      if (size < 0) throw new IOException(String.format("Invalid exec frame size: %d", size));
+
+      var payload = new byte[size];
+      input.readFully(payload);
+      switch (header[0]) {
+        case STDOUT:
+          standardOutput.accept(payload);
+          break;
+        case STDERR:
+          standardError.accept(payload);
+          break;
+        default:
+          break;
+      }
+    }
+  }
+
+  /**
+   * @return false if the stream ends before the header
+   */
+  private boolean readHeader(byte[] header) throws IOException {
+    int first = input.read();
+    if (first == -1) return false;
+
+    header[0] = (byte) first;
+    try {
+      input.readFully(header, 1, header.length - 1);
+    } catch (EOFException exc) {
+      throw new EOFException("The exec stream ended in the middle of a frame header");
+    }
+
+    return true;
+  }
+}
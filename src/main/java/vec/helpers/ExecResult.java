@@ -0,0 +1,14 @@
+package vec.helpers;
+
+/** what a command executed in a container printed, and its exit code */
+public class ExecResult {
+  public final long exitCode;
+  public final String standardOutput;
+  public final String standardError;
+
+  public ExecResult(long exitCode, String standardOutput, String standardError) {
+    this.exitCode = exitCode;
+    this.standardOutput = standardOutput;
+    this.standardError = standardError;
+  }
+}
@@ -0,0 +1,13 @@
+package vec.helpers;
+
+/** what the engine needs to know about an image to derive another image from it */
+public class ImageDetails {
+  public final String id;
+  /** the user running the processes of the containers, empty for the default one */
+  public final String user;
+
+  public ImageDetails(String id, String user) {
+    this.id = id;
+    this.user = user;
+  }
+}
@@ -0,0 +1,121 @@
+package vec.helpers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import vec.engine.launcher.LauncherAgent;
+import vec.engine.launcher.ResultEvent;
+
+/**
+ * host side of a {@link LauncherAgent} running inside a container. Tests are sent to the agent
+ * through its stdin, and the events it sends are passed to the handler of the run in progress until
+ * its PLAN_FINISHED event. The agent runs one batch of tests at a time, so does the session.
+ */
+public class LauncherAgentSession implements Closeable {
+  private final String containerId;
+  private final OutputStream agentInput;
+  private final ResultStreamDecoder outputDecoder =
+      new ResultStreamDecoder(new AgentEventDispatcher());
+  /** stops the reading of the agent output */
+  private Closeable outputReader = () -> {};
+  /** null when the agent is not running any test */
+  private ResultEventHandler currentHandler = null;
+
+  private boolean terminated = false;
+
+  LauncherAgentSession(String containerId, OutputStream agentInput) {
+    this.containerId = containerId;
+    this.agentInput = agentInput;
+  }
+
+  /** the runtime passes the output of the agent to the decoder */
+  ResultStreamDecoder getOutputDecoder() {
+    return outputDecoder;
+  }
+
+  void setOutputReader(Closeable outputReader) {
+    this.outputReader = outputReader;
+  }
+
+  /**
+   * sends the methods to the agent, it returns without waiting for their execution. The session
+   * must not be used again until handler.onRunEnded has been called.
+   *
+   * @param methodFullyQualifiedNames
+   * @param handler receives the events of this run only
+   */
+  public synchronized void runTests(
+      List<String> methodFullyQualifiedNames, ResultEventHandler handler) {
+    if (terminated) throw agentTerminatedException();
+    if (currentHandler != null)
+      throw new IllegalStateException(
+          String.format("the launcher agent in container %s is already running", containerId));
+
+    currentHandler = handler;
+    try {
+      agentInput.write(
+          (String.join(LauncherAgent.SELECTOR_SEPARATOR, methodFullyQualifiedNames) + "\n")
+              .getBytes(StandardCharsets.UTF_8));
+      agentInput.flush();
+    } catch (IOException exc) {
+      currentHandler = null;
+      throw new UncheckedIOException(exc);
+    }
+  }
+
+  private IllegalStateException agentTerminatedException() {
+    return new IllegalStateException(
+        String.format("the launcher agent in container %s has terminated", containerId));
+  }
+
+  /** closes the agent stdin, the agent terminates after the tests it is running (if any) */
+  @Override
+  public void close() throws IOException {
+    try {
+      agentInput.close();
+    } finally {
+      outputReader.close();
+    }
+  }
+
+  private class AgentEventDispatcher implements ResultEventHandler {
+    @Override
+    public void onEvent(ResultEvent event) {
+      synchronized (LauncherAgentSession.this) {
+        if (currentHandler == null) return;
+
+        currentHandler.onEvent(event);
+        if (event.getType() == ResultEvent.Type.PLAN_FINISHED) {
+          var finishedHandler = currentHandler;
+          currentHandler = null;
+          finishedHandler.onRunEnded(null);
+        }
+      }
+    }
+
+    @Override
+    public void onStandardError(byte[] chunk) {
+      synchronized (LauncherAgentSession.this) {
+        if (currentHandler != null) currentHandler.onStandardError(chunk);
+        else System.err.write(chunk, 0, chunk.length);
+      }
+    }
+
+    @Override
+    public void onRunEnded(Throwable failure) {
+      synchronized (LauncherAgentSession.this) {
+        terminated = true;
+        if (currentHandler == null) return;
+
+        var interruptedHandler = currentHandler;
+        currentHandler = null;
+        var terminationFailure = agentTerminatedException();
+        if (failure != null) terminationFailure.initCause(failure);
+        interruptedHandler.onRunEnded(terminationFailure);
+      }
+    }
+  }
+}
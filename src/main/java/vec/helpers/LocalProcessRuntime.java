@@ -0,0 +1,409 @@
+package vec.helpers;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import vec.engine.launcher.ContainerLauncher;
+import vec.engine.launcher.LauncherAgent;
+
+/**
+ * a {@link ContainerRuntime} without containers and without a daemon. Every testing container is a
+ * sandbox directory under workDir/local-containers, and tests are run by java processes forked from
+ * the engine JVM, with the same classpath and the sandbox as working directory. When the classpath
+ * is copied, the entries under the project build directory are replaced by their copies in the
+ * sandbox. It is meant for iterating locally and for measuring the overhead of the engine alone:
+ * the image and the resource limits are ignored, and images cannot be built.
+ */
+public class LocalProcessRuntime implements ContainerRuntime {
+  private static final String SANDBOXES_DIR = "local-containers";
+  private static final String CONTAINER_STATE_FILE = ".container.properties";
+  private static final String REUSABLE_KEY = "reusable";
+  private static final String REUSE_HASH_KEY = "reuse-hash";
+  private static final String CREATED_KEY = "created";
+
+  private final boolean bindMountClasspath;
+  private final Path projectDirectory;
+  private final Path sandboxesDirectory;
+  /** the key is the container id, the value contains the processes running in it */
+  private final Map<String, Set<Process>> containerProcesses = new ConcurrentHashMap<>();
+
+  public LocalProcessRuntime(
+      boolean bindMountClasspath, Path projectDirectory, Path workDirectory) {
+    this.bindMountClasspath = bindMountClasspath;
+    this.projectDirectory = projectDirectory.toAbsolutePath().normalize();
+    this.sandboxesDirectory = workDirectory.resolve(SANDBOXES_DIR).toAbsolutePath().normalize();
+  }
+
+  /** the id of a container is its name, a sandbox left by a crashed run is replaced */
+  @Override
+  public String createTestingContainer(
+      String image, String containerName, ResourceLimits resourceLimits) {
+    return createSandbox(containerName, false, "");
+  }
+
+  @Override
+  public String createReusableTestingContainer(
+      String image, String containerName, ResourceLimits resourceLimits, String reuseHash) {
+    return createSandbox(containerName, true, reuseHash);
+  }
+
+  private synchronized String createSandbox(
+      String containerName, boolean reusable, String reuseHash) {
+    var sandbox = getSandbox(containerName);
+    deleteRecursively(sandbox);
+
+    var containerState = new Properties();
+    containerState.setProperty(REUSABLE_KEY, String.valueOf(reusable));
+    containerState.setProperty(REUSE_HASH_KEY, reuseHash);
+    containerState.setProperty(CREATED_KEY, String.valueOf(Instant.now().getEpochSecond()));
+    try {
+      Files.createDirectories(sandbox);
+      try (Writer writer = Files.newBufferedWriter(sandbox.resolve(CONTAINER_STATE_FILE))) {
+        containerState.store(writer, "local testing container");
+      }
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
+    }
+
+    return containerName;
+  }
+
+  @Override
+  public String computeReuseHash(
+      String image, ResourceLimits resourceLimits, String engineVersion) {
+    var configuration =
+        String.join(
+            "\n",
+            LocalProcessRuntimeProvider.NAME,
+            image,
+            engineVersion,
+            String.valueOf(bindMountClasspath),
+            System.getProperty("java.class.path"));
+    try {
+      var digest =
+          MessageDigest.getInstance("SHA-256")
+              .digest(configuration.getBytes(StandardCharsets.UTF_8));
+      return String.format("%064x", new BigInteger(1, digest));
+    } catch (NoSuchAlgorithmException exc) {
+      throw new IllegalStateException(exc);
+    }
+  }
+
+  @Override
+  public synchronized Optional<String> findReusableContainer(
+      String containerName, String reuseHash) {
+    var containerState = loadContainerState(containerName);
+    if (containerState.isEmpty()) return Optional.empty();
+
+    if (!Boolean.parseBoolean(containerState.get().getProperty(REUSABLE_KEY))
+        || !reuseHash.equals(containerState.get().getProperty(REUSE_HASH_KEY))) {
+      removeTestingContainer(containerName);
+      return Optional.empty();
+    }
+
+    return Optional.of(containerName);
+  }
+
+  @Override
+  public synchronized Map<String, Long> listReusableContainers() {
+    if (!Files.isDirectory(sandboxesDirectory)) return Map.of();
+
+    Map<String, Long> reusableContainers = new HashMap<>();
+    try (Stream<Path> sandboxes = Files.list(sandboxesDirectory)) {
+      for (var sandbox : sandboxes.collect(Collectors.toList())) {
+        var containerName = sandbox.getFileName().toString();
+        loadContainerState(containerName)
+            .filter(
+                containerState -> Boolean.parseBoolean(containerState.getProperty(REUSABLE_KEY)))
+            .ifPresent(
+                containerState ->
+                    reusableContainers.put(
+                        containerName, Long.parseLong(containerState.getProperty(CREATED_KEY))));
+      }
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
+    }
+
+    return reusableContainers;
+  }
+
+  /** there is nothing to start, processes are started when tests are run */
+  @Override
+  public void startContainer(String containerId) {
+    if (loadContainerState(containerId).isEmpty())
+      throw new IllegalStateException(String.format("container %s does not exist", containerId));
+  }
+
+  /** the processes of the container are killed, and the sandbox is deleted unless it is reusable */
+  @Override
+  public synchronized void stopTestingContainer(String containerId) {
+    destroyProcesses(containerId);
+
+    var reusable =
+        loadContainerState(containerId)
+            .map(containerState -> Boolean.parseBoolean(containerState.getProperty(REUSABLE_KEY)))
+            .orElse(false);
+    if (!reusable) deleteRecursively(getSandbox(containerId));
+  }
+
+  @Override
+  public synchronized void removeTestingContainer(String containerId) {
+    destroyProcesses(containerId);
+    deleteRecursively(getSandbox(containerId));
+  }
+
+  @Override
+  public void copyArchiveToContainer(String containerId, Path tarArchive) {
+    var sandbox = getSandbox(containerId);
+    try (var tarInputStream = new TarArchiveInputStream(Files.newInputStream(tarArchive))) {
+      for (var entry = tarInputStream.getNextTarEntry();
+          entry != null;
+          entry = tarInputStream.getNextTarEntry()) {
+        var target = sandbox.resolve(entry.getName()).normalize();
+        if (!target.startsWith(sandbox))
+          throw new IllegalArgumentException(
+              String.format("%s is outside the container", entry.getName()));
+
+        if (entry.isDirectory()) {
+          Files.createDirectories(target);
+          continue;
+        }
+        Files.createDirectories(target.getParent());
+        Files.copy(tarInputStream, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
+    }
+  }
+
+  @Override
+  public void removeFilesFromContainer(String containerId, List<String> relativePaths) {
+    var sandbox = getSandbox(containerId);
+    try {
+      for (var relativePath : relativePaths)
+        Files.deleteIfExists(sandbox.resolve(relativePath).normalize());
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
+    }
+  }
+
+  /** closing the returned object kills the process */
+  @Override
+  public Closeable runTestsInsideContainer(
+      String containerId, List<String> methodFullyQualifiedNames, ResultEventHandler handler) {
+    var process =
+        startProcess(
+            containerId,
+            launcherCommand(containerId, ContainerLauncher.class, methodFullyQualifiedNames));
+    readOutput(containerId, process, new ResultStreamDecoder(handler));
+
+    return process::destroy;
+  }
+
+  @Override
+  public LauncherAgentSession startLauncherAgent(String containerId) {
+    var process =
+        startProcess(containerId, launcherCommand(containerId, LauncherAgent.class, List.of()));
+    var session = new LauncherAgentSession(containerId, process.getOutputStream());
+    readOutput(containerId, process, session.getOutputDecoder());
+
+    return session;
+  }
+
+  /** only the processes started in the container can be killed */
+  @Override
+  public void killProcess(String containerId, long processId) {
+    containerProcesses.getOrDefault(containerId, Set.of()).stream()
+        .filter(process -> process.pid() == processId)
+        .forEach(Process::destroyForcibly);
+  }
+
+  /** only the cpu time of the running processes is known, the memory usage is not measured */
+  @Override
+  public Optional<ContainerStats> getStats(String containerId) {
+    var processes = containerProcesses.getOrDefault(containerId, Set.of());
+    long cpuUsageNanos =
+        processes.stream()
+            .map(process -> process.info().totalCpuDuration().orElse(Duration.ZERO))
+            .mapToLong(Duration::toNanos)
+            .sum();
+
+    return Optional.of(new ContainerStats(cpuUsageNanos, 0, 0, processes.size()));
+  }
+
+  /** every image exists, since it is ignored */
+  @Override
+  public Optional<ImageDetails> inspectImage(String image) {
+    return Optional.of(new ImageDetails(image, ""));
+  }
+
+  /** never called, since every image exists */
+  @Override
+  public void pullImage(String image) {
+    throw new UnsupportedOperationException(
+        "images cannot be pulled by the " + LocalProcessRuntimeProvider.NAME + " runtime");
+  }
+
+  @Override
+  public boolean canBuildImages() {
+    return false;
+  }
+
+  @Override
+  public String buildImage(Path buildContext, String tag) {
+    throw new UnsupportedOperationException(
+        "images cannot be built by the " + LocalProcessRuntimeProvider.NAME + " runtime");
+  }
+
+  private Path getSandbox(String containerId) {
+    return sandboxesDirectory.resolve(containerId);
+  }
+
+  private Optional<Properties> loadContainerState(String containerId) {
+    var containerStateFile = getSandbox(containerId).resolve(CONTAINER_STATE_FILE);
+    if (!Files.exists(containerStateFile)) return Optional.empty();
+
+    var containerState = new Properties();
+    try (Reader reader = Files.newBufferedReader(containerStateFile)) {
+      containerState.load(reader);
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
+    }
+
+    return Optional.of(containerState);
+  }
+
+  private List<String> launcherCommand(
+      String containerId, Class<?> mainClass, List<String> arguments) {
+    var command = new ArrayList<String>();
+    command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+    command.add("-DtestingEnvironment=docker");
+    command.add("-cp");
+    command.add(getProcessClasspath(containerId));
+    command.add(mainClass.getName());
+    command.addAll(arguments);
+
+    return command;
+  }
+
+  /** the classpath of the engine, with the copies in the sandbox when the classpath is copied */
+  private String getProcessClasspath(String containerId) {
+    var classpath = System.getProperty("java.class.path");
+    if (bindMountClasspath) return classpath;
+
+    var projectBuildDirectory = projectDirectory.resolve("build");
+    return Stream.of(classpath.split(File.pathSeparator))
+        .map(entry -> Path.of(entry).toAbsolutePath().normalize())
+        .map(
+            entry ->
+                entry.startsWith(projectBuildDirectory)
+                    ? getSandbox(containerId).resolve(projectDirectory.relativize(entry))
+                    : entry)
+        .map(Path::toString)
+        .collect(Collectors.joining(File.pathSeparator));
+  }
+
+  private Process startProcess(String containerId, List<String> command) {
+    try {
+      var process = new ProcessBuilder(command).directory(getSandbox(containerId).toFile()).start();
+      containerProcesses
+          .computeIfAbsent(containerId, id -> ConcurrentHashMap.newKeySet())
+          .add(process);
+
+      return process;
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
+    }
+  }
+
+  /**
+   * the standard output and error are read by two threads, the run ends when both are closed and
+   * the process has terminated
+   */
+  private void readOutput(String containerId, Process process, ResultStreamDecoder decoder) {
+    var threadName = "local-process-" + containerId + "-" + process.pid();
+    var errorReader =
+        new Thread(
+            () -> {
+              try {
+                copy(process.getErrorStream(), decoder::onStandardError);
+              } catch (IOException exc) {
+                // the process has been killed
+              }
+            },
+            threadName + "-stderr");
+    var outputReader =
+        new Thread(
+            () -> {
+              try {
+                copy(process.getInputStream(), decoder::onStandardOutput);
+                errorReader.join();
+                process.waitFor();
+                decoder.onComplete();
+              } catch (IOException exc) {
+                decoder.onError(exc);
+              } catch (InterruptedException exc) {
+                Thread.currentThread().interrupt();
+                decoder.onError(exc);
+              } finally {
+                containerProcesses.getOrDefault(containerId, Set.of()).remove(process);
+              }
+            },
+            threadName + "-stdout");
+    errorReader.setDaemon(true);
+    outputReader.setDaemon(true);
+    errorReader.start();
+    outputReader.start();
+  }
+
+  private static void copy(InputStream inputStream, Consumer<byte[]> consumer) throws IOException {
+    var buffer = new byte[8192];
+    int read;
+    while ((read = inputStream.read(buffer)) >= 0) {
+      if (read > 0) consumer.accept(Arrays.copyOf(buffer, read));
+    }
+  }
+
+  private void destroyProcesses(String containerId) {
+    var processes = containerProcesses.remove(containerId);
+    if (processes != null) processes.forEach(Process::destroyForcibly);
+  }
+
+  private static void deleteRecursively(Path directory) {
+    if (!Files.exists(directory)) return;
+
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (var file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList()))
+        Files.delete(file);
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
+    }
+  }
+}
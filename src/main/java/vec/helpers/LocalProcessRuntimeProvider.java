@@ -0,0 +1,19 @@
+package vec.helpers;
+
+import java.nio.file.Path;
+
+/** provides the {@link LocalProcessRuntime} */
+public class LocalProcessRuntimeProvider implements ContainerRuntimeProvider {
+  public static final String NAME = "local-process";
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public ContainerRuntime create(
+      boolean bindMountClasspath, Path projectDirectory, Path workDirectory) {
+    return new LocalProcessRuntime(bindMountClasspath, projectDirectory, workDirectory);
+  }
+}
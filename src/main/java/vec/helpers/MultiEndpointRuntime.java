@@ -0,0 +1,384 @@
+package vec.helpers;
+
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * a {@link ContainerRuntime} spreading the testing containers over many runtimes, usually one for
+ * every docker daemon. A new container goes to the reachable endpoint with the fewest containers
+ * relative to its weight, and the following operations on the container go to the endpoint that
+ * created it. When an operation fails and the endpoint is not reachable anymore, the endpoint is
+ * marked unhealthy and no other container is placed on it.
+ *
+ * <p>The endpoints do not share the file system of the engine, so the classpath has to be copied in
+ * the containers. Images are expected on every endpoint: derived images are built on all the
+ * healthy ones.
+ */
+public class MultiEndpointRuntime implements ContainerRuntime {
+  private final List<Endpoint> endpoints;
+  /** the key is the container id, the value is the endpoint running it */
+  private final Map<String, Endpoint> containerEndpoints = new ConcurrentHashMap<>();
+  /**
+   * the containers placed by this runtime and not stopped yet, they are the load of the endpoints
+   */
+  private final Set<String> placedContainers = ConcurrentHashMap.newKeySet();
+
+  public MultiEndpointRuntime(List<Endpoint> endpoints) {
+    if (endpoints.isEmpty())
+      throw new IllegalArgumentException("at least one endpoint is needed to place the containers");
+
+    this.endpoints = List.copyOf(endpoints);
+  }
+
+  @Override
+  public String createTestingContainer(
+      String image, String containerName, ResourceLimits resourceLimits) {
+    return placeContainer(
+        runtime -> runtime.createTestingContainer(image, containerName, resourceLimits));
+  }
+
+  @Override
+  public String createReusableTestingContainer(
+      String image, String containerName, ResourceLimits resourceLimits, String reuseHash) {
+    return placeContainer(
+        runtime ->
+            runtime.createReusableTestingContainer(
+                image, containerName, resourceLimits, reuseHash));
+  }
+
+  /** the endpoints are configured in the same way, so they compute the same hash */
+  @Override
+  public String computeReuseHash(
+      String image, ResourceLimits resourceLimits, String engineVersion) {
+    return endpoints.get(0).runtime.computeReuseHash(image, resourceLimits, engineVersion);
+  }
+
+  /** the container is looked for in every healthy endpoint, the first one found is reused */
+  @Override
+  public Optional<String> findReusableContainer(String containerName, String reuseHash) {
+    for (var endpoint : getHealthyEndpoints()) {
+      var containerId =
+          onEndpoint(endpoint, runtime -> runtime.findReusableContainer(containerName, reuseHash));
+      if (containerId.isPresent()) {
+        registerPlacedContainer(containerId.get(), endpoint);
+        return containerId;
+      }
+    }
+
+    return Optional.empty();
+  }
+
+  @Override
+  public Map<String, Long> listReusableContainers() {
+    Map<String, Long> reusableContainers = new HashMap<>();
+    for (var endpoint : getHealthyEndpoints()) {
+      var endpointContainers = onEndpoint(endpoint, ContainerRuntime::listReusableContainers);
+      endpointContainers
+          .keySet()
+          .forEach(containerId -> containerEndpoints.put(containerId, endpoint));
+      reusableContainers.putAll(endpointContainers);
+    }
+
+    return reusableContainers;
+  }
+
+  @Override
+  public void startContainer(String containerId) {
+    onContainer(
+        containerId,
+        runtime -> {
+          runtime.startContainer(containerId);
+          return null;
+        });
+  }
+
+  @Override
+  public void stopTestingContainer(String containerId) {
+    try {
+      onContainer(
+          containerId,
+          runtime -> {
+            runtime.stopTestingContainer(containerId);
+            return null;
+          });
+    } finally {
+      releaseContainer(containerId);
+    }
+  }
+
+  @Override
+  public void removeTestingContainer(String containerId) {
+    try {
+      onContainer(
+          containerId,
+          runtime -> {
+            runtime.removeTestingContainer(containerId);
+            return null;
+          });
+    } finally {
+      releaseContainer(containerId);
+    }
+  }
+
+  @Override
+  public void copyArchiveToContainer(String containerId, Path tarArchive) {
+    onContainer(
+        containerId,
+        runtime -> {
+          runtime.copyArchiveToContainer(containerId, tarArchive);
+          return null;
+        });
+  }
+
+  @Override
+  public void removeFilesFromContainer(String containerId, List<String> relativePaths) {
+    onContainer(
+        containerId,
+        runtime -> {
+          runtime.removeFilesFromContainer(containerId, relativePaths);
+          return null;
+        });
+  }
+
+  @Override
+  public Closeable runTestsInsideContainer(
+      String containerId, List<String> methodFullyQualifiedNames, ResultEventHandler handler) {
+    return onContainer(
+        containerId,
+        runtime ->
+            runtime.runTestsInsideContainer(containerId, methodFullyQualifiedNames, handler));
+  }
+
+  @Override
+  public LauncherAgentSession startLauncherAgent(String containerId) {
+    return onContainer(containerId, runtime -> runtime.startLauncherAgent(containerId));
+  }
+
+  @Override
+  public void killProcess(String containerId, long processId) {
+    onContainer(
+        containerId,
+        runtime -> {
+          runtime.killProcess(containerId, processId);
+          return null;
+        });
+  }
+
+  @Override
+  public Optional<ContainerStats> getStats(String containerId) {
+    return onContainer(containerId, runtime -> runtime.getStats(containerId));
+  }
+
+  /** true while a container can be placed on one of the endpoints */
+  @Override
+  public boolean isReachable() {
+    return !getHealthyEndpoints().isEmpty();
+  }
+
+  /**
+   * @return the details of the image on the first healthy endpoint, empty if the image is missing
+   *     on any of them
+   */
+  @Override
+  public Optional<ImageDetails> inspectImage(String image) {
+    Optional<ImageDetails> imageDetails = Optional.empty();
+    for (var endpoint : getHealthyEndpoints()) {
+      var endpointImageDetails = onEndpoint(endpoint, runtime -> runtime.inspectImage(image));
+      if (endpointImageDetails.isEmpty()) return Optional.empty();
+      if (imageDetails.isEmpty()) imageDetails = endpointImageDetails;
+    }
+
+    return imageDetails;
+  }
+
+  /** pulls the image on every healthy endpoint missing it */
+  @Override
+  public void pullImage(String image) {
+    for (var endpoint : getHealthyEndpoints()) {
+      onEndpoint(
+          endpoint,
+          runtime -> {
+            if (runtime.inspectImage(image).isEmpty()) runtime.pullImage(image);
+            return null;
+          });
+    }
+  }
+
+  /**
+   * builds the image on every healthy endpoint
+   *
+   * @return the id of the image built on the first one
+   */
+  @Override
+  public String buildImage(Path buildContext, String tag) {
+    String imageId = null;
+    for (var endpoint : getHealthyEndpoints()) {
+      var endpointImageId = onEndpoint(endpoint, runtime -> runtime.buildImage(buildContext, tag));
+      if (imageId == null) imageId = endpointImageId;
+    }
+    if (imageId == null) throw newNoHealthyEndpointException();
+
+    return imageId;
+  }
+
+  /** every endpoint is closed, even if closing another one fails */
+  @Override
+  public void close() {
+    RuntimeException closeFailure = null;
+    for (var endpoint : endpoints) {
+      try {
+        endpoint.runtime.close();
+      } catch (RuntimeException exc) {
+        if (closeFailure == null) closeFailure = exc;
+        else closeFailure.addSuppressed(exc);
+      }
+    }
+    if (closeFailure != null) throw closeFailure;
+  }
+
+  /**
+   * @return the map (endpoint name, number of containers placed on it and not stopped yet)
+   */
+  public Map<String, Integer> getPlacedContainers() {
+    Map<String, Integer> placedContainerCounts = new HashMap<>();
+    for (var endpoint : endpoints) placedContainerCounts.put(endpoint.name, 0);
+    for (var containerId : placedContainers)
+      placedContainerCounts.merge(containerEndpoints.get(containerId).name, 1, Integer::sum);
+
+    return placedContainerCounts;
+  }
+
+  /**
+   * @return the names of the endpoints marked unhealthy
+   */
+  public Set<String> getUnhealthyEndpoints() {
+    return endpoints.stream()
+        .filter(endpoint -> !endpoint.healthy)
+        .map(endpoint -> endpoint.name)
+        .collect(Collectors.toSet());
+  }
+
+  /**
+   * creates the container on the healthy endpoint with the lowest load for its weight. If the
+   * creation fails, the following endpoints are tried, and the exception of the first failure is
+   * thrown when none of them succeeds.
+   */
+  private String placeContainer(Function<ContainerRuntime, String> containerCreation) {
+    Set<Endpoint> failedEndpoints = new HashSet<>();
+    RuntimeException creationFailure = null;
+    while (true) {
+      Endpoint endpoint;
+      synchronized (this) {
+        endpoint =
+            getHealthyEndpoints().stream()
+                .filter(candidate -> !failedEndpoints.contains(candidate))
+                .min(
+                    Comparator.comparingDouble(
+                        candidate -> (candidate.load + 1.0) / candidate.weight))
+                .orElse(null);
+        // reserved while the container is created, so that concurrent creations see it
+        if (endpoint != null) endpoint.load++;
+      }
+      if (endpoint == null) {
+        if (creationFailure != null) throw creationFailure;
+        throw newNoHealthyEndpointException();
+      }
+
+      try {
+        var containerId = onEndpoint(endpoint, containerCreation);
+        containerEndpoints.put(containerId, endpoint);
+        placedContainers.add(containerId);
+        return containerId;
+      } catch (RuntimeException exc) {
+        synchronized (this) {
+          endpoint.load--;
+        }
+        failedEndpoints.add(endpoint);
+        if (creationFailure == null) creationFailure = exc;
+        else creationFailure.addSuppressed(exc);
+      }
+    }
+  }
+
+  private void registerPlacedContainer(String containerId, Endpoint endpoint) {
+    containerEndpoints.put(containerId, endpoint);
+    if (placedContainers.add(containerId)) {
+      synchronized (this) {
+        endpoint.load++;
+      }
+    }
+  }
+
+  private void releaseContainer(String containerId) {
+    if (!placedContainers.remove(containerId)) return;
+
+    var endpoint = containerEndpoints.get(containerId);
+    synchronized (this) {
+      endpoint.load--;
+    }
+  }
+
+  private <T> T onContainer(String containerId, Function<ContainerRuntime, T> operation) {
+    var endpoint = containerEndpoints.get(containerId);
+    if (endpoint == null)
+      throw new IllegalStateException(
+          String.format("container %s has not been created by any endpoint", containerId));
+
+    return onEndpoint(endpoint, operation);
+  }
+
+  /** a failed operation marks the endpoint unhealthy if it does not answer anymore */
+  private static <T> T onEndpoint(Endpoint endpoint, Function<ContainerRuntime, T> operation) {
+    try {
+      return operation.apply(endpoint.runtime);
+    } catch (RuntimeException exc) {
+      if (!endpoint.runtime.isReachable()) endpoint.healthy = false;
+      throw exc;
+    }
+  }
+
+  private List<Endpoint> getHealthyEndpoints() {
+    return endpoints.stream().filter(endpoint -> endpoint.healthy).collect(Collectors.toList());
+  }
+
+  private IllegalStateException newNoHealthyEndpointException() {
+    return new IllegalStateException(
+        String.format(
+            "No healthy endpoint can take the container, unhealthy endpoints: %s",
+            getUnhealthyEndpoints()));
+  }
+
+  /** a runtime the containers can be placed on, with its capacity weight */
+  public static class Endpoint {
+    private final String name;
+    private final ContainerRuntime runtime;
+    private final int weight;
+    /** containers placed and not stopped yet, guarded by the runtime */
+    private int load = 0;
+
+    private volatile boolean healthy = true;
+
+    /**
+     * @param weight an endpoint with weight 2 receives twice the containers of one with weight 1
+     */
+    public Endpoint(String name, ContainerRuntime runtime, int weight) {
+      if (weight <= 0)
+        throw new IllegalArgumentException(
+            String.format("the weight of the endpoint %s must be at least 1", name));
+
+      this.name = name;
+      this.runtime = runtime;
+      this.weight = weight;
+    }
+  }
+}
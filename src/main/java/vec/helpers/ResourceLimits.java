@@ -0,0 +1,88 @@
+package vec.helpers;
+
+import java.util.Locale;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * cpu, memory and pids limits of a testing container, 0 means unlimited. Runtimes that cannot
+ * enforce a limit ignore it.
+ */
+public class ResourceLimits {
+  public static final ResourceLimits NONE = new ResourceLimits(0, 0, 0);
+
+  /** a number of bytes followed by an optional unit: b, k, m, g (case insensitive) */
+  public static final Pattern MEMORY_SIZE_PATTERN =
+      Pattern.compile("(\\d+)\\s*([bkmg])?", Pattern.CASE_INSENSITIVE);
+
+  /** number of cores, it can be fractional */
+  public final double cpus;
+
+  public final long memoryBytes;
+  /** maximum number of processes (and threads) in the container */
+  public final long pidsLimit;
+
+  public ResourceLimits(double cpus, long memoryBytes, long pidsLimit) {
+    if (cpus < 0 || memoryBytes < 0 || pidsLimit < 0)
+      throw new IllegalArgumentException("resource limits cannot be negative");
+
+    this.cpus = cpus;
+    this.memoryBytes = memoryBytes;
+    this.pidsLimit = pidsLimit;
+  }
+
+  /**
+   * @param memorySize for example 512m or 2g, an empty string is 0
+   */
+  public static long parseMemorySize(String memorySize) {
+    if (memorySize.isBlank()) return 0;
+
+    var matcher = MEMORY_SIZE_PATTERN.matcher(memorySize.trim());
+    if (!matcher.matches())
+      throw new IllegalArgumentException(String.format("Invalid memory size: %s", memorySize));
+
+    long amount = Long.parseLong(matcher.group(1));
+    var unit = matcher.group(2) == null ? "b" : matcher.group(2).toLowerCase(Locale.ROOT);
+    switch (unit) {
+      case "k":
+        return amount * 1024;
+      case "m":
+        return amount * 1024 * 1024;
+      case "g":
+        return amount * 1024 * 1024 * 1024;
+      default:
+        return amount;
+    }
+  }
+
+  /** the cpus in the unit of the docker api, billionths of a core */
+  public long getNanoCpus() {
+    return Math.round(cpus * 1_000_000_000);
+  }
+
+  public boolean isUnlimited() {
+    return cpus == 0 && memoryBytes == 0 && pidsLimit == 0;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) return true;
+    if (!(other instanceof ResourceLimits)) return false;
+
+    var otherLimits = (ResourceLimits) other;
+    return getNanoCpus() == otherLimits.getNanoCpus()
+        && memoryBytes == otherLimits.memoryBytes
+        && pidsLimit == otherLimits.pidsLimit;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(getNanoCpus(), memoryBytes, pidsLimit);
+  }
+
+  /** it is part of the reuse hash of the containers, so it must not change between versions */
+  @Override
+  public String toString() {
+    return String.format(Locale.ROOT, "cpus=%.3f memory=%d pids=%d", cpus, memoryBytes, pidsLimit);
+  }
+}
@@ -0,0 +1,19 @@
+package vec.helpers;
+
+import vec.engine.launcher.ResultEvent;
+
+/** receives what a test run inside a container sends to the engine, while the run goes on */
+public interface ResultEventHandler {
+  /** called for every event decoded from the result channel, in the order they are sent */
+  void onEvent(ResultEvent event);
+
+  /** called with the raw standard error of the run */
+  void onStandardError(byte[] chunk);
+
+  /**
+   * called once, when the run is complete. No method is called after this one.
+   *
+   * @param failure the reason why the run ended abruptly, null if it ended normally
+   */
+  void onRunEnded(Throwable failure);
+}
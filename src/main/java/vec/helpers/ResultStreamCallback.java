@@ -0,0 +1,40 @@
+package vec.helpers;
+
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.model.Frame;
+
+/** callback of a docker exec running tests inside a container, see {@link ResultStreamDecoder} */
+class ResultStreamCallback extends ResultCallback.Adapter<Frame> {
+  private final ResultStreamDecoder resultStreamDecoder;
+
+  ResultStreamCallback(ResultStreamDecoder resultStreamDecoder) {
+    this.resultStreamDecoder = resultStreamDecoder;
+  }
+
+  @Override
+  public void onNext(Frame frame) {
+    switch (frame.getStreamType()) {
+      case STDOUT:
+      case RAW:
+        resultStreamDecoder.onStandardOutput(frame.getPayload());
+        break;
+      case STDERR:
+        resultStreamDecoder.onStandardError(frame.getPayload());
+        break;
+      default:
+        break;
+    }
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    resultStreamDecoder.onError(throwable);
+    super.onError(throwable);
+  }
+
+  @Override
+  public void onComplete() {
+    resultStreamDecoder.onComplete();
+    super.onComplete();
+  }
+}
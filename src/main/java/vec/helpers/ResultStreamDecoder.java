@@ -0,0 +1,45 @@
+package vec.helpers;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import vec.engine.launcher.ResultEventCodec;
+
+/**
+ * decodes the output of a process running tests inside a container, whatever the runtime. The
+ * standard output is the result channel and it is decoded while the frames arrive, the standard
+ * error is passed as it is. The handler is told once that the run has ended.
+ */
+class ResultStreamDecoder {
+  private final ResultEventHandler handler;
+  private final ResultEventCodec.Decoder decoder;
+  private final AtomicBoolean ended = new AtomicBoolean(false);
+
+  ResultStreamDecoder(ResultEventHandler handler) {
+    this.handler = handler;
+    this.decoder = new ResultEventCodec.Decoder(handler::onEvent);
+  }
+
+  /** chunks of the standard output must be passed in order, by one thread at a time */
+  void onStandardOutput(byte[] chunk) {
+    decoder.feed(chunk);
+  }
+
+  void onStandardError(byte[] chunk) {
+    handler.onStandardError(chunk);
+  }
+
+  void onError(Throwable throwable) {
+    end(throwable);
+  }
+
+  /** to be called when the process has terminated and its output has been read */
+  void onComplete() {
+    end(
+        decoder.hasPartialFrame()
+            ? new IllegalStateException("the result channel has been truncated")
+            : null);
+  }
+
+  private void end(Throwable failure) {
+    if (ended.compareAndSet(false, true)) handler.onRunEnded(failure);
+  }
+}
@@ -9,6 +9,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.platform.testkit.engine.EngineExecutionResults;
 import org.junit.platform.testkit.engine.EngineTestKit;
 import org.junit.platform.testkit.engine.Events;
+import org.opentest4j.AssertionFailedError;
 import vec.engine.sample.AnnotatedClass;
 
 public class DockerEngineForClassTest {
@@ -19,14 +20,14 @@ public class DockerEngineForClassTest {
   public void annotatedClass_testStatisticsForTests() {
     executionResults
         .testEvents()
-        .assertStatistics(stats -> stats.started(6).succeeded(2).aborted(1).failed(3));
+        .assertStatistics(stats -> stats.started(9).succeeded(4).aborted(1).failed(4));
   }
 
   @Test
   public void annotatedClass_testStatisticsForContainers() {
     executionResults
         .containerEvents()
-        .assertStatistics(stats -> stats.started(2).succeeded(2).failed(0));
+        .assertStatistics(stats -> stats.started(5).succeeded(5).failed(0));
   }
 
   @Test
@@ -35,14 +36,27 @@ public class DockerEngineForClassTest {
 
     testEvents
         .assertThatEvents()
-        .haveExactly(1, event(test("parameterized_Successful"), finishedSuccessfully()))
+        .haveExactly(2, event(test("parameterized_Successful"), finishedSuccessfully()))
+        .haveExactly(1, event(test("parameterized_OnlyOneSuccessful"), finishedWithFailure()))
         .haveExactly(
             1,
             event(
                 test("simple_Failed"),
-                finishedWithFailure(
-                    instanceOf(RuntimeException.class),
-                    message("Some tests failed. Check container logs"))))
+                finishedWithFailure(instanceOf(AssertionFailedError.class), message("This fails"))))
         .doNotHave(event(test("simple_Undiscovered"), started()));
   }
+
+  @Test
+  public void annotatedClass_parameterizedInvocationsAsDynamicTests() {
+    executionResults
+        .allEvents()
+        .assertThatEvents()
+        .haveExactly(6, event(dynamicTestRegistered("test-template-invocation:#")))
+        .haveExactly(1, event(container("parameterized_BothFailed"), finishedSuccessfully()))
+        .haveExactly(
+            2,
+            event(
+                test("parameterized_BothFailed"),
+                finishedWithFailure(instanceOf(AssertionFailedError.class))));
+  }
 }
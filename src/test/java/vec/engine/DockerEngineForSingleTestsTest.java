@@ -10,6 +10,8 @@ import org.junit.jupiter.api.Test;
 import org.junit.platform.testkit.engine.EngineExecutionResults;
 import org.junit.platform.testkit.engine.EngineTestKit;
 import org.junit.platform.testkit.engine.Events;
+import org.opentest4j.AssertionFailedError;
+import org.opentest4j.TestAbortedException;
 import vec.engine.sample.AnnotatedSingleTests;
 
 public class DockerEngineForSingleTestsTest {
@@ -28,15 +30,16 @@ public class DockerEngineForSingleTestsTest {
         event(test("simple_Aborted"), started()),
         event(
             test("simple_Aborted"),
-            abortedWithReason(message("Some tests aborted. Check container logs"))),
+            abortedWithReason(
+                instanceOf(TestAbortedException.class),
+                message("Assumption failed: Assumption not satisfied"))),
         event(test("simple_Successful"), started()),
         event(test("simple_Successful"), finishedSuccessfully()),
         event(test("simple_Failed"), started()),
         event(
             test("simple_Failed"),
             finishedWithFailure(
-                instanceOf(RuntimeException.class),
-                message("Some tests failed. Check container logs"))),
+                instanceOf(AssertionFailedError.class), message("Another failure"))),
         event(container(AnnotatedSingleTests.class), finishedSuccessfully()),
         event(engine(), finishedSuccessfully()));
   }
@@ -49,15 +52,16 @@ public class DockerEngineForSingleTestsTest {
         event(test("simple_Aborted"), started()),
         event(
             test("simple_Aborted"),
-            abortedWithReason(message("Some tests aborted. Check container logs"))),
+            abortedWithReason(
+                instanceOf(TestAbortedException.class),
+                message("Assumption failed: Assumption not satisfied"))),
         event(test("simple_Successful"), started()),
         event(test("simple_Successful"), finishedSuccessfully()),
         event(test("simple_Failed"), started()),
         event(
             test("simple_Failed"),
             finishedWithFailure(
-                instanceOf(RuntimeException.class),
-                message("Some tests failed. Check container logs"))));
+                instanceOf(AssertionFailedError.class), message("Another failure"))));
   }
 
   @Test
@@ -70,12 +74,13 @@ public class DockerEngineForSingleTestsTest {
         event(test("simple_Failed"), started()),
         event(
             test("simple_Aborted"),
-            abortedWithReason(message("Some tests aborted. Check container logs"))),
+            abortedWithReason(
+                instanceOf(TestAbortedException.class),
+                message("Assumption failed: Assumption not satisfied"))),
         event(test("simple_Successful"), finishedSuccessfully()),
         event(
             test("simple_Failed"),
             finishedWithFailure(
-                instanceOf(RuntimeException.class),
-                message("Some tests failed. Check container logs"))));
+                instanceOf(AssertionFailedError.class), message("Another failure"))));
   }
 }
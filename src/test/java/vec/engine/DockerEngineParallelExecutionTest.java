@@ -0,0 +1,37 @@
+package vec.engine;
+
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClass;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.testkit.engine.EngineExecutionResults;
+import org.junit.platform.testkit.engine.EngineTestKit;
+import vec.engine.impl.DockerEngineConfiguration;
+import vec.engine.sample.AnnotatedClass;
+import vec.engine.sample.AnnotatedSingleTests;
+
+public class DockerEngineParallelExecutionTest {
+  private static final EngineExecutionResults executionResults =
+      EngineTestKit.engine("docker-engine")
+          .configurationParameter(
+              DockerEngineConfiguration.PARALLEL_EXECUTION_ENABLED_PROPERTY_NAME, "true")
+          .configurationParameter(
+              DockerEngineConfiguration.DEFAULT_PARALLEL_EXECUTION_MODE_PROPERTY_NAME, "concurrent")
+          .configurationParameter(
+              DockerEngineConfiguration.MAX_CONCURRENT_EXECS_PER_CONTAINER_PROPERTY_NAME, "2")
+          .selectors(selectClass(AnnotatedClass.class), selectClass(AnnotatedSingleTests.class))
+          .execute();
+
+  @Test
+  public void parallelExecution_testStatisticsForTests() {
+    executionResults
+        .testEvents()
+        .assertStatistics(stats -> stats.started(12).succeeded(5).aborted(2).failed(5));
+  }
+
+  @Test
+  public void parallelExecution_testStatisticsForContainers() {
+    executionResults
+        .containerEvents()
+        .assertStatistics(stats -> stats.started(6).succeeded(6).failed(0));
+  }
+}
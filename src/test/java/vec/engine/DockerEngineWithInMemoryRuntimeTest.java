@@ -0,0 +1,306 @@
+package vec.engine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClass;
+import static org.junit.platform.testkit.engine.EventConditions.*;
+import static org.junit.platform.testkit.engine.TestExecutionResultConditions.instanceOf;
+import static org.junit.platform.testkit.engine.TestExecutionResultConditions.message;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.platform.commons.PreconditionViolationException;
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.reporting.ReportEntry;
+import org.junit.platform.testkit.engine.EngineExecutionResults;
+import org.junit.platform.testkit.engine.EngineTestKit;
+import org.opentest4j.AssertionFailedError;
+import vec.engine.impl.DockerEngineConfiguration;
+import vec.engine.sample.AnnotatedClass;
+import vec.engine.sample.AnnotatedSingleTests;
+import vec.engine.sample.DisabledTests;
+import vec.engine.sample.FailFastTests;
+import vec.engine.sample.ParameterizedReplicatedTests;
+import vec.engine.sample.TimeoutTests;
+import vec.helpers.InMemoryRuntimeProvider;
+import vec.helpers.LocalProcessRuntimeProvider;
+
+public class DockerEngineWithInMemoryRuntimeTest {
+  /**
+   * every run gets its own work dir, so that the logs, the result cache and the duration history of
+   * a run do not change the results of the following ones
+   */
+  private static EngineTestKit.Builder inMemoryEngine(Path workDir) {
+    return EngineTestKit.engine("docker-engine")
+        .configurationParameter(
+            DockerEngineConfiguration.RUNTIME_PROPERTY_NAME, InMemoryRuntimeProvider.NAME)
+        .configurationParameter(
+            DockerEngineConfiguration.WORK_DIR_PROPERTY_NAME, workDir.toString());
+  }
+
+  private static EngineExecutionResults execute(Path workDir, String executionMode) {
+    return inMemoryEngine(workDir)
+        .configurationParameter(
+            DockerEngineConfiguration.EXECUTION_MODE_PROPERTY_NAME, executionMode)
+        .selectors(selectClass(AnnotatedClass.class))
+        .execute();
+  }
+
+  private static EngineExecutionResults executeWithLazyLifecycle(
+      Path workDir, String executionMode) {
+    return inMemoryEngine(workDir)
+        .configurationParameter(
+            DockerEngineConfiguration.EXECUTION_MODE_PROPERTY_NAME, executionMode)
+        .configurationParameter(
+            DockerEngineConfiguration.CONTAINER_LIFECYCLE_LAZY_PROPERTY_NAME, "true")
+        .selectors(selectClass(AnnotatedSingleTests.class))
+        .execute();
+  }
+
+  @Test
+  public void inMemoryRuntime_perMethod_sameResultsOfDocker(@TempDir Path workDir) {
+    var executionResults = execute(workDir, "per_method");
+
+    executionResults
+        .testEvents()
+        .assertStatistics(stats -> stats.started(9).succeeded(4).aborted(1).failed(4));
+    executionResults
+        .containerEvents()
+        .assertStatistics(stats -> stats.started(5).succeeded(5).failed(0));
+    executionResults
+        .testEvents()
+        .assertThatEvents()
+        .haveExactly(
+            1,
+            event(
+                test("simple_Failed"),
+                finishedWithFailure(
+                    instanceOf(AssertionFailedError.class), message("This fails"))));
+  }
+
+  @Test
+  public void inMemoryRuntime_launcherAgent_sameResultsOfDocker(@TempDir Path workDir) {
+    execute(workDir, "launcher_agent")
+        .testEvents()
+        .assertStatistics(stats -> stats.started(9).succeeded(4).aborted(1).failed(4));
+  }
+
+  @Test
+  public void inMemoryRuntime_lazyLifecycle_everyContainerStoppedOnce(@TempDir Path workDir) {
+    for (var executionMode : List.of("per_method", "launcher_agent", "batch")) {
+      var executionResults =
+          executeWithLazyLifecycle(workDir.resolve(executionMode), executionMode);
+
+      executionResults
+          .testEvents()
+          .assertStatistics(stats -> stats.started(3).succeeded(1).aborted(1).failed(1));
+      var stoppedContainers =
+          executionResults
+              .allEvents()
+              .reportingEntryPublished()
+              .map(event -> event.getPayload(ReportEntry.class).orElseThrow().getKeyValuePairs())
+              .filter(keyValuePairs -> keyValuePairs.containsKey("stop"))
+              .map(keyValuePairs -> keyValuePairs.get("container"))
+              .collect(Collectors.toList());
+      assertThat(stoppedContainers).containsExactlyInAnyOrder("junit-cl", "junit-cl1");
+    }
+  }
+
+  @Test
+  public void inMemoryRuntime_testTimesOut_failedWithTimeoutAndOthersRun(@TempDir Path workDir) {
+    for (var executionMode : List.of("per_method", "launcher_agent", "batch")) {
+      long start = System.nanoTime();
+      var executionResults =
+          inMemoryEngine(workDir.resolve(executionMode))
+              .configurationParameter(
+                  DockerEngineConfiguration.EXECUTION_MODE_PROPERTY_NAME, executionMode)
+              .selectors(selectClass(TimeoutTests.class))
+              .execute();
+
+      executionResults.testEvents().assertStatistics(stats -> stats.succeeded(1).failed(1));
+      var failure =
+          executionResults
+              .testEvents()
+              .failed()
+              .map(event -> event.getPayload(TestExecutionResult.class).orElseThrow())
+              .findFirst()
+              .flatMap(TestExecutionResult::getThrowable)
+              .orElseThrow();
+      assertThat(failure)
+          .isInstanceOf(TimeoutException.class)
+          .hasMessageContaining("sleep_TimedOut");
+      assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(30));
+    }
+  }
+
+  @Test
+  public void inMemoryRuntime_invocationSharding_invocationsSplitAcrossReplicas(
+      @TempDir Path workDir) {
+    for (var executionMode : List.of("per_method", "launcher_agent")) {
+      var executionResults =
+          inMemoryEngine(workDir.resolve(executionMode))
+              .configurationParameter(
+                  DockerEngineConfiguration.EXECUTION_MODE_PROPERTY_NAME, executionMode)
+              .configurationParameter(
+                  DockerEngineConfiguration.INVOCATION_SHARDING_ENABLED_PROPERTY_NAME, "true")
+              .selectors(selectClass(ParameterizedReplicatedTests.class))
+              .execute();
+
+      executionResults
+          .testEvents()
+          .assertStatistics(stats -> stats.started(5).succeeded(4).skipped(0).failed(1));
+      var shardOutputs =
+          executionResults
+              .allEvents()
+              .reportingEntryPublished()
+              .map(event -> event.getPayload(ReportEntry.class).orElseThrow().getKeyValuePairs())
+              .filter(keyValuePairs -> keyValuePairs.containsKey("stdout"))
+              .count();
+      assertThat(shardOutputs).isEqualTo(2);
+    }
+  }
+
+  @Test
+  public void inMemoryRuntime_longestFirstScheduling_longestTestStartedFirst(@TempDir Path workDir)
+      throws IOException {
+    var methodIdPrefix =
+        "[engine:docker-engine]/[class:" + AnnotatedSingleTests.class.getCanonicalName() + "]";
+    Files.writeString(
+        workDir.resolve("duration-history.properties"),
+        String.join(
+            "\n",
+            escapeKey(methodIdPrefix + "/[method:simple_Successful]") + "=1000000000",
+            escapeKey(methodIdPrefix + "/[method:simple_Failed]") + "=3000000000",
+            escapeKey(methodIdPrefix + "/[method:simple_Aborted]") + "=2000000000"));
+
+    var executionResults =
+        inMemoryEngine(workDir)
+            .configurationParameter(
+                DockerEngineConfiguration.LONGEST_FIRST_SCHEDULING_ENABLED_PROPERTY_NAME, "true")
+            .selectors(selectClass(AnnotatedSingleTests.class))
+            .execute();
+
+    assertThat(
+            executionResults
+                .testEvents()
+                .started()
+                .map(event -> event.getTestDescriptor().getDisplayName())
+                .collect(Collectors.toList()))
+        .containsExactly("simple_Failed", "simple_Aborted", "simple_Successful");
+    var makespan =
+        executionResults
+            .allEvents()
+            .reportingEntryPublished()
+            .map(event -> event.getPayload(ReportEntry.class).orElseThrow().getKeyValuePairs())
+            .filter(keyValuePairs -> keyValuePairs.containsKey("predicted-makespan"))
+            .findFirst()
+            .orElseThrow();
+    assertThat(makespan).containsEntry("predicted-makespan", "6000.000 ms");
+    assertThat(makespan).containsKey("actual-makespan");
+    assertThat(Files.readString(workDir.resolve("duration-history.properties")))
+        .doesNotContain("=1000000000");
+  }
+
+  @Test
+  public void inMemoryRuntime_failFastThreshold_remainingTestsSkipped(@TempDir Path workDir) {
+    for (var executionMode : List.of("per_method", "launcher_agent", "batch")) {
+      var executionResults =
+          inMemoryEngine(workDir.resolve(executionMode))
+              .configurationParameter(
+                  DockerEngineConfiguration.EXECUTION_MODE_PROPERTY_NAME, executionMode)
+              .configurationParameter(
+                  DockerEngineConfiguration.FAIL_FAST_THRESHOLD_PROPERTY_NAME, "2")
+              .selectors(selectClass(AnnotatedClass.class))
+              .execute();
+
+      executionResults.testEvents().assertStatistics(stats -> stats.failed(2));
+      var skipReasons =
+          executionResults
+              .allEvents()
+              .skipped()
+              .map(event -> event.getPayload(String.class).orElseThrow())
+              .collect(Collectors.toList());
+      assertThat(skipReasons).isNotEmpty().allMatch(reason -> reason.startsWith("Fail fast"));
+    }
+  }
+
+  @Test
+  public void inMemoryRuntime_failFastThresholdReached_runningProcessKilled(@TempDir Path workDir)
+      throws InterruptedException {
+    for (var executionMode : List.of("per_method", "launcher_agent", "batch")) {
+      long start = System.nanoTime();
+      var executionResults =
+          inMemoryEngine(workDir.resolve(executionMode))
+              .configurationParameter(
+                  DockerEngineConfiguration.EXECUTION_MODE_PROPERTY_NAME, executionMode)
+              .configurationParameter(
+                  DockerEngineConfiguration.FAIL_FAST_THRESHOLD_PROPERTY_NAME, "1")
+              .selectors(selectClass(FailFastTests.class))
+              .execute();
+
+      executionResults.testEvents().assertStatistics(stats -> stats.failed(1));
+      assertThat(FailFastTests.INTERRUPTED_SLEEPS.tryAcquire(5, TimeUnit.SECONDS)).isTrue();
+      assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(30));
+    }
+  }
+
+  @Test
+  public void inMemoryRuntime_disabledMethod_skippedOnHost(@TempDir Path workDir) {
+    for (var executionMode : List.of("per_method", "launcher_agent", "batch")) {
+      var executionResults =
+          inMemoryEngine(workDir.resolve(executionMode))
+              .configurationParameter(
+                  DockerEngineConfiguration.EXECUTION_MODE_PROPERTY_NAME, executionMode)
+              .selectors(selectClass(DisabledTests.class))
+              .execute();
+
+      executionResults
+          .testEvents()
+          .assertStatistics(stats -> stats.skipped(1).succeeded(1).aborted(0));
+      assertThat(
+              executionResults
+                  .testEvents()
+                  .skipped()
+                  .map(event -> event.getPayload(String.class).orElseThrow())
+                  .collect(Collectors.toList()))
+          .containsExactly("not ready");
+    }
+  }
+
+  @Test
+  public void localProcessRuntime_derivedImageEnabled_engineFailsBeforeRunning(
+      @TempDir Path workDir) {
+    var executionResults =
+        inMemoryEngine(workDir)
+            .configurationParameter(
+                DockerEngineConfiguration.RUNTIME_PROPERTY_NAME, LocalProcessRuntimeProvider.NAME)
+            .configurationParameter(
+                DockerEngineConfiguration.DERIVED_IMAGE_ENABLED_PROPERTY_NAME, "true")
+            .selectors(selectClass(AnnotatedSingleTests.class))
+            .execute();
+
+    executionResults.testEvents().assertStatistics(stats -> stats.started(0));
+    var failure =
+        executionResults
+            .containerEvents()
+            .failed()
+            .map(event -> event.getPayload(TestExecutionResult.class).orElseThrow())
+            .findFirst()
+            .flatMap(TestExecutionResult::getThrowable)
+            .orElseThrow();
+    assertThat(failure)
+        .hasRootCauseInstanceOf(PreconditionViolationException.class)
+        .hasStackTraceContaining(DockerEngineConfiguration.DERIVED_IMAGE_ENABLED_PROPERTY_NAME);
+  }
+
+  private static String escapeKey(String key) {
+    return key.replace(":", "\\:").replace("=", "\\=");
+  }
+}
@@ -0,0 +1,49 @@
+package vec.engine;
+
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClass;
+import static org.junit.platform.testkit.engine.EventConditions.*;
+import static org.junit.platform.testkit.engine.TestExecutionResultConditions.instanceOf;
+import static org.junit.platform.testkit.engine.TestExecutionResultConditions.message;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.testkit.engine.EngineExecutionResults;
+import org.junit.platform.testkit.engine.EngineTestKit;
+import org.opentest4j.AssertionFailedError;
+import org.opentest4j.TestAbortedException;
+import vec.engine.impl.DockerEngineConfiguration;
+import vec.engine.sample.AnnotatedClass;
+import vec.engine.sample.AnnotatedSingleTests;
+
+public class DockerEngineWithLauncherAgentTest {
+  private static final EngineExecutionResults executionResults =
+      EngineTestKit.engine("docker-engine")
+          .configurationParameter(
+              DockerEngineConfiguration.EXECUTION_MODE_PROPERTY_NAME, "launcher_agent")
+          .selectors(selectClass(AnnotatedClass.class), selectClass(AnnotatedSingleTests.class))
+          .execute();
+
+  @Test
+  public void launcherAgent_testStatisticsForTests() {
+    executionResults
+        .testEvents()
+        .assertStatistics(stats -> stats.started(12).succeeded(5).aborted(2).failed(5));
+  }
+
+  @Test
+  public void launcherAgent_sameResultsOfPerMethodMode() {
+    executionResults
+        .testEvents()
+        .assertThatEvents()
+        .haveExactly(
+            2,
+            event(
+                test("simple_Failed"), finishedWithFailure(instanceOf(AssertionFailedError.class))))
+        .haveExactly(
+            2,
+            event(
+                test("simple_Aborted"),
+                abortedWithReason(
+                    instanceOf(TestAbortedException.class),
+                    message(reason -> reason.startsWith("Assumption failed")))));
+  }
+}
@@ -0,0 +1,41 @@
+package vec.engine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClass;
+
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.engine.reporting.ReportEntry;
+import org.junit.platform.testkit.engine.EngineExecutionResults;
+import org.junit.platform.testkit.engine.EngineTestKit;
+import vec.engine.impl.DockerEngineConfiguration;
+import vec.engine.sample.ReplicatedClass;
+
+public class DockerEngineWithReplicasTest {
+  private static final EngineExecutionResults executionResults =
+      EngineTestKit.engine("docker-engine")
+          .configurationParameter(
+              DockerEngineConfiguration.PARALLEL_EXECUTION_ENABLED_PROPERTY_NAME, "true")
+          .configurationParameter(
+              DockerEngineConfiguration.DEFAULT_PARALLEL_EXECUTION_MODE_PROPERTY_NAME, "concurrent")
+          .selectors(selectClass(ReplicatedClass.class))
+          .execute();
+
+  @Test
+  public void replicas_testStatisticsForTests() {
+    executionResults.testEvents().assertStatistics(stats -> stats.started(4).succeeded(4));
+  }
+
+  @Test
+  public void replicas_allReplicasStarted() {
+    var startedContainers =
+        executionResults.allEvents().reportingEntryPublished().stream()
+            .map(event -> event.getRequiredPayload(ReportEntry.class).getKeyValuePairs())
+            .filter(keyValuePairs -> keyValuePairs.containsKey("start"))
+            .map(keyValuePairs -> keyValuePairs.get("container"))
+            .collect(Collectors.toList());
+
+    assertThat(startedContainers)
+        .containsExactlyInAnyOrder("junit-cl-replicated-1", "junit-cl-replicated-2");
+  }
+}
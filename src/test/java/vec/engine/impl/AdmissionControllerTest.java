@@ -0,0 +1,78 @@
+package vec.engine.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.Test;
+import vec.helpers.ContainerStats;
+import vec.helpers.ResourceLimits;
+
+public class AdmissionControllerTest {
+  private static final long GIB = 1024 * 1024 * 1024;
+
+  @Test
+  public void admit_budgetExhausted_waitsForRelease() throws Exception {
+    var admissionController = new AdmissionController(2, 0);
+    var first = admissionController.admit("c1", ResourceLimits.NONE);
+    admissionController.admit("c2", ResourceLimits.NONE);
+
+    var third = admitAsync(admissionController, "c3", ResourceLimits.NONE);
+
+    assertThat(isAdmittedWithin(third, 200)).isFalse();
+    first.release();
+    assertThat(isAdmittedWithin(third, 5000)).isTrue();
+  }
+
+  @Test
+  public void admit_demandLargerThanBudget_admittedAlone() throws Exception {
+    var admissionController = new AdmissionController(0, GIB);
+    var hugeLimits = new ResourceLimits(0, 4 * GIB, 0);
+    var huge = admissionController.admit("c1", hugeLimits);
+
+    var next = admitAsync(admissionController, "c2", new ResourceLimits(0, GIB / 4, 0));
+
+    assertThat(isAdmittedWithin(next, 200)).isFalse();
+    huge.release();
+    huge.release();
+    assertThat(isAdmittedWithin(next, 5000)).isTrue();
+    assertThat(isAdmittedWithin(admitAsync(admissionController, "c3", hugeLimits), 200)).isFalse();
+  }
+
+  @Test
+  public void admit_noMemoryLimit_peakMeasuredUsageCommitted() throws Exception {
+    var admissionController = new AdmissionController(0, GIB);
+    admissionController.recordStats("c1", null, new ContainerStats(0, 600 * 1024 * 1024, 0, 1), 0);
+    admissionController.recordStats(
+        "c1", null, new ContainerStats(0, 100 * 1024 * 1024, 0, 1), 1_000_000);
+    admissionController.admit("c1", ResourceLimits.NONE);
+
+    assertThat(isAdmittedWithin(admitAsync(admissionController, "c1", ResourceLimits.NONE), 200))
+        .isFalse();
+    assertThat(isAdmittedWithin(admitAsync(admissionController, "c2", ResourceLimits.NONE), 200))
+        .isTrue();
+  }
+
+  private static CompletableFuture<AdmissionController.Admission> admitAsync(
+      AdmissionController admissionController, String containerName, ResourceLimits limits) {
+    return CompletableFuture.supplyAsync(
+        () -> {
+          try {
+            return admissionController.admit(containerName, limits);
+          } catch (InterruptedException exc) {
+            throw new RuntimeException(exc);
+          }
+        });
+  }
+
+  private static boolean isAdmittedWithin(
+      CompletableFuture<AdmissionController.Admission> admission, long millis) throws Exception {
+    try {
+      admission.get(millis, TimeUnit.MILLISECONDS);
+      return true;
+    } catch (TimeoutException exc) {
+      return false;
+    }
+  }
+}
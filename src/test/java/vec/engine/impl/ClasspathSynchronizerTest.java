@@ -0,0 +1,122 @@
+package vec.engine.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import vec.helpers.DockerHelper;
+
+public class ClasspathSynchronizerTest {
+  @TempDir Path projectDir;
+  @TempDir Path workDir;
+
+  private final StubDockerHelper dockerHelper = new StubDockerHelper();
+  private ClasspathSynchronizer classpathSynchronizer;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    writeFile("build/libs/tests.jar", "dependencies");
+    writeFile("build/classes/java/main/vec/A.class", "A");
+    writeFile("build/classes/java/test/vec/ATest.class", "ATest");
+    writeFile("build/classes/java/test/vec/BTest.class", "BTest");
+    writeFile("build/resources/main/META-INF/services/engine", "engine");
+    classpathSynchronizer =
+        new ClasspathSynchronizer(
+            dockerHelper, EnumSet.allOf(ClasspathSynchronizer.Layer.class), projectDir, workDir);
+  }
+
+  @Test
+  public void synchronize_newContainer_allFilesCopied() {
+    var syncResult = classpathSynchronizer.synchronize("c1");
+
+    assertThat(syncResult.changedLayers).isEqualTo(4);
+    assertThat(dockerHelper.copiedFiles)
+        .containsExactlyInAnyOrder(
+            "build/libs/tests.jar",
+            "build/classes/java/main/vec/A.class",
+            "build/classes/java/test/vec/ATest.class",
+            "build/classes/java/test/vec/BTest.class",
+            "build/resources/main/META-INF/services/engine");
+    assertThat(dockerHelper.removedFiles).isEmpty();
+  }
+
+  @Test
+  public void synchronize_sameContainerAfterEdit_onlyChangedFilesCopied() throws IOException {
+    classpathSynchronizer.synchronize("c1");
+    dockerHelper.copiedFiles.clear();
+    writeFile("build/classes/java/test/vec/ATest.class", "ATest edited");
+    Files.delete(projectDir.resolve("build/classes/java/test/vec/BTest.class"));
+    // same content, only the modification time changes
+    Files.setLastModifiedTime(
+        projectDir.resolve("build/classes/java/main/vec/A.class"), FileTime.fromMillis(0));
+
+    var syncResult = classpathSynchronizer.synchronize("c1");
+
+    assertThat(syncResult.changedLayers).isEqualTo(1);
+    assertThat(dockerHelper.copiedFiles).containsExactly("build/classes/java/test/vec/ATest.class");
+    assertThat(dockerHelper.removedFiles)
+        .containsExactly("build/classes/java/test/vec/BTest.class");
+  }
+
+  @Test
+  public void synchronize_nothingChanged_nothingCopied() {
+    classpathSynchronizer.synchronize("c1");
+    dockerHelper.copiedFiles.clear();
+
+    var syncResult = classpathSynchronizer.synchronize("c1");
+
+    assertThat(syncResult.changedLayers).isEqualTo(0);
+    assertThat(dockerHelper.copiedFiles).isEmpty();
+    assertThat(dockerHelper.copyCount).isEqualTo(1);
+  }
+
+  @Test
+  public void synchronize_forgottenContainer_allFilesCopiedAgain() {
+    classpathSynchronizer.synchronize("c1");
+    dockerHelper.copiedFiles.clear();
+    classpathSynchronizer.forget("c1");
+
+    classpathSynchronizer.synchronize("c1");
+
+    assertThat(dockerHelper.copiedFiles).hasSize(5);
+  }
+
+  private void writeFile(String relativePath, String content) throws IOException {
+    var file = projectDir.resolve(relativePath);
+    Files.createDirectories(file.getParent());
+    Files.writeString(file, content);
+  }
+
+  private static class StubDockerHelper extends DockerHelper {
+    private final List<String> copiedFiles = new ArrayList<>();
+    private final List<String> removedFiles = new ArrayList<>();
+    private int copyCount = 0;
+
+    @Override
+    public void copyArchiveToContainer(String containerId, Path tarArchive) {
+      copyCount++;
+      try (var tarInputStream = new TarArchiveInputStream(Files.newInputStream(tarArchive))) {
+        for (var entry = tarInputStream.getNextTarEntry();
+            entry != null;
+            entry = tarInputStream.getNextTarEntry()) copiedFiles.add(entry.getName());
+      } catch (IOException exc) {
+        throw new UncheckedIOException(exc);
+      }
+    }
+
+    @Override
+    public void removeFilesFromContainer(String containerId, List<String> relativePaths) {
+      removedFiles.addAll(relativePaths);
+    }
+  }
+}
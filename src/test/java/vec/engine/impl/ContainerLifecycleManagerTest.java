@@ -0,0 +1,127 @@
+package vec.engine.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.engine.reporting.ReportEntry;
+import vec.helpers.DockerHelper;
+import vec.helpers.ResourceLimits;
+
+public class ContainerLifecycleManagerTest {
+  private final StubDockerHelper dockerHelper = new StubDockerHelper();
+
+  @Test
+  public void startContainers_allStarted_concurrentlyAndBounded() {
+    var lifecycleManager = new ContainerLifecycleManager(dockerHelper, 2);
+    var reportEntries = new ConcurrentLinkedQueue<ReportEntry>();
+
+    var containerNameIdMap =
+        lifecycleManager.startContainers(
+            containerInfoMap("c1", "c2", "c3", "c4"), reportEntries::add);
+
+    assertThat(containerNameIdMap).containsOnlyKeys("c1", "c2", "c3", "c4");
+    assertThat(dockerHelper.runningContainers).containsOnlyElementsOf(containerNameIdMap.values());
+    assertThat(dockerHelper.maxInFlight.get()).isEqualTo(2);
+    assertThat(reportEntries).hasSize(4);
+    assertThat(reportEntries.peek().getKeyValuePairs())
+        .containsKeys("container", "create", "start");
+  }
+
+  @Test
+  public void startContainers_admissionBudget_limitsCreatedAndStartsBounded() {
+    var lifecycleManager =
+        new ContainerLifecycleManager(
+            dockerHelper, 4, null, null, new PhaseTimings(), new AdmissionController(2, 0));
+    var limits = new ResourceLimits(1, 256 * 1024 * 1024, 100);
+
+    lifecycleManager.startContainers(
+        containerInfoMap("c1", "c2", "c3", "c4"),
+        Map.of("c1", limits, "c2", limits, "c3", limits, "c4", limits),
+        entry -> {});
+
+    assertThat(dockerHelper.createdLimits).containsOnly(limits);
+    assertThat(dockerHelper.maxInFlight.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void startContainers_oneFails_othersStopped() {
+    var lifecycleManager = new ContainerLifecycleManager(dockerHelper, 4);
+    dockerHelper.failingContainerName = "c2";
+
+    assertThatThrownBy(
+            () -> lifecycleManager.startContainers(containerInfoMap("c1", "c2", "c3"), entry -> {}))
+        .hasMessage("cannot start c2");
+    assertThat(dockerHelper.runningContainers).isEmpty();
+    assertThat(dockerHelper.removedContainers).containsExactly("c2-id");
+  }
+
+  @Test
+  public void stopContainers_allStopped_withStopLatency() {
+    var lifecycleManager = new ContainerLifecycleManager(dockerHelper, 4);
+    var containerNameIdMap =
+        lifecycleManager.startContainers(containerInfoMap("c1", "c2"), entry -> {});
+    var reportEntries = new ConcurrentLinkedQueue<ReportEntry>();
+
+    lifecycleManager.stopContainers(containerNameIdMap, reportEntries::add);
+
+    assertThat(dockerHelper.runningContainers).isEmpty();
+    assertThat(reportEntries).hasSize(2);
+    assertThat(reportEntries.peek().getKeyValuePairs()).containsKeys("container", "stop");
+  }
+
+  private static Map<String, String> containerInfoMap(String... containerNames) {
+    Map<String, String> containerInfoMap = new LinkedHashMap<>();
+    for (var containerName : containerNames) containerInfoMap.put(containerName, "image");
+
+    return containerInfoMap;
+  }
+
+  private static class StubDockerHelper extends DockerHelper {
+    private final Set<String> runningContainers = ConcurrentHashMap.newKeySet();
+    private final Set<String> removedContainers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final Queue<ResourceLimits> createdLimits = new ConcurrentLinkedQueue<>();
+    private volatile String failingContainerName = null;
+
+    @Override
+    public String createTestingContainer(
+        String image, String containerName, ResourceLimits resourceLimits) {
+      createdLimits.add(resourceLimits);
+      return containerName + "-id";
+    }
+
+    @Override
+    public void startContainer(String containerId) {
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      try {
+        Thread.sleep(50);
+        if (containerId.equals(failingContainerName + "-id"))
+          throw new RuntimeException("cannot start " + failingContainerName);
+        runningContainers.add(containerId);
+      } catch (InterruptedException exc) {
+        throw new RuntimeException(exc);
+      } finally {
+        inFlight.decrementAndGet();
+      }
+    }
+
+    @Override
+    public void stopTestingContainer(String containerId) {
+      runningContainers.remove(containerId);
+    }
+
+    @Override
+    public void removeTestingContainer(String containerId) {
+      removedContainers.add(containerId);
+    }
+  }
+}
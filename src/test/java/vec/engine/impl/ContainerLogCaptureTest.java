@@ -0,0 +1,44 @@
+package vec.engine.impl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ContainerLogCaptureTest {
+  @TempDir Path logDirectory;
+
+  @Test
+  public void write_outputLargerThanTail_wholeOutputInLogAndTailInMemory() throws Exception {
+    var logCapture = new ContainerLogCapture(logDirectory, "package.TestClass#test(int, int)", 8);
+
+    for (int i = 0; i < 1000; i++)
+      logCapture.writeStandardOutput(("line" + i + "\n").getBytes(UTF_8));
+    logCapture.writeStandardError("error".getBytes(UTF_8));
+    logCapture.close();
+
+    assertThat(logCapture.getStandardOutputLog())
+        .hasFileName("package.TestClass#test_int__int_.stdout");
+    assertThat(Files.readAllLines(logCapture.getStandardOutputLog()))
+        .hasSize(1000)
+        .endsWith("line999");
+    assertThat(logCapture.getStandardOutputTail()).isEqualTo("line999\n");
+    assertThat(logCapture.getStandardErrorLog()).hasContent("error");
+    assertThat(logCapture.getStandardErrorTail()).isEqualTo("error");
+  }
+
+  @Test
+  public void tailBuffer_appendWrappingAround_keepsLastBytesInOrder() {
+    var tailBuffer = new ContainerLogCapture.TailBuffer(5);
+
+    tailBuffer.append("abc".getBytes(UTF_8));
+    tailBuffer.append("def".getBytes(UTF_8));
+    assertThat(tailBuffer).hasToString("bcdef");
+
+    tailBuffer.append("0123456789".getBytes(UTF_8));
+    assertThat(tailBuffer).hasToString("56789");
+  }
+}
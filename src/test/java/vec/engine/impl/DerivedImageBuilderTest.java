@@ -0,0 +1,145 @@
+package vec.engine.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.jar.Attributes;
+import java.util.jar.JarInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.platform.engine.reporting.ReportEntry;
+import vec.helpers.DockerHelper;
+import vec.helpers.ImageDetails;
+
+public class DerivedImageBuilderTest {
+  @TempDir Path projectDir;
+  @TempDir Path workDir;
+
+  private final StubDockerHelper dockerHelper = new StubDockerHelper();
+
+  @Test
+  public void findDependencyJars_projectJarsAndDirectories_excluded() throws IOException {
+    var dependencyJar = writeFile("gradle-cache/lib.jar", "lib");
+    var projectJar = writeFile("build/libs/project-tests.jar", "project");
+    var classesDir = projectDir.resolve("build/classes/java/test");
+    Files.createDirectories(classesDir);
+
+    var dependencyJars =
+        DerivedImageBuilder.findDependencyJars(
+            String.join(
+                File.pathSeparator,
+                classesDir.toString(),
+                dependencyJar.toString(),
+                projectJar.toString(),
+                projectDir.resolve("missing.jar").toString()),
+            projectDir);
+
+    assertThat(dependencyJars).containsExactly(dependencyJar);
+  }
+
+  @Test
+  public void getDerivedImage_notBuiltYet_builtWithDependenciesBakedIn() throws IOException {
+    var derivedImageBuilder =
+        newDerivedImageBuilder(List.of(writeFile("gradle-cache/lib one.jar", "lib")));
+    List<ReportEntry> reportEntries = new ArrayList<>();
+
+    var derivedImage = derivedImageBuilder.getDerivedImage("base", reportEntries::add);
+
+    assertThat(derivedImage).startsWith(DerivedImageBuilder.DERIVED_IMAGE_REPOSITORY + ":");
+    assertThat(dockerHelper.builtImages).containsOnlyKeys(derivedImage);
+    var buildContext = dockerHelper.builtImages.get(derivedImage);
+    assertThat(new String(buildContext.get("Dockerfile"), StandardCharsets.UTF_8))
+        .startsWith("FROM base\n")
+        .contains("-XX:ArchiveClassesAtExit=")
+        .endsWith("USER 1000\n");
+    assertThat(buildContext).containsKey("docker-engine/deps/000-lib_one.jar");
+    try (var classPathJar =
+        new JarInputStream(
+            new ByteArrayInputStream(buildContext.get("docker-engine/dependencies.jar")))) {
+      assertThat(classPathJar.getManifest().getMainAttributes().get(Attributes.Name.CLASS_PATH))
+          .isEqualTo("deps/000-lib_one.jar");
+    }
+    assertThat(reportEntries.get(0).getKeyValuePairs()).containsKeys("derived-image", "build");
+  }
+
+  @Test
+  public void getDerivedImage_alreadyBuilt_notBuiltAgain() throws IOException {
+    var derivedImageBuilder =
+        newDerivedImageBuilder(List.of(writeFile("gradle-cache/lib.jar", "")));
+    var derivedImage = derivedImageBuilder.getDerivedImage("base", entry -> {});
+    dockerHelper.builtImages.clear();
+    dockerHelper.existingImages.add(derivedImage);
+    List<ReportEntry> reportEntries = new ArrayList<>();
+
+    assertThat(derivedImageBuilder.getDerivedImage("base", reportEntries::add))
+        .isEqualTo(derivedImage);
+    assertThat(dockerHelper.builtImages).isEmpty();
+    assertThat(reportEntries.get(0).getKeyValuePairs()).containsKeys("derived-image", "cached");
+  }
+
+  @Test
+  public void computeDerivedImageHash_dependencyChanged_differentHash() throws IOException {
+    var dependencyJar = writeFile("gradle-cache/lib.jar", "lib");
+    var derivedImageBuilder = newDerivedImageBuilder(List.of(dependencyJar));
+    var hash = derivedImageBuilder.computeDerivedImageHash("base", "base-id");
+
+    assertThat(derivedImageBuilder.computeDerivedImageHash("base", "base-id")).isEqualTo(hash);
+    assertThat(derivedImageBuilder.computeDerivedImageHash("base", "new-base-id"))
+        .isNotEqualTo(hash);
+    Files.writeString(dependencyJar, "lib 2.0");
+    assertThat(derivedImageBuilder.computeDerivedImageHash("base", "base-id")).isNotEqualTo(hash);
+  }
+
+  private DerivedImageBuilder newDerivedImageBuilder(List<Path> dependencyJars) {
+    return new DerivedImageBuilder(dockerHelper, "1.0", dependencyJars, workDir);
+  }
+
+  private Path writeFile(String relativePath, String content) throws IOException {
+    var file = projectDir.resolve(relativePath);
+    Files.createDirectories(file.getParent());
+    Files.writeString(file, content);
+
+    return file;
+  }
+
+  private static class StubDockerHelper extends DockerHelper {
+    private final List<String> existingImages = new ArrayList<>(List.of("base"));
+    /** (tag, (entry name, entry content)) */
+    private final Map<String, Map<String, byte[]>> builtImages = new HashMap<>();
+
+    @Override
+    public Optional<ImageDetails> inspectImage(String image) {
+      if (!existingImages.contains(image)) return Optional.empty();
+
+      return Optional.of(new ImageDetails(image + "-id", "1000"));
+    }
+
+    @Override
+    public String buildImage(Path buildContext, String tag) {
+      Map<String, byte[]> entries = new HashMap<>();
+      try (var tarInputStream = new TarArchiveInputStream(Files.newInputStream(buildContext))) {
+        for (var entry = tarInputStream.getNextTarEntry();
+            entry != null;
+            entry = tarInputStream.getNextTarEntry())
+          entries.put(entry.getName(), tarInputStream.readAllBytes());
+      } catch (IOException exc) {
+        throw new UncheckedIOException(exc);
+      }
+      builtImages.put(tag, entries);
+
+      return tag + "-id";
+    }
+  }
+}
@@ -0,0 +1,138 @@
+package vec.engine.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClass;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectMethod;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectPackage;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectUniqueId;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.platform.engine.DiscoverySelector;
+import org.junit.platform.engine.TestDescriptor;
+import org.junit.platform.engine.UniqueId;
+import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
+import vec.engine.impl.descriptors.DockerizedClassMetadata;
+import vec.engine.impl.descriptors.DockerizedTestMethodDescriptor;
+import vec.engine.sample.AnnotatedClass;
+import vec.engine.sample.AnnotatedSingleTests;
+import vec.engine.sample.DisabledTests;
+import vec.engine.sample.FailFastTests;
+import vec.engine.sample.ParameterizedReplicatedTests;
+import vec.engine.sample.ReplicatedClass;
+import vec.engine.sample.TimeoutTests;
+
+public class DockerEngineDiscoveryTest {
+  private static final UniqueId ENGINE_ID = UniqueId.forEngine("docker-engine");
+
+  @Test
+  public void discover_classSelector_allDockerizedMethods() {
+    var engineDescriptor = discover(selectClass(AnnotatedSingleTests.class));
+
+    assertThat(getMethodNames(engineDescriptor))
+        .containsExactlyInAnyOrder("simple_Successful", "simple_Failed", "simple_Aborted");
+  }
+
+  @Test
+  public void discover_methodSelector_onlyThatMethod() {
+    var engineDescriptor = discover(selectMethod(AnnotatedClass.class, "simple_Failed"));
+
+    assertThat(engineDescriptor.getChildren()).hasSize(1);
+    assertThat(getMethodNames(engineDescriptor)).containsExactly("simple_Failed");
+  }
+
+  @Test
+  public void discover_classAndOneOfItsMethods_noDuplicates() {
+    var engineDescriptor =
+        discover(
+            selectMethod(AnnotatedClass.class, "simple_Failed"), selectClass(AnnotatedClass.class));
+
+    assertThat(engineDescriptor.getChildren()).hasSize(1);
+    assertThat(getMethodNames(engineDescriptor)).hasSize(6).containsOnlyOnce("simple_Failed");
+  }
+
+  @Test
+  public void discover_uniqueIdOfAnInvocation_itsMethod() {
+    var invocationId =
+        ENGINE_ID
+            .append("class", AnnotatedClass.class.getCanonicalName())
+            .append("method", "parameterized_BothFailed")
+            .append("test-template-invocation", "#2");
+
+    var engineDescriptor = discover(selectUniqueId(invocationId));
+
+    assertThat(getMethodNames(engineDescriptor)).containsExactly("parameterized_BothFailed");
+  }
+
+  @Test
+  public void discover_packageSelector_allDockerizedClasses() {
+    var engineDescriptor = discover(selectPackage("vec.engine.sample"));
+
+    assertThat(engineDescriptor.getChildren())
+        .extracting(child -> child.getUniqueId().getLastSegment().getValue())
+        .containsExactlyInAnyOrder(
+            AnnotatedClass.class.getCanonicalName(),
+            AnnotatedSingleTests.class.getCanonicalName(),
+            DisabledTests.class.getCanonicalName(),
+            FailFastTests.class.getCanonicalName(),
+            ParameterizedReplicatedTests.class.getCanonicalName(),
+            ReplicatedClass.class.getCanonicalName(),
+            TimeoutTests.class.getCanonicalName());
+  }
+
+  @Test
+  public void classMetadata_sameClass_computedOnce() {
+    var metadata = DockerizedClassMetadata.of(ReplicatedClass.class);
+
+    assertThat(DockerizedClassMetadata.of(ReplicatedClass.class)).isSameAs(metadata);
+    assertThat(metadata.getTestMethods()).hasSize(4);
+    assertThat(metadata.getClassContainerInfo().orElseThrow().replicas).isEqualTo(2);
+  }
+
+  @Test
+  public void discover_longestFirstScheduling_longestMethodsFirst(@TempDir Path workDir)
+      throws IOException {
+    var classId = "[engine\\:docker-engine]/[class\\:" + AnnotatedSingleTests.class.getName() + "]";
+    Files.writeString(
+        workDir.resolve("duration-history.properties"),
+        String.join(
+            "\n",
+            classId + "/[method\\:simple_Successful]=1000000000",
+            classId + "/[method\\:simple_Failed]=3000000000",
+            classId + "/[method\\:simple_Aborted]=2000000000"));
+
+    var engineDescriptor =
+        new DockerEngine()
+            .discover(
+                LauncherDiscoveryRequestBuilder.request()
+                    .selectors(selectClass(AnnotatedSingleTests.class))
+                    .configurationParameter(
+                        DockerEngineConfiguration.LONGEST_FIRST_SCHEDULING_ENABLED_PROPERTY_NAME,
+                        "true")
+                    .configurationParameter(
+                        DockerEngineConfiguration.WORK_DIR_PROPERTY_NAME, workDir.toString())
+                    .build(),
+                ENGINE_ID);
+
+    assertThat(getMethodNames(engineDescriptor))
+        .containsExactly("simple_Failed", "simple_Aborted", "simple_Successful");
+  }
+
+  private static TestDescriptor discover(DiscoverySelector... selectors) {
+    return new DockerEngine()
+        .discover(
+            LauncherDiscoveryRequestBuilder.request().selectors(selectors).build(), ENGINE_ID);
+  }
+
+  private static List<String> getMethodNames(TestDescriptor engineDescriptor) {
+    return engineDescriptor.getDescendants().stream()
+        .filter(descendant -> descendant instanceof DockerizedTestMethodDescriptor)
+        .map(descendant -> ((DockerizedTestMethodDescriptor) descendant).getTestMethod().getName())
+        .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,134 @@
+package vec.engine.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import vec.engine.annotations.Dockerized;
+import vec.engine.sample.AnnotatedClass;
+import vec.engine.sample.AnnotatedSingleTests;
+import vec.engine.sample.DisabledTests;
+import vec.engine.sample.FailFastTests;
+import vec.engine.sample.ParameterizedReplicatedTests;
+import vec.engine.sample.ReplicatedClass;
+import vec.engine.sample.TimeoutTests;
+
+public class DockerizedClassIndexTest {
+  private static final String SAMPLE_CLASS_FILE = "vec/engine/sample/AnnotatedClass.class";
+
+  @TempDir Path cacheDir;
+  @TempDir Path classpathRoot;
+
+  @Test
+  public void findTestClassNames_sampleClasses_allFound() throws URISyntaxException {
+    var classNames =
+        newClassIndex()
+            .findTestClassNames(
+                List.of(getTestClasspathRoot()),
+                className -> className.startsWith("vec.engine.sample."));
+
+    assertThat(classNames)
+        .containsExactly(
+            AnnotatedClass.class.getName(),
+            AnnotatedSingleTests.class.getName(),
+            DisabledTests.class.getName(),
+            FailFastTests.class.getName(),
+            ParameterizedReplicatedTests.class.getName(),
+            ReplicatedClass.class.getName(),
+            TimeoutTests.class.getName());
+  }
+
+  @Test
+  public void findTestClassNames_metaAnnotations_found() throws URISyntaxException {
+    var classNames =
+        newClassIndex()
+            .findTestClassNames(
+                List.of(getTestClasspathRoot()),
+                className -> className.startsWith(DockerizedClassIndexTest.class.getName() + "$"));
+
+    assertThat(classNames)
+        .containsExactlyInAnyOrder(
+            MetaDockerizedClass.class.getName(), MetaDockerizedMethod.class.getName());
+  }
+
+  @Test
+  public void findTestClassNames_sameSizeAndModificationTime_cachedSummaryUsed()
+      throws IOException, URISyntaxException {
+    var classFile = copySampleClassFile();
+    var lastModified = Files.getLastModifiedTime(classFile);
+    assertThat(newClassIndex().findTestClassNames(List.of(classpathRoot), className -> true))
+        .containsExactly(AnnotatedClass.class.getName());
+
+    // same size and modification time: the class file is not read again
+    Files.write(classFile, new byte[(int) Files.size(classFile)]);
+    Files.setLastModifiedTime(classFile, lastModified);
+    assertThat(newClassIndex().findTestClassNames(List.of(classpathRoot), className -> true))
+        .containsExactly(AnnotatedClass.class.getName());
+
+    Files.setLastModifiedTime(classFile, FileTime.fromMillis(0));
+    assertThat(newClassIndex().findTestClassNames(List.of(classpathRoot), className -> true))
+        .isEmpty();
+  }
+
+  @Test
+  public void findTestClassNames_jarRoot_found() throws IOException, URISyntaxException {
+    var jar = cacheDir.resolve("tests.jar");
+    try (var jarOutputStream = new JarOutputStream(Files.newOutputStream(jar))) {
+      jarOutputStream.putNextEntry(new JarEntry(SAMPLE_CLASS_FILE));
+      jarOutputStream.write(Files.readAllBytes(getTestClasspathRoot().resolve(SAMPLE_CLASS_FILE)));
+      jarOutputStream.closeEntry();
+    }
+
+    assertThat(newClassIndex().findTestClassNames(List.of(jar), className -> true))
+        .containsExactly(AnnotatedClass.class.getName());
+  }
+
+  private DockerizedClassIndex newClassIndex() {
+    return new DockerizedClassIndex(cacheDir, getClass().getClassLoader());
+  }
+
+  private Path copySampleClassFile() throws IOException, URISyntaxException {
+    var classFile = classpathRoot.resolve(SAMPLE_CLASS_FILE);
+    Files.createDirectories(classFile.getParent());
+    Files.copy(getTestClasspathRoot().resolve(SAMPLE_CLASS_FILE), classFile);
+
+    return classFile;
+  }
+
+  private static Path getTestClasspathRoot() throws URISyntaxException {
+    return Path.of(
+        AnnotatedClass.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+  }
+
+  @Retention(RetentionPolicy.RUNTIME)
+  @Dockerized(containerName = "meta", image = "junit-console-launcher")
+  public @interface MetaDockerized {}
+
+  @Retention(RetentionPolicy.RUNTIME)
+  @MetaDockerized
+  public @interface MetaMetaDockerized {}
+
+  @MetaMetaDockerized
+  public static class MetaDockerizedClass {
+    public void test() {}
+  }
+
+  public static class MetaDockerizedMethod {
+    @MetaDockerized
+    public void test() {}
+  }
+
+  public static class NotDockerized {
+    public void test() {}
+  }
+}
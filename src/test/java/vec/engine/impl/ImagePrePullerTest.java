@@ -0,0 +1,111 @@
+package vec.engine.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.engine.reporting.ReportEntry;
+import vec.helpers.ImageDetails;
+import vec.helpers.InMemoryContainerRuntime;
+
+public class ImagePrePullerTest {
+  @Test
+  public void prePull_missingAndPresentImages_onlyMissingPulled() {
+    var runtime = new RegistryRuntime(Set.of("present:1"));
+    var prePuller = new ImagePrePuller(runtime, 2);
+    var reportEntries = new ConcurrentLinkedQueue<ReportEntry>();
+    try {
+      prePuller.prePull(List.of("present:1", "missing:1", "missing:1"), reportEntries::add);
+      prePuller.awaitImage("present:1");
+      prePuller.awaitImage("missing:1");
+    } finally {
+      prePuller.shutdown();
+    }
+
+    assertThat(runtime.pulledImages).containsExactly("missing:1");
+    assertThat(reportEntries)
+        .flatExtracting(reportEntry -> reportEntry.getKeyValuePairs().keySet())
+        .containsExactlyInAnyOrder("image", "present", "image", "pull");
+  }
+
+  @Test
+  public void prePull_manyMissingImages_pulledConcurrently() {
+    var concurrentPulls = new CountDownLatch(2);
+    var runtime =
+        new RegistryRuntime(Set.of()) {
+          @Override
+          public void pullImage(String image) {
+            concurrentPulls.countDown();
+            try {
+              if (!concurrentPulls.await(5, TimeUnit.SECONDS))
+                throw new IllegalStateException("the pulls are not concurrent");
+            } catch (InterruptedException exc) {
+              Thread.currentThread().interrupt();
+              throw new RuntimeException(exc);
+            }
+            super.pullImage(image);
+          }
+        };
+    var prePuller = new ImagePrePuller(runtime, 2);
+    try {
+      prePuller.prePull(List.of("first:1", "second:1"), reportEntry -> {});
+      prePuller.awaitImage("first:1");
+      prePuller.awaitImage("second:1");
+    } finally {
+      prePuller.shutdown();
+    }
+
+    assertThat(runtime.pulledImages).containsExactlyInAnyOrder("first:1", "second:1");
+  }
+
+  @Test
+  public void awaitImage_imageNotInRegistry_pullFailureThrown() {
+    var runtime =
+        new RegistryRuntime(Set.of()) {
+          @Override
+          public void pullImage(String image) {}
+        };
+    var prePuller = new ImagePrePuller(runtime, 1);
+    try {
+      prePuller.prePull(List.of("unknown:1"), reportEntry -> {});
+
+      assertThatThrownBy(() -> prePuller.awaitImage("unknown:1"))
+          .isInstanceOf(IllegalStateException.class)
+          .hasMessageContaining("unknown:1");
+      // images never pre-pulled are not waited for
+      prePuller.awaitImage("other:1");
+    } finally {
+      prePuller.shutdown();
+    }
+  }
+
+  /** the images are present once they have been pulled */
+  private static class RegistryRuntime extends InMemoryContainerRuntime {
+    private final Set<String> localImages = ConcurrentHashMap.newKeySet();
+    final Set<String> pulledImages = ConcurrentHashMap.newKeySet();
+
+    RegistryRuntime(Set<String> localImages) {
+      this.localImages.addAll(localImages);
+    }
+
+    @Override
+    public Optional<ImageDetails> inspectImage(String image) {
+      return localImages.contains(image)
+          ? Optional.of(new ImageDetails(image, ""))
+          : Optional.empty();
+    }
+
+    @Override
+    public void pullImage(String image) {
+      pulledImages.add(image);
+      localImages.add(image);
+    }
+  }
+}
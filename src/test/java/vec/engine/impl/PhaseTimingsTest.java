@@ -0,0 +1,51 @@
+package vec.engine.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.engine.reporting.ReportEntry;
+
+public class PhaseTimingsTest {
+  private final PhaseTimings phaseTimings = new PhaseTimings();
+
+  @Test
+  public void percentile_hundredDurations_nearestRank() {
+    var durations = LongStream.rangeClosed(1, 100).boxed().collect(Collectors.toList());
+
+    assertThat(PhaseTimings.percentile(durations, 50)).isEqualTo(50);
+    assertThat(PhaseTimings.percentile(durations, 95)).isEqualTo(95);
+    assertThat(PhaseTimings.percentile(List.of(7L), 95)).isEqualTo(7);
+  }
+
+  @Test
+  public void summarize_twoContainers_entryForEveryContainerAndPhase() {
+    phaseTimings.record("c2", PhaseTimings.Phase.START, "", 5_000_000);
+    for (long millis = 1; millis <= 20; millis++)
+      phaseTimings.record("c1", PhaseTimings.Phase.TEST, "test" + millis, millis * 1_000_000);
+    phaseTimings.record("c1", PhaseTimings.Phase.CREATE, "", 2_000_000);
+
+    var summary = phaseTimings.summarize();
+
+    assertThat(summary)
+        .extracting(entry -> entry.getKeyValuePairs().get("container"))
+        .containsExactly("c1", "c1", "c2");
+    assertThat(summary)
+        .extracting(entry -> entry.getKeyValuePairs().get("phase"))
+        .containsExactly("create", "test", "start");
+    var testSummary = summary.get(1).getKeyValuePairs();
+    assertThat(testSummary.get("count")).isEqualTo("20");
+    assertThat(testSummary.get("p50")).isEqualTo("10.000 ms");
+    assertThat(testSummary.get("p95")).isEqualTo("19.000 ms");
+    assertThat(testSummary.get("max")).isEqualTo("20.000 ms");
+  }
+
+  @Test
+  public void summarize_nothingRecorded_empty() {
+    List<ReportEntry> summary = phaseTimings.summarize();
+
+    assertThat(summary).isEmpty();
+  }
+}
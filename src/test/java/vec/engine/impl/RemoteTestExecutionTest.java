@@ -0,0 +1,216 @@
+package vec.engine.impl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.platform.engine.TestDescriptor;
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.TestSource;
+import org.junit.platform.engine.UniqueId;
+import org.junit.platform.engine.support.descriptor.AbstractTestDescriptor;
+import org.junit.platform.engine.support.descriptor.ClassSource;
+import org.junit.platform.engine.support.descriptor.MethodSource;
+import org.junit.platform.launcher.TestIdentifier;
+import org.opentest4j.TestAbortedException;
+import vec.engine.launcher.ResultEvent;
+
+public class RemoteTestExecutionTest {
+  private static final String METHOD = "package.TestClass#test(int)";
+
+  @TempDir Path logDirectory;
+
+  private RemoteTestExecution execution;
+  private final TestDescriptor classDescriptor =
+      descriptor(
+          UniqueId.forEngine("junit-jupiter").append("class", "package.TestClass"),
+          TestDescriptor.Type.CONTAINER,
+          ClassSource.from("package.TestClass"));
+  private final TestDescriptor templateDescriptor =
+      child(classDescriptor, "test-template", "test(int)", TestDescriptor.Type.CONTAINER);
+
+  @BeforeEach
+  public void createExecution() {
+    execution = new RemoteTestExecution(new ContainerLogCapture(logDirectory, METHOD, 64));
+  }
+
+  @Test
+  public void awaitMethodNode_testTemplate_invocationsAreChildrenInStartOrder() throws Exception {
+    var invocation1 = child(templateDescriptor, "test-template-invocation", "#1");
+    var invocation2 = child(templateDescriptor, "test-template-invocation", "#2");
+
+    start(classDescriptor);
+    start(templateDescriptor);
+    start(invocation2);
+    finish(invocation2, TestExecutionResult.failed(new AssertionError("fails")));
+    execution.onEvent(ResultEvent.skipped(TestIdentifier.from(invocation1), "disabled"));
+    finish(templateDescriptor, TestExecutionResult.successful());
+
+    var methodNode = execution.awaitMethodNode(METHOD).orElseThrow();
+    assertThat(methodNode.getUniqueId()).isEqualTo(templateDescriptor.getUniqueId());
+
+    var firstChild = methodNode.awaitNextStartedChild().orElseThrow();
+    assertThat(firstChild.getUniqueId()).isEqualTo(invocation2.getUniqueId());
+    assertThat(firstChild.awaitResult().getThrowable())
+        .hasValueSatisfying(throwable -> assertThat(throwable).hasMessage("fails"));
+    var secondChild = methodNode.awaitNextStartedChild().orElseThrow();
+    assertThat(secondChild.isSkipped()).isTrue();
+    assertThat(secondChild.getSkipReason()).isEqualTo("disabled");
+    assertThat(methodNode.awaitNextStartedChild()).isEmpty();
+    assertThat(methodNode.awaitResult().getStatus())
+        .isEqualTo(TestExecutionResult.Status.SUCCESSFUL);
+  }
+
+  @Test
+  public void awaitMethodNode_classContainerFailed_notRunCauseIsClassFailure() {
+    start(classDescriptor);
+    finish(classDescriptor, TestExecutionResult.failed(new IllegalStateException("beforeAll")));
+    execution.onEvent(ResultEvent.planFinished(null));
+    execution.onRunEnded(null);
+
+    assertThat(execution.awaitMethodNode(METHOD)).isEmpty();
+    assertThat(execution.getNotRunCause("package.TestClass")).hasMessage("beforeAll");
+    assertThat(execution.getNotRunCause("package.OtherClass"))
+        .hasMessageStartingWith("No test has been run");
+  }
+
+  @Test
+  public void getNotRunCause_standardErrorWritten_messageEndsWithItsTail() throws Exception {
+    execution.onEvent(ResultEvent.planStarted());
+    execution.onStandardError("Error: could not find or load main class".getBytes(UTF_8));
+    execution.onRunEnded(null);
+
+    assertThat(execution.awaitMethodNode(METHOD)).isEmpty();
+    assertThat(execution.getNotRunCause("package.TestClass"))
+        .hasMessageEndingWith("Error: could not find or load main class");
+    assertThat(execution.getStandardErrorLog())
+        .hasContent("Error: could not find or load main class");
+  }
+
+  @Test
+  public void onTimeout_testRunning_execClosedAndTestFailsWithTimeout() throws Exception {
+    var execClosed = new AtomicBoolean(false);
+    execution.onExecStarted(() -> execClosed.set(true));
+    execution.onEvent(ResultEvent.planStarted());
+    start(classDescriptor);
+    start(templateDescriptor);
+
+    execution.onTimeout(new TimeoutException("too slow"));
+    finish(templateDescriptor, TestExecutionResult.successful());
+    execution.onRunEnded(null);
+
+    assertThat(execClosed.get()).isTrue();
+    assertThat(execution.isTimedOut()).isTrue();
+    assertThat(execution.getProcessId()).isEqualTo(ProcessHandle.current().pid());
+    assertThat(execution.awaitMethodNode(METHOD).orElseThrow().awaitResult().getThrowable())
+        .hasValueSatisfying(
+            throwable -> assertThat(throwable).isInstanceOf(TimeoutException.class));
+  }
+
+  @Test
+  public void onCancelled_testRunning_execClosedAndTestAborted() throws Exception {
+    var execClosed = new AtomicBoolean(false);
+    execution.onExecStarted(() -> execClosed.set(true));
+    start(classDescriptor);
+    start(templateDescriptor);
+
+    assertThat(execution.onCancelled(new TestAbortedException("fail fast"))).isTrue();
+
+    assertThat(execClosed.get()).isTrue();
+    assertThat(execution.isTimedOut()).isFalse();
+    assertThat(execution.isCancelled()).isTrue();
+    var result = execution.awaitMethodNode(METHOD).orElseThrow().awaitResult();
+    assertThat(result.getStatus()).isEqualTo(TestExecutionResult.Status.ABORTED);
+    assertThat(result.getThrowable())
+        .hasValueSatisfying(throwable -> assertThat(throwable).hasMessage("fail fast"));
+    assertThat(execution.getNotRunCause("other.Class")).isInstanceOf(TestAbortedException.class);
+  }
+
+  @Test
+  public void onCancelled_runEnded_notCancelled() {
+    execution.onRunEnded(null);
+
+    assertThat(execution.onCancelled(new TestAbortedException("fail fast"))).isFalse();
+    assertThat(execution.onTimeout(new TimeoutException("too slow"))).isFalse();
+    assertThat(execution.isCancelled()).isFalse();
+    assertThat(execution.isTimedOut()).isFalse();
+  }
+
+  @Test
+  public void onRunEnded_abruptly_unfinishedNodesFail() throws Exception {
+    start(classDescriptor);
+    start(templateDescriptor);
+
+    execution.onRunEnded(new IllegalStateException("container stopped"));
+
+    var methodNode = execution.awaitMethodNode(METHOD).orElseThrow();
+    assertThat(methodNode.awaitNextStartedChild()).isEmpty();
+    assertThat(methodNode.awaitResult().getThrowable())
+        .hasValueSatisfying(
+            throwable -> assertThat(throwable.getCause()).hasMessage("container stopped"));
+    assertThat(execution.getRunCompletion().toCompletableFuture()).isCompleted();
+  }
+
+  @Test
+  public void getRunPhaseNanos_runCompleted_everyPhaseAndMethodTimed() throws Exception {
+    execution.onExecStarted();
+    Thread.sleep(5);
+    execution.onEvent(ResultEvent.planStarted());
+    start(classDescriptor);
+    start(templateDescriptor);
+    Thread.sleep(5);
+    finish(templateDescriptor, TestExecutionResult.successful());
+    finish(classDescriptor, TestExecutionResult.successful());
+    execution.onEvent(ResultEvent.planFinished(null));
+    execution.onRunEnded(null);
+
+    assertThat(execution.getRunPhaseNanos())
+        .containsOnlyKeys(
+            PhaseTimings.Phase.EXEC,
+            PhaseTimings.Phase.JVM_BOOT,
+            PhaseTimings.Phase.RESULT_HANDLING);
+    assertThat(execution.getRunPhaseNanos().get(PhaseTimings.Phase.JVM_BOOT))
+        .isGreaterThanOrEqualTo(5_000_000);
+    assertThat(execution.getMethodNanos()).containsOnlyKeys(METHOD);
+    assertThat(execution.getMethodNanos().get(METHOD)).isGreaterThanOrEqualTo(5_000_000);
+  }
+
+  private void start(TestDescriptor descriptor) {
+    execution.onEvent(ResultEvent.started(TestIdentifier.from(descriptor)));
+  }
+
+  private void finish(TestDescriptor descriptor, TestExecutionResult result) {
+    execution.onEvent(ResultEvent.finished(TestIdentifier.from(descriptor), result));
+  }
+
+  private static TestDescriptor child(TestDescriptor parent, String segmentType, String value) {
+    return child(parent, segmentType, value, TestDescriptor.Type.TEST);
+  }
+
+  private static TestDescriptor child(
+      TestDescriptor parent, String segmentType, String value, TestDescriptor.Type type) {
+    var child =
+        descriptor(
+            parent.getUniqueId().append(segmentType, value),
+            type,
+            MethodSource.from("package.TestClass", "test", "int"));
+    child.setParent(parent);
+
+    return child;
+  }
+
+  private static TestDescriptor descriptor(
+      UniqueId uniqueId, TestDescriptor.Type type, TestSource source) {
+    return new AbstractTestDescriptor(uniqueId, uniqueId.getLastSegment().getValue(), source) {
+      @Override
+      public Type getType() {
+        return type;
+      }
+    };
+  }
+}
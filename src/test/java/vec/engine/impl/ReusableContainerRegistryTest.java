@@ -0,0 +1,71 @@
+package vec.engine.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import vec.helpers.DockerHelper;
+
+public class ReusableContainerRegistryTest {
+  private final StubDockerHelper dockerHelper = new StubDockerHelper();
+
+  @TempDir Path workDir;
+
+  @Test
+  public void reapIdleContainers_neverReleased_removedAfterIdleTimeoutFromCreation() {
+    var registry = newRegistry(Duration.ofMinutes(10));
+    dockerHelper.reusableContainers.put("old", Instant.now().minusSeconds(3600).getEpochSecond());
+    dockerHelper.reusableContainers.put("new", Instant.now().getEpochSecond());
+
+    registry.reapIdleContainers();
+
+    assertThat(dockerHelper.reusableContainers).containsOnlyKeys("new");
+  }
+
+  @Test
+  public void reapIdleContainers_recentlyReleased_keptRunning() {
+    var registry = newRegistry(Duration.ofMinutes(10));
+    dockerHelper.reusableContainers.put("old", Instant.now().minusSeconds(3600).getEpochSecond());
+
+    registry.releaseContainers(List.of("old"));
+    registry.reapIdleContainers();
+
+    assertThat(dockerHelper.reusableContainers).containsOnlyKeys("old");
+  }
+
+  @Test
+  public void reapIdleContainers_releasedLongAgo_removed() {
+    dockerHelper.reusableContainers.put("old", Instant.now().getEpochSecond());
+    newRegistry(Duration.ofMinutes(10)).releaseContainers(List.of("old"));
+
+    newRegistry(Duration.ZERO).reapIdleContainers();
+
+    assertThat(dockerHelper.reusableContainers).isEmpty();
+  }
+
+  private ReusableContainerRegistry newRegistry(Duration idleTimeout) {
+    return new ReusableContainerRegistry(
+        dockerHelper, "1.0", idleTimeout, workDir.resolve("reusable-containers.properties"));
+  }
+
+  private static class StubDockerHelper extends DockerHelper {
+    /** (containerId, creation epoch seconds) */
+    private final Map<String, Long> reusableContainers = new HashMap<>();
+
+    @Override
+    public Map<String, Long> listReusableContainers() {
+      return new HashMap<>(reusableContainers);
+    }
+
+    @Override
+    public void removeTestingContainer(String containerId) {
+      reusableContainers.remove(containerId);
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package vec.engine.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TestDurationHistoryTest {
+  @TempDir Path workDir;
+
+  @Test
+  public void estimate_emptyHistory_defaultEstimate() {
+    var history = newTestDurationHistory();
+
+    assertThat(history.estimate("[method:first]")).isEqualTo(TestDurationHistory.DEFAULT_ESTIMATE);
+  }
+
+  @Test
+  public void estimate_recordedAndSaved_weightedAverageAfterReload() {
+    var history = newTestDurationHistory();
+    history.record("[method:first]", Duration.ofSeconds(4));
+    history.save();
+    var reloadedHistory = newTestDurationHistory();
+    reloadedHistory.record("[method:first]", Duration.ofSeconds(2));
+    reloadedHistory.save();
+
+    assertThat(newTestDurationHistory().estimate("[method:first]"))
+        .isEqualTo(Duration.ofSeconds(3));
+  }
+
+  @Test
+  public void estimate_unknownMethod_medianOfHistory() {
+    var history = newTestDurationHistory();
+    history.record("[method:first]", Duration.ofSeconds(1));
+    history.record("[method:second]", Duration.ofSeconds(5));
+    history.record("[method:third]", Duration.ofSeconds(9));
+    history.save();
+
+    assertThat(newTestDurationHistory().estimate("[method:unknown]"))
+        .isEqualTo(Duration.ofSeconds(5));
+  }
+
+  @Test
+  public void record_sameMethodTwiceInARun_longestKept() {
+    var history = newTestDurationHistory();
+    history.record("[method:template]", Duration.ofSeconds(3));
+    history.record("[method:template]", Duration.ofSeconds(1));
+    history.save();
+
+    assertThat(newTestDurationHistory().estimate("[method:template]"))
+        .isEqualTo(Duration.ofSeconds(3));
+  }
+
+  @Test
+  public void estimate_corruptedHistory_defaultEstimate() throws IOException {
+    Files.writeString(workDir.resolve("duration-history.properties"), "[method:first]=\\u00");
+
+    assertThat(newTestDurationHistory().estimate("[method:first]"))
+        .isEqualTo(TestDurationHistory.DEFAULT_ESTIMATE);
+  }
+
+  @Test
+  public void assignLongestFirst_twoBins_longestFirstToTheLeastLoaded() {
+    var assignments =
+        TestDurationHistory.assignLongestFirst(List.of(2L, 7L, 3L, 5L, 4L), Long::longValue, 2);
+
+    assertThat(assignments).containsExactly(List.of(7L, 3L), List.of(5L, 4L, 2L));
+    assertThat(TestDurationHistory.predictMakespan(List.of(2L, 7L, 3L, 5L, 4L), 2)).isEqualTo(11);
+  }
+
+  private TestDurationHistory newTestDurationHistory() {
+    return new TestDurationHistory(workDir.resolve("duration-history.properties"));
+  }
+}
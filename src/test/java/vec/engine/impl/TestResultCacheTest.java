@@ -0,0 +1,145 @@
+package vec.engine.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import vec.engine.sample.AnnotatedClass;
+import vec.helpers.ImageDetails;
+import vec.helpers.InMemoryContainerRuntime;
+
+public class TestResultCacheTest {
+  private static final String SAMPLE_CLASS_FILE = "vec/engine/sample/AnnotatedClass.class";
+  private static final String CLASS_NAME = AnnotatedClass.class.getName();
+  private static final String METHOD = CLASS_NAME + "#test()";
+  private static final String IMAGE = "junit-console-launcher";
+
+  @TempDir Path tempDir;
+
+  private Path projectDir;
+  private Path workDir;
+  private Path dependencyJar;
+  private String imageId = "sha256:1";
+
+  private final InMemoryContainerRuntime containerRuntime =
+      new InMemoryContainerRuntime() {
+        @Override
+        public Optional<ImageDetails> inspectImage(String image) {
+          return Optional.of(new ImageDetails(imageId, ""));
+        }
+      };
+
+  @BeforeEach
+  public void setUp() throws IOException, URISyntaxException {
+    // the cache file must not be in the project directory, it would change its resources
+    projectDir = Files.createDirectory(tempDir.resolve("project"));
+    workDir = Files.createDirectory(tempDir.resolve("work"));
+    var classFile = projectDir.resolve(SAMPLE_CLASS_FILE);
+    Files.createDirectories(classFile.getParent());
+    Files.copy(getTestClasspathRoot().resolve(SAMPLE_CLASS_FILE), classFile);
+    dependencyJar = Files.write(workDir.resolve("dependency.jar"), new byte[] {1, 2, 3});
+  }
+
+  @Test
+  public void findPassedRun_recordedAndSaved_foundAfterReload() {
+    var testResultCache = newTestResultCache(1024 * 1024);
+    assertThat(testResultCache.findPassedRun(CLASS_NAME, METHOD, IMAGE)).isEmpty();
+
+    testResultCache.recordPassedRun(CLASS_NAME, METHOD, IMAGE);
+    testResultCache.save();
+
+    assertThat(newTestResultCache(1024 * 1024).findPassedRun(CLASS_NAME, METHOD, IMAGE))
+        .isPresent();
+  }
+
+  @Test
+  public void findPassedRun_dependencyChanged_notFound() throws IOException {
+    recordAndSave();
+
+    Files.setLastModifiedTime(dependencyJar, FileTime.fromMillis(0));
+
+    assertThat(newTestResultCache(1024 * 1024).findPassedRun(CLASS_NAME, METHOD, IMAGE)).isEmpty();
+  }
+
+  @Test
+  public void findPassedRun_imageChanged_notFound() {
+    recordAndSave();
+
+    imageId = "sha256:2";
+
+    assertThat(newTestResultCache(1024 * 1024).findPassedRun(CLASS_NAME, METHOD, IMAGE)).isEmpty();
+  }
+
+  @Test
+  public void findPassedRun_classFileChanged_notFound() throws IOException {
+    recordAndSave();
+
+    Files.write(projectDir.resolve(SAMPLE_CLASS_FILE), new byte[] {0}, StandardOpenOption.APPEND);
+
+    assertThat(newTestResultCache(1024 * 1024).findPassedRun(CLASS_NAME, METHOD, IMAGE)).isEmpty();
+  }
+
+  @Test
+  public void findPassedRun_resourceChanged_notFound() throws IOException {
+    recordAndSave();
+
+    Files.writeString(projectDir.resolve("config.properties"), "key=value");
+
+    assertThat(newTestResultCache(1024 * 1024).findPassedRun(CLASS_NAME, METHOD, IMAGE)).isEmpty();
+  }
+
+  @Test
+  public void save_overMaxSize_leastRecentlyUsedEvicted() throws InterruptedException {
+    var testResultCache = newTestResultCache(200);
+    testResultCache.recordPassedRun(CLASS_NAME, CLASS_NAME + "#first()", IMAGE);
+    Thread.sleep(5);
+    testResultCache.recordPassedRun(CLASS_NAME, CLASS_NAME + "#second()", IMAGE);
+    testResultCache.save();
+
+    var reloadedCache = newTestResultCache(200);
+    assertThat(reloadedCache.findPassedRun(CLASS_NAME, CLASS_NAME + "#first()", IMAGE)).isEmpty();
+    assertThat(reloadedCache.findPassedRun(CLASS_NAME, CLASS_NAME + "#second()", IMAGE))
+        .isPresent();
+  }
+
+  @Test
+  public void findPassedRun_classOutsideProject_notCached() {
+    var testResultCache = newTestResultCache(1024 * 1024);
+    testResultCache.recordPassedRun(String.class.getName(), "java.lang.String#length()", IMAGE);
+
+    assertThat(
+            testResultCache.findPassedRun(
+                String.class.getName(), "java.lang.String#length()", IMAGE))
+        .isEmpty();
+  }
+
+  private void recordAndSave() {
+    var testResultCache = newTestResultCache(1024 * 1024);
+    testResultCache.recordPassedRun(CLASS_NAME, METHOD, IMAGE);
+    testResultCache.save();
+  }
+
+  private TestResultCache newTestResultCache(long maxSize) {
+    return new TestResultCache(
+        containerRuntime,
+        "1.0",
+        List.of(projectDir),
+        List.of(dependencyJar),
+        workDir.resolve("result-cache.properties"),
+        maxSize);
+  }
+
+  private static Path getTestClasspathRoot() throws URISyntaxException {
+    return Path.of(
+        AnnotatedClass.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+  }
+}
@@ -0,0 +1,39 @@
+package vec.engine.launcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.engine.UniqueId;
+
+public class InvocationShardConditionTest {
+  private static final UniqueId METHOD_ID =
+      UniqueId.forEngine("junit-jupiter")
+          .append("class", "package.TestClass")
+          .append("test-template", "test(int)");
+
+  @Test
+  public void getInvocationIndex_templateInvocation_itsIndex() {
+    var invocationId = METHOD_ID.append("test-template-invocation", "#3");
+
+    assertThat(InvocationShardCondition.getInvocationIndex(invocationId.toString())).contains(3);
+  }
+
+  @Test
+  public void getInvocationIndex_notAnInvocation_empty() {
+    var nestedInvocationId =
+        METHOD_ID
+            .append("test-template-invocation", "#1")
+            .append("test-factory", "dynamic()")
+            .append("dynamic-test", "#1");
+
+    assertThat(InvocationShardCondition.getInvocationIndex(METHOD_ID.toString())).isEmpty();
+    assertThat(InvocationShardCondition.getInvocationIndex(nestedInvocationId.toString()))
+        .isEmpty();
+  }
+
+  @Test
+  public void shardSelector_selectorWithShard_shardAfterTheMethod() {
+    assertThat(ContainerLauncher.shardSelector("package.TestClass#test(int)", 1, 4))
+        .isEqualTo("package.TestClass#test(int)@1/4");
+  }
+}
@@ -0,0 +1,108 @@
+package vec.engine.launcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.UniqueId;
+import org.junit.platform.engine.support.descriptor.AbstractTestDescriptor;
+import org.junit.platform.engine.support.descriptor.MethodSource;
+import org.junit.platform.launcher.TestIdentifier;
+import org.opentest4j.AssertionFailedError;
+
+public class ResultEventCodecTest {
+  private static final TestIdentifier TEST_IDENTIFIER =
+      TestIdentifier.from(
+          new AbstractTestDescriptor(
+              UniqueId.forEngine("junit-jupiter").append("method", "test(int)"),
+              "[1] 1",
+              MethodSource.from("package.TestClass", "test", "int")) {
+            @Override
+            public Type getType() {
+              return Type.TEST;
+            }
+          });
+
+  private final List<ResultEvent> decodedEvents = new ArrayList<>();
+  private final ResultEventCodec.Decoder decoder = new ResultEventCodec.Decoder(decodedEvents::add);
+
+  @Test
+  public void decode_frameFedByteByByte_decodedWhenComplete() {
+    var frame =
+        ResultEventCodec.encode(
+            ResultEvent.finished(
+                TEST_IDENTIFIER, TestExecutionResult.failed(new AssertionFailedError("fails"))));
+
+    for (int i = 0; i < frame.length; i++) {
+      assertThat(decodedEvents).isEmpty();
+      decoder.feed(new byte[] {frame[i]});
+    }
+
+    assertThat(decoder.hasPartialFrame()).isFalse();
+    assertThat(decodedEvents).hasSize(1);
+    var event = decodedEvents.get(0);
+    assertThat(event.getType()).isEqualTo(ResultEvent.Type.FINISHED);
+    assertThat(event.getUniqueId()).isEqualTo(TEST_IDENTIFIER.getUniqueId());
+    assertThat(event.getStatus()).isEqualTo(TestExecutionResult.Status.FAILED);
+    assertThat(event.getThrowable())
+        .hasValueSatisfying(
+            throwable ->
+                assertThat(throwable).isInstanceOf(AssertionFailedError.class).hasMessage("fails"));
+  }
+
+  @Test
+  public void decode_manyFramesInOneChunk_decodedInOrder() {
+    var started = ResultEventCodec.encode(ResultEvent.started(TEST_IDENTIFIER));
+    var output =
+        ResultEventCodec.encode(ResultEvent.output("out".getBytes(StandardCharsets.UTF_8)));
+    var chunk = Arrays.copyOf(started, started.length + output.length - 1);
+    System.arraycopy(output, 0, chunk, started.length, output.length - 1);
+
+    decoder.feed(chunk);
+
+    assertThat(decodedEvents).hasSize(1);
+    assertThat(decoder.hasPartialFrame()).isTrue();
+    var event = decodedEvents.get(0);
+    assertThat(event.getDisplayName()).isEqualTo("[1] 1");
+    assertThat(event.isTest()).isTrue();
+    assertThat(event.getSourceMethodFullyQualifiedName()).hasValue("package.TestClass#test(int)");
+
+    decoder.feed(new byte[] {output[output.length - 1]});
+
+    assertThat(decodedEvents).hasSize(2);
+    assertThat(new String(decodedEvents.get(1).getOutput(), StandardCharsets.UTF_8))
+        .isEqualTo("out");
+  }
+
+  @Test
+  public void encode_notSerializableThrowable_replacedKeepingMessage() {
+    var frame =
+        ResultEventCodec.encode(
+            ResultEvent.finished(
+                TEST_IDENTIFIER, TestExecutionResult.failed(new UnserializableException())));
+
+    decoder.feed(frame);
+
+    assertThat(decodedEvents.get(0).getThrowable())
+        .hasValueSatisfying(
+            throwable ->
+                assertThat(throwable)
+                    .hasMessage(UnserializableException.class.getName() + ": not serializable"));
+  }
+
+  private static class UnserializableException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    /** threads cannot be serialized */
+    @SuppressWarnings("unused")
+    private final Thread thread = Thread.currentThread();
+
+    UnserializableException() {
+      super("not serializable");
+    }
+  }
+}
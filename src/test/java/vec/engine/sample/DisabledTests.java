@@ -0,0 +1,14 @@
+package vec.engine.sample;
+
+import org.junit.jupiter.api.*;
+import vec.engine.annotations.Dockerized;
+
+@Dockerized(containerName = "junit-cl", image = "junit-console-launcher")
+public class DisabledTests {
+  @Test
+  @Disabled("not ready")
+  public void disabled_Skipped() {}
+
+  @Test
+  public void simple_Successful() {}
+}
@@ -0,0 +1,25 @@
+package vec.engine.sample;
+
+import java.util.concurrent.Semaphore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import vec.engine.annotations.Dockerized;
+
+public class FailFastTests {
+  /** released when the sleep is interrupted by the kill of the process */
+  public static final Semaphore INTERRUPTED_SLEEPS = new Semaphore(0);
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 2})
+  @Dockerized(containerName = "junit-cl", image = "junit-console-launcher")
+  public void failed_thenSleep(int invocation) throws InterruptedException {
+    Assertions.assertNotEquals(1, invocation, "1 fails");
+    try {
+      Thread.sleep(60_000);
+    } catch (InterruptedException exc) {
+      INTERRUPTED_SLEEPS.release();
+      throw exc;
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package vec.engine.sample;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import vec.engine.annotations.Dockerized;
+
+@Dockerized(
+    containerName = "junit-cl-parameterized",
+    image = "junit-console-launcher",
+    replicas = 2)
+public class ParameterizedReplicatedTests {
+  @ParameterizedTest
+  @ValueSource(ints = {1, 2, 3, 4, 5})
+  public void parameterized_OneFailed(int value) {
+    Assertions.assertNotEquals(4, value, "4 fails");
+  }
+}
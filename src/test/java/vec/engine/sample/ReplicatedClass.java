@@ -0,0 +1,19 @@
+package vec.engine.sample;
+
+import org.junit.jupiter.api.Test;
+import vec.engine.annotations.Dockerized;
+
+@Dockerized(containerName = "junit-cl-replicated", image = "junit-console-launcher", replicas = 2)
+public class ReplicatedClass {
+  @Test
+  public void first_Successful() {}
+
+  @Test
+  public void second_Successful() {}
+
+  @Test
+  public void third_Successful() {}
+
+  @Test
+  public void fourth_Successful() {}
+}
@@ -0,0 +1,16 @@
+package vec.engine.sample;
+
+import org.junit.jupiter.api.*;
+import vec.engine.annotations.Dockerized;
+
+public class TimeoutTests {
+  @Test
+  @Dockerized(containerName = "junit-cl", image = "junit-console-launcher", timeout = "1s")
+  public void sleep_TimedOut() throws InterruptedException {
+    Thread.sleep(60_000);
+  }
+
+  @Test
+  @Dockerized(containerName = "junit-cl1", image = "junit-console-launcher", timeout = "1s")
+  public void simple_Successful() {}
+}
@@ -0,0 +1,64 @@
+package vec.helpers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+public class ExecFrameReaderTest {
+  @Test
+  public void readAll_multiplexedFrames_payloadsSplitByStream() throws Exception {
+    var stream = new ByteArrayOutputStream();
+    stream.writeBytes(frame(1, "out1 "));
+    stream.writeBytes(frame(2, "err"));
+    stream.writeBytes(frame(1, ""));
+    stream.writeBytes(frame(1, "out2"));
+    var standardOutput = new ByteArrayOutputStream();
+    var standardError = new ByteArrayOutputStream();
+
+    new ExecFrameReader(new ByteArrayInputStream(stream.toByteArray()))
+        .readAll(standardOutput::writeBytes, standardError::writeBytes);
+
+    assertThat(standardOutput.toString(StandardCharsets.UTF_8)).isEqualTo("out1 out2");
+    assertThat(standardError.toString(StandardCharsets.UTF_8)).isEqualTo("err");
+  }
+
+  @Test
+  public void readAll_truncatedFrame_throws() {
+    var frame = frame(1, "truncated");
+    var truncatedStream = new ByteArrayInputStream(frame, 0, frame.length - 1);
+
+    assertThatThrownBy(
+            () -> new ExecFrameReader(truncatedStream).readAll(payload -> {}, payload -> {}))
+        .isInstanceOf(EOFException.class);
+  }
+
+  @Test
+  public void newExecExecutor_virtualThreads_runsTasksOnDaemonOrVirtualThreads() throws Exception {
+    var executor = DockerHelper.newExecExecutor(true);
+    try {
+      var thread = CompletableFuture.supplyAsync(Thread::currentThread, executor);
+
+      assertThat(thread.get(5, TimeUnit.SECONDS).isDaemon()).isTrue();
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private static byte[] frame(int streamType, String payload) {
+    var payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+    return ByteBuffer.allocate(8 + payloadBytes.length)
+        .put((byte) streamType)
+        .put(new byte[3])
+        .putInt(payloadBytes.length)
+        .put(payloadBytes)
+        .array();
+  }
+}
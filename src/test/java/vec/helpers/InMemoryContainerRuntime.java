@@ -0,0 +1,272 @@
+package vec.helpers;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import vec.engine.launcher.ContainerLauncher;
+import vec.engine.launcher.LauncherAgent;
+
+/**
+ * fake {@link ContainerRuntime} for the tests of the engine: containers are entries of a map, and
+ * tests are run by a launcher in the JVM of the engine, one run at a time, with
+ * testingEnvironment=docker set while they are running.
+ */
+public class InMemoryContainerRuntime implements ContainerRuntime {
+  private static final Object IN_PROCESS_RUN_LOCK = new Object();
+
+  /** the key is the container id, that is the name of the container */
+  private final Map<String, Container> containers = new ConcurrentHashMap<>();
+  /** the key is the container id, the value is the thread running its tests in process */
+  private final Map<String, Thread> runningThreads = new ConcurrentHashMap<>();
+
+  @Override
+  public String createTestingContainer(
+      String image, String containerName, ResourceLimits resourceLimits) {
+    containers.put(containerName, new Container(false, ""));
+    return containerName;
+  }
+
+  @Override
+  public String createReusableTestingContainer(
+      String image, String containerName, ResourceLimits resourceLimits, String reuseHash) {
+    containers.put(containerName, new Container(true, reuseHash));
+    return containerName;
+  }
+
+  @Override
+  public String computeReuseHash(
+      String image, ResourceLimits resourceLimits, String engineVersion) {
+    return image + ":" + engineVersion;
+  }
+
+  @Override
+  public Optional<String> findReusableContainer(String containerName, String reuseHash) {
+    var container = containers.get(containerName);
+    if (container == null) return Optional.empty();
+
+    if (!container.reusable || !container.reuseHash.equals(reuseHash)) {
+      containers.remove(containerName);
+      return Optional.empty();
+    }
+
+    return Optional.of(containerName);
+  }
+
+  @Override
+  public Map<String, Long> listReusableContainers() {
+    return containers.entrySet().stream()
+        .filter(container -> container.getValue().reusable)
+        .collect(Collectors.toMap(Map.Entry::getKey, container -> container.getValue().created));
+  }
+
+  @Override
+  public void startContainer(String containerId) {
+    getContainer(containerId);
+  }
+
+  @Override
+  public void stopTestingContainer(String containerId) {
+    if (!getContainer(containerId).reusable) containers.remove(containerId);
+  }
+
+  @Override
+  public void removeTestingContainer(String containerId) {
+    containers.remove(containerId);
+  }
+
+  @Override
+  public void copyArchiveToContainer(String containerId, Path tarArchive) {
+    var container = getContainer(containerId);
+    try (var tarInputStream = new TarArchiveInputStream(Files.newInputStream(tarArchive))) {
+      for (var entry = tarInputStream.getNextTarEntry();
+          entry != null;
+          entry = tarInputStream.getNextTarEntry()) container.files.add(entry.getName());
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
+    }
+  }
+
+  @Override
+  public void removeFilesFromContainer(String containerId, List<String> relativePaths) {
+    getContainer(containerId).files.removeAll(relativePaths);
+  }
+
+  @Override
+  public Closeable runTestsInsideContainer(
+      String containerId, List<String> methodFullyQualifiedNames, ResultEventHandler handler) {
+    getContainer(containerId);
+    var decoder = new ResultStreamDecoder(handler);
+    var run =
+        new Thread(
+            () -> {
+              try {
+                runInProcess(containerId, methodFullyQualifiedNames, decoder);
+                decoder.onComplete();
+              } catch (Throwable t) {
+                decoder.onError(t);
+              }
+            },
+            "in-memory-" + containerId);
+    run.setDaemon(true);
+    run.start();
+
+    return () -> {};
+  }
+
+  /** the agent reads the runs from a pipe, like the {@link LauncherAgent} reads its stdin */
+  @Override
+  public LauncherAgentSession startLauncherAgent(String containerId) {
+    getContainer(containerId);
+    try {
+      var agentInput = Pipe.open();
+      var session =
+          new LauncherAgentSession(containerId, Channels.newOutputStream(agentInput.sink()));
+      var agent =
+          new Thread(
+              () -> {
+                try {
+                  serve(
+                      containerId,
+                      Channels.newInputStream(agentInput.source()),
+                      session.getOutputDecoder());
+                  session.getOutputDecoder().onComplete();
+                } catch (Throwable t) {
+                  session.getOutputDecoder().onError(t);
+                }
+              },
+              "in-memory-agent-" + containerId);
+      agent.setDaemon(true);
+      agent.start();
+
+      return session;
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
+    }
+  }
+
+  private void serve(String containerId, InputStream agentInput, ResultStreamDecoder decoder)
+      throws IOException {
+    var reader = new BufferedReader(new InputStreamReader(agentInput, StandardCharsets.UTF_8));
+    String methodFullyQualifiedNames;
+    while ((methodFullyQualifiedNames = reader.readLine()) != null
+        && !methodFullyQualifiedNames.isBlank()) {
+      runInProcess(
+          containerId,
+          List.of(methodFullyQualifiedNames.trim().split(LauncherAgent.SELECTOR_SEPARATOR)),
+          decoder);
+    }
+  }
+
+  private void runInProcess(
+      String containerId, List<String> methodFullyQualifiedNames, ResultStreamDecoder decoder) {
+    var resultChannel =
+        new OutputStream() {
+          @Override
+          public void write(int b) {
+            decoder.onStandardOutput(new byte[] {(byte) b});
+          }
+
+          @Override
+          public void write(byte[] b, int off, int len) {
+            decoder.onStandardOutput(Arrays.copyOfRange(b, off, off + len));
+          }
+        };
+
+    synchronized (IN_PROCESS_RUN_LOCK) {
+      var testingEnvironment = System.getProperty("testingEnvironment");
+      System.setProperty("testingEnvironment", "docker");
+      runningThreads.put(containerId, Thread.currentThread());
+      try {
+        ContainerLauncher.run(methodFullyQualifiedNames, resultChannel);
+      } finally {
+        runningThreads.remove(containerId, Thread.currentThread());
+        if (testingEnvironment == null) System.clearProperty("testingEnvironment");
+        else System.setProperty("testingEnvironment", testingEnvironment);
+      }
+    }
+  }
+
+  /**
+   * the pid is the one of the engine JVM, the thread running the tests of the container is
+   * interrupted instead. The launcher can clear the interrupt between two tests, so the thread is
+   * interrupted again until its run has ended, like a killed process does not run any other test.
+   */
+  @Override
+  public void killProcess(String containerId, long processId) {
+    var runningThread = runningThreads.get(containerId);
+    if (runningThread == null) return;
+
+    var kill =
+        new Thread(
+            () -> {
+              while (runningThreads.get(containerId) == runningThread) {
+                runningThread.interrupt();
+                try {
+                  Thread.sleep(10);
+                } catch (InterruptedException exc) {
+                  return;
+                }
+              }
+            },
+            "in-memory-kill-" + containerId);
+    kill.setDaemon(true);
+    kill.start();
+  }
+
+  @Override
+  public Optional<ContainerStats> getStats(String containerId) {
+    return Optional.empty();
+  }
+
+  @Override
+  public Optional<ImageDetails> inspectImage(String image) {
+    return Optional.of(new ImageDetails(image, ""));
+  }
+
+  @Override
+  public void pullImage(String image) {}
+
+  @Override
+  public String buildImage(Path buildContext, String tag) {
+    return tag;
+  }
+
+  private Container getContainer(String containerId) {
+    var container = containers.get(containerId);
+    if (container == null)
+      throw new IllegalStateException(String.format("container %s does not exist", containerId));
+
+    return container;
+  }
+
+  private static class Container {
+    private final boolean reusable;
+    private final String reuseHash;
+    private final long created = Instant.now().getEpochSecond();
+    /** paths of the files copied in the container */
+    private final Set<String> files = ConcurrentHashMap.newKeySet();
+
+    private Container(boolean reusable, String reuseHash) {
+      this.reusable = reusable;
+      this.reuseHash = reuseHash;
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package vec.helpers;
+
+import java.nio.file.Path;
+
+/** provides the {@link InMemoryContainerRuntime}, registered in the test resources */
+public class InMemoryRuntimeProvider implements ContainerRuntimeProvider {
+  public static final String NAME = "in-memory";
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public ContainerRuntime create(
+      boolean bindMountClasspath, Path projectDirectory, Path workDirectory) {
+    return new InMemoryContainerRuntime();
+  }
+}
@@ -0,0 +1,145 @@
+package vec.helpers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class MultiEndpointRuntimeTest {
+
+  @Test
+  public void createTestingContainer_weightedEndpoints_containersSplitByWeight() {
+    var runtime =
+        new MultiEndpointRuntime(
+            List.of(
+                new MultiEndpointRuntime.Endpoint("a", new InMemoryContainerRuntime(), 2),
+                new MultiEndpointRuntime.Endpoint("b", new InMemoryContainerRuntime(), 1)));
+
+    for (int i = 0; i < 6; i++)
+      runtime.createTestingContainer("image", "container" + i, ResourceLimits.NONE);
+
+    assertThat(runtime.getPlacedContainers()).isEqualTo(Map.of("a", 4, "b", 2));
+  }
+
+  @Test
+  public void startContainer_placedContainer_routedToItsEndpoint() {
+    var firstRuntime = new InMemoryContainerRuntime();
+    var secondRuntime = new InMemoryContainerRuntime();
+    var runtime =
+        new MultiEndpointRuntime(
+            List.of(
+                new MultiEndpointRuntime.Endpoint("a", firstRuntime, 1),
+                new MultiEndpointRuntime.Endpoint("b", secondRuntime, 1)));
+
+    runtime.createReusableTestingContainer("image", "container0", ResourceLimits.NONE, "hash");
+    runtime.createReusableTestingContainer("image", "container1", ResourceLimits.NONE, "hash");
+    runtime.startContainer("container1");
+
+    assertThat(firstRuntime.listReusableContainers()).containsOnlyKeys("container0");
+    assertThat(secondRuntime.listReusableContainers()).containsOnlyKeys("container1");
+    assertThat(runtime.findReusableContainer("container1", "hash")).contains("container1");
+  }
+
+  @Test
+  public void createTestingContainer_unreachableEndpoint_placedOnHealthyOnes() {
+    var runtime =
+        new MultiEndpointRuntime(
+            List.of(
+                new MultiEndpointRuntime.Endpoint("down", new UnreachableRuntime(), 1),
+                new MultiEndpointRuntime.Endpoint("up", new InMemoryContainerRuntime(), 1)));
+
+    for (int i = 0; i < 3; i++)
+      runtime.createTestingContainer("image", "container" + i, ResourceLimits.NONE);
+
+    assertThat(runtime.getUnhealthyEndpoints()).containsExactly("down");
+    assertThat(runtime.getPlacedContainers()).isEqualTo(Map.of("down", 0, "up", 3));
+  }
+
+  @Test
+  public void createTestingContainer_noReachableEndpoint_creationFailureThrown() {
+    var runtime =
+        new MultiEndpointRuntime(
+            List.of(new MultiEndpointRuntime.Endpoint("down", new UnreachableRuntime(), 1)));
+
+    assertThatThrownBy(
+            () -> runtime.createTestingContainer("image", "container", ResourceLimits.NONE))
+        .hasMessage("daemon down");
+    assertThatThrownBy(
+            () -> runtime.createTestingContainer("image", "container", ResourceLimits.NONE))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("down");
+  }
+
+  @Test
+  public void stopTestingContainer_placedContainer_loadReleased() {
+    var runtime =
+        new MultiEndpointRuntime(
+            List.of(
+                new MultiEndpointRuntime.Endpoint("a", new InMemoryContainerRuntime(), 1),
+                new MultiEndpointRuntime.Endpoint("b", new InMemoryContainerRuntime(), 1)));
+
+    runtime.createTestingContainer("image", "container0", ResourceLimits.NONE);
+    runtime.createTestingContainer("image", "container1", ResourceLimits.NONE);
+    runtime.stopTestingContainer("container0");
+    runtime.createTestingContainer("image", "container2", ResourceLimits.NONE);
+
+    assertThat(runtime.getPlacedContainers()).isEqualTo(Map.of("a", 1, "b", 1));
+  }
+
+  @Test
+  public void close_endpointFailsToClose_otherEndpointsClosed() {
+    var closedEndpoints = new ArrayList<String>();
+    var runtime =
+        new MultiEndpointRuntime(
+            List.of(
+                new MultiEndpointRuntime.Endpoint(
+                    "a",
+                    new InMemoryContainerRuntime() {
+                      @Override
+                      public void close() {
+                        throw new IllegalStateException("close failed");
+                      }
+                    },
+                    1),
+                new MultiEndpointRuntime.Endpoint(
+                    "b",
+                    new InMemoryContainerRuntime() {
+                      @Override
+                      public void close() {
+                        closedEndpoints.add("b");
+                      }
+                    },
+                    1)));
+
+    assertThatThrownBy(runtime::close).hasMessage("close failed");
+    assertThat(closedEndpoints).containsExactly("b");
+  }
+
+  @Test
+  public void parseList_hostsWithAndWithoutWeight_defaultWeightIsOne() {
+    var endpoints =
+        DockerEndpoint.parseList("unix:///run/user/1000/docker.sock=2, tcp://10.0.0.2:2375");
+
+    assertThat(endpoints)
+        .extracting(DockerEndpoint::toString)
+        .containsExactly("unix:///run/user/1000/docker.sock=2", "tcp://10.0.0.2:2375=1");
+    assertThatThrownBy(() -> DockerEndpoint.parseList("tcp://10.0.0.2:2375=x"))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static class UnreachableRuntime extends InMemoryContainerRuntime {
+    @Override
+    public String createTestingContainer(
+        String image, String containerName, ResourceLimits resourceLimits) {
+      throw new IllegalStateException("daemon down");
+    }
+
+    @Override
+    public boolean isReachable() {
+      return false;
+    }
+  }
+}